@@ -0,0 +1,97 @@
+package com.walmart.ticketservice.benchmark;
+
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * Minimal micro benchmark harness
+ * Runs an operation for a warm up period so the JIT compiles it, then times it over several measurement
+ * rounds and reports the fastest and the median round. Every operation returns a value that is
+ * folded into a sink, so the JIT cannot drop the work as dead code
+ * @author bkulkar
+ *
+ */
+public class Benchmark {
+
+	private final long warmupMillis;
+	private final int rounds;
+	private final long roundMillis;
+	/**
+	 * Values returned by the operations, printed once so they are never unused
+	 */
+	private long sink;
+
+	/**
+	 * @param warmupMillis time spent warming up every operation
+	 * @param rounds number of measurement rounds
+	 * @param roundMillis length of a measurement round
+	 */
+	public Benchmark(long warmupMillis, int rounds, long roundMillis) {
+		this.warmupMillis = warmupMillis;
+		this.rounds = rounds;
+		this.roundMillis = roundMillis;
+	}
+
+	/**
+	 * Result of benchmarking an operation
+	 */
+	public static class Result {
+		private final double bestNanosPerOp;
+		private final double medianNanosPerOp;
+
+		public Result(double bestNanosPerOp, double medianNanosPerOp) {
+			this.bestNanosPerOp = bestNanosPerOp;
+			this.medianNanosPerOp = medianNanosPerOp;
+		}
+
+		public double getBestNanosPerOp() {
+			return bestNanosPerOp;
+		}
+
+		public double getMedianNanosPerOp() {
+			return medianNanosPerOp;
+		}
+	}
+
+	/**
+	 * Benchmarks an operation
+	 * @param operation
+	 * @return result
+	 */
+	public Result run(LongSupplier operation) {
+		runFor(operation, warmupMillis);
+		double[] nanosPerOp = new double[rounds];
+		for (int i = 0; i < rounds; i++) {
+			nanosPerOp[i] = runFor(operation, roundMillis);
+		}
+		Arrays.sort(nanosPerOp);
+		return new Result(nanosPerOp[0], nanosPerOp[rounds / 2]);
+	}
+
+	/**
+	 * Runs the operation over and over for the given time
+	 * @param operation
+	 * @param millis
+	 * @return average time per operation in nanoseconds
+	 */
+	private double runFor(LongSupplier operation, long millis) {
+		long start = System.nanoTime();
+		long end = start + millis * 1000000L;
+		long ops = 0;
+		long now;
+		do {
+			sink += operation.getAsLong();
+			++ops;
+			now = System.nanoTime();
+		} while (now < end);
+		return (double) (now - start) / ops;
+	}
+
+	/**
+	 * @return folded results of all operations run
+	 */
+	public long getSink() {
+		return sink;
+	}
+
+}
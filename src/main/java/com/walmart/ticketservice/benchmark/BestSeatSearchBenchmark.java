@@ -0,0 +1,67 @@
+package com.walmart.ticketservice.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import com.walmart.ticketservice.model.SeatRowBlock;
+import com.walmart.ticketservice.model.Venue;
+import com.walmart.ticketservice.scoring.CenterWeightedScoreFunction;
+import com.walmart.ticketservice.scoring.RowDepthDecayScoreFunction;
+import com.walmart.ticketservice.service.BestSeatSearch;
+
+/**
+ * Compares the sequential and the fork/join global best seat search for growing numbers of free blocks,
+ * to find the number of blocks from which the parallel search pays off (the parallel search threshold)
+ * Rows are split into blocks of a few seats each, as in a venue well into an on-sale
+ *
+ * Run with
+ *   mvn exec:java -Dexec.mainClass=com.walmart.ticketservice.benchmark.BestSeatSearchBenchmark
+ * @author bkulkar
+ *
+ */
+public class BestSeatSearchBenchmark {
+
+	private static final int SEATS_PER_ROW = 40;
+	private static final int SEATS_PER_BLOCK = 10;
+	private static final int NUM_SEATS = 4;
+	private static final int[] BLOCK_COUNTS = { 64, 256, 512, 1024, 2048, 4096, 8192, 16384, 65536 };
+
+	public static void main(String[] args) {
+
+		Benchmark benchmark = new Benchmark(500, 5, 200);
+		System.out.println("Common pool parallelism: " + ForkJoinPool.commonPool().getParallelism());
+		System.out.printf("%10s %18s %18s %10s%n", "blocks", "sequential (us)", "fork/join (us)", "speedup");
+
+		for (int blockCount : BLOCK_COUNTS) {
+			int numOfRows = blockCount * SEATS_PER_BLOCK / SEATS_PER_ROW;
+			Venue venue = new Venue(numOfRows, SEATS_PER_ROW, new RowDepthDecayScoreFunction(new CenterWeightedScoreFunction(), 0.0001f));
+			SeatRowBlock[] blocks = fragment(venue);
+
+			Benchmark.Result sequential = benchmark.run(
+					() -> BestSeatSearch.find(venue, blocks, NUM_SEATS, Integer.MAX_VALUE).getBlockIndex());
+			Benchmark.Result parallel = benchmark.run(
+					() -> BestSeatSearch.find(venue, blocks, NUM_SEATS, 0).getBlockIndex());
+
+			System.out.printf("%10d %18.1f %18.1f %10.2f%n", blocks.length, sequential.getMedianNanosPerOp() / 1000,
+					parallel.getMedianNanosPerOp() / 1000, sequential.getMedianNanosPerOp() / parallel.getMedianNanosPerOp());
+		}
+		System.out.println("(sink " + benchmark.getSink() + ")");
+	}
+
+	/**
+	 * Splits every row of the venue into blocks of a few seats, sorted by row
+	 * @param venue
+	 * @return blocks
+	 */
+	private static SeatRowBlock[] fragment(Venue venue) {
+		List<SeatRowBlock> blocks = new ArrayList<>();
+		venue.getAvailableSeatRows().stream().sorted().forEach(seatRow -> {
+			for (int i = 0; i < seatRow.getAvailableSeats(); i += SEATS_PER_BLOCK) {
+				blocks.add(new SeatRowBlock(seatRow.getRowId(), seatRow.getSeats().subList(i, i + SEATS_PER_BLOCK)));
+			}
+		});
+		return blocks.toArray(new SeatRowBlock[blocks.size()]);
+	}
+
+}
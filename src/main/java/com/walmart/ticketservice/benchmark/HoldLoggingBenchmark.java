@@ -0,0 +1,84 @@
+package com.walmart.ticketservice.benchmark;
+
+import java.util.Collections;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.walmart.ticketservice.common.utils.LogSampler;
+import com.walmart.ticketservice.exception.ApplicationException;
+import com.walmart.ticketservice.model.SeatHold;
+import com.walmart.ticketservice.model.Venue;
+import com.walmart.ticketservice.service.TicketServiceImpl;
+
+/**
+ * Measures what logging adds to a seat hold and a reservation
+ * Compares the log statements of a hold and a reservation written with eagerly concatenated messages
+ * at INFO (as the hot path used to log) with the parameterized, guarded and sampled statements it logs now,
+ * next to the cost of a whole hold and release, all with the logging backend on the class path
+ *
+ * Run with
+ *   mvn exec:java -Dexec.mainClass=com.walmart.ticketservice.benchmark.HoldLoggingBenchmark
+ * @author bkulkar
+ *
+ */
+public class HoldLoggingBenchmark {
+
+	private static final Logger logger = LoggerFactory.getLogger(HoldLoggingBenchmark.class);
+
+	public static void main(String[] args) throws ApplicationException {
+
+		Benchmark benchmark = new Benchmark(1000, 5, 300);
+		SeatHold seatHold = new SeatHold(12, Collections.emptyList(), System.currentTimeMillis(), "customer@yahoo.com", 123456);
+		String confirmationCode = "AB12CD34";
+		LogSampler sampler = new LogSampler(100);
+
+		Benchmark.Result eager = benchmark.run(() -> {
+			logger.info("Validating request parameters before finding best seats");
+			logger.info("Validation successful. Continue finding best seats");
+			logger.info("Calculating scores for first " + 4 + " seats in row " + seatHold.getRowNum());
+			logger.info("Finding best seats with max scores");
+			logger.info("Seat hold #" + seatHold.getSeatHoldId() + " of " + 4 + " seats in row " + seatHold.getRowNum());
+			logger.info("Validating request parameters before reserving seats");
+			logger.info("Validation successful. Continue reserving seats");
+			logger.info("Seats successfully reserved. Confirmation code : " + confirmationCode);
+			return seatHold.getSeatHoldId();
+		});
+
+		Benchmark.Result lazy = benchmark.run(() -> {
+			logger.debug("Validating request parameters before finding best seats");
+			logger.debug("Validation successful. Continue finding best seats");
+			logger.debug("Finding best seats with max scores");
+			if (logger.isInfoEnabled() && sampler.sample()) {
+				logger.info("Seat hold #{} of {} seats in row {}", seatHold.getSeatHoldId(), 4, seatHold.getRowNum());
+			}
+			logger.debug("Validating request parameters before reserving seats");
+			logger.debug("Validation successful. Continue reserving seats");
+			if (logger.isInfoEnabled() && sampler.sample()) {
+				logger.info("Seats successfully reserved for seat hold #{}. Confirmation code : {}", seatHold.getSeatHoldId(), confirmationCode);
+			}
+			return seatHold.getSeatHoldId();
+		});
+
+		TicketServiceImpl service = new TicketServiceImpl(new Venue(20, 40));
+		service.setRequestLogSampling(100);
+		Benchmark.Result holdAndRelease = benchmark.run(() -> {
+			try {
+				SeatHold held = service.findAndHoldSeats(4, "customer@yahoo.com");
+				service.releaseHolds(Collections.singletonList(held.getSeatHoldId()));
+				return held.getSeatHoldId();
+			} catch (ApplicationException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		service.shutdown();
+
+		System.out.println("INFO enabled: " + logger.isInfoEnabled());
+		System.out.printf("%40s %10s%n", "", "ns/op");
+		System.out.printf("%40s %10.1f%n", "eager logging of a hold and reservation", eager.getMedianNanosPerOp());
+		System.out.printf("%40s %10.1f%n", "guarded logging of a hold and reservation", lazy.getMedianNanosPerOp());
+		System.out.printf("%40s %10.1f%n", "hold and release", holdAndRelease.getMedianNanosPerOp());
+		System.out.println("(sink " + benchmark.getSink() + ")");
+	}
+
+}
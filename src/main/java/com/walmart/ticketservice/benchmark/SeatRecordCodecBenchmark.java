@@ -0,0 +1,194 @@
+package com.walmart.ticketservice.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.walmart.ticketservice.codec.SeatRecordCodec;
+import com.walmart.ticketservice.model.Seat;
+import com.walmart.ticketservice.model.SeatHold;
+import com.walmart.ticketservice.model.Venue;
+
+/**
+ * Compares a round trip (encode and decode) of a seat hold through the binary seat record codec,
+ * Java serialization and JSON, and the size of the encoded seat hold
+ * Java serialization and JSON write the seat hold the way a generic serializer would, seat by seat with
+ * every field of every seat
+ *
+ * Run with
+ *   mvn exec:java -Dexec.mainClass=com.walmart.ticketservice.benchmark.SeatRecordCodecBenchmark
+ * @author bkulkar
+ *
+ */
+public class SeatRecordCodecBenchmark {
+
+	private static final int NUM_SEATS = 6;
+
+	/**
+	 * Seat as written by Java serialization
+	 */
+	private static class SerializedSeat implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private final int id;
+		private final float score;
+		private final int rowNum;
+
+		SerializedSeat(Seat seat) {
+			this.id = seat.getId();
+			this.score = seat.getScore();
+			this.rowNum = seat.getRowNum();
+		}
+	}
+
+	/**
+	 * Seat hold as written by Java serialization
+	 */
+	private static class SerializedSeatHold implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private final int seatHoldId;
+		private final int rowNum;
+		private final long timeCreated;
+		private final long expiryTime;
+		private final String custEmailId;
+		private final ArrayList<SerializedSeat> seatsHeld = new ArrayList<>();
+
+		SerializedSeatHold(SeatHold seatHold) {
+			this.seatHoldId = seatHold.getSeatHoldId();
+			this.rowNum = seatHold.getRowNum();
+			this.timeCreated = seatHold.getTimeCreated();
+			this.expiryTime = seatHold.getExpiryTime();
+			this.custEmailId = seatHold.getCustEmailId();
+			for (Seat seat : seatHold.getSeatsHeld()) {
+				seatsHeld.add(new SerializedSeat(seat));
+			}
+		}
+
+		SeatHold toSeatHold() {
+			List<Seat> seats = new ArrayList<>(seatsHeld.size());
+			for (SerializedSeat seat : seatsHeld) {
+				seats.add(new Seat(seat.id, seat.score, seat.rowNum));
+			}
+			SeatHold seatHold = new SeatHold(rowNum, seats, timeCreated, custEmailId, seatHoldId);
+			seatHold.setExpiryTime(expiryTime);
+			return seatHold;
+		}
+	}
+
+	public static void main(String[] args) {
+
+		Venue venue = new Venue(100, 50);
+		List<Seat> seats = new ArrayList<>();
+		for (int i = 0; i < NUM_SEATS; i++) {
+			seats.add(new Seat(20 + i, venue.getSectionForRow(42).getScore(42, 20 + i), 42));
+		}
+		SeatHold seatHold = new SeatHold(42, seats, 1700000000000L, "customer1234@yahoo.com", 1234567);
+		seatHold.setExpiryTime(seatHold.getTimeCreated() + 60000);
+
+		SeatRecordCodec codec = new SeatRecordCodec(venue);
+		ByteBuffer buffer = ByteBuffer.allocate(256);
+
+		Benchmark benchmark = new Benchmark(1000, 5, 300);
+		Benchmark.Result binary = benchmark.run(() -> {
+			buffer.clear();
+			codec.encodeSeatHold(seatHold, buffer);
+			buffer.flip();
+			return codec.decodeSeatHold(buffer).getSeatsHeld().size();
+		});
+		Benchmark.Result serialization = benchmark.run(() -> javaDeserialize(javaSerialize(seatHold)).getSeatsHeld().size());
+		Benchmark.Result json = benchmark.run(() -> fromJson(toJson(seatHold)).getSeatsHeld().size());
+
+		buffer.clear();
+		codec.encodeSeatHold(seatHold, buffer);
+		System.out.printf("Seat hold of %d seats%n", NUM_SEATS);
+		System.out.printf("%22s %16s %13s%n", "", "round trip (ns)", "size (bytes)");
+		System.out.printf("%22s %16.0f %13d%n", "binary codec", binary.getMedianNanosPerOp(), buffer.position());
+		System.out.printf("%22s %16.0f %13d%n", "Java serialization", serialization.getMedianNanosPerOp(), javaSerialize(seatHold).length);
+		System.out.printf("%22s %16.0f %13d%n", "JSON", json.getMedianNanosPerOp(), toJson(seatHold).length);
+		System.out.println("(sink " + benchmark.getSink() + ")");
+	}
+
+	private static byte[] javaSerialize(SeatHold seatHold) {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+				out.writeObject(new SerializedSeatHold(seatHold));
+			}
+			return bytes.toByteArray();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static SeatHold javaDeserialize(byte[] bytes) {
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+			return ((SerializedSeatHold) in.readObject()).toSeatHold();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (ClassNotFoundException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static byte[] toJson(SeatHold seatHold) {
+		StringBuilder json = new StringBuilder(256);
+		json.append("{\"seatHoldId\":").append(seatHold.getSeatHoldId())
+			.append(",\"rowNum\":").append(seatHold.getRowNum())
+			.append(",\"timeCreated\":").append(seatHold.getTimeCreated())
+			.append(",\"expiryTime\":").append(seatHold.getExpiryTime())
+			.append(",\"custEmailId\":\"").append(seatHold.getCustEmailId())
+			.append("\",\"seatsHeld\":[");
+		List<Seat> seats = seatHold.getSeatsHeld();
+		for (int i = 0; i < seats.size(); i++) {
+			Seat seat = seats.get(i);
+			json.append(i == 0 ? "{" : ",{").append("\"id\":").append(seat.getId())
+				.append(",\"score\":").append(seat.getScore())
+				.append(",\"rowNum\":").append(seat.getRowNum()).append('}');
+		}
+		return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Reads back the JSON written by toJson, fields in the order they were written
+	 */
+	private static SeatHold fromJson(byte[] bytes) {
+		String json = new String(bytes, StandardCharsets.UTF_8);
+		int[] position = { 0 };
+		int seatHoldId = (int) Long.parseLong(value(json, "seatHoldId", position));
+		int rowNum = Integer.parseInt(value(json, "rowNum", position));
+		long timeCreated = Long.parseLong(value(json, "timeCreated", position));
+		long expiryTime = Long.parseLong(value(json, "expiryTime", position));
+		String email = value(json, "custEmailId", position);
+		List<Seat> seats = new ArrayList<>();
+		while (json.indexOf("\"id\":", position[0]) >= 0) {
+			int id = Integer.parseInt(value(json, "id", position));
+			float score = Float.parseFloat(value(json, "score", position));
+			seats.add(new Seat(id, score, Integer.parseInt(value(json, "rowNum", position))));
+		}
+		SeatHold seatHold = new SeatHold(rowNum, seats, timeCreated, email, seatHoldId);
+		seatHold.setExpiryTime(expiryTime);
+		return seatHold;
+	}
+
+	private static String value(String json, String key, int[] position) {
+		int start = json.indexOf("\"" + key + "\":", position[0]) + key.length() + 3;
+		boolean quoted = json.charAt(start) == '"';
+		if (quoted) {
+			start++;
+		}
+		int end = start;
+		while (quoted ? json.charAt(end) != '"' : json.charAt(end) != ',' && json.charAt(end) != '}') {
+			end++;
+		}
+		position[0] = end;
+		return json.substring(start, end);
+	}
+
+}
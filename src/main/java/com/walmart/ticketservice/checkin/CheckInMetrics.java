@@ -0,0 +1,130 @@
+package com.walmart.ticketservice.checkin;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.walmart.ticketservice.common.time.TimeSource;
+
+/**
+ * Counters of ticket scans at the gates
+ * Scans per second are counted in a ring of one bucket per second of the last minute. A bucket is a single word
+ * packing the second it counts (upper bits) and the number of scans in it (lower bits), so a scan moving a bucket
+ * on to a new second and scans counted in it never lose each other's updates
+ * @author bkulkar
+ *
+ */
+public class CheckInMetrics {
+
+	/**
+	 * Number of seconds the scan rate is kept for
+	 */
+	public static final int WINDOW_SECONDS = 60;
+	private static final int COUNT_BITS = 24;
+	private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+	private final TimeSource timeSource;
+	private final LongAdder admitted = new LongAdder();
+	private final LongAdder duplicates = new LongAdder();
+	private final LongAdder superseded = new LongAdder();
+	private final LongAdder unknown = new LongAdder();
+	private final AtomicLongArray buckets = new AtomicLongArray(WINDOW_SECONDS);
+
+	public CheckInMetrics(TimeSource timeSource) {
+		this.timeSource = timeSource;
+	}
+
+	/**
+	 * @param status outcome of a scan
+	 */
+	void record(ScanStatus status) {
+		switch (status) {
+		case ADMITTED:
+			admitted.increment();
+			break;
+		case DUPLICATE:
+			duplicates.increment();
+			break;
+		case SUPERSEDED:
+			superseded.increment();
+			break;
+		default:
+			unknown.increment();
+		}
+
+		long second = timeSource.currentTimeMillis() / 1000;
+		int index = (int) (second % WINDOW_SECONDS);
+		while (true) {
+			long bucket = buckets.get(index);
+			long next;
+			if (bucket >>> COUNT_BITS == second) {
+				if ((bucket & COUNT_MASK) == COUNT_MASK) {
+					return;
+				}
+				next = bucket + 1;
+			} else if (bucket >>> COUNT_BITS < second) {
+				next = second << COUNT_BITS | 1;
+			} else {
+				//a scan of a later second already took the bucket over
+				return;
+			}
+			if (buckets.compareAndSet(index, bucket, next)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * @return number of reservations checked in
+	 */
+	public long getAdmitted() {
+		return admitted.sum();
+	}
+
+	public long getDuplicates() {
+		return duplicates.sum();
+	}
+
+	/**
+	 * @return number of late offline scans that moved a check-in to an earlier time
+	 */
+	public long getSuperseded() {
+		return superseded.sum();
+	}
+
+	public long getUnknown() {
+		return unknown.sum();
+	}
+
+	public long getScans() {
+		return admitted.sum() + duplicates.sum() + superseded.sum() + unknown.sum();
+	}
+
+	/**
+	 * @return share of scans that were of tickets already used, 0 before the first scan
+	 */
+	public double getDuplicateRate() {
+		long scans = getScans();
+		return scans == 0 ? 0 : (double) duplicates.sum() / scans;
+	}
+
+	/**
+	 * Average number of scans per second over the last complete seconds, the current second not being over yet
+	 * @param seconds number of seconds, at most {@link #WINDOW_SECONDS} - 1
+	 * @return scans per second
+	 */
+	public double getScansPerSecond(int seconds) {
+		if (seconds < 1 || seconds >= WINDOW_SECONDS) {
+			throw new IllegalArgumentException("Scan rate is kept for the last " + (WINDOW_SECONDS - 1) + " seconds");
+		}
+		long now = timeSource.currentTimeMillis() / 1000;
+		long scans = 0;
+		for (long second = now - seconds; second < now; second++) {
+			long bucket = buckets.get((int) (second % WINDOW_SECONDS));
+			if (bucket >>> COUNT_BITS == second) {
+				scans += bucket & COUNT_MASK;
+			}
+		}
+		return (double) scans / seconds;
+	}
+
+}
@@ -0,0 +1,160 @@
+package com.walmart.ticketservice.checkin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.walmart.ticketservice.model.Seat;
+import com.walmart.ticketservice.service.TicketServiceImpl;
+
+/**
+ * Checks reservations in at the gates by confirmation code, admitting every reservation exactly once
+ * The check-in state of a reservation is a single word packing whether it is checked in (top bit), the gate it was
+ * checked in at and the time of the scan, 0 while it is not checked in. A scan moves the word from 0 to its own
+ * value with a compare-and-set, so of any number of gates scanning a ticket at once exactly one admits it and the
+ * others see where and when it was used. Scans of tickets already used are answered from the state alone,
+ * without looking the reservation up.
+ * Scans uploaded late by offline gate devices carry the time they were made. The earliest scan of a reservation
+ * is its check-in of record, so a late scan made before the one recorded replaces its gate and time. The ticket
+ * was already admitted, so such a scan is reported as superseded rather than admitted a second time
+ *
+ * Check-in state is kept for reservations cancelled after they were checked in
+ * @author bkulkar
+ *
+ */
+public class CheckInService {
+
+	private static final Logger logger = LoggerFactory.getLogger(CheckInService.class);
+
+	private static final long CHECKED_IN = 1L << 63;
+	private static final int GATE_SHIFT = 48;
+	private static final long TIME_MASK = (1L << GATE_SHIFT) - 1;
+	/**
+	 * Largest gate id that fits the state word
+	 */
+	public static final int MAX_GATE = (1 << 15) - 1;
+
+	private final TicketServiceImpl ticketService;
+	/**
+	 * Check-in state by confirmation code, only for reservations scanned at least once
+	 */
+	private final ConcurrentHashMap<String, AtomicLong> states = new ConcurrentHashMap<>();
+	private final CheckInMetrics metrics;
+
+	public CheckInService(TicketServiceImpl ticketService) {
+		this.ticketService = ticketService;
+		this.metrics = new CheckInMetrics(ticketService.getTimeSource());
+	}
+
+	static long pack(int gateId, long scannedAtMillis) {
+		return CHECKED_IN | (long) gateId << GATE_SHIFT | scannedAtMillis & TIME_MASK;
+	}
+
+	static int gateOf(long state) {
+		return (int) ((state & ~CHECKED_IN) >>> GATE_SHIFT);
+	}
+
+	static long timeOf(long state) {
+		return state & TIME_MASK;
+	}
+
+	/**
+	 * Scans a ticket at a gate now
+	 * @param confirmationCode
+	 * @param gateId between 0 and {@link #MAX_GATE}
+	 * @return result of the scan
+	 */
+	public ScanResult scan(String confirmationCode, int gateId) {
+		return scan(confirmationCode, gateId, ticketService.getTimeSource().currentTimeMillis());
+	}
+
+	/**
+	 * Scans tickets uploaded by a gate device, e.g. once it is back online
+	 * Scans are applied in the order they were made, so the first scan of a ticket in the batch is the one admitted
+	 * @param scans
+	 * @return results in the order of the scans given
+	 */
+	public List<ScanResult> scanBatch(List<GateScan> scans) {
+		GateScan[] ordered = scans.toArray(new GateScan[scans.size()]);
+		Integer[] order = new Integer[ordered.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, Comparator.comparingLong(i -> ordered[i].getScannedAtMillis()));
+
+		ScanResult[] results = new ScanResult[ordered.length];
+		for (int i : order) {
+			GateScan scan = ordered[i];
+			results[i] = scan(scan.getConfirmationCode(), scan.getGateId(), scan.getScannedAtMillis());
+		}
+		return new ArrayList<>(Arrays.asList(results));
+	}
+
+	private ScanResult scan(String confirmationCode, int gateId, long scannedAtMillis) {
+		if (gateId < 0 || gateId > MAX_GATE) {
+			throw new IllegalArgumentException("Gate id should be between 0 and " + MAX_GATE);
+		}
+		if (scannedAtMillis <= 0 || scannedAtMillis > TIME_MASK) {
+			throw new IllegalArgumentException("Scan time " + scannedAtMillis + " is out of range");
+		}
+
+		AtomicLong state = confirmationCode == null ? null : states.get(confirmationCode);
+		if (state != null) {
+			long current = state.get();
+			if (current != 0 && timeOf(current) <= scannedAtMillis) {
+				return duplicate(confirmationCode, current);
+			}
+		}
+
+		List<Seat> seats = ticketService.findReservedSeats(confirmationCode);
+		if (seats == null) {
+			metrics.record(ScanStatus.UNKNOWN);
+			return new ScanResult(confirmationCode, ScanStatus.UNKNOWN, null, -1, -1);
+		}
+		if (state == null) {
+			state = states.computeIfAbsent(confirmationCode, code -> new AtomicLong());
+		}
+
+		long checkIn = pack(gateId, scannedAtMillis);
+		while (true) {
+			long current = state.get();
+			if (current != 0 && timeOf(current) <= scannedAtMillis) {
+				return duplicate(confirmationCode, current);
+			}
+			if (state.compareAndSet(current, checkIn)) {
+				ScanStatus status = ScanStatus.ADMITTED;
+				if (current != 0) {
+					logger.info("Scan of {} at gate {} precedes the check-in at gate {}", confirmationCode, gateId, gateOf(current));
+					status = ScanStatus.SUPERSEDED;
+				}
+				metrics.record(status);
+				return new ScanResult(confirmationCode, status, seats, gateId, scannedAtMillis);
+			}
+		}
+	}
+
+	private ScanResult duplicate(String confirmationCode, long state) {
+		metrics.record(ScanStatus.DUPLICATE);
+		return new ScanResult(confirmationCode, ScanStatus.DUPLICATE, null, gateOf(state), timeOf(state));
+	}
+
+	/**
+	 * @param confirmationCode
+	 * @return true if the reservation is checked in
+	 */
+	public boolean isCheckedIn(String confirmationCode) {
+		AtomicLong state = confirmationCode == null ? null : states.get(confirmationCode);
+		return state != null && state.get() != 0;
+	}
+
+	public CheckInMetrics getMetrics() {
+		return metrics;
+	}
+
+}
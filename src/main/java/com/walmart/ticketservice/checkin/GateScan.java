@@ -0,0 +1,35 @@
+package com.walmart.ticketservice.checkin;
+
+/**
+ * Scan of a ticket recorded by a gate device, e.g. while it was offline
+ * @author bkulkar
+ *
+ */
+public class GateScan {
+
+	private final String confirmationCode;
+	private final int gateId;
+	/**
+	 * Time the ticket was scanned at the gate, in milliseconds since the epoch
+	 */
+	private final long scannedAtMillis;
+
+	public GateScan(String confirmationCode, int gateId, long scannedAtMillis) {
+		this.confirmationCode = confirmationCode;
+		this.gateId = gateId;
+		this.scannedAtMillis = scannedAtMillis;
+	}
+
+	public String getConfirmationCode() {
+		return confirmationCode;
+	}
+
+	public int getGateId() {
+		return gateId;
+	}
+
+	public long getScannedAtMillis() {
+		return scannedAtMillis;
+	}
+
+}
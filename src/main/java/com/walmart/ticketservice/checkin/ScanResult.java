@@ -0,0 +1,63 @@
+package com.walmart.ticketservice.checkin;
+
+import java.util.List;
+
+import com.walmart.ticketservice.model.Seat;
+
+/**
+ * Result of scanning a ticket, with the first check-in of the reservation for admitted and duplicate scans
+ * @author bkulkar
+ *
+ */
+public class ScanResult {
+
+	private final String confirmationCode;
+	private final ScanStatus status;
+	/**
+	 * Reserved seats, null for unknown scans and duplicates
+	 */
+	private final List<Seat> seats;
+	/**
+	 * Gate the reservation was checked in at, -1 for unknown scans
+	 */
+	private final int checkedInGate;
+	/**
+	 * Time the reservation was checked in, -1 for unknown scans
+	 */
+	private final long checkedInMillis;
+
+	public ScanResult(String confirmationCode, ScanStatus status, List<Seat> seats, int checkedInGate, long checkedInMillis) {
+		this.confirmationCode = confirmationCode;
+		this.status = status;
+		this.seats = seats;
+		this.checkedInGate = checkedInGate;
+		this.checkedInMillis = checkedInMillis;
+	}
+
+	public String getConfirmationCode() {
+		return confirmationCode;
+	}
+
+	public ScanStatus getStatus() {
+		return status;
+	}
+
+	public List<Seat> getSeats() {
+		return seats;
+	}
+
+	public int getCheckedInGate() {
+		return checkedInGate;
+	}
+
+	public long getCheckedInMillis() {
+		return checkedInMillis;
+	}
+
+	@Override
+	public String toString() {
+		return "ScanResult [confirmationCode=" + confirmationCode + ", status=" + status + ", checkedInGate=" + checkedInGate
+				+ ", checkedInMillis=" + checkedInMillis + "]";
+	}
+
+}
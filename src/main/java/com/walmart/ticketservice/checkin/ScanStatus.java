@@ -0,0 +1,28 @@
+package com.walmart.ticketservice.checkin;
+
+/**
+ * Outcome of scanning a ticket at a gate
+ * @author bkulkar
+ *
+ */
+public enum ScanStatus {
+
+	/**
+	 * First scan of the reservation, the holder is let in
+	 */
+	ADMITTED,
+	/**
+	 * Reservation was already checked in
+	 */
+	DUPLICATE,
+	/**
+	 * Late scan of an offline gate made before the recorded check-in, the ticket was already admitted.
+	 * The scan becomes the check-in of record, so audits see where and when the ticket was first used
+	 */
+	SUPERSEDED,
+	/**
+	 * No reservation has the confirmation code, e.g. it was cancelled
+	 */
+	UNKNOWN
+
+}
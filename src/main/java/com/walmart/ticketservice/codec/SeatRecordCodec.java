@@ -0,0 +1,182 @@
+package com.walmart.ticketservice.codec;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.List;
+import java.util.Map;
+
+import com.walmart.ticketservice.model.Seat;
+import com.walmart.ticketservice.model.SeatHold;
+import com.walmart.ticketservice.model.SeatRange;
+import com.walmart.ticketservice.model.Venue;
+
+/**
+ * Binary encoding of seat holds, reservations and seat ranges
+ * Seats are always adjacent seats of a row, so they are written as a range (row, first seat, number of seats)
+ * instead of seat by seat, and scores are not written at all, they are looked up from the venue when decoded.
+ * Numbers are written as var ints and records are read and written in place in the caller's buffer.
+ *
+ * Layouts, every number a var int:
+ *   seat range   row, first seat, number of seats
+ *   seat hold    seat hold id, seat range, time created, expiry time - time created, email
+ *   reservation  confirmation code, seat range
+ * Strings are written as their length in bytes followed by their UTF-8 bytes
+ *
+ * Writing into a buffer without enough room left throws a BufferOverflowException and reading a truncated
+ * record a BufferUnderflowException, the position of the buffer is then undefined
+ * @author bkulkar
+ *
+ */
+public class SeatRecordCodec {
+
+	/**
+	 * Venue the seats belong to, for the sections and scores of decoded seats
+	 */
+	private final Venue venue;
+
+	public SeatRecordCodec(Venue venue) {
+		this.venue = venue;
+	}
+
+	/**
+	 * @param seats adjacent seats of a row, in seat order
+	 * @param buffer
+	 */
+	public void encodeSeatRange(List<Seat> seats, ByteBuffer buffer) {
+		checkSeatRange(seats);
+		putSeatRange(seats, buffer);
+	}
+
+	/**
+	 * Checks that seats can be written as a range, before anything of the record is written
+	 * @param seats
+	 */
+	private static void checkSeatRange(List<Seat> seats) {
+		if (seats == null || seats.isEmpty()) {
+			throw new IllegalArgumentException("A seat range needs at least one seat");
+		}
+		if (seats instanceof SeatRange) {
+			return;
+		}
+		Seat first = seats.get(0);
+		for (int i = 1; i < seats.size(); i++) {
+			if (seats.get(i).getRowNum() != first.getRowNum() || seats.get(i).getId() != first.getId() + i) {
+				throw new IllegalArgumentException("Seats should be adjacent seats of a row");
+			}
+		}
+	}
+
+	private static void putSeatRange(List<Seat> seats, ByteBuffer buffer) {
+		Seat first = seats.get(0);
+		VarInts.putVarInt(buffer, first.getRowNum());
+		VarInts.putVarInt(buffer, first.getId());
+		VarInts.putVarInt(buffer, seats.size());
+	}
+
+	/**
+	 * @param buffer
+	 * @return seats
+	 */
+	public List<Seat> decodeSeatRange(ByteBuffer buffer) {
+		int rowNum = VarInts.getVarInt(buffer);
+		int firstSeat = VarInts.getVarInt(buffer);
+		int numSeats = VarInts.getVarInt(buffer);
+		if (numSeats == 0 || rowNum >= venue.getNumOfRows() || firstSeat + numSeats > venue.getSectionForRow(rowNum).getSeatsPerRow()) {
+			throw new IllegalArgumentException("Seat range is empty or outside of the venue");
+		}
+		return new SeatRange(venue.getSectionForRow(rowNum), rowNum, firstSeat, numSeats);
+	}
+
+	/**
+	 * Seats of the hold have to be a single range, seat holds of groups across rows are not encoded
+	 * @param seatHold
+	 * @param buffer
+	 */
+	public void encodeSeatHold(SeatHold seatHold, ByteBuffer buffer) {
+		checkSeatRange(seatHold.getSeatsHeld());
+		VarInts.putVarInt(buffer, seatHold.getSeatHoldId());
+		putSeatRange(seatHold.getSeatsHeld(), buffer);
+		VarInts.putVarLong(buffer, seatHold.getTimeCreated());
+		VarInts.putVarLong(buffer, Math.max(0, seatHold.getExpiryTime() - seatHold.getTimeCreated()));
+		putString(buffer, seatHold.getCustEmailId());
+	}
+
+	/**
+	 * @param buffer
+	 * @return seatHold
+	 */
+	public SeatHold decodeSeatHold(ByteBuffer buffer) {
+		int seatHoldId = VarInts.getVarInt(buffer);
+		List<Seat> seats = decodeSeatRange(buffer);
+		long timeCreated = VarInts.getVarLong(buffer);
+		long expiryTime = timeCreated + VarInts.getVarLong(buffer);
+		String customerEmail = getString(buffer);
+		SeatHold seatHold = new SeatHold(seats.get(0).getRowNum(), seats, timeCreated, customerEmail, seatHoldId);
+		seatHold.setExpiryTime(expiryTime);
+		return seatHold;
+	}
+
+	/**
+	 * @param confirmationCode
+	 * @param seats adjacent seats of a row, in seat order
+	 * @param buffer
+	 */
+	public void encodeReservation(String confirmationCode, List<Seat> seats, ByteBuffer buffer) {
+		checkSeatRange(seats);
+		putString(buffer, confirmationCode);
+		putSeatRange(seats, buffer);
+	}
+
+	/**
+	 * @param buffer
+	 * @return reserved seats keyed by confirmation code
+	 */
+	public Map.Entry<String, List<Seat>> decodeReservation(ByteBuffer buffer) {
+		String confirmationCode = getString(buffer);
+		return new AbstractMap.SimpleImmutableEntry<>(confirmationCode, decodeSeatRange(buffer));
+	}
+
+	/**
+	 * Writes a string, ASCII strings (e.g. emails and confirmation codes) without encoding them to a byte array first
+	 * @param buffer
+	 * @param value
+	 */
+	private static void putString(ByteBuffer buffer, String value) {
+		int length = value.length();
+		for (int i = 0; i < length; i++) {
+			if (value.charAt(i) >= 0x80) {
+				byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+				VarInts.putVarInt(buffer, bytes.length);
+				buffer.put(bytes);
+				return;
+			}
+		}
+		VarInts.putVarInt(buffer, length);
+		for (int i = 0; i < length; i++) {
+			buffer.put((byte) value.charAt(i));
+		}
+	}
+
+	/**
+	 * Reads a string, decoding straight from the backing array of heap buffers
+	 * @param buffer
+	 * @return value
+	 */
+	private static String getString(ByteBuffer buffer) {
+		int length = VarInts.getVarInt(buffer);
+		if (length > buffer.remaining()) {
+			throw new BufferUnderflowException();
+		}
+		if (buffer.hasArray()) {
+			String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+			buffer.position(buffer.position() + length);
+			return value;
+		}
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,91 @@
+package com.walmart.ticketservice.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Variable length encoding of non negative numbers, 7 bits per byte with the high bit set on every byte but the last
+ * Small numbers such as seat and row numbers take one or two bytes instead of four
+ * @author bkulkar
+ *
+ */
+public class VarInts {
+
+	private VarInts() {
+	}
+
+	/**
+	 * @param buffer
+	 * @param value non negative
+	 */
+	public static void putVarInt(ByteBuffer buffer, int value) {
+		if (value < 0) {
+			throw new IllegalArgumentException("Negative value " + value);
+		}
+		while ((value & ~0x7F) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	/**
+	 * @param buffer
+	 * @return value
+	 */
+	public static int getVarInt(ByteBuffer buffer) {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			byte b = buffer.get();
+			value |= (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Malformed var int");
+	}
+
+	/**
+	 * @param buffer
+	 * @param value non negative
+	 */
+	public static void putVarLong(ByteBuffer buffer, long value) {
+		if (value < 0) {
+			throw new IllegalArgumentException("Negative value " + value);
+		}
+		while ((value & ~0x7FL) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	/**
+	 * @param buffer
+	 * @return value
+	 */
+	public static long getVarLong(ByteBuffer buffer) {
+		long value = 0;
+		for (int shift = 0; shift < 70; shift += 7) {
+			byte b = buffer.get();
+			value |= (long) (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Malformed var long");
+	}
+
+	/**
+	 * @param value non negative
+	 * @return number of bytes the value is encoded in
+	 */
+	public static int sizeOf(long value) {
+		int size = 1;
+		while ((value & ~0x7FL) != 0) {
+			value >>>= 7;
+			size++;
+		}
+		return size;
+	}
+
+}
@@ -0,0 +1,15 @@
+package com.walmart.ticketservice.common.time;
+
+/**
+ * Handle of a periodic task of a time source
+ * @author bkulkar
+ *
+ */
+public interface ScheduledTask {
+
+	/**
+	 * Stops the task, waiting for a run in progress to finish
+	 */
+	void cancel();
+
+}
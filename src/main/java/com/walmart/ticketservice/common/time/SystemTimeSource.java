@@ -0,0 +1,49 @@
+package com.walmart.ticketservice.common.time;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Time source backed by the wall clock, every periodic task runs on its own thread
+ * @author bkulkar
+ *
+ */
+public class SystemTimeSource implements TimeSource {
+
+	public static final SystemTimeSource INSTANCE = new SystemTimeSource();
+
+	private static final Logger logger = LoggerFactory.getLogger(SystemTimeSource.class);
+
+	private SystemTimeSource() {
+	}
+
+	@Override
+	public long currentTimeMillis() {
+		return System.currentTimeMillis();
+	}
+
+	@Override
+	public ScheduledTask schedulePeriodic(String name, Runnable task, long periodMillis) {
+		Thread thread = new Thread(() -> {
+			while (true) {
+				task.run();
+				try {
+					Thread.sleep(periodMillis);
+				} catch (InterruptedException e) {
+					break; // exit
+				}
+			}
+		}, name);
+		thread.start();
+
+		return () -> {
+			try {
+				thread.interrupt();
+				thread.join(1000);
+			} catch (InterruptedException e) {
+				logger.warn("Exception while cancelling " + name + ": " + e.toString());
+			}
+		};
+	}
+
+}
@@ -0,0 +1,26 @@
+package com.walmart.ticketservice.common.time;
+
+/**
+ * Source of the current time and runner of periodic tasks
+ * Everything in the ticket service that depends on time goes through a time source, so the same code runs
+ * against the wall clock in production and against a virtual clock in tests and simulations
+ * @author bkulkar
+ *
+ */
+public interface TimeSource {
+
+	/**
+	 * @return current time in milliseconds since the epoch
+	 */
+	long currentTimeMillis();
+
+	/**
+	 * Runs a task now and then every periodMillis until it is cancelled
+	 * @param name name of the task, e.g. for the thread it runs on
+	 * @param task
+	 * @param periodMillis
+	 * @return handle to cancel the task
+	 */
+	ScheduledTask schedulePeriodic(String name, Runnable task, long periodMillis);
+
+}
@@ -0,0 +1,113 @@
+package com.walmart.ticketservice.common.time;
+
+import java.util.PriorityQueue;
+
+/**
+ * Time source whose clock only moves when it is advanced
+ * Periodic tasks run on the thread that advances the clock, each at the virtual time it is due, in order of
+ * their due times, so a test or simulation sees exactly the same runs every time however fast it advances.
+ * Advancing the clock by hours takes as long as the task runs it triggers, not hours
+ * @author bkulkar
+ *
+ */
+public class VirtualTimeSource implements TimeSource {
+
+	/**
+	 * Periodic task and the virtual time of its next run
+	 */
+	private static class VirtualTask implements ScheduledTask, Comparable<VirtualTask> {
+
+		private final VirtualTimeSource timeSource;
+		private final Runnable task;
+		private final long periodMillis;
+		/**
+		 * Order the task was scheduled in, tasks due at the same time run in that order
+		 */
+		private final long order;
+		private long nextRunMillis;
+		private boolean cancelled;
+
+		VirtualTask(VirtualTimeSource timeSource, Runnable task, long periodMillis, long order, long nextRunMillis) {
+			this.timeSource = timeSource;
+			this.task = task;
+			this.periodMillis = periodMillis;
+			this.order = order;
+			this.nextRunMillis = nextRunMillis;
+		}
+
+		@Override
+		public void cancel() {
+			synchronized (timeSource) {
+				cancelled = true;
+				timeSource.tasks.remove(this);
+			}
+		}
+
+		@Override
+		public int compareTo(VirtualTask other) {
+			int byTime = Long.compare(nextRunMillis, other.nextRunMillis);
+			return byTime != 0 ? byTime : Long.compare(order, other.order);
+		}
+	}
+
+	private volatile long nowMillis;
+	/**
+	 * Tasks by their next run, only accessed while holding the time source's lock
+	 */
+	private final PriorityQueue<VirtualTask> tasks = new PriorityQueue<>();
+	private long scheduled;
+
+	/**
+	 * @param startMillis virtual time to start at, in milliseconds since the epoch
+	 */
+	public VirtualTimeSource(long startMillis) {
+		this.nowMillis = startMillis;
+	}
+
+	@Override
+	public long currentTimeMillis() {
+		return nowMillis;
+	}
+
+	/**
+	 * The first run of the task is due at the current virtual time and happens the next time the clock is advanced
+	 */
+	@Override
+	public synchronized ScheduledTask schedulePeriodic(String name, Runnable task, long periodMillis) {
+		if (periodMillis <= 0) {
+			throw new IllegalArgumentException("Period should be positive");
+		}
+		VirtualTask virtualTask = new VirtualTask(this, task, periodMillis, scheduled++, nowMillis);
+		tasks.add(virtualTask);
+		return virtualTask;
+	}
+
+	/**
+	 * Moves the clock forward, running every task that falls due on the way at its due time
+	 * @param millis
+	 */
+	public synchronized void advance(long millis) {
+		if (millis < 0) {
+			throw new IllegalArgumentException("Time cannot go backwards");
+		}
+		long targetMillis = nowMillis + millis;
+		while (!tasks.isEmpty() && tasks.peek().nextRunMillis <= targetMillis) {
+			VirtualTask task = tasks.poll();
+			nowMillis = task.nextRunMillis;
+			task.task.run();
+			if (!task.cancelled) {
+				task.nextRunMillis += task.periodMillis;
+				tasks.add(task);
+			}
+		}
+		nowMillis = targetMillis;
+	}
+
+	/**
+	 * @return number of periodic tasks that are not cancelled
+	 */
+	public synchronized int getScheduledTasks() {
+		return tasks.size();
+	}
+
+}
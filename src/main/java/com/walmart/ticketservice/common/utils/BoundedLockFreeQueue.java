@@ -0,0 +1,128 @@
+package com.walmart.ticketservice.common.utils;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded multi producer, multi consumer queue backed by a ring buffer
+ * Producers and consumers claim slots with a compare and swap on the tail and head counters
+ * and every slot carries a sequence number telling whether it is ready to be written or read,
+ * so neither side ever takes a lock or waits for the other. A full queue rejects new elements
+ * instead of blocking the producer
+ * @author bkulkar
+ *
+ * @param <E>
+ */
+public class BoundedLockFreeQueue<E> {
+
+	private final AtomicReferenceArray<E> buffer;
+	/**
+	 * Sequence number of every slot: equal to the position when the slot is free to be written,
+	 * one past the position once it has been written and can be read
+	 */
+	private final AtomicLongArray sequences;
+	private final int mask;
+	private final AtomicLong head = new AtomicLong();
+	private final AtomicLong tail = new AtomicLong();
+
+	/**
+	 * @param capacity rounded up to a power of two
+	 */
+	public BoundedLockFreeQueue(int capacity) {
+		if (capacity < 1 || capacity > (1 << 30)) {
+			throw new IllegalArgumentException("Queue capacity should be between 1 and 2^30");
+		}
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity) {
+			size <<= 1;
+		}
+		this.buffer = new AtomicReferenceArray<E>(size);
+		this.sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++) {
+			sequences.set(i, i);
+		}
+		this.mask = size - 1;
+	}
+
+	/**
+	 * Adds an element unless the queue is full
+	 * @param element
+	 * @return false if the queue is full
+	 */
+	public boolean offer(E element) {
+		long position = tail.get();
+		while (true) {
+			int index = (int) position & mask;
+			long difference = sequences.get(index) - position;
+			if (difference == 0) {
+				if (tail.compareAndSet(position, position + 1)) {
+					buffer.lazySet(index, element);
+					sequences.lazySet(index, position + 1);
+					return true;
+				}
+				position = tail.get();
+			} else if (difference < 0) {
+				//slot still holds an element a full lap behind
+				return false;
+			} else {
+				position = tail.get();
+			}
+		}
+	}
+
+	/**
+	 * Takes the oldest element
+	 * @return element, null if the queue is empty
+	 */
+	public E poll() {
+		long position = head.get();
+		while (true) {
+			int index = (int) position & mask;
+			long difference = sequences.get(index) - (position + 1);
+			if (difference == 0) {
+				if (head.compareAndSet(position, position + 1)) {
+					E element = buffer.get(index);
+					buffer.lazySet(index, null);
+					sequences.lazySet(index, position + mask + 1);
+					return element;
+				}
+				position = head.get();
+			} else if (difference < 0) {
+				return null;
+			} else {
+				position = head.get();
+			}
+		}
+	}
+
+	/**
+	 * Takes up to maxElements of the oldest elements
+	 * @param target collection the elements are added to
+	 * @param maxElements
+	 * @return number of elements taken
+	 */
+	public int drainTo(Collection<? super E> target, int maxElements) {
+		int drained = 0;
+		E element;
+		while (drained < maxElements && (element = poll()) != null) {
+			target.add(element);
+			++drained;
+		}
+		return drained;
+	}
+
+	/**
+	 * @return number of elements in the queue, only exact while no element is added or taken
+	 */
+	public int size() {
+		long size = tail.get() - head.get();
+		return (int) Math.max(0, Math.min(size, mask + 1));
+	}
+
+	public int capacity() {
+		return mask + 1;
+	}
+
+}
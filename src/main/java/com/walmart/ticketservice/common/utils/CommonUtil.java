@@ -2,7 +2,6 @@ package com.walmart.ticketservice.common.utils;
 
 import java.util.Collection;
 import java.util.Map;
-import java.util.regex.Pattern;
 
 /**
  * Common utility class
@@ -12,9 +11,6 @@ import java.util.regex.Pattern;
  */
 public class CommonUtil {
 	
-	// Regex for email validation
-	private static final String EMAIL_REGEX = "^[\\w-\\+]+(\\.[\\w]+)*@[\\w-]+(\\.[\\w]+)*(\\.[a-z]{2,})$";
-	
 	
 	 /**
 	 * Round score
@@ -36,33 +32,45 @@ public class CommonUtil {
 		 float[] seatScore = new float[seatsPerRow];
 		 
 		 for(int index=0; index < seatsPerRow; index++){
-			    int mid = seatsPerRow / 2;
-			    
-			    //to handle division by zero
-			    if(seatsPerRow <= 2 && 0 < seatsPerRow) {
-			    	++mid;
-			    }
-			    
-				if (seatsPerRow % 2 == 0) {
-		            if (index < mid) {
-		            	seatScore[index] = (float)(index + 1) * (float)(10.0f / (float)(mid - 1));
-		            } else {
-		            	seatScore[index] = (float)(seatsPerRow - index) * (float)(10.0f / (float)(mid - 1));
-		            }
-		        } else {
-		           if (index <= mid) {
-		        	   seatScore[index] = (float)(index + 1) * (float)(10.0f / (float)(mid));
-		            } else { 
-		            	seatScore[index] = (float)(seatsPerRow - index) * (float)(10.0f / (float)(mid));
-		            }
-		        }
-				
-				seatScore[index] = round(seatScore[index]);
-			}
+			seatScore[index] = getScore(index, seatsPerRow);
+		 }
 		 
 		 return seatScore;
 	 }
 	 
+	 /**
+	  * Calculate score for a seat in a row of specified size
+	  * Seats in the middle have higher score than the seats on the side
+	 * @param index
+	 * @param seatsPerRow
+	 * @return seatScore
+	 */
+	public static float getScore(int index, int seatsPerRow) {
+		    float seatScore;
+		    int mid = seatsPerRow / 2;
+		    
+		    //to handle division by zero
+		    if(seatsPerRow <= 2 && 0 < seatsPerRow) {
+		    	++mid;
+		    }
+		    
+			if (seatsPerRow % 2 == 0) {
+	            if (index < mid) {
+	            	seatScore = (float)(index + 1) * (float)(10.0f / (float)(mid - 1));
+	            } else {
+	            	seatScore = (float)(seatsPerRow - index) * (float)(10.0f / (float)(mid - 1));
+	            }
+	        } else {
+	           if (index <= mid) {
+	        	   seatScore = (float)(index + 1) * (float)(10.0f / (float)(mid));
+	            } else { 
+	            	seatScore = (float)(seatsPerRow - index) * (float)(10.0f / (float)(mid));
+	            }
+	        }
+			
+			return round(seatScore);
+	 }
+	 
 
 	 
 		/**
@@ -72,7 +80,7 @@ public class CommonUtil {
 		 * @return
 		 */
 		@SuppressWarnings("rawtypes")
-		public static synchronized boolean isInvalid(Object obj)
+		public static boolean isInvalid(Object obj)
 		   {
 		      boolean isInValid = false;
 		      if(null == obj) {
@@ -102,15 +110,102 @@ public class CommonUtil {
 		
 		/**
 		 * Check if email string is valid
+		 * Accepts the same addresses as the regex ^[\w-\+]+(\.[\w]+)*@[\w-]+(\.[\w]+)*(\.[a-z]{2,})$
+		 * but scans the string once by hand, so it neither locks nor allocates 
 		 * @param email
 		 * @return boolean 
 		 */
 		public static boolean isValidEmailFormat(String email) {
 		      if(null == email)
 		              return false;
-		       Pattern pat = Pattern.compile(EMAIL_REGEX);
-		       return pat.matcher(email).matches();
-					
+		      
+		      int length = email.length();
+		      int index = 0;
+		      
+		      //local part: [\w-\+]+ followed by (\.[\w]+)*
+		      int start = index;
+		      while(index < length && (isWordChar(email.charAt(index)) || email.charAt(index) == '-' || email.charAt(index) == '+')) {
+		    	  ++index;
+		      }
+		      if(index == start) {
+		    	  return false;
+		      }
+		      while(index < length && email.charAt(index) == '.') {
+		    	  start = ++index;
+		    	  while(index < length && isWordChar(email.charAt(index))) {
+		    		  ++index;
+		    	  }
+		    	  if(index == start) {
+		    		  return false;
+		    	  }
+		      }
+		      
+		      if(index == length || email.charAt(index) != '@') {
+		    	  return false;
+		      }
+		      
+		      //domain: [\w-]+ followed by one or more (\.[\w]+), the last one being [a-z]{2,}
+		      start = ++index;
+		      while(index < length && (isWordChar(email.charAt(index)) || email.charAt(index) == '-')) {
+		    	  ++index;
+		      }
+		      if(index == start) {
+		    	  return false;
+		      }
+		      boolean validTopLevelDomain = false;
+		      while(index < length && email.charAt(index) == '.') {
+		    	  start = ++index;
+		    	  boolean lowerCase = true;
+		    	  while(index < length && isWordChar(email.charAt(index))) {
+		    		  char c = email.charAt(index++);
+		    		  lowerCase &= (c >= 'a' && c <= 'z');
+		    	  }
+		    	  if(index == start) {
+		    		  return false;
+		    	  }
+		    	  validTopLevelDomain = lowerCase && index - start >= 2;
+		      }
+		      
+		      return index == length && validTopLevelDomain;
 		 }
+		
+		/**
+		 * Normalize email so that it can be compared without ignoring case
+		 * Returns the same string if it has no upper case letters
+		 * @param email
+		 * @return normalizedEmail
+		 */
+		public static String normalizeEmail(String email) {
+			if(null == email) {
+				return null;
+			}
+			
+			int index = 0;
+			while(index < email.length() && !isUpperCase(email.charAt(index))) {
+				++index;
+			}
+			if(index == email.length()) {
+				return email;
+			}
+			
+			char[] normalized = email.toCharArray();
+			for(; index < normalized.length; index++) {
+				if(isUpperCase(normalized[index])) {
+					normalized[index] = (char) (normalized[index] + ('a' - 'A'));
+				}
+			}
+			return new String(normalized);
+		}
+		
+		/**
+		 * Same characters as \w in a regex i.e. [a-zA-Z_0-9]
+		 */
+		private static boolean isWordChar(char c) {
+			return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+		}
+		
+		private static boolean isUpperCase(char c) {
+			return c >= 'A' && c <= 'Z';
+		}
 
 }
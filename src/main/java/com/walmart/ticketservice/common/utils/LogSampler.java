@@ -0,0 +1,41 @@
+package com.walmart.ticketservice.common.utils;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks a random sample of the events of a hot path to be logged, e.g. one in every hundred seat holds
+ * Every thread draws from its own random generator, so sampling has no shared state to contend on
+ * @author bkulkar
+ *
+ */
+public class LogSampler {
+
+	/**
+	 * Sampler that logs every event
+	 */
+	public static final LogSampler ALL = new LogSampler(1);
+
+	private final int oneIn;
+
+	/**
+	 * @param oneIn an event is logged with a probability of 1 / oneIn
+	 */
+	public LogSampler(int oneIn) {
+		if (oneIn < 1) {
+			throw new IllegalArgumentException("Sampling rate should be at least 1");
+		}
+		this.oneIn = oneIn;
+	}
+
+	/**
+	 * @return true if the current event should be logged
+	 */
+	public boolean sample() {
+		return oneIn == 1 || ThreadLocalRandom.current().nextInt(oneIn) == 0;
+	}
+
+	public int getOneIn() {
+		return oneIn;
+	}
+
+}
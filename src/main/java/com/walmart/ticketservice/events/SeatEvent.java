@@ -0,0 +1,90 @@
+package com.walmart.ticketservice.events;
+
+/**
+ * Change to the state of a range of adjacent seats in a row
+ * Events are immutable so the same event is handed to every subscriber
+ * @author bkulkar
+ *
+ */
+public class SeatEvent {
+
+	private final SeatEventType type;
+	private final int rowNum;
+	/**
+	 * First seat of the range
+	 */
+	private final int firstSeat;
+	/**
+	 * Last seat of the range (inclusive)
+	 */
+	private final int lastSeat;
+	/**
+	 * Seat hold the seats were held for, null for cancelled reservations
+	 */
+	private final Integer seatHoldId;
+	/**
+	 * Confirmation code of the reservation, null unless the seats were reserved or cancelled
+	 */
+	private final String confirmationCode;
+	private final long timestamp;
+	/**
+	 * Position of the event in the stream, taken after the change was applied to the seat map
+	 */
+	private final long sequence;
+
+	public SeatEvent(SeatEventType type, int rowNum, int firstSeat, int lastSeat, Integer seatHoldId,
+			String confirmationCode, long timestamp, long sequence) {
+		this.type = type;
+		this.rowNum = rowNum;
+		this.firstSeat = firstSeat;
+		this.lastSeat = lastSeat;
+		this.seatHoldId = seatHoldId;
+		this.confirmationCode = confirmationCode;
+		this.timestamp = timestamp;
+		this.sequence = sequence;
+	}
+
+	public SeatEventType getType() {
+		return type;
+	}
+
+	public int getRowNum() {
+		return rowNum;
+	}
+
+	public int getFirstSeat() {
+		return firstSeat;
+	}
+
+	public int getLastSeat() {
+		return lastSeat;
+	}
+
+	public int getNumSeats() {
+		return lastSeat - firstSeat + 1;
+	}
+
+	public Integer getSeatHoldId() {
+		return seatHoldId;
+	}
+
+	public String getConfirmationCode() {
+		return confirmationCode;
+	}
+
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	public long getSequence() {
+		return sequence;
+	}
+
+	@Override
+	public String toString() {
+		return type + " row " + rowNum + " seats " + firstSeat + "-" + lastSeat
+				+ (seatHoldId != null ? " hold #" + seatHoldId : "")
+				+ (confirmationCode != null ? " reservation " + confirmationCode : "");
+	}
+
+}
@@ -0,0 +1,87 @@
+package com.walmart.ticketservice.events;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stream of seat state changes for downstream consumers such as seat map UIs and analytics
+ * Every published event is offered to every open subscription without locking or waiting,
+ * so a slow subscriber never slows down the sale
+ * @author bkulkar
+ *
+ */
+public class SeatEventStream {
+
+	/**
+	 * Default number of events buffered per subscriber
+	 */
+	public static final int DEFAULT_CAPACITY = 8192;
+
+	private final List<SeatEventSubscription> subscriptions = new CopyOnWriteArrayList<>();
+	/**
+	 * Sequence number of the last event created
+	 */
+	private final AtomicLong sequence = new AtomicLong();
+
+	/**
+	 * Subscribes to all events published from now on
+	 * @param capacity number of events buffered for the subscriber
+	 * @param maxDroppedEvents number of dropped events after which the subscriber is cut off
+	 * @return subscription
+	 */
+	public SeatEventSubscription subscribe(int capacity, long maxDroppedEvents) {
+		SeatEventSubscription subscription = new SeatEventSubscription(this, capacity, maxDroppedEvents);
+		subscriptions.add(subscription);
+		return subscription;
+	}
+
+	/**
+	 * Subscribes with the default buffer, the subscriber is never cut off but may lag
+	 * @return subscription
+	 */
+	public SeatEventSubscription subscribe() {
+		return subscribe(DEFAULT_CAPACITY, Long.MAX_VALUE);
+	}
+
+	void unsubscribe(SeatEventSubscription subscription) {
+		subscriptions.remove(subscription);
+	}
+
+	/**
+	 * @return true if anyone listens, so publishers can skip creating events otherwise
+	 */
+	public boolean hasSubscribers() {
+		return !subscriptions.isEmpty();
+	}
+
+	/**
+	 * Offers an event to every subscriber
+	 * @param event
+	 */
+	public void publish(SeatEvent event) {
+		for (SeatEventSubscription subscription : subscriptions) {
+			subscription.offer(event);
+		}
+	}
+
+	/**
+	 * Numbers an event, to be called once its change is applied to the seat map
+	 * @return sequence number, greater than that of every event numbered before
+	 */
+	public long nextSequence() {
+		return sequence.incrementAndGet();
+	}
+
+	/**
+	 * @return sequence number of the last event numbered, every change of an event up to it is in the seat map
+	 */
+	public long getSequence() {
+		return sequence.get();
+	}
+
+	public int getSubscriberCount() {
+		return subscriptions.size();
+	}
+
+}
@@ -0,0 +1,160 @@
+package com.walmart.ticketservice.events;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.walmart.ticketservice.common.utils.BoundedLockFreeQueue;
+
+/**
+ * A subscriber's view of the seat event stream
+ * Events are buffered in a bounded lock-free queue that the subscriber drains in batches.
+ * The ticket service never waits for a subscriber: once the queue is full new events are dropped
+ * and the subscription is marked lagging, and a subscriber that keeps falling behind is cut off.
+ * A lagging subscriber resyncs by taking a fence, reloading the full seat state and carrying on with the events
+ * after the fence
+ * @author bkulkar
+ *
+ */
+public class SeatEventSubscription {
+
+	private final SeatEventStream stream;
+	private final BoundedLockFreeQueue<SeatEvent> events;
+	/**
+	 * Number of dropped events after which the subscription is closed
+	 */
+	private final long maxDroppedEvents;
+	private final AtomicLong dropped = new AtomicLong();
+	/**
+	 * Number of events dropped as of the last resync, the subscription is lagging while more have been dropped
+	 */
+	private final AtomicLong droppedAtResync = new AtomicLong();
+	/**
+	 * Sequence number of the last resync fence, events up to it are already in the reloaded state and are skipped
+	 */
+	private volatile long fence;
+	/**
+	 * Event after the fence taken off the queue by a resync, handed out first. Only accessed by the subscriber
+	 */
+	private SeatEvent carried;
+	private volatile boolean closed;
+
+	SeatEventSubscription(SeatEventStream stream, int capacity, long maxDroppedEvents) {
+		this.stream = stream;
+		this.events = new BoundedLockFreeQueue<SeatEvent>(capacity);
+		this.maxDroppedEvents = maxDroppedEvents;
+	}
+
+	/**
+	 * Hands an event to the subscriber without waiting
+	 * @param event
+	 */
+	void offer(SeatEvent event) {
+		if (closed || events.offer(event)) {
+			return;
+		}
+		if (dropped.incrementAndGet() > maxDroppedEvents) {
+			close();
+		}
+	}
+
+	/**
+	 * Takes up to maxEvents of the oldest events
+	 * @param target collection the events are added to
+	 * @param maxEvents
+	 * @return number of events taken
+	 */
+	public int drainTo(Collection<? super SeatEvent> target, int maxEvents) {
+		int taken = 0;
+		if (carried != null && maxEvents > 0) {
+			target.add(carried);
+			carried = null;
+			taken++;
+		}
+		long skipUpTo = fence;
+		if (skipUpTo == 0) {
+			return taken + events.drainTo(target, maxEvents - taken);
+		}
+		SeatEvent event;
+		while (taken < maxEvents && (event = events.poll()) != null) {
+			if (event.getSequence() > skipUpTo) {
+				target.add(event);
+				taken++;
+			}
+		}
+		return taken;
+	}
+
+	/**
+	 * Takes up to maxEvents of the oldest events
+	 * @param maxEvents
+	 * @return events, empty if there are none
+	 */
+	public List<SeatEvent> poll(int maxEvents) {
+		List<SeatEvent> batch = new ArrayList<>(Math.min(maxEvents, events.size()));
+		drainTo(batch, maxEvents);
+		return batch;
+	}
+
+	/**
+	 * Called by a lagging subscriber before it reloads the full seat state
+	 * Every event up to the fence returned is part of the state reloaded afterwards and is skipped from now on.
+	 * Events after the fence are still handed out, some of them may already be in the reloaded state too, 
+	 * so the subscriber applies them over it. The subscription stops lagging unless events are dropped again.
+	 * Buffered events up to the fence are thrown away right away to make room for new ones
+	 * @return fence, sequence number of the last event in the state
+	 */
+	public long resync() {
+		long droppedBefore = dropped.get();
+		long resyncFence = stream.getSequence();
+		fence = resyncFence;
+		if (carried == null || carried.getSequence() <= resyncFence) {
+			carried = null;
+			SeatEvent event;
+			while ((event = events.poll()) != null) {
+				if (event.getSequence() > resyncFence) {
+					carried = event;
+					break;
+				}
+			}
+		}
+		//a concurrent drop after the count was read keeps the subscription lagging
+		droppedAtResync.accumulateAndGet(droppedBefore, Math::max);
+		return resyncFence;
+	}
+
+	/**
+	 * Stops the events to this subscriber
+	 */
+	public void close() {
+		closed = true;
+		stream.unsubscribe(this);
+	}
+
+	/**
+	 * @return true if events were dropped since the subscriber last resynced
+	 */
+	public boolean isLagging() {
+		return dropped.get() > droppedAtResync.get();
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * @return number of events dropped because the subscriber fell behind
+	 */
+	public long getDropped() {
+		return dropped.get();
+	}
+
+	/**
+	 * @return number of events waiting to be taken
+	 */
+	public int getPending() {
+		return events.size() + (carried == null ? 0 : 1);
+	}
+
+}
@@ -0,0 +1,31 @@
+package com.walmart.ticketservice.events;
+
+/**
+ * Changes to the state of seats published by the ticket service
+ * @author bkulkar
+ *
+ */
+public enum SeatEventType {
+
+	/**
+	 * Available seats were held
+	 */
+	HOLD,
+	/**
+	 * Held seats were reserved
+	 */
+	RESERVE,
+	/**
+	 * Seat hold expired and its seats are available again
+	 */
+	EXPIRE,
+	/**
+	 * Seat hold was released before it expired and its seats are available again
+	 */
+	RELEASE,
+	/**
+	 * Reservation was cancelled and its seats are available again
+	 */
+	CANCEL
+
+}
@@ -22,11 +22,20 @@ public class Seat implements Comparable{
 	 * Row to which the seat belongs to
 	 */
 	private int rowNum;
+	/**
+	 * Price tier the seat is sold at
+	 */
+	private int priceTier;
 	
 	public Seat(int id, float score, int rowNum) {
+		this(id, score, rowNum, 0);
+	}
+	
+	public Seat(int id, float score, int rowNum, int priceTier) {
 		this.id = id;
 		this.score = score;
 		this.rowNum = rowNum;
+		this.priceTier = priceTier;
 	}
 
 	public int getId() {
@@ -52,6 +61,14 @@ public class Seat implements Comparable{
 		this.rowNum = rowNum;
 	}
 
+	public int getPriceTier() {
+		return priceTier;
+	}
+
+	public void setPriceTier(int priceTier) {
+		this.priceTier = priceTier;
+	}
+
 	/**
 	 *  Comparing seats based on seat id
 	 *  as they need to be sorted from left to right 
@@ -0,0 +1,50 @@
+package com.walmart.ticketservice.model;
+
+import java.util.Set;
+
+/**
+ * Attributes a seat can carry, every attribute is one bit of an attribute mask
+ * @author bkulkar
+ *
+ */
+public enum SeatAttribute {
+
+	/**
+	 * Wheelchair accessible position
+	 */
+	ACCESSIBLE,
+	/**
+	 * Seat for the companion of a wheelchair user
+	 */
+	COMPANION,
+	/**
+	 * Seat on an aisle
+	 */
+	AISLE,
+	/**
+	 * Seat with a restricted view of the stage
+	 */
+	RESTRICTED_VIEW;
+
+	/**
+	 * @return bit of the attribute in an attribute mask
+	 */
+	public int getMask() {
+		return 1 << ordinal();
+	}
+
+	/**
+	 * @param attributes
+	 * @return attribute mask with the bits of the given attributes set
+	 */
+	public static int maskOf(Set<SeatAttribute> attributes) {
+		int mask = 0;
+		if (attributes != null) {
+			for (SeatAttribute attribute : attributes) {
+				mask |= attribute.getMask();
+			}
+		}
+		return mask;
+	}
+
+}
@@ -2,6 +2,8 @@ package com.walmart.ticketservice.model;
 
 import java.util.List;
 
+import com.walmart.ticketservice.common.utils.CommonUtil;
+
 /**
  * Seat hold contains information 
  * related to seats held for a particular customer
@@ -24,11 +26,20 @@ public class SeatHold {
 	 * Seat hold creation time
 	 */
 	private long timeCreated;
+	/**
+	 * Time at which the seat hold expires unless it is reserved
+	 */
+	private long expiryTime;
 	/**
 	 * Email id of customer for 
 	 * whom the seats are held
 	 */
 	private String custEmailId;
+	/**
+	 * Email id of the customer normalized once 
+	 * so that it can be compared without ignoring case
+	 */
+	private String normalizedEmailId;
 	/**
 	 * Unique identifier for the seat hold
 	 */
@@ -38,6 +49,7 @@ public class SeatHold {
 		this.seatsHeld = seatsHeld;
 		this.timeCreated = timeCreated;
 		this.custEmailId = custEmailId;
+		this.normalizedEmailId = CommonUtil.normalizeEmail(custEmailId);
 		this.seatHoldId = seatHoldId;
 		this.rowNum = rowNum;
 	}
@@ -58,12 +70,25 @@ public class SeatHold {
 		this.timeCreated = timeCreated;
 	}
 
+	public long getExpiryTime() {
+		return expiryTime;
+	}
+
+	public void setExpiryTime(long expiryTime) {
+		this.expiryTime = expiryTime;
+	}
+
 	public String getCustEmailId() {
 		return custEmailId;
 	}
 
 	public void setCustEmailId(String custEmailId) {
 		this.custEmailId = custEmailId;
+		this.normalizedEmailId = CommonUtil.normalizeEmail(custEmailId);
+	}
+
+	public String getNormalizedEmailId() {
+		return normalizedEmailId;
 	}
 
 	public Integer getSeatHoldId() {
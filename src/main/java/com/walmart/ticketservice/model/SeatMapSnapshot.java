@@ -0,0 +1,291 @@
+package com.walmart.ticketservice.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable, versioned map of the seats of a venue that are available, one bitmap per row
+ * Bit i of a row is set while seat i is neither held nor reserved
+ * Every change creates a new snapshot that shares all unchanged rows with the previous one. Rows are kept
+ * in chunks of 64, so a change copies the changed row, its chunk and the list of chunks, and taking
+ * a snapshot is just reading the latest one
+ * Every row remembers the version it last changed in, so the rows changed since any version can be found
+ * without keeping old snapshots around
+ * @author bkulkar
+ *
+ */
+public class SeatMapSnapshot {
+
+	/**
+	 * State of a single row as of a version
+	 */
+	public static class Row {
+		private final int rowNum;
+		private final int numSeats;
+		private final long version;
+		/**
+		 * Never changed once the row is created
+		 */
+		private final long[] bitmap;
+
+		Row(int rowNum, int numSeats, long version, long[] bitmap) {
+			this.rowNum = rowNum;
+			this.numSeats = numSeats;
+			this.version = version;
+			this.bitmap = bitmap;
+		}
+
+		public int getRowNum() {
+			return rowNum;
+		}
+
+		public int getNumSeats() {
+			return numSeats;
+		}
+
+		/**
+		 * @return version the row last changed in
+		 */
+		public long getVersion() {
+			return version;
+		}
+
+		public boolean isAvailable(int seat) {
+			return (bitmap[seat >>> 6] & (1L << seat)) != 0;
+		}
+
+		public int getAvailableSeats() {
+			int availableSeats = 0;
+			for (long word : bitmap) {
+				availableSeats += Long.bitCount(word);
+			}
+			return availableSeats;
+		}
+
+		/**
+		 * @param fromSeat
+		 * @return first available seat at or after fromSeat, -1 if there is none
+		 */
+		public int nextAvailableSeat(int fromSeat) {
+			return nextSetBit(bitmap, fromSeat);
+		}
+
+		/**
+		 * @param fromSeat
+		 * @return first held or reserved seat at or after fromSeat, number of seats in the row if there is none
+		 */
+		public int nextTakenSeat(int fromSeat) {
+			return nextClearBit(bitmap, fromSeat, numSeats);
+		}
+
+		/**
+		 * @param mask bitmap of seats, 64 seats per word
+		 * @return bitmap of the available seats that are also set in the mask
+		 */
+		public long[] availableMatching(long[] mask) {
+			long[] matching = new long[bitmap.length];
+			for (int word = 0; word < bitmap.length; word++) {
+				matching[word] = bitmap[word] & mask[word];
+			}
+			return matching;
+		}
+
+		/**
+		 * @return copy of the bitmap of available seats, 64 seats per word
+		 */
+		public long[] getBitmap() {
+			return bitmap.clone();
+		}
+	}
+
+	/**
+	 * Rows changed since a version
+	 */
+	public static class Diff {
+		private final long fromVersion;
+		private final long toVersion;
+		private final List<Row> changedRows;
+
+		Diff(long fromVersion, long toVersion, List<Row> changedRows) {
+			this.fromVersion = fromVersion;
+			this.toVersion = toVersion;
+			this.changedRows = changedRows;
+		}
+
+		public long getFromVersion() {
+			return fromVersion;
+		}
+
+		/**
+		 * @return version of the snapshot the diff was taken from, to ask for the next diff since
+		 */
+		public long getToVersion() {
+			return toVersion;
+		}
+
+		public List<Row> getChangedRows() {
+			return changedRows;
+		}
+	}
+
+	private static final int CHUNK_SHIFT = 6;
+	private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+	private final long version;
+	private final int numOfRows;
+	/**
+	 * Rows in chunks of 64, never changed once the snapshot is created
+	 */
+	private final Row[][] chunks;
+	/**
+	 * Version every chunk last changed in, so a diff skips the chunks that did not change
+	 */
+	private final long[] chunkVersions;
+
+	private SeatMapSnapshot(long version, int numOfRows, Row[][] chunks, long[] chunkVersions) {
+		this.version = version;
+		this.numOfRows = numOfRows;
+		this.chunks = chunks;
+		this.chunkVersions = chunkVersions;
+	}
+
+	/**
+	 * Seat map of a venue with every seat available, at version 0
+	 * @param venue
+	 * @return seatMapSnapshot
+	 */
+	public static SeatMapSnapshot allAvailable(Venue venue) {
+		int numOfRows = venue.getNumOfRows();
+		Row[][] chunks = new Row[(numOfRows + CHUNK_MASK) >>> CHUNK_SHIFT][];
+		for (int chunk = 0; chunk < chunks.length; chunk++) {
+			chunks[chunk] = new Row[Math.min(CHUNK_MASK + 1, numOfRows - (chunk << CHUNK_SHIFT))];
+		}
+		for (int rowNum = 0; rowNum < numOfRows; rowNum++) {
+			int numSeats = venue.getSectionForRow(rowNum).getSeatsPerRow();
+			long[] bitmap = new long[(numSeats + 63) >>> 6];
+			for (int seat = 0; seat < numSeats; seat++) {
+				bitmap[seat >>> 6] |= 1L << seat;
+			}
+			chunks[rowNum >>> CHUNK_SHIFT][rowNum & CHUNK_MASK] = new Row(rowNum, numSeats, 0, bitmap);
+		}
+		return new SeatMapSnapshot(0, numOfRows, chunks, new long[chunks.length]);
+	}
+
+	/**
+	 * Seat map with a range of adjacent seats marked available or taken, at the next version
+	 * @param rowNum
+	 * @param firstSeat
+	 * @param lastSeat inclusive
+	 * @param available
+	 * @return seatMapSnapshot
+	 */
+	public SeatMapSnapshot withSeats(int rowNum, int firstSeat, int lastSeat, boolean available) {
+		Row row = getRow(rowNum);
+		long[] bitmap = row.bitmap.clone();
+		for (int seat = firstSeat; seat <= lastSeat; seat++) {
+			if (available) {
+				bitmap[seat >>> 6] |= 1L << seat;
+			} else {
+				bitmap[seat >>> 6] &= ~(1L << seat);
+			}
+		}
+		Row[][] nextChunks = chunks.clone();
+		Row[] nextChunk = chunks[rowNum >>> CHUNK_SHIFT].clone();
+		nextChunk[rowNum & CHUNK_MASK] = new Row(rowNum, row.numSeats, version + 1, bitmap);
+		nextChunks[rowNum >>> CHUNK_SHIFT] = nextChunk;
+		long[] nextChunkVersions = chunkVersions.clone();
+		nextChunkVersions[rowNum >>> CHUNK_SHIFT] = version + 1;
+		return new SeatMapSnapshot(version + 1, numOfRows, nextChunks, nextChunkVersions);
+	}
+
+	/**
+	 * Rows that changed after the given version, every row as of this snapshot
+	 * @param sinceVersion version of the seat map the caller already has
+	 * @return diff
+	 */
+	public Diff diffSince(long sinceVersion) {
+		List<Row> changedRows = new ArrayList<>();
+		if (sinceVersion < version) {
+			for (int chunk = 0; chunk < chunks.length; chunk++) {
+				if (chunkVersions[chunk] <= sinceVersion) {
+					continue;
+				}
+				for (Row row : chunks[chunk]) {
+					if (row.version > sinceVersion) {
+						changedRows.add(row);
+					}
+				}
+			}
+		}
+		return new Diff(sinceVersion, version, Collections.unmodifiableList(changedRows));
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public int getNumOfRows() {
+		return numOfRows;
+	}
+
+	public Row getRow(int rowNum) {
+		return chunks[rowNum >>> CHUNK_SHIFT][rowNum & CHUNK_MASK];
+	}
+
+	public boolean isAvailable(int rowNum, int seat) {
+		return getRow(rowNum).isAvailable(seat);
+	}
+
+	public int getAvailableSeats() {
+		int availableSeats = 0;
+		for (Row[] chunk : chunks) {
+			for (Row row : chunk) {
+				availableSeats += row.getAvailableSeats();
+			}
+		}
+		return availableSeats;
+	}
+
+	/**
+	 * @param bits bitmap, 64 bits per word
+	 * @param fromBit
+	 * @return first set bit at or after fromBit, -1 if there is none
+	 */
+	public static int nextSetBit(long[] bits, int fromBit) {
+		int word = fromBit >>> 6;
+		if (word >= bits.length) {
+			return -1;
+		}
+		long set = bits[word] & (-1L << fromBit);
+		while (set == 0) {
+			if (++word == bits.length) {
+				return -1;
+			}
+			set = bits[word];
+		}
+		return (word << 6) + Long.numberOfTrailingZeros(set);
+	}
+
+	/**
+	 * @param bits bitmap, 64 bits per word
+	 * @param fromBit
+	 * @param numBits number of bits in use
+	 * @return first clear bit at or after fromBit, numBits if there is none
+	 */
+	public static int nextClearBit(long[] bits, int fromBit, int numBits) {
+		int word = fromBit >>> 6;
+		if (word >= bits.length) {
+			return numBits;
+		}
+		long clear = ~bits[word] & (-1L << fromBit);
+		while (clear == 0) {
+			if (++word == bits.length) {
+				return numBits;
+			}
+			clear = ~bits[word];
+		}
+		return Math.min(numBits, (word << 6) + Long.numberOfTrailingZeros(clear));
+	}
+
+}
@@ -0,0 +1,53 @@
+package com.walmart.ticketservice.model;
+
+import java.util.List;
+
+/**
+ * Best seats a hold would get at the time of a preview, without holding them
+ * A quote is only a snapshot, the seats may be held by someone else by the time the customer asks for them
+ * @author bkulkar
+ *
+ */
+public class SeatQuote {
+
+	private final int rowNum;
+	private final List<Seat> seats;
+	/**
+	 * Total score of the seats
+	 */
+	private final double score;
+	/**
+	 * Version of the seat map the quote was taken from
+	 */
+	private final long seatMapVersion;
+
+	public SeatQuote(int rowNum, List<Seat> seats, double score, long seatMapVersion) {
+		this.rowNum = rowNum;
+		this.seats = seats;
+		this.score = score;
+		this.seatMapVersion = seatMapVersion;
+	}
+
+	public int getRowNum() {
+		return rowNum;
+	}
+
+	public List<Seat> getSeats() {
+		return seats;
+	}
+
+	public double getScore() {
+		return score;
+	}
+
+	public long getSeatMapVersion() {
+		return seatMapVersion;
+	}
+
+	@Override
+	public String toString() {
+		return "SeatQuote [rowNum=" + rowNum + ", firstSeat=" + seats.get(0).getId() + ", numSeats=" + seats.size()
+				+ ", score=" + score + ", seatMapVersion=" + seatMapVersion + "]";
+	}
+
+}
@@ -0,0 +1,84 @@
+package com.walmart.ticketservice.model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Read only list of adjacent seats in a row that is described by the row and the seat range alone
+ * Seats are created when they are asked for, so a range stored off-heap can be handed out as a list of seats
+ * without keeping a seat object per seat alive
+ * @author bkulkar
+ *
+ */
+public class SeatRange extends AbstractList<Seat> implements RandomAccess {
+
+	private final Section section;
+	private final int rowNum;
+	private final int firstSeat;
+	private final int numSeats;
+
+	/**
+	 * @param section section of the row, for the seat scores
+	 * @param rowNum
+	 * @param firstSeat
+	 * @param numSeats
+	 */
+	public SeatRange(Section section, int rowNum, int firstSeat, int numSeats) {
+		this.section = section;
+		this.rowNum = rowNum;
+		this.firstSeat = firstSeat;
+		this.numSeats = numSeats;
+	}
+
+	@Override
+	public Seat get(int index) {
+		if (index < 0 || index >= numSeats) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + numSeats);
+		}
+		int seat = firstSeat + index;
+		return new Seat(seat, section.getScore(rowNum, seat), rowNum, section.getSeatTier(rowNum, seat));
+	}
+
+	@Override
+	public int size() {
+		return numSeats;
+	}
+
+	public int getRowNum() {
+		return rowNum;
+	}
+
+	public int getFirstSeat() {
+		return firstSeat;
+	}
+
+	/**
+	 * Splits seats ordered by row and seat, e.g. the seats of a group held across rows, into ranges of adjacent seats of a row
+	 * @param seats
+	 * @return ranges in the order of the seats, the seats themselves if they are a single range
+	 */
+	public static List<List<Seat>> split(List<Seat> seats) {
+		if (seats.isEmpty()) {
+			return Collections.emptyList();
+		}
+		Seat first = seats.get(0);
+		Seat last = seats.get(seats.size() - 1);
+		if (first.getRowNum() == last.getRowNum() && last.getId() - first.getId() == seats.size() - 1) {
+			return Collections.singletonList(seats);
+		}
+		List<List<Seat>> ranges = new ArrayList<>();
+		int start = 0;
+		for (int i = 1; i <= seats.size(); i++) {
+			if (i == seats.size() || seats.get(i).getRowNum() != seats.get(i - 1).getRowNum()
+					|| seats.get(i).getId() != seats.get(i - 1).getId() + 1) {
+				ranges.add(new ArrayList<>(seats.subList(start, i)));
+				start = i;
+			}
+		}
+		return ranges;
+	}
+
+}
@@ -29,11 +29,21 @@ public class SeatRowBlock implements Comparable<Object> {
 	 * @param seatScores
 	 */
 	public SeatRowBlock(int rowId, int seatsPerRow, float[] seatScores) {
+		this(rowId, seatsPerRow, seatScores, 0);
+	}
+	
+	/**
+	 * @param rowId
+	 * @param seatsPerRow
+	 * @param seatScores
+	 * @param priceTier price tier of the seats of the row
+	 */
+	public SeatRowBlock(int rowId, int seatsPerRow, float[] seatScores, int priceTier) {
 		this.rowId = rowId;
 		seats = new ArrayList<Seat>(seatsPerRow);
 		
 		for(int index=0; index < seatsPerRow; index++){
-			seats.add(index, new Seat(index, seatScores[index], rowId));
+			seats.add(index, new Seat(index, seatScores[index], rowId, priceTier));
 		}
 	}
 	
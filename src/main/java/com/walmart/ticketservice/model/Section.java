@@ -0,0 +1,668 @@
+package com.walmart.ticketservice.model;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.walmart.ticketservice.scoring.SeatScoreFunction;
+import com.walmart.ticketservice.scoring.SeatScoreMatrix;
+
+/**
+ * A section is a part of the venue (e.g. floor, lower bowl, balcony) made of consecutive rows
+ * of the same width, sold at the price tier of the section unless ranges of seats are priced at other tiers
+ * Every section keeps its own queue of free seat row blocks guarded by its own lock,
+ * so holds in different sections do not wait for each other
+ * Seat attributes and price tiers are kept as one bitmap per attribute or tier and row, 64 seats per word
+ * @author bkulkar
+ *
+ */
+public class Section {
+
+	/**
+	 * Unique name of the section within the venue
+	 */
+	private final String name;
+	/**
+	 * Price tier the seats of the section are sold at unless they are priced at another tier
+	 */
+	private final int priceTier;
+	/**
+	 * Price of a seat of the price tier of the section
+	 */
+	private final BigDecimal price;
+	/**
+	 * Venue row number of the front row of the section
+	 */
+	private final int firstRow;
+	private final int numOfRows;
+	private final int seatsPerRow;
+	/**
+	 * Scores of the seats in the section, rows numbered from the front row of the section
+	 */
+	private final SeatScoreMatrix seatScores;
+	/**
+	 * Free seat row blocks of the section, front rows first
+	 * Only accessed while holding the section lock
+	 */
+	private final PriorityQueue<SeatRowBlock> availableSeatRows;
+	/**
+	 * Lock guarding the free seat row blocks
+	 */
+	private final ReentrantLock lock = new ReentrantLock();
+	/**
+	 * Number of seats in the section that are neither held nor reserved
+	 */
+	private final AtomicInteger availableSeats;
+	/**
+	 * Number of seats of the largest free seat row block
+	 * Written under the section lock whenever the free blocks change, read without it
+	 */
+	private volatile int largestFreeBlock;
+	/**
+	 * Seats carrying each attribute, indexed by attribute, row of the section and word
+	 * Attributes are marked while the venue is set up, before it goes on sale
+	 */
+	private final long[][][] attributeBitmaps;
+	/**
+	 * Price tiers of the seats of the section, the tier of the section first, and the price of each
+	 * Tiers are added while the venue is set up, before it goes on sale
+	 */
+	private int[] tiers;
+	private BigDecimal[] tierPrices;
+	/**
+	 * Seats of each price tier, indexed by position of the tier in tiers, row of the section and word
+	 * Every seat is in exactly one tier
+	 */
+	private long[][][] tierBitmaps;
+	/**
+	 * Number of seats of the largest run of free seats of each price tier, indexed by position of the tier in tiers
+	 * Only kept for sections with more than one tier, written under the section lock whenever the free blocks change
+	 * and read without it
+	 */
+	private volatile int[] largestFreeRuns;
+
+	/**
+	 * Section whose seats have no price set
+	 * @param name
+	 * @param priceTier
+	 * @param firstRow venue row number of the front row of the section
+	 * @param numOfRows
+	 * @param seatsPerRow
+	 * @param scoreFunction scoring model for the seats of the section
+	 */
+	public Section(String name, int priceTier, int firstRow, int numOfRows, int seatsPerRow, SeatScoreFunction scoreFunction) {
+		this(name, priceTier, BigDecimal.ZERO, firstRow, numOfRows, seatsPerRow, scoreFunction);
+	}
+
+	/**
+	 * @param name
+	 * @param priceTier
+	 * @param price price of a seat of the section
+	 * @param firstRow venue row number of the front row of the section
+	 * @param numOfRows
+	 * @param seatsPerRow
+	 * @param scoreFunction scoring model for the seats of the section
+	 */
+	public Section(String name, int priceTier, BigDecimal price, int firstRow, int numOfRows, int seatsPerRow, SeatScoreFunction scoreFunction) {
+		if (price == null || price.signum() < 0) {
+			throw new IllegalArgumentException("Price of section " + name + " should not be negative");
+		}
+		this.name = name;
+		this.priceTier = priceTier;
+		this.price = price;
+		this.firstRow = firstRow;
+		this.numOfRows = numOfRows;
+		this.seatsPerRow = seatsPerRow;
+		this.seatScores = SeatScoreMatrix.of(scoreFunction, numOfRows, seatsPerRow);
+		this.availableSeatRows = new PriorityQueue<SeatRowBlock>((o1, o2) -> o1.getRowId() - o2.getRowId());
+
+		for (int i = 0; i < numOfRows; i++) {
+			availableSeatRows.add(new SeatRowBlock(firstRow + i, seatsPerRow, seatScores.getRowScores(i), priceTier));
+		}
+		this.availableSeats = new AtomicInteger(numOfRows * seatsPerRow);
+		this.largestFreeBlock = numOfRows > 0 ? seatsPerRow : 0;
+		this.attributeBitmaps = new long[SeatAttribute.values().length][numOfRows][(seatsPerRow + 63) >>> 6];
+		this.tiers = new int[] { priceTier };
+		this.tierPrices = new BigDecimal[] { price };
+		this.tierBitmaps = new long[1][numOfRows][(seatsPerRow + 63) >>> 6];
+		for (long[] bitmap : tierBitmaps[0]) {
+			for (int seat = 0; seat < seatsPerRow; seat++) {
+				bitmap[seat >>> 6] |= 1L << seat;
+			}
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getPriceTier() {
+		return priceTier;
+	}
+
+	public BigDecimal getPrice() {
+		return price;
+	}
+
+	public int getFirstRow() {
+		return firstRow;
+	}
+
+	/**
+	 * @return venue row number of the last row of the section
+	 */
+	public int getLastRow() {
+		return firstRow + numOfRows - 1;
+	}
+
+	public int getNumOfRows() {
+		return numOfRows;
+	}
+
+	public int getSeatsPerRow() {
+		return seatsPerRow;
+	}
+
+	public int getCapacity() {
+		return numOfRows * seatsPerRow;
+	}
+
+	public SeatScoreMatrix getSeatScores() {
+		return seatScores;
+	}
+
+	/**
+	 * Score of a seat
+	 * @param rowNum venue row number
+	 * @param seatIndex
+	 * @return score
+	 */
+	public float getScore(int rowNum, int seatIndex) {
+		return seatScores.getScore(rowNum - firstRow, seatIndex);
+	}
+
+	/**
+	 * Total score of numSeats adjacent seats in a row starting at firstSeat
+	 * @param rowNum venue row number
+	 * @param firstSeat
+	 * @param numSeats
+	 * @return windowScore
+	 */
+	public double windowScore(int rowNum, int firstSeat, int numSeats) {
+		return seatScores.windowScore(rowNum - firstRow, firstSeat, numSeats);
+	}
+
+	/**
+	 * Marks a range of adjacent seats of a row with an attribute
+	 * @param attribute
+	 * @param rowNum venue row number
+	 * @param firstSeat
+	 * @param lastSeat inclusive
+	 */
+	public void markSeats(SeatAttribute attribute, int rowNum, int firstSeat, int lastSeat) {
+		if (!containsRow(rowNum) || firstSeat < 0 || lastSeat >= seatsPerRow || firstSeat > lastSeat) {
+			throw new IllegalArgumentException("Seats " + firstSeat + " to " + lastSeat + " of row " + rowNum
+					+ " are not in section " + name);
+		}
+		long[] bitmap = attributeBitmaps[attribute.ordinal()][rowNum - firstRow];
+		for (int seat = firstSeat; seat <= lastSeat; seat++) {
+			bitmap[seat >>> 6] |= 1L << seat;
+		}
+	}
+
+	/**
+	 * @param rowNum venue row number
+	 * @param seatIndex
+	 * @return attribute mask of the seat
+	 */
+	public int getSeatAttributes(int rowNum, int seatIndex) {
+		int mask = 0;
+		for (SeatAttribute attribute : SeatAttribute.values()) {
+			if ((attributeBitmaps[attribute.ordinal()][rowNum - firstRow][seatIndex >>> 6] & (1L << seatIndex)) != 0) {
+				mask |= attribute.getMask();
+			}
+		}
+		return mask;
+	}
+
+	/**
+	 * Bitmap of the seats of a row that carry every required attribute and none of the excluded ones
+	 * @param rowNum venue row number
+	 * @param requiredMask attribute mask
+	 * @param excludedMask attribute mask
+	 * @return bitmap, 64 seats per word
+	 */
+	public long[] matchingSeats(int rowNum, int requiredMask, int excludedMask) {
+		long[] matching = new long[(seatsPerRow + 63) >>> 6];
+		Arrays.fill(matching, -1L);
+		for (SeatAttribute attribute : SeatAttribute.values()) {
+			boolean required = (requiredMask & attribute.getMask()) != 0;
+			boolean excluded = (excludedMask & attribute.getMask()) != 0;
+			if (!required && !excluded) {
+				continue;
+			}
+			long[] bitmap = attributeBitmaps[attribute.ordinal()][rowNum - firstRow];
+			for (int word = 0; word < matching.length; word++) {
+				matching[word] &= required ? bitmap[word] : ~bitmap[word];
+			}
+		}
+		return matching;
+	}
+
+	/**
+	 * Sells a range of adjacent seats of a row at a price tier other than the tier of the section
+	 * Seats are priced while the venue is set up, before any seat of the section is held
+	 * @param priceTier
+	 * @param price price of a seat of the price tier
+	 * @param rowNum venue row number
+	 * @param firstSeat
+	 * @param lastSeat inclusive
+	 */
+	public void priceSeats(int priceTier, BigDecimal price, int rowNum, int firstSeat, int lastSeat) {
+		if (!containsRow(rowNum) || firstSeat < 0 || lastSeat >= seatsPerRow || firstSeat > lastSeat) {
+			throw new IllegalArgumentException("Seats " + firstSeat + " to " + lastSeat + " of row " + rowNum
+					+ " are not in section " + name);
+		}
+		if (price == null || price.signum() < 0) {
+			throw new IllegalArgumentException("Price of tier " + priceTier + " should not be negative");
+		}
+		lock.lock();
+		try {
+			if (availableSeats.get() != getCapacity()) {
+				throw new IllegalArgumentException("Seats of section " + name + " are priced before it goes on sale");
+			}
+			int tier = tierIndexOf(priceTier);
+			if (tier < 0) {
+				tier = tiers.length;
+				tiers = Arrays.copyOf(tiers, tier + 1);
+				tiers[tier] = priceTier;
+				tierPrices = Arrays.copyOf(tierPrices, tier + 1);
+				tierPrices[tier] = price;
+				tierBitmaps = Arrays.copyOf(tierBitmaps, tier + 1);
+				tierBitmaps[tier] = new long[numOfRows][(seatsPerRow + 63) >>> 6];
+			} else if (tierPrices[tier].compareTo(price) != 0) {
+				throw new IllegalArgumentException("Price tier " + priceTier + " of section " + name + " already has price "
+						+ tierPrices[tier]);
+			}
+
+			int rowIndex = rowNum - firstRow;
+			for (int seat = firstSeat; seat <= lastSeat; seat++) {
+				for (long[][] bitmaps : tierBitmaps) {
+					bitmaps[rowIndex][seat >>> 6] &= ~(1L << seat);
+				}
+				tierBitmaps[tier][rowIndex][seat >>> 6] |= 1L << seat;
+			}
+			for (SeatRowBlock seatRow : availableSeatRows) {
+				if (seatRow.getRowId() == rowNum) {
+					for (Seat seat : seatRow.getSeats().subList(firstSeat, lastSeat + 1)) {
+						seat.setPriceTier(priceTier);
+					}
+				}
+			}
+			indexFreeBlocks();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return price tiers of the seats of the section, the tier of the section first
+	 */
+	public List<Integer> getPriceTiers() {
+		List<Integer> priceTiers = new ArrayList<Integer>(tiers.length);
+		for (int tier : tiers) {
+			priceTiers.add(tier);
+		}
+		return priceTiers;
+	}
+
+	/**
+	 * @param priceTier
+	 * @return price of a seat of the price tier, null if no seat of the section is sold at the tier
+	 */
+	public BigDecimal getPrice(int priceTier) {
+		int tier = tierIndexOf(priceTier);
+		return tier < 0 ? null : tierPrices[tier];
+	}
+
+	/**
+	 * @param rowNum venue row number
+	 * @param seatIndex
+	 * @return price tier the seat is sold at
+	 */
+	public int getSeatTier(int rowNum, int seatIndex) {
+		return tiers[tierIndexOf(rowNum - firstRow, seatIndex)];
+	}
+
+	/**
+	 * @param priceTiers
+	 * @return true if every seat of the section is sold at one of the price tiers
+	 */
+	public boolean isSoldWithin(Set<Integer> priceTiers) {
+		for (int tier : tiers) {
+			if (!priceTiers.contains(tier)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Bitmap of the seats of a row that carry every required attribute and none of the excluded ones
+	 * and are sold at one of the price tiers
+	 * @param rowNum venue row number
+	 * @param requiredMask attribute mask
+	 * @param excludedMask attribute mask
+	 * @param priceTiers null for seats of any tier
+	 * @return bitmap, 64 seats per word
+	 */
+	public long[] matchingSeats(int rowNum, int requiredMask, int excludedMask, Set<Integer> priceTiers) {
+		long[] matching = matchingSeats(rowNum, requiredMask, excludedMask);
+		if (priceTiers == null || isSoldWithin(priceTiers)) {
+			return matching;
+		}
+		long[] inTiers = new long[matching.length];
+		for (int tier = 0; tier < tiers.length; tier++) {
+			if (priceTiers.contains(tiers[tier])) {
+				long[] bitmap = tierBitmaps[tier][rowNum - firstRow];
+				for (int word = 0; word < inTiers.length; word++) {
+					inTiers[word] |= bitmap[word];
+				}
+			}
+		}
+		for (int word = 0; word < matching.length; word++) {
+			matching[word] &= inTiers[word];
+		}
+		return matching;
+	}
+
+	/**
+	 * @param priceTier
+	 * @return position of the price tier in tiers, -1 if no seat of the section is sold at it
+	 */
+	private int tierIndexOf(int priceTier) {
+		for (int tier = 0; tier < tiers.length; tier++) {
+			if (tiers[tier] == priceTier) {
+				return tier;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @param rowIndex row of the section
+	 * @param seatIndex
+	 * @return position in tiers of the price tier the seat is sold at
+	 */
+	private int tierIndexOf(int rowIndex, int seatIndex) {
+		for (int tier = 1; tier < tiers.length; tier++) {
+			if ((tierBitmaps[tier][rowIndex][seatIndex >>> 6] & (1L << seatIndex)) != 0) {
+				return tier;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * @param rowNum venue row number
+	 * @return true if the row belongs to this section
+	 */
+	public boolean containsRow(int rowNum) {
+		return rowNum >= firstRow && rowNum <= getLastRow();
+	}
+
+	/**
+	 * Free seat row blocks of the section
+	 * Callers have to hold the section lock
+	 * @return availableSeatRows
+	 */
+	public PriorityQueue<SeatRowBlock> getAvailableSeatRows() {
+		return availableSeatRows;
+	}
+
+	public ReentrantLock getLock() {
+		return lock;
+	}
+
+	public int getAvailableSeats() {
+		return availableSeats.get();
+	}
+
+	/**
+	 * Adjust the number of available seats after seats were held or released
+	 * and the largest free block to the changed free seat row blocks
+	 * Callers have to hold the section lock
+	 * @param delta
+	 */
+	public void addAvailableSeats(int delta) {
+		availableSeats.addAndGet(delta);
+		indexFreeBlocks();
+	}
+
+	/**
+	 * Recomputes the largest free block and, with more than one price tier, the largest run of free seats of each tier
+	 * Callers have to hold the section lock
+	 */
+	private void indexFreeBlocks() {
+		int largest = 0;
+		int[] largestRuns = tiers.length > 1 ? new int[tiers.length] : null;
+		for (SeatRowBlock seatRow : availableSeatRows) {
+			largest = Math.max(largest, seatRow.getAvailableSeats());
+			if (largestRuns != null) {
+				int rowIndex = seatRow.getRowId() - firstRow;
+				int runTier = -1;
+				int run = 0;
+				for (Seat seat : seatRow.getSeats()) {
+					int tier = tierIndexOf(rowIndex, seat.getId());
+					run = tier == runTier ? run + 1 : 1;
+					runTier = tier;
+					largestRuns[tier] = Math.max(largestRuns[tier], run);
+				}
+			}
+		}
+		largestFreeBlock = largest;
+		largestFreeRuns = largestRuns;
+	}
+
+	/**
+	 * Copy of the free seat row blocks of the section taken under the section lock
+	 * @return seatRowBlocks
+	 */
+	public List<SeatRowBlock> copyAvailableSeatRows() {
+		lock.lock();
+		try {
+			return new ArrayList<SeatRowBlock>(availableSeatRows);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Checks without the section lock whether any free block can seat numSeats together
+	 * The answer can be stale by the time the caller takes the lock, so callers still have to
+	 * look for the block under the lock
+	 * @param numSeats
+	 * @return true if a large enough block exists
+	 */
+	public boolean canSeat(int numSeats) {
+		return numSeats <= largestFreeBlock;
+	}
+
+	/**
+	 * Checks without the section lock whether any run of free seats sold at one of the price tiers can seat numSeats together
+	 * With a single one of the tiers in the section the largest free run of that tier is checked. Runs of seats of
+	 * several of the tiers can span tiers, so those are only bounded by the largest free block
+	 * @param numSeats
+	 * @param priceTiers
+	 * @return false if no run of free seats of the tiers is large enough
+	 */
+	public boolean canSeat(int numSeats, Set<Integer> priceTiers) {
+		int matchingTier = -1;
+		int numMatching = 0;
+		for (int tier = 0; tier < tiers.length; tier++) {
+			if (priceTiers.contains(tiers[tier])) {
+				matchingTier = tier;
+				numMatching++;
+			}
+		}
+		if (numMatching == 0) {
+			return false;
+		}
+		int[] largestRuns = largestFreeRuns;
+		if (numMatching == 1 && largestRuns != null) {
+			return numSeats <= largestRuns[matchingTier];
+		}
+		return canSeat(numSeats);
+	}
+
+	/**
+	 * Takes a range of adjacent seats out of the free block of a row that contains them under the section lock
+	 * and adds the seats left on either side back as separate blocks
+	 * @param rowNum venue row number
+	 * @param firstSeat
+	 * @param numSeats
+	 * @return seats taken, null if any of the seats is not free
+	 */
+	public List<Seat> takeSeats(int rowNum, int firstSeat, int numSeats) {
+		lock.lock();
+		try {
+			SeatRowBlock seatRow = findBlock(rowNum, firstSeat, numSeats);
+			return seatRow == null ? null : takeSeats(seatRow, firstSeat, numSeats);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Takes seats starting at the same seat in consecutive rows, e.g. the region of a group, under a single
+	 * acquisition of the section lock. Every row is checked before any is taken, so either all the seats are
+	 * taken or none is
+	 * @param firstRow venue row number of the front row
+	 * @param firstSeat
+	 * @param numSeatsByRow number of seats to take in every row from the front row on
+	 * @return seats taken by row from the front row on, null if any of the seats is not free
+	 */
+	public List<List<Seat>> takeSeats(int firstRow, int firstSeat, int[] numSeatsByRow) {
+		lock.lock();
+		try {
+			SeatRowBlock[] seatRows = new SeatRowBlock[numSeatsByRow.length];
+			for (int i = 0; i < numSeatsByRow.length; i++) {
+				seatRows[i] = findBlock(firstRow + i, firstSeat, numSeatsByRow[i]);
+				if (seatRows[i] == null) {
+					return null;
+				}
+			}
+			List<List<Seat>> taken = new ArrayList<List<Seat>>(numSeatsByRow.length);
+			for (int i = 0; i < numSeatsByRow.length; i++) {
+				taken.add(takeSeats(seatRows[i], firstSeat, numSeatsByRow[i]));
+			}
+			return taken;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Free block of a row that contains a range of adjacent seats
+	 * Callers have to hold the section lock
+	 * @param rowNum venue row number
+	 * @param firstSeat
+	 * @param numSeats
+	 * @return seatRowBlock, null if any of the seats is not free
+	 */
+	private SeatRowBlock findBlock(int rowNum, int firstSeat, int numSeats) {
+		for (SeatRowBlock seatRow : availableSeatRows) {
+			List<Seat> seats = seatRow.getSeats();
+			int startIndex = firstSeat - seats.get(0).getId();
+			if (seatRow.getRowId() == rowNum && startIndex >= 0 && startIndex + numSeats <= seats.size()) {
+				return seatRow;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Takes a range of adjacent seats out of a free block and adds the seats left on either side back as separate blocks
+	 * Callers have to hold the section lock
+	 * @param seatRow free block that contains the seats
+	 * @param firstSeat
+	 * @param numSeats
+	 * @return seats taken
+	 */
+	private List<Seat> takeSeats(SeatRowBlock seatRow, int firstSeat, int numSeats) {
+		List<Seat> seats = seatRow.getSeats();
+		int rowNum = seatRow.getRowId();
+		int startIndex = firstSeat - seats.get(0).getId();
+		availableSeatRows.remove(seatRow);
+		if (startIndex > 0) {
+			availableSeatRows.add(new SeatRowBlock(rowNum, new ArrayList<Seat>(seats.subList(0, startIndex))));
+		}
+		if (startIndex + numSeats < seats.size()) {
+			availableSeatRows.add(new SeatRowBlock(rowNum, new ArrayList<Seat>(seats.subList(startIndex + numSeats, seats.size()))));
+		}
+		addAvailableSeats(-numSeats);
+		return new ArrayList<Seat>(seats.subList(startIndex, startIndex + numSeats));
+	}
+
+	/**
+	 * Returns seat ranges grouped by row to the free seat row blocks under the section lock
+	 * The free blocks of the touched rows are taken out of the queue in a single pass. Every touched row's
+	 * released ranges and free blocks are then sorted by first seat and coalesced in one linear pass,
+	 * so adjacent free seats always end up in one continuous row block
+	 * @param rangesByRow ranges of adjacent seats by venue row number, the lists of ranges are added to
+	 */
+	public void returnSeats(Map<Integer, List<List<Seat>>> rangesByRow) {
+
+		int seatsReleased = 0;
+		for (List<List<Seat>> ranges : rangesByRow.values()) {
+			for (List<Seat> range : ranges) {
+				seatsReleased += range.size();
+			}
+		}
+
+		lock.lock();
+		try {
+			//take the free blocks of the touched rows out of the queue
+			Iterator<SeatRowBlock> blocks = availableSeatRows.iterator();
+			while (blocks.hasNext()) {
+				SeatRowBlock seatRow = blocks.next();
+				List<List<Seat>> ranges = rangesByRow.get(seatRow.getRowId());
+				if (ranges != null) {
+					ranges.add(seatRow.getSeats());
+					blocks.remove();
+				}
+			}
+
+			//coalesce every touched row into continuous blocks
+			for (Entry<Integer, List<List<Seat>>> row : rangesByRow.entrySet()) {
+				List<List<Seat>> ranges = row.getValue();
+				Collections.sort(ranges, Comparator.comparingInt(range -> range.get(0).getId()));
+
+				List<Seat> block = new ArrayList<Seat>(ranges.get(0));
+				for (int i = 1; i < ranges.size(); i++) {
+					List<Seat> range = ranges.get(i);
+					if (range.get(0).getId() != block.get(block.size() - 1).getId() + 1) {
+						availableSeatRows.add(new SeatRowBlock(row.getKey(), block));
+						block = new ArrayList<Seat>(range.size());
+					}
+					block.addAll(range);
+				}
+				availableSeatRows.add(new SeatRowBlock(row.getKey(), block));
+			}
+			addAvailableSeats(seatsReleased);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+}
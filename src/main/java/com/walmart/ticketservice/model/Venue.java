@@ -1,66 +1,297 @@
 package com.walmart.ticketservice.model;
 
-import java.util.Comparator;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
-import com.walmart.ticketservice.common.utils.CommonUtil;
+import com.walmart.ticketservice.scoring.CenterWeightedScoreFunction;
+import com.walmart.ticketservice.scoring.SeatScoreFunction;
 
 /**
- * A venue is a queue of seat rows
+ * A venue is made of sections, each a queue of seat rows
+ * Sections are ordered from front to back and their rows are numbered consecutively across the venue
  * Seats at front have higher priority than those at the back
  * @author bkulkar
  *
  */
 public class Venue {
 	
+	/**
+	 * Name of the only section of a venue created without sections
+	 */
+	public static final String DEFAULT_SECTION = "MAIN";
 	
 	/**
-	 * Priority queue to store rows in descending order of priority
-	 * Rows start with 0 (front row) to N (last row)
+	 * Sections of the venue ordered from front to back
+	 * Rows start with 0 (front row of the first section) to N (last row of the last section)
 	 * i.e. front rows have higher priority - the greater the row number, lower is the priority
 	 */
-	PriorityQueue<SeatRowBlock> availableSeatRows;
+	List<Section> sections;
+	/**
+	 * Section that each row belongs to, indexed by row number
+	 */
+	Section[] sectionOfRow;
+	/**
+	 * Price of a seat of each price tier
+	 */
+	Map<Integer, BigDecimal> tierPrices;
+	/**
+	 * Sections that sell seats at each price tier ordered from front to back
+	 */
+	Map<Integer, List<Section>> sectionsByTier;
+	/**
+	 * Sections that sell seats priced at or below each distinct tier price, ordered from front to back
+	 */
+	TreeMap<BigDecimal, List<Section>> sectionsUpToPrice;
 	/**
-	 * Storing seatScore so that repetitive calculations are not required
+	 * Price tiers priced at or below each distinct tier price
 	 */
-	static float[] seatScores;
+	TreeMap<BigDecimal, Set<Integer>> tiersUpToPrice;
+	/**
+	 * Number of rows in the venue
+	 */
+	int numOfRows;
+	/**
+	 * Number of seats in the widest row of the venue
+	 */
+	int seatsPerRow;
 	/**
 	 * Seats that are successfully reserved mapped with confirmation code as the key
 	 */
 	Map<String, List<Seat>> seatsReserved;
 
      /**
+     * Venue with seats in the middle of each row scored higher than the seats on the side
      * @param numOfRows
      * @param seatsPerRow
      */
     public Venue(int numOfRows, int seatsPerRow) {
-    	 
-    	 availableSeatRows = new PriorityQueue<SeatRowBlock>(new Comparator<SeatRowBlock>() {
-			@Override
-			public int compare(SeatRowBlock o1, SeatRowBlock o2) {
-				return o1.getRowId() - o2.getRowId();
-			}
-    	 }) ;
-    	 
-    	 seatScores = CommonUtil.getScores(seatsPerRow);
-    	 
-    	 for(int i = 0 ; i < numOfRows ; i ++) {
-    		 availableSeatRows.add(new SeatRowBlock(i, seatsPerRow, seatScores));
-    	 }
-    	 
-    	 this.seatsReserved = new HashMap<String, List<Seat>>();
+    	this(numOfRows, seatsPerRow, new CenterWeightedScoreFunction());
+    }
+
+     /**
+     * Venue made of a single section
+     * @param numOfRows
+     * @param seatsPerRow
+     * @param scoreFunction scoring model for the seats of the venue
+     */
+    public Venue(int numOfRows, int seatsPerRow, SeatScoreFunction scoreFunction) {
+    	this(Collections.singletonList(new Section(DEFAULT_SECTION, 0, 0, numOfRows, seatsPerRow, scoreFunction)));
+    }
+    
+     /**
+     * @param sections ordered from front to back, the first section starting at row 0 
+     * and every other section starting right after the last row of the section in front of it
+     */
+    public Venue(List<Section> sections) {
+    	
+    	if(sections == null || sections.isEmpty()) {
+    		throw new IllegalArgumentException("A venue needs at least one section");
+    	}
+    	
+    	Set<String> names = new HashSet<String>();
+    	int nextRow = 0;
+    	for(Section section : sections) {
+    		if(section.getFirstRow() != nextRow) {
+    			throw new IllegalArgumentException("Section " + section.getName() + " should start at row " + nextRow);
+    		}
+    		if(!names.add(section.getName())) {
+    			throw new IllegalArgumentException("Duplicate section " + section.getName());
+    		}
+    		nextRow += section.getNumOfRows();
+    		this.seatsPerRow = Math.max(this.seatsPerRow, section.getSeatsPerRow());
+    	}
+    	
+    	this.sections = Collections.unmodifiableList(new ArrayList<Section>(sections));
+    	this.numOfRows = nextRow;
+    	this.sectionOfRow = new Section[nextRow];
+    	for(Section section : sections) {
+    		for(int row = section.getFirstRow(); row <= section.getLastRow(); row++) {
+    			sectionOfRow[row] = section;
+    		}
+    	}
+    	
+    	indexPriceTiers();
+    	
+    	this.seatsReserved = new ConcurrentHashMap<String, List<Seat>>();
     }
+    
+	public List<Section> getSections() {
+		return sections;
+	}
+	
+	/**
+	 * @param name
+	 * @return section with the given name, null if the venue has no such section
+	 */
+	public Section getSection(String name) {
+		for(Section section : sections) {
+			if(section.getName().equals(name)) {
+				return section;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Rebuilds the sections and tiers of every price tier and price from the tiers the sections sell seats at
+	 * A price tier has the same price in every section
+	 */
+	private void indexPriceTiers() {
+		
+		Map<Integer, BigDecimal> prices = new HashMap<Integer, BigDecimal>();
+		Map<Integer, List<Section>> tierSections = new HashMap<Integer, List<Section>>();
+		for(Section section : sections) {
+			for(int tier : section.getPriceTiers()) {
+				BigDecimal price = section.getPrice(tier);
+				BigDecimal known = prices.putIfAbsent(tier, price);
+				if(known != null && known.compareTo(price) != 0) {
+					throw new IllegalArgumentException("Price tier " + tier + " of section " + section.getName()
+							+ " should have price " + known);
+				}
+				tierSections.computeIfAbsent(tier, key -> new ArrayList<Section>()).add(section);
+			}
+		}
+		tierSections.replaceAll((tier, inTier) -> Collections.unmodifiableList(inTier));
+		
+		TreeMap<BigDecimal, List<Section>> affordableSections = new TreeMap<BigDecimal, List<Section>>();
+		TreeMap<BigDecimal, Set<Integer>> affordableTiers = new TreeMap<BigDecimal, Set<Integer>>();
+		for(BigDecimal price : prices.values()) {
+			Set<Integer> tiers = new HashSet<Integer>();
+			for(Map.Entry<Integer, BigDecimal> tier : prices.entrySet()) {
+				if(tier.getValue().compareTo(price) <= 0) {
+					tiers.add(tier.getKey());
+				}
+			}
+			List<Section> affordable = new ArrayList<Section>();
+			for(Section section : sections) {
+				if(!Collections.disjoint(section.getPriceTiers(), tiers)) {
+					affordable.add(section);
+				}
+			}
+			affordableTiers.put(price, Collections.unmodifiableSet(tiers));
+			affordableSections.put(price, Collections.unmodifiableList(affordable));
+		}
+		
+		this.tierPrices = prices;
+		this.sectionsByTier = tierSections;
+		this.sectionsUpToPrice = affordableSections;
+		this.tiersUpToPrice = affordableTiers;
+	}
+	
+	/**
+	 * @param priceTier
+	 * @return sections that sell seats at the price tier ordered from front to back, empty if there are none
+	 */
+	public List<Section> getSectionsInPriceTier(int priceTier) {
+		List<Section> tierSections = sectionsByTier.get(priceTier);
+		return tierSections == null ? Collections.<Section>emptyList() : tierSections;
+	}
+	
+	/**
+	 * @param maxPrice
+	 * @return sections that sell seats costing at most maxPrice ordered from front to back, empty if there are none
+	 */
+	public List<Section> getSectionsUpToPrice(BigDecimal maxPrice) {
+		Map.Entry<BigDecimal, List<Section>> affordable = sectionsUpToPrice.floorEntry(maxPrice);
+		return affordable == null ? Collections.<Section>emptyList() : affordable.getValue();
+	}
+	
+	/**
+	 * @param maxPrice
+	 * @return price tiers whose seats cost at most maxPrice, empty if there are none
+	 */
+	public Set<Integer> getPriceTiersUpToPrice(BigDecimal maxPrice) {
+		Map.Entry<BigDecimal, Set<Integer>> affordable = tiersUpToPrice.floorEntry(maxPrice);
+		return affordable == null ? Collections.<Integer>emptySet() : affordable.getValue();
+	}
+	
+	/**
+	 * Sells a range of adjacent seats of a row at a price tier, in the section the row belongs to
+	 * Seats are priced while the venue is set up, before it goes on sale
+	 * @param priceTier
+	 * @param price price of a seat of the price tier, the same in every section
+	 * @param rowNum
+	 * @param firstSeat
+	 * @param lastSeat inclusive
+	 */
+	public void priceSeats(int priceTier, BigDecimal price, int rowNum, int firstSeat, int lastSeat) {
+		if(rowNum < 0 || rowNum >= numOfRows) {
+			throw new IllegalArgumentException("Row " + rowNum + " is not in the venue");
+		}
+		BigDecimal known = tierPrices.get(priceTier);
+		if(known != null && price != null && known.compareTo(price) != 0) {
+			throw new IllegalArgumentException("Price tier " + priceTier + " should have price " + known);
+		}
+		sectionOfRow[rowNum].priceSeats(priceTier, price, rowNum, firstSeat, lastSeat);
+		indexPriceTiers();
+	}
+	
+	/**
+	 * Marks a range of adjacent seats of a row with an attribute, in the section the row belongs to
+	 * @param attribute
+	 * @param rowNum
+	 * @param firstSeat
+	 * @param lastSeat inclusive
+	 */
+	public void markSeats(SeatAttribute attribute, int rowNum, int firstSeat, int lastSeat) {
+		if(rowNum < 0 || rowNum >= numOfRows) {
+			throw new IllegalArgumentException("Row " + rowNum + " is not in the venue");
+		}
+		sectionOfRow[rowNum].markSeats(attribute, rowNum, firstSeat, lastSeat);
+	}
+	
+	/**
+	 * @param rowNum
+	 * @return section the row belongs to
+	 */
+	public Section getSectionForRow(int rowNum) {
+		return sectionOfRow[rowNum];
+	}
       
+	/**
+	 * Copy of the available seat rows of all sections
+	 * Every section is copied under its own lock
+	 * @return availableSeatRows
+	 */
 	public PriorityQueue<SeatRowBlock> getAvailableSeatRows() {
+		PriorityQueue<SeatRowBlock> availableSeatRows = new PriorityQueue<SeatRowBlock>();
+		for(Section section : sections) {
+			availableSeatRows.addAll(section.copyAvailableSeatRows());
+		}
 		return availableSeatRows;
 	}
-
-	public void setAvailableSeatRows(PriorityQueue<SeatRowBlock> availableSeatRows) {
-		this.availableSeatRows = availableSeatRows;
-	} 
+	
+	/**
+	 * Number of seats in the venue that are neither held nor reserved
+	 * @return availableSeats
+	 */
+	public int getAvailableSeats() {
+		int availableSeats = 0;
+		for(Section section : sections) {
+			availableSeats += section.getAvailableSeats();
+		}
+		return availableSeats;
+	}
+	
+	/**
+	 * @return total number of seats in the venue
+	 */
+	public int getCapacity() {
+		int capacity = 0;
+		for(Section section : sections) {
+			capacity += section.getCapacity();
+		}
+		return capacity;
+	}
 	
 	public Map<String, List<Seat>> getSeatsReserved() {
 		return seatsReserved;
@@ -70,12 +301,20 @@ public class Venue {
 		this.seatsReserved = seatsReserved;
 	}
 
+	public int getNumOfRows() {
+		return numOfRows;
+	}
+
+	public int getSeatsPerRow() {
+		return seatsPerRow;
+	}
+
 	
 	/**
 	 * Printing rows from queue 
 	 * @param seatsPerRow
 	 */
-	public synchronized void printRowsWithScores(int seatsPerRow) {
+	public void printRowsWithScores(int seatsPerRow) {
 		   
 		   System.out.println("\nSeats in each row are numbered as : \n");
 		   for(int i = 0 ; i< seatsPerRow ; i++) {
@@ -83,7 +322,7 @@ public class Venue {
 		   }
 		   System.out.println("");
 		   System.out.println("\nEach seat in row is scored as  : "  );
-	       this.availableSeatRows.stream().sorted().forEach(seatRowBlock-> {
+	       this.getAvailableSeatRows().stream().sorted().forEach(seatRowBlock-> {
 	    	  System.out.println();
 	    	  System.out.print("ROW "+ seatRowBlock.getRowId() + " : ");
 	    	  seatRowBlock.getSeats().forEach(seat -> {
@@ -0,0 +1,30 @@
+package com.walmart.ticketservice.replication;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Transport between a leader and followers in the same process
+ * Commands are handed to every follower on the sending thread, so a follower has applied a change
+ * by the time the leader's request returns, which keeps tests deterministic
+ * @author bkulkar
+ *
+ */
+public class LoopbackTransport implements ReplicationTransport {
+
+	private final List<Consumer<ReplicationCommand>> receivers = new CopyOnWriteArrayList<>();
+
+	@Override
+	public void send(ReplicationCommand command) {
+		for (Consumer<ReplicationCommand> receiver : receivers) {
+			receiver.accept(command);
+		}
+	}
+
+	@Override
+	public void addReceiver(Consumer<ReplicationCommand> receiver) {
+		receivers.add(receiver);
+	}
+
+}
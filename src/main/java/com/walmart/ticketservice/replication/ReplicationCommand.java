@@ -0,0 +1,38 @@
+package com.walmart.ticketservice.replication;
+
+import com.walmart.ticketservice.events.SeatEvent;
+
+/**
+ * Change to the seats of the leader, numbered in the order the leader applied it
+ * Followers apply the commands in sequence order, which is an order in which every seat changes
+ * exactly as it did on the leader
+ * @author bkulkar
+ *
+ */
+public class ReplicationCommand {
+
+	/**
+	 * Position of the command in the log of the leader, starting at 1
+	 */
+	private final long sequence;
+	private final SeatEvent change;
+
+	public ReplicationCommand(long sequence, SeatEvent change) {
+		this.sequence = sequence;
+		this.change = change;
+	}
+
+	public long getSequence() {
+		return sequence;
+	}
+
+	public SeatEvent getChange() {
+		return change;
+	}
+
+	@Override
+	public String toString() {
+		return "ReplicationCommand [sequence=" + sequence + ", change=" + change + "]";
+	}
+
+}
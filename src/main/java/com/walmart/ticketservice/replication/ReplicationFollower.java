@@ -0,0 +1,264 @@
+package com.walmart.ticketservice.replication;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.walmart.ticketservice.events.SeatEvent;
+import com.walmart.ticketservice.events.SeatEventType;
+import com.walmart.ticketservice.exception.ApplicationException;
+import com.walmart.ticketservice.model.Seat;
+import com.walmart.ticketservice.model.SeatMapSnapshot;
+import com.walmart.ticketservice.model.Section;
+import com.walmart.ticketservice.model.Venue;
+import com.walmart.ticketservice.validator.Validator;
+
+/**
+ * Copy of the venue of a leader kept up to date by applying the leader's commands
+ * Commands are applied one at a time in sequence order. Commands that arrive ahead of a missing one are kept
+ * until it arrives. Seats are taken and returned at the positions the leader chose, so the follower ends up
+ * with the same free seats, holds and reservations as the leader and can serve reads for it
+ * Seats of a group held across rows change with one command per row
+ * A command that cannot be applied means the follower no longer matches the leader. The follower is then marked
+ * diverged and stops applying commands, it never throws back into the leader that sent the command
+ * @author bkulkar
+ *
+ */
+public class ReplicationFollower {
+
+	/**
+	 * Venue of the follower, laid out like the venue of the leader
+	 */
+	private final Venue venue;
+	/**
+	 * Seats of the current seat holds by seat hold id
+	 */
+	private final Map<Integer, List<Seat>> seatHolds = new ConcurrentHashMap<>();
+	private final AtomicReference<SeatMapSnapshot> seatMap;
+	/**
+	 * Commands received ahead of a missing one, by sequence
+	 * Only accessed while holding the follower's lock
+	 */
+	private final TreeMap<Long, ReplicationCommand> pending = new TreeMap<>();
+	/**
+	 * Sequence of the last command applied
+	 */
+	private volatile long appliedSequence;
+	/**
+	 * Set once a command could not be applied, the follower has to be rebuilt from the leader
+	 */
+	private volatile boolean diverged;
+
+	private static final Logger logger = LoggerFactory.getLogger(ReplicationFollower.class);
+
+	/**
+	 * Follower that receives the commands sent over a transport
+	 * @param venue laid out like the venue of the leader, with every seat available
+	 * @param transport
+	 */
+	public ReplicationFollower(Venue venue, ReplicationTransport transport) {
+		this(venue);
+		transport.addReceiver(this::receive);
+	}
+
+	/**
+	 * @param venue laid out like the venue of the leader, with every seat available
+	 */
+	public ReplicationFollower(Venue venue) {
+		this.venue = venue;
+		this.seatMap = new AtomicReference<>(SeatMapSnapshot.allAvailable(venue));
+	}
+
+	/**
+	 * Applies a command and every command received earlier that can follow it
+	 * Commands already applied are ignored, so a transport can deliver a command more than once.
+	 * A command is only dropped from the pending commands once it is applied, a command that fails
+	 * stays first in line and the follower is marked diverged
+	 * @param command
+	 */
+	public synchronized void receive(ReplicationCommand command) {
+		if (diverged || command.getSequence() <= appliedSequence) {
+			return;
+		}
+		pending.put(command.getSequence(), command);
+		while (!pending.isEmpty() && pending.firstKey() == appliedSequence + 1) {
+			ReplicationCommand next = pending.firstEntry().getValue();
+			try {
+				apply(next.getChange());
+			} catch (RuntimeException e) {
+				diverged = true;
+				logger.error("Follower diverged from the leader at command {}", next, e);
+				return;
+			}
+			pending.pollFirstEntry();
+			appliedSequence++;
+		}
+	}
+
+	/**
+	 * Applies a change to the seats, exactly as the leader did
+	 * @param change
+	 */
+	private void apply(SeatEvent change) {
+		Section section = venue.getSectionForRow(change.getRowNum());
+		List<Seat> seats;
+		switch (change.getType()) {
+		case HOLD:
+			seats = section.takeSeats(change.getRowNum(), change.getFirstSeat(), change.getNumSeats());
+			if (seats == null) {
+				throw new IllegalStateException("Seats of seat hold #" + change.getSeatHoldId() + " are not free on the follower");
+			}
+			seatHolds.merge(change.getSeatHoldId(), seats, ReplicationFollower::concat);
+			break;
+		case RESERVE:
+			seats = seatHolds.remove(change.getSeatHoldId());
+			if (seats == null) {
+				if (venue.getSeatsReserved().containsKey(change.getConfirmationCode())) {
+					//every row of a group held across rows was reserved with the first row
+					break;
+				}
+				throw new IllegalStateException("Seat hold #" + change.getSeatHoldId() + " does not exist on the follower");
+			}
+			venue.getSeatsReserved().put(change.getConfirmationCode(), seats);
+			break;
+		case EXPIRE:
+		case RELEASE:
+			seats = removeRange(seatHolds, change.getSeatHoldId(), change);
+			if (seats == null) {
+				throw new IllegalStateException("Seat hold #" + change.getSeatHoldId() + " does not exist on the follower");
+			}
+			returnSeats(section, seats);
+			break;
+		case CANCEL:
+			seats = removeRange(venue.getSeatsReserved(), change.getConfirmationCode(), change);
+			if (seats == null) {
+				throw new IllegalStateException("Reservation " + change.getConfirmationCode() + " does not exist on the follower");
+			}
+			returnSeats(section, seats);
+			break;
+		default:
+			logger.error("Unknown command type {}", change.getType());
+			return;
+		}
+
+		if (change.getType() != SeatEventType.RESERVE) {
+			SeatMapSnapshot current = seatMap.get();
+			seatMap.set(current.withSeats(change.getRowNum(), change.getFirstSeat(), change.getLastSeat(),
+					change.getType() != SeatEventType.HOLD));
+		}
+	}
+
+	private static List<Seat> concat(List<Seat> seats, List<Seat> moreSeats) {
+		List<Seat> allSeats = new ArrayList<>(seats.size() + moreSeats.size());
+		allSeats.addAll(seats);
+		allSeats.addAll(moreSeats);
+		return allSeats;
+	}
+
+	/**
+	 * Takes the seats of the changed range out of a seat hold or reservation, dropping it once it has no seats left
+	 * @param seatsByKey
+	 * @param key
+	 * @param change
+	 * @return seats of the range, null if there is no such seat hold or reservation
+	 */
+	private static <K> List<Seat> removeRange(Map<K, List<Seat>> seatsByKey, K key, SeatEvent change) {
+		List<Seat> seats = seatsByKey.get(key);
+		if (seats == null) {
+			return null;
+		}
+		List<Seat> range = new ArrayList<>(change.getNumSeats());
+		List<Seat> remaining = new ArrayList<>(seats.size());
+		for (Seat seat : seats) {
+			if (seat.getRowNum() == change.getRowNum() && seat.getId() >= change.getFirstSeat() && seat.getId() <= change.getLastSeat()) {
+				range.add(seat);
+			} else {
+				remaining.add(seat);
+			}
+		}
+		if (remaining.isEmpty()) {
+			seatsByKey.remove(key);
+		} else {
+			seatsByKey.put(key, remaining);
+		}
+		return range;
+	}
+
+	private void returnSeats(Section section, List<Seat> seats) {
+		Map<Integer, List<List<Seat>>> rangesByRow = Collections.singletonMap(seats.get(0).getRowNum(),
+				new ArrayList<>(Collections.singletonList(seats)));
+		section.returnSeats(rangesByRow);
+	}
+
+	/**
+	 * Number of seats in the venue that are neither held nor reserved as of the last command applied
+	 * @return availableSeats
+	 */
+	public int numSeatsAvailable() {
+		return venue.getAvailableSeats();
+	}
+
+	/**
+	 * Returns the reserved seats associated with the confirmation code
+	 * @param confirmationCode
+	 * @return seats
+	 * @throws ApplicationException if the follower has no such reservation
+	 */
+	public List<Seat> getReservedSeats(String confirmationCode) throws ApplicationException {
+		Validator.validateReservedSeatsOrder(venue, confirmationCode);
+		return venue.getSeatsReserved().get(confirmationCode);
+	}
+
+	/**
+	 * @param seatHoldId
+	 * @return seats of a current seat hold, null if the follower has no such seat hold
+	 */
+	public List<Seat> getSeatsHeld(int seatHoldId) {
+		return seatHolds.get(seatHoldId);
+	}
+
+	public SeatMapSnapshot getSeatMap() {
+		return seatMap.get();
+	}
+
+	/**
+	 * @param sinceVersion version of the seat map the caller already has
+	 * @return rows of the seat map that changed after the given version
+	 */
+	public SeatMapSnapshot.Diff getSeatMapChanges(long sinceVersion) {
+		return seatMap.get().diffSince(sinceVersion);
+	}
+
+	/**
+	 * @return sequence of the last command applied, i.e. how far the follower has caught up with the leader
+	 */
+	public long getAppliedSequence() {
+		return appliedSequence;
+	}
+
+	/**
+	 * @return true if a command could not be applied, the follower stopped following the leader
+	 */
+	public boolean isDiverged() {
+		return diverged;
+	}
+
+	/**
+	 * @return number of commands received ahead of a missing one
+	 */
+	public synchronized int getPendingCommands() {
+		return pending.size();
+	}
+
+	public Venue getVenue() {
+		return venue;
+	}
+
+}
@@ -0,0 +1,40 @@
+package com.walmart.ticketservice.replication;
+
+import com.walmart.ticketservice.events.SeatEvent;
+
+/**
+ * Numbers the changes of a ticket service and sends them to the followers in that order
+ * The ticket service appends a change before the seats can change again, so the order of the log is
+ * an order in which every seat changed on the leader
+ * @author bkulkar
+ *
+ */
+public class ReplicationLeader {
+
+	private final ReplicationTransport transport;
+	/**
+	 * Sequence of the last command sent
+	 */
+	private long lastSequence;
+
+	public ReplicationLeader(ReplicationTransport transport) {
+		this.transport = transport;
+	}
+
+	/**
+	 * Numbers a change and sends it
+	 * Numbering and sending happen under one lock so commands are sent in sequence order
+	 * @param change
+	 * @return sequence of the command
+	 */
+	public synchronized long append(SeatEvent change) {
+		ReplicationCommand command = new ReplicationCommand(++lastSequence, change);
+		transport.send(command);
+		return command.getSequence();
+	}
+
+	public synchronized long getLastSequence() {
+		return lastSequence;
+	}
+
+}
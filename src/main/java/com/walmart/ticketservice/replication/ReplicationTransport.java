@@ -0,0 +1,26 @@
+package com.walmart.ticketservice.replication;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries the commands of a leader to its followers
+ * A transport may deliver commands late, or out of order, followers put them back in sequence order.
+ * It must not lose them, a follower waits for a missing command before applying anything after it
+ * @author bkulkar
+ *
+ */
+public interface ReplicationTransport {
+
+	/**
+	 * Sends a command to every follower, called by the leader in sequence order
+	 * @param command
+	 */
+	void send(ReplicationCommand command);
+
+	/**
+	 * Registers a follower to receive the commands sent from now on
+	 * @param receiver
+	 */
+	void addReceiver(Consumer<ReplicationCommand> receiver);
+
+}
@@ -0,0 +1,66 @@
+package com.walmart.ticketservice.scoring;
+
+import java.util.Arrays;
+
+import com.walmart.ticketservice.common.utils.CommonUtil;
+
+/**
+ * Adds a bonus to seats next to an aisle on top of another scoring model
+ * @author bkulkar
+ *
+ */
+public class AisleBonusScoreFunction implements SeatScoreFunction {
+
+	/**
+	 * Scoring model the bonus is added to
+	 */
+	private final SeatScoreFunction delegate;
+	/**
+	 * Seat indexes that are next to an aisle, sorted
+	 */
+	private final int[] aisleSeats;
+	/**
+	 * Bonus added to the score of an aisle seat
+	 */
+	private final float bonus;
+
+	/**
+	 * @param delegate
+	 * @param bonus
+	 * @param aisleSeats
+	 */
+	public AisleBonusScoreFunction(SeatScoreFunction delegate, float bonus, int... aisleSeats) {
+		if (delegate == null) {
+			throw new IllegalArgumentException("Scoring model to add aisle bonus to is required");
+		}
+		this.delegate = delegate;
+		this.bonus = bonus;
+		this.aisleSeats = aisleSeats.clone();
+		Arrays.sort(this.aisleSeats);
+	}
+
+	@Override
+	public float score(int rowNum, int seatIndex, int numOfRows, int seatsPerRow) {
+		float score = delegate.score(rowNum, seatIndex, numOfRows, seatsPerRow);
+		if (Arrays.binarySearch(aisleSeats, seatIndex) >= 0) {
+			score = CommonUtil.round(score + bonus);
+		}
+		return score;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof AisleBonusScoreFunction)) {
+			return false;
+		}
+		AisleBonusScoreFunction other = (AisleBonusScoreFunction) obj;
+		return Float.compare(bonus, other.bonus) == 0 && Arrays.equals(aisleSeats, other.aisleSeats)
+				&& delegate.equals(other.delegate);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * (31 * delegate.hashCode() + Arrays.hashCode(aisleSeats)) + Float.floatToIntBits(bonus);
+	}
+
+}
@@ -0,0 +1,29 @@
+package com.walmart.ticketservice.scoring;
+
+import com.walmart.ticketservice.common.utils.CommonUtil;
+
+/**
+ * Default scoring model
+ * Seats in the middle of a row have higher score than the seats on the side,
+ * every row is scored the same way
+ * @author bkulkar
+ *
+ */
+public class CenterWeightedScoreFunction implements SeatScoreFunction {
+
+	@Override
+	public float score(int rowNum, int seatIndex, int numOfRows, int seatsPerRow) {
+		return CommonUtil.getScore(seatIndex, seatsPerRow);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof CenterWeightedScoreFunction;
+	}
+
+	@Override
+	public int hashCode() {
+		return CenterWeightedScoreFunction.class.hashCode();
+	}
+
+}
@@ -0,0 +1,58 @@
+package com.walmart.ticketservice.scoring;
+
+import com.walmart.ticketservice.common.utils.CommonUtil;
+
+/**
+ * Scoring model for curved rows
+ * Rows that curve around the stage make the side seats face the stage,
+ * so the score drops less towards the ends of the row than in a straight row.
+ * A curvature of 0 is a straight row, a curvature of 1 scores every seat in the row equally
+ * @author bkulkar
+ *
+ */
+public class CurvedRowScoreFunction implements SeatScoreFunction {
+
+	private static final float MAX_SCORE = 10.0f;
+
+	/**
+	 * Curvature of the rows between 0 and 1
+	 */
+	private final float curvature;
+
+	/**
+	 * @param curvature
+	 */
+	public CurvedRowScoreFunction(float curvature) {
+		if (curvature < 0 || curvature > 1) {
+			throw new IllegalArgumentException("Curvature should be between 0 and 1");
+		}
+		this.curvature = curvature;
+	}
+
+	@Override
+	public float score(int rowNum, int seatIndex, int numOfRows, int seatsPerRow) {
+		if (seatsPerRow <= 1) {
+			return MAX_SCORE;
+		}
+		//distance from the middle of the row, 0 in the middle and 1 at either end
+		float mid = (seatsPerRow - 1) / 2.0f;
+		float offset = Math.abs(seatIndex - mid) / mid;
+		return CommonUtil.round(MAX_SCORE * (1 - (1 - curvature) * offset));
+	}
+
+	public float getCurvature() {
+		return curvature;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof CurvedRowScoreFunction
+				&& Float.compare(curvature, ((CurvedRowScoreFunction) obj).curvature) == 0;
+	}
+
+	@Override
+	public int hashCode() {
+		return Float.floatToIntBits(curvature);
+	}
+
+}
@@ -0,0 +1,57 @@
+package com.walmart.ticketservice.scoring;
+
+import com.walmart.ticketservice.common.utils.CommonUtil;
+
+/**
+ * Lowers the score of another scoring model the further back the row is
+ * Every row scores decay (fraction between 0 and 1) less than the row in front of it
+ * @author bkulkar
+ *
+ */
+public class RowDepthDecayScoreFunction implements SeatScoreFunction {
+
+	/**
+	 * Scoring model the decay is applied to
+	 */
+	private final SeatScoreFunction delegate;
+	/**
+	 * Fraction of the score lost per row
+	 */
+	private final float decay;
+
+	/**
+	 * @param delegate
+	 * @param decay
+	 */
+	public RowDepthDecayScoreFunction(SeatScoreFunction delegate, float decay) {
+		if (delegate == null) {
+			throw new IllegalArgumentException("Scoring model to apply row decay to is required");
+		}
+		if (decay < 0 || decay >= 1) {
+			throw new IllegalArgumentException("Decay should be between 0 (inclusive) and 1 (exclusive)");
+		}
+		this.delegate = delegate;
+		this.decay = decay;
+	}
+
+	@Override
+	public float score(int rowNum, int seatIndex, int numOfRows, int seatsPerRow) {
+		float score = delegate.score(rowNum, seatIndex, numOfRows, seatsPerRow);
+		return CommonUtil.round((float) (score * Math.pow(1 - decay, rowNum)));
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof RowDepthDecayScoreFunction)) {
+			return false;
+		}
+		RowDepthDecayScoreFunction other = (RowDepthDecayScoreFunction) obj;
+		return Float.compare(decay, other.decay) == 0 && delegate.equals(other.delegate);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * delegate.hashCode() + Float.floatToIntBits(decay);
+	}
+
+}
@@ -0,0 +1,23 @@
+package com.walmart.ticketservice.scoring;
+
+/**
+ * Scoring model for the seats of a venue
+ * Seats with higher scores have higher preference.
+ * Implementations are expected to be stateless and to implement equals/hashCode
+ * so that precomputed score matrices can be shared between venues of the same shape
+ * @author bkulkar
+ *
+ */
+public interface SeatScoreFunction {
+
+	/**
+	 * Score a single seat
+	 * @param rowNum row of the seat, 0 being the front row
+	 * @param seatIndex position of the seat in the row, 0 being the left most seat
+	 * @param numOfRows number of rows in the venue
+	 * @param seatsPerRow number of seats in each row
+	 * @return score
+	 */
+	float score(int rowNum, int seatIndex, int numOfRows, int seatsPerRow);
+
+}
@@ -0,0 +1,133 @@
+package com.walmart.ticketservice.scoring;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Precomputed scores of every seat in a venue stored row by row in a flat array,
+ * along with prefix sums of the scores of every row so that the total score
+ * of any window of adjacent seats is available in constant time
+ * Matrices are immutable and cached per scoring model and venue shape
+ * @author bkulkar
+ *
+ */
+public final class SeatScoreMatrix {
+
+	/**
+	 * Matrices already computed, keyed by scoring model and venue shape
+	 */
+	private static final Map<Key, SeatScoreMatrix> cache = new ConcurrentHashMap<>();
+
+	private final int numOfRows;
+	private final int seatsPerRow;
+	/**
+	 * Score of seat s in row r is at index r * seatsPerRow + s
+	 */
+	private final float[] scores;
+	/**
+	 * Sum of scores of seats 0 to s-1 in row r is at index r * (seatsPerRow + 1) + s
+	 */
+	private final double[] prefixSums;
+
+	private SeatScoreMatrix(SeatScoreFunction scoreFunction, int numOfRows, int seatsPerRow) {
+		this.numOfRows = numOfRows;
+		this.seatsPerRow = seatsPerRow;
+		this.scores = new float[numOfRows * seatsPerRow];
+		this.prefixSums = new double[numOfRows * (seatsPerRow + 1)];
+
+		for (int row = 0; row < numOfRows; row++) {
+			int prefixOffset = row * (seatsPerRow + 1);
+			for (int seat = 0; seat < seatsPerRow; seat++) {
+				float score = scoreFunction.score(row, seat, numOfRows, seatsPerRow);
+				scores[row * seatsPerRow + seat] = score;
+				prefixSums[prefixOffset + seat + 1] = prefixSums[prefixOffset + seat] + score;
+			}
+		}
+	}
+
+	/**
+	 * Returns the score matrix for the scoring model and venue shape,
+	 * computing it only the first time it is requested
+	 * @param scoreFunction
+	 * @param numOfRows
+	 * @param seatsPerRow
+	 * @return seatScoreMatrix
+	 */
+	public static SeatScoreMatrix of(SeatScoreFunction scoreFunction, int numOfRows, int seatsPerRow) {
+		return cache.computeIfAbsent(new Key(scoreFunction, numOfRows, seatsPerRow),
+				key -> new SeatScoreMatrix(scoreFunction, numOfRows, seatsPerRow));
+	}
+
+	/**
+	 * Score of a single seat
+	 * @param rowNum
+	 * @param seatIndex
+	 * @return score
+	 */
+	public float getScore(int rowNum, int seatIndex) {
+		return scores[rowNum * seatsPerRow + seatIndex];
+	}
+
+	/**
+	 * Total score of numSeats adjacent seats in a row starting at firstSeat
+	 * @param rowNum
+	 * @param firstSeat
+	 * @param numSeats
+	 * @return windowScore
+	 */
+	public double windowScore(int rowNum, int firstSeat, int numSeats) {
+		int prefixOffset = rowNum * (seatsPerRow + 1);
+		return prefixSums[prefixOffset + firstSeat + numSeats] - prefixSums[prefixOffset + firstSeat];
+	}
+
+	/**
+	 * Copy of the scores of every seat in a row
+	 * @param rowNum
+	 * @return rowScores
+	 */
+	public float[] getRowScores(int rowNum) {
+		float[] rowScores = new float[seatsPerRow];
+		System.arraycopy(scores, rowNum * seatsPerRow, rowScores, 0, seatsPerRow);
+		return rowScores;
+	}
+
+	public int getNumOfRows() {
+		return numOfRows;
+	}
+
+	public int getSeatsPerRow() {
+		return seatsPerRow;
+	}
+
+	/**
+	 * Cache key of a score matrix
+	 */
+	private static final class Key {
+
+		private final SeatScoreFunction scoreFunction;
+		private final int numOfRows;
+		private final int seatsPerRow;
+
+		Key(SeatScoreFunction scoreFunction, int numOfRows, int seatsPerRow) {
+			this.scoreFunction = scoreFunction;
+			this.numOfRows = numOfRows;
+			this.seatsPerRow = seatsPerRow;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return numOfRows == other.numOfRows && seatsPerRow == other.seatsPerRow
+					&& scoreFunction.equals(other.scoreFunction);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * (31 * scoreFunction.hashCode() + numOfRows) + seatsPerRow;
+		}
+	}
+
+}
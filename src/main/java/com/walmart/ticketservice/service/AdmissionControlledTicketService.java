@@ -0,0 +1,247 @@
+package com.walmart.ticketservice.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.walmart.ticketservice.common.time.ScheduledTask;
+import com.walmart.ticketservice.common.time.SystemTimeSource;
+import com.walmart.ticketservice.common.time.TimeSource;
+import com.walmart.ticketservice.common.utils.CommonUtil;
+import com.walmart.ticketservice.exception.ApplicationException;
+import com.walmart.ticketservice.model.SeatHold;
+
+/**
+ * Admission layer in front of a ticket service for on-sale traffic
+ *  --requests for a sold out venue are rejected right away using the available seats counter
+ *  --every customer is rate limited by a token bucket
+ *  --only a limited number of requests run against the ticket service at once, the rest wait in a bounded
+ *    queue in arrival order, and are rejected if the queue is full or they waited too long
+ * so that under overload requests fail fast instead of piling up on the ticket service lock
+ * Rate limiters of idle customers are dropped by a periodic sweep, off the request path
+ * @author bkulkar
+ *
+ */
+public class AdmissionControlledTicketService implements TicketService {
+
+	private static final Logger logger = LoggerFactory.getLogger(AdmissionControlledTicketService.class);
+	/**
+	 * Interval between sweeps of idle rate limiters in milliseconds
+	 */
+	private static final long RATE_LIMITER_SWEEP_INTERVAL = 10000;
+
+	private final TicketService ticketService;
+	/**
+	 * Requests allowed to run against the ticket service, handed out in arrival order
+	 */
+	private final Semaphore running;
+	/**
+	 * Requests currently waiting to run
+	 */
+	private final AtomicInteger waiting = new AtomicInteger();
+	private final int maxQueued;
+	private final long maxWaitMillis;
+	private final double customerRatePerSecond;
+	private final int customerBurst;
+	/**
+	 * Rate limiter of every customer, keyed by normalized email id
+	 */
+	private final Map<String, TokenBucket> customerRateLimits = new ConcurrentHashMap<>();
+	/**
+	 * Periodic sweep of idle rate limiters
+	 */
+	private final ScheduledTask rateLimiterSweep;
+
+	private final LongAdder admitted = new LongAdder();
+	private final LongAdder rejectedSoldOut = new LongAdder();
+	private final LongAdder rejectedRateLimited = new LongAdder();
+	private final LongAdder rejectedOverloaded = new LongAdder();
+
+	/**
+	 * @param ticketService ticket service to protect
+	 * @param maxConcurrent requests allowed to run against the ticket service at once
+	 * @param maxQueued requests allowed to wait for their turn
+	 * @param maxWaitMillis longest time a request waits for its turn
+	 * @param customerRatePerSecond seat hold requests allowed per customer per second
+	 * @param customerBurst seat hold requests a customer can make in a burst
+	 */
+	public AdmissionControlledTicketService(TicketService ticketService, int maxConcurrent, int maxQueued,
+			long maxWaitMillis, double customerRatePerSecond, int customerBurst) {
+		this(ticketService, maxConcurrent, maxQueued, maxWaitMillis, customerRatePerSecond, customerBurst, SystemTimeSource.INSTANCE);
+	}
+
+	/**
+	 * @param ticketService ticket service to protect
+	 * @param maxConcurrent requests allowed to run against the ticket service at once
+	 * @param maxQueued requests allowed to wait for their turn
+	 * @param maxWaitMillis longest time a request waits for its turn
+	 * @param customerRatePerSecond seat hold requests allowed per customer per second
+	 * @param customerBurst seat hold requests a customer can make in a burst
+	 * @param timeSource scheduler of the sweep of idle rate limiters
+	 */
+	public AdmissionControlledTicketService(TicketService ticketService, int maxConcurrent, int maxQueued,
+			long maxWaitMillis, double customerRatePerSecond, int customerBurst, TimeSource timeSource) {
+		this.ticketService = ticketService;
+		this.running = new Semaphore(maxConcurrent, true);
+		this.maxQueued = maxQueued;
+		this.maxWaitMillis = maxWaitMillis;
+		this.customerRatePerSecond = customerRatePerSecond;
+		this.customerBurst = customerBurst;
+		this.rateLimiterSweep = timeSource.schedulePeriodic("rate-limiter-sweeper", this::sweepRateLimiters,
+				RATE_LIMITER_SWEEP_INTERVAL);
+	}
+
+	@Override
+	public int numSeatsAvailable() {
+		return ticketService.numSeatsAvailable();
+	}
+
+	@Override
+	public SeatHold findAndHoldSeats(int numSeats, String customerEmail) throws ApplicationException {
+
+		if (ticketService.numSeatsAvailable() == 0) {
+			rejectedSoldOut.increment();
+			throw new ApplicationException("No seats available");
+		}
+
+		if (!tryAcquireToken(customerEmail)) {
+			rejectedRateLimited.increment();
+			logger.error("Rate limit exceeded by customer");
+			throw new ApplicationException("Too many requests, please try again later");
+		}
+
+		admit();
+		try {
+			return ticketService.findAndHoldSeats(numSeats, customerEmail);
+		} finally {
+			running.release();
+		}
+	}
+
+	@Override
+	public String reserveSeats(int seatHoldId, String customerEmail) throws ApplicationException {
+		admit();
+		try {
+			return ticketService.reserveSeats(seatHoldId, customerEmail);
+		} finally {
+			running.release();
+		}
+	}
+
+	/**
+	 * Waits for the request's turn to run against the ticket service
+	 * @throws ApplicationException if too many requests are waiting already or the turn does not come in time
+	 */
+	private void admit() throws ApplicationException {
+
+		try {
+			//a timed acquire keeps to the arrival order of the fair semaphore even without waiting,
+			//the untimed one would jump ahead of the requests already waiting
+			if (running.tryAcquire(0, TimeUnit.MILLISECONDS)) {
+				admitted.increment();
+				return;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ApplicationException("Request interrupted");
+		}
+
+		if (waiting.incrementAndGet() > maxQueued) {
+			waiting.decrementAndGet();
+			rejectedOverloaded.increment();
+			throw new ApplicationException("Too many requests, please try again later");
+		}
+
+		try {
+			if (!running.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+				rejectedOverloaded.increment();
+				throw new ApplicationException("Too many requests, please try again later");
+			}
+			admitted.increment();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ApplicationException("Request interrupted");
+		} finally {
+			waiting.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Takes a token from the rate limiter of the customer, created on the first request
+	 * A rate limiter retired by the sweep after it was looked up is replaced by a new one
+	 * @param customerEmail
+	 * @return false if the customer exceeded the rate limit
+	 */
+	private boolean tryAcquireToken(String customerEmail) {
+		String normalizedEmail = CommonUtil.normalizeEmail(customerEmail);
+		String key = normalizedEmail == null ? "" : normalizedEmail;
+		while (true) {
+			TokenBucket rateLimiter = customerRateLimits.computeIfAbsent(key,
+					email -> new TokenBucket(customerRatePerSecond, customerBurst));
+			if (rateLimiter.tryAcquire()) {
+				return true;
+			}
+			if (!rateLimiter.isRetired()) {
+				return false;
+			}
+			customerRateLimits.remove(key, rateLimiter);
+		}
+	}
+
+	/**
+	 * Drops the rate limiters that have refilled completely, i.e. whose customers have been idle
+	 * A rate limiter is retired under its own lock before it is removed, so no request can take a token from it afterwards
+	 */
+	private void sweepRateLimiters() {
+		for (Map.Entry<String, TokenBucket> rateLimit : customerRateLimits.entrySet()) {
+			if (rateLimit.getValue().tryRetire()) {
+				customerRateLimits.remove(rateLimit.getKey(), rateLimit.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Stops the sweep of idle rate limiters
+	 */
+	public void shutdown() {
+		rateLimiterSweep.cancel();
+	}
+
+	public TicketService getTicketService() {
+		return ticketService;
+	}
+
+	/**
+	 * @return number of customers with a rate limiter
+	 */
+	public int getRateLimitedCustomers() {
+		return customerRateLimits.size();
+	}
+
+	public int getWaiting() {
+		return waiting.get();
+	}
+
+	public long getAdmitted() {
+		return admitted.sum();
+	}
+
+	public long getRejectedSoldOut() {
+		return rejectedSoldOut.sum();
+	}
+
+	public long getRejectedRateLimited() {
+		return rejectedRateLimited.sum();
+	}
+
+	public long getRejectedOverloaded() {
+		return rejectedOverloaded.sum();
+	}
+
+}
@@ -0,0 +1,113 @@
+package com.walmart.ticketservice.service;
+
+import java.util.List;
+import java.util.Set;
+
+import com.walmart.ticketservice.model.SeatMapSnapshot;
+import com.walmart.ticketservice.model.SeatQuote;
+import com.walmart.ticketservice.model.SeatRange;
+import com.walmart.ticketservice.model.Section;
+
+/**
+ * Finds the seats a hold would get by reading a seat map snapshot instead of the free seat row blocks
+ * Runs of free seats are found from the bitmaps of the rows and windows are scored from the prefix sums of the
+ * section scores, so a preview neither locks nor changes anything and any number of previews run side by side
+ * with holds
+ * Windows are chosen the same way a hold chooses them
+ * Windows restricted to seats with given attributes are found the same way, from the bitmap of the free seats
+ * ANDed with the attribute bitmaps of the row, and windows restricted to price tiers from the bitmaps of the tiers
+ * @author bkulkar
+ *
+ */
+public class BestSeatPreview {
+
+	private BestSeatPreview() {
+	}
+
+	/**
+	 * @param seatMap
+	 * @param sections ordered from front to back
+	 * @param numSeats
+	 * @param seatSelection
+	 * @return quote, null if no run of free seats is large enough
+	 */
+	public static SeatQuote preview(SeatMapSnapshot seatMap, List<Section> sections, int numSeats, SeatSelection seatSelection) {
+		return preview(seatMap, sections, numSeats, seatSelection, 0, 0);
+	}
+
+	/**
+	 * @param seatMap
+	 * @param sections ordered from front to back
+	 * @param numSeats
+	 * @param seatSelection
+	 * @param requiredMask attributes every seat of the window has to carry
+	 * @param excludedMask attributes no seat of the window may carry
+	 * @return quote, null if no run of free seats with the attributes is large enough
+	 */
+	public static SeatQuote preview(SeatMapSnapshot seatMap, List<Section> sections, int numSeats, SeatSelection seatSelection,
+			int requiredMask, int excludedMask) {
+		return preview(seatMap, sections, numSeats, seatSelection, requiredMask, excludedMask, null);
+	}
+
+	/**
+	 * @param seatMap
+	 * @param sections ordered from front to back
+	 * @param numSeats
+	 * @param seatSelection
+	 * @param requiredMask attributes every seat of the window has to carry
+	 * @param excludedMask attributes no seat of the window may carry
+	 * @param priceTiers tiers every seat of the window has to be sold at, null for any tier
+	 * @return quote, null if no run of free seats with the attributes and tiers is large enough
+	 */
+	public static SeatQuote preview(SeatMapSnapshot seatMap, List<Section> sections, int numSeats, SeatSelection seatSelection,
+			int requiredMask, int excludedMask, Set<Integer> priceTiers) {
+
+		boolean constrained = (requiredMask | excludedMask) != 0 || priceTiers != null;
+		Section bestSection = null;
+		int bestRow = -1;
+		int bestSeat = -1;
+		double bestScore = 0;
+
+		for (Section section : sections) {
+			if (numSeats > section.getSeatsPerRow() || numSeats > section.getAvailableSeats()) {
+				continue;
+			}
+			if (priceTiers != null && !section.canSeat(numSeats, priceTiers)) {
+				continue;
+			}
+			for (int rowNum = section.getFirstRow(); rowNum <= section.getLastRow(); rowNum++) {
+				SeatMapSnapshot.Row row = seatMap.getRow(rowNum);
+				long[] bits = constrained ? row.availableMatching(section.matchingSeats(rowNum, requiredMask, excludedMask, priceTiers)) : null;
+				int runStart = bits == null ? row.nextAvailableSeat(0) : SeatMapSnapshot.nextSetBit(bits, 0);
+				while (runStart >= 0) {
+					int runEnd = bits == null ? row.nextTakenSeat(runStart) : SeatMapSnapshot.nextClearBit(bits, runStart, row.getNumSeats());
+					if (runEnd - runStart >= numSeats) {
+						int firstSeat = runStart + BestSeatSearch.bestStart(section, rowNum, runStart, runEnd - runStart, numSeats);
+						double score = section.windowScore(rowNum, firstSeat, numSeats);
+						if (seatSelection != SeatSelection.GLOBAL_BEST) {
+							//front most run that is large enough wins
+							return new SeatQuote(rowNum, new SeatRange(section, rowNum, firstSeat, numSeats), score, seatMap.getVersion());
+						}
+						if (bestSection == null || score > bestScore) {
+							bestSection = section;
+							bestRow = rowNum;
+							bestSeat = firstSeat;
+							bestScore = score;
+						}
+					}
+					if (runEnd >= row.getNumSeats()) {
+						runStart = -1;
+					} else {
+						runStart = bits == null ? row.nextAvailableSeat(runEnd) : SeatMapSnapshot.nextSetBit(bits, runEnd);
+					}
+				}
+			}
+		}
+
+		if (bestSection == null) {
+			return null;
+		}
+		return new SeatQuote(bestRow, new SeatRange(bestSection, bestRow, bestSeat, numSeats), bestScore, seatMap.getVersion());
+	}
+
+}
@@ -0,0 +1,200 @@
+package com.walmart.ticketservice.service;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.walmart.ticketservice.model.Section;
+import com.walmart.ticketservice.model.SeatRowBlock;
+import com.walmart.ticketservice.model.Venue;
+
+/**
+ * Finds the window of adjacent free seats with the highest score over all free seat row blocks
+ * Blocks are sorted by row, so a range of blocks is a range of rows. Large searches split the blocks into
+ * ranges that are searched in parallel on the common fork/join pool, every range finds its best window
+ * and the best of the ranges wins. Searches below a threshold run on the calling thread
+ *
+ * Windows of different blocks are compared by exact score and the earlier block wins a tie,
+ * so the parallel and the sequential search always find the same window
+ * @author bkulkar
+ *
+ */
+public class BestSeatSearch {
+
+	/**
+	 * Windows within a block whose scores are less than this below the best score of the block are considered
+	 * equally good, in which case the window further right is chosen
+	 */
+	static final double SCORE_TOLERANCE = 1e-4;
+	/**
+	 * Number of blocks below which the search runs on the calling thread
+	 */
+	public static final int DEFAULT_PARALLEL_THRESHOLD = 2048;
+	/**
+	 * Smallest range of blocks handed to a fork/join task
+	 */
+	private static final int MIN_RANGE = 256;
+
+	/**
+	 * Best window found by a search
+	 */
+	public static class Window {
+		/**
+		 * Index of the block in the searched blocks
+		 */
+		private final int blockIndex;
+		/**
+		 * Index of the first seat of the window within the block
+		 */
+		private final int startIndex;
+		private final double score;
+
+		public Window(int blockIndex, int startIndex, double score) {
+			this.blockIndex = blockIndex;
+			this.startIndex = startIndex;
+			this.score = score;
+		}
+
+		public int getBlockIndex() {
+			return blockIndex;
+		}
+
+		public int getStartIndex() {
+			return startIndex;
+		}
+
+		public double getScore() {
+			return score;
+		}
+
+		/**
+		 * @param other window of a later block
+		 * @return the better of the two windows
+		 */
+		private Window best(Window other) {
+			return other != null && other.score > score ? other : this;
+		}
+	}
+
+	/**
+	 * Fork/join task searching a range of blocks
+	 */
+	private static class RangeSearch extends RecursiveTask<Window> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Venue venue;
+		private final SeatRowBlock[] blocks;
+		private final int numSeats;
+		private final int from;
+		private final int to;
+		private final int rangeSize;
+
+		RangeSearch(Venue venue, SeatRowBlock[] blocks, int numSeats, int from, int to, int rangeSize) {
+			this.venue = venue;
+			this.blocks = blocks;
+			this.numSeats = numSeats;
+			this.from = from;
+			this.to = to;
+			this.rangeSize = rangeSize;
+		}
+
+		@Override
+		protected Window compute() {
+			if (to - from <= rangeSize) {
+				return search(venue, blocks, numSeats, from, to);
+			}
+			int mid = (from + to) >>> 1;
+			RangeSearch front = new RangeSearch(venue, blocks, numSeats, from, mid, rangeSize);
+			RangeSearch back = new RangeSearch(venue, blocks, numSeats, mid, to, rangeSize);
+			front.fork();
+			Window backBest = back.compute();
+			Window frontBest = front.join();
+			return frontBest == null ? backBest : frontBest.best(backBest);
+		}
+	}
+
+	/**
+	 * Finds the best window of numSeats adjacent seats
+	 * @param venue venue the blocks belong to, for the seat scores of their sections
+	 * @param blocks free seat row blocks sorted by row
+	 * @param numSeats
+	 * @param parallelThreshold number of blocks below which the search runs on the calling thread
+	 * @return best window, null if no block is large enough
+	 */
+	public static Window find(Venue venue, SeatRowBlock[] blocks, int numSeats, int parallelThreshold) {
+		if (blocks.length < parallelThreshold) {
+			return search(venue, blocks, numSeats, 0, blocks.length);
+		}
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		int rangeSize = Math.max(MIN_RANGE, blocks.length / (4 * pool.getParallelism()));
+		return pool.invoke(new RangeSearch(venue, blocks, numSeats, 0, blocks.length, rangeSize));
+	}
+
+	/**
+	 * Searches a range of blocks on the calling thread
+	 * @param venue
+	 * @param blocks
+	 * @param numSeats
+	 * @param from first block (inclusive)
+	 * @param to last block (exclusive)
+	 * @return best window, null if no block in the range is large enough
+	 */
+	static Window search(Venue venue, SeatRowBlock[] blocks, int numSeats, int from, int to) {
+		Window best = null;
+		for (int i = from; i < to; i++) {
+			SeatRowBlock seatRow = blocks[i];
+			if (seatRow.getAvailableSeats() < numSeats) {
+				continue;
+			}
+			Section section = venue.getSectionForRow(seatRow.getRowId());
+			int startIndex = bestStart(section, seatRow, numSeats);
+			double score = section.windowScore(seatRow.getRowId(), seatRow.getSeats().get(startIndex).getId(), numSeats);
+			if (best == null || score > best.score) {
+				best = new Window(i, startIndex, score);
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Finds the best window of numSeats adjacent seats within a block
+	 * Score of every window of seats is looked up from the prefix sums of the section's score matrix
+	 * so each window is scored in constant time
+	 * @param section section the block belongs to
+	 * @param seatRow block with at least numSeats seats
+	 * @param numSeats
+	 * @return index of the first seat of the best window within the block
+	 */
+	static int bestStart(Section section, SeatRowBlock seatRow, int numSeats) {
+		return bestStart(section, seatRow.getRowId(), seatRow.getSeats().get(0).getId(), seatRow.getAvailableSeats(), numSeats);
+	}
+
+	/**
+	 * Finds the best window of numSeats adjacent seats within a run of free seats
+	 * @param section section the row belongs to
+	 * @param rowId venue row number
+	 * @param firstSeatId first seat of the run
+	 * @param runLength number of free seats in the run, at least numSeats
+	 * @param numSeats
+	 * @return offset of the first seat of the best window from the first seat of the run
+	 */
+	static int bestStart(Section section, int rowId, int firstSeatId, int runLength, int numSeats) {
+
+		double maxScore = section.windowScore(rowId, firstSeatId, numSeats);
+		int startIndex = 0;
+
+		for (int i = 1; i + numSeats <= runLength; i++) {
+			double currScore = section.windowScore(rowId, firstSeatId + i, numSeats);
+			//update with better seat found based on the score, a window as good as the best one within
+			//the tolerance only breaks the tie, so the best score never drifts down along the run
+			if (currScore >= maxScore - SCORE_TOLERANCE) {
+				if (currScore > maxScore) {
+					maxScore = currScore;
+				}
+				startIndex = i;
+			}
+		}
+		return startIndex;
+	}
+
+}
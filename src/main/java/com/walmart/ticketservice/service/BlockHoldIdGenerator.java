@@ -0,0 +1,122 @@
+package com.walmart.ticketservice.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out seat hold ids for a single venue
+ * Every thread takes a block of ids at a time from a shared counter and then hands out ids from its block
+ * without touching shared state, so threads rarely meet on the counter.
+ * Before a block is handed out, a high-water mark above it is stored, a batch of blocks at a time,
+ * so after a restart ids start above every id that may have been handed out before.
+ * Ids are unique, but not in the order they are handed out, and ids left in blocks of idle threads
+ * or lost in a restart are never used
+ * @author bkulkar
+ *
+ */
+public class BlockHoldIdGenerator {
+
+	/**
+	 * Default number of ids a thread takes at a time
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 64;
+	/**
+	 * Default number of blocks covered by every high-water mark stored
+	 */
+	public static final int DEFAULT_BLOCKS_PER_STORE = 1024;
+
+	private final HoldIdStore store;
+	private final int blockSize;
+	private final int blocksPerStore;
+	/**
+	 * First id of the next block to be handed out
+	 */
+	private final AtomicInteger nextBlock;
+	/**
+	 * Ids below this are covered by the stored high-water mark
+	 */
+	private volatile long storedLimit;
+	/**
+	 * Next id and end (exclusive) of the block of the current thread
+	 */
+	private final ThreadLocal<int[]> threadBlock = ThreadLocal.withInitial(() -> new int[2]);
+
+	/**
+	 * Generator that starts from 1 every time and stores nothing
+	 */
+	public BlockHoldIdGenerator() {
+		this(HoldIdStore.inMemory(), DEFAULT_BLOCK_SIZE, DEFAULT_BLOCKS_PER_STORE);
+	}
+
+	/**
+	 * @param store high-water mark storage of the venue
+	 */
+	public BlockHoldIdGenerator(HoldIdStore store) {
+		this(store, DEFAULT_BLOCK_SIZE, DEFAULT_BLOCKS_PER_STORE);
+	}
+
+	/**
+	 * @param store high-water mark storage of the venue
+	 * @param blockSize ids a thread takes at a time
+	 * @param blocksPerStore blocks covered by every high-water mark stored
+	 */
+	public BlockHoldIdGenerator(HoldIdStore store, int blockSize, int blocksPerStore) {
+		if (blockSize < 1 || blocksPerStore < 1) {
+			throw new IllegalArgumentException("Block size and blocks per store should be positive");
+		}
+		long highWaterMark = store.load();
+		if (highWaterMark < 0 || highWaterMark >= Integer.MAX_VALUE) {
+			throw new IllegalStateException("Stored hold id high-water mark " + highWaterMark + " is out of range");
+		}
+		this.store = store;
+		this.blockSize = blockSize;
+		this.blocksPerStore = blocksPerStore;
+		this.nextBlock = new AtomicInteger((int) Math.max(1, highWaterMark));
+		this.storedLimit = Math.max(1, highWaterMark);
+	}
+
+	/**
+	 * @return a hold id that has not been handed out before
+	 */
+	public int nextId() {
+		int[] block = threadBlock.get();
+		if (block[0] == block[1]) {
+			int start = takeBlock();
+			block[0] = start;
+			block[1] = start + blockSize;
+		}
+		return block[0]++;
+	}
+
+	/**
+	 * Takes the next block from the shared counter, storing a new high-water mark first if needed
+	 * @return first id of the block
+	 */
+	private int takeBlock() {
+		int start = nextBlock.getAndAdd(blockSize);
+		long end = (long) start + blockSize;
+		if (start < 1 || end > Integer.MAX_VALUE) {
+			throw new IllegalStateException("Hold ids exhausted");
+		}
+		if (end > storedLimit) {
+			storeLimit(end);
+		}
+		return start;
+	}
+
+	private synchronized void storeLimit(long end) {
+		if (end <= storedLimit) {
+			return;
+		}
+		long limit = Math.min(Integer.MAX_VALUE, end + (long) blockSize * blocksPerStore);
+		store.store(limit);
+		storedLimit = limit;
+	}
+
+	/**
+	 * @return ids below this may have been handed out
+	 */
+	public long getStoredLimit() {
+		return storedLimit;
+	}
+
+}
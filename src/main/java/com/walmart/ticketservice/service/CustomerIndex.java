@@ -0,0 +1,176 @@
+package com.walmart.ticketservice.service;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of seat holds and reservations by customer
+ * Customers are keyed by normalized email id. Every customer is updated atomically through
+ * its own map entry, so the index does not need a lock of its own and customers do not contend with each other.
+ * The number of seats a customer holds or owns is kept alongside, so per customer ticket limits
+ * are checked in constant time
+ * @author bkulkar
+ *
+ */
+public class CustomerIndex {
+
+	/**
+	 * Holds and reservations of every customer that has any
+	 */
+	private final Map<String, CustomerActivity> customers = new ConcurrentHashMap<>();
+	/**
+	 * Customer that owns each reservation, mapped with confirmation code as the key
+	 */
+	private final Map<String, String> reservationOwners = new ConcurrentHashMap<>();
+
+	/**
+	 * Seats held and reserved by a single customer
+	 * Only accessed from within the customer's map entry update
+	 */
+	private static class CustomerActivity {
+		private int seats;
+		private final Set<Integer> seatHoldIds = new HashSet<>();
+		private final Set<String> confirmationCodes = new HashSet<>();
+
+		private boolean isEmpty() {
+			return seats == 0 && seatHoldIds.isEmpty() && confirmationCodes.isEmpty();
+		}
+	}
+
+	/**
+	 * Counts seats against a customer's ticket limit before they are held
+	 * @param customerEmail normalized email id
+	 * @param numSeats
+	 * @param maxSeatsPerCustomer
+	 * @return false if the customer would go over the limit, in which case nothing is counted
+	 */
+	public boolean tryAcquireSeats(String customerEmail, int numSeats, int maxSeatsPerCustomer) {
+		boolean[] acquired = new boolean[1];
+		customers.compute(customerEmail, (email, activity) -> {
+			CustomerActivity current = activity == null ? new CustomerActivity() : activity;
+			if ((long) current.seats + numSeats <= maxSeatsPerCustomer) {
+				current.seats += numSeats;
+				acquired[0] = true;
+			}
+			return current.isEmpty() ? null : current;
+		});
+		return acquired[0];
+	}
+
+	/**
+	 * Gives back seats counted by {@link #tryAcquireSeats} that could not be held
+	 * @param customerEmail normalized email id
+	 * @param numSeats
+	 */
+	public void releaseSeats(String customerEmail, int numSeats) {
+		customers.computeIfPresent(customerEmail, (email, activity) -> {
+			activity.seats -= numSeats;
+			return activity.isEmpty() ? null : activity;
+		});
+	}
+
+	/**
+	 * Record a seat hold of a customer, its seats must already have been counted
+	 * @param customerEmail normalized email id
+	 * @param seatHoldId
+	 */
+	public void addSeatHold(String customerEmail, int seatHoldId) {
+		customers.compute(customerEmail, (email, activity) -> {
+			CustomerActivity current = activity == null ? new CustomerActivity() : activity;
+			current.seatHoldIds.add(seatHoldId);
+			return current;
+		});
+	}
+
+	/**
+	 * Remove a seat hold that expired or was released along with its seats
+	 * @param customerEmail normalized email id
+	 * @param seatHoldId
+	 * @param numSeats
+	 */
+	public void removeSeatHold(String customerEmail, int seatHoldId, int numSeats) {
+		customers.computeIfPresent(customerEmail, (email, activity) -> {
+			if (activity.seatHoldIds.remove(seatHoldId)) {
+				activity.seats -= numSeats;
+			}
+			return activity.isEmpty() ? null : activity;
+		});
+	}
+
+	/**
+	 * Turn a customer's seat hold into a reservation, the seats stay counted against the customer
+	 * @param customerEmail normalized email id
+	 * @param seatHoldId
+	 * @param confirmationCode
+	 */
+	public void reserve(String customerEmail, int seatHoldId, String confirmationCode) {
+		reservationOwners.put(confirmationCode, customerEmail);
+		customers.compute(customerEmail, (email, activity) -> {
+			CustomerActivity current = activity == null ? new CustomerActivity() : activity;
+			current.seatHoldIds.remove(seatHoldId);
+			current.confirmationCodes.add(confirmationCode);
+			return current;
+		});
+	}
+
+	/**
+	 * Remove a cancelled reservation along with its seats
+	 * @param confirmationCode
+	 * @param numSeats
+	 */
+	public void cancel(String confirmationCode, int numSeats) {
+		String customerEmail = reservationOwners.remove(confirmationCode);
+		if (customerEmail == null) {
+			return;
+		}
+		customers.computeIfPresent(customerEmail, (email, activity) -> {
+			if (activity.confirmationCodes.remove(confirmationCode)) {
+				activity.seats -= numSeats;
+			}
+			return activity.isEmpty() ? null : activity;
+		});
+	}
+
+	/**
+	 * @param customerEmail normalized email id
+	 * @return ids of seat holds the customer currently has
+	 */
+	public Set<Integer> getSeatHolds(String customerEmail) {
+		Set<Integer> seatHoldIds = new HashSet<>();
+		customers.computeIfPresent(customerEmail, (email, activity) -> {
+			seatHoldIds.addAll(activity.seatHoldIds);
+			return activity;
+		});
+		return Collections.unmodifiableSet(seatHoldIds);
+	}
+
+	/**
+	 * @param customerEmail normalized email id
+	 * @return confirmation codes of the customer's reservations
+	 */
+	public Set<String> getReservations(String customerEmail) {
+		Set<String> confirmationCodes = new HashSet<>();
+		customers.computeIfPresent(customerEmail, (email, activity) -> {
+			confirmationCodes.addAll(activity.confirmationCodes);
+			return activity;
+		});
+		return Collections.unmodifiableSet(confirmationCodes);
+	}
+
+	/**
+	 * @param customerEmail normalized email id
+	 * @return number of seats the customer currently holds or has reserved
+	 */
+	public int getSeatCount(String customerEmail) {
+		int[] seats = new int[1];
+		customers.computeIfPresent(customerEmail, (email, activity) -> {
+			seats[0] = activity.seats;
+			return activity;
+		});
+		return seats[0];
+	}
+
+}
@@ -0,0 +1,65 @@
+package com.walmart.ticketservice.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Keeps the high-water mark of a hold id generator in a file
+ * A new mark is written to a temporary file that is synced and then moved over the old one,
+ * so a crash leaves either the old or the new mark but never a torn one
+ * @author bkulkar
+ *
+ */
+public class FileHoldIdStore implements HoldIdStore {
+
+	private final Path file;
+
+	/**
+	 * @param file e.g. one file per venue
+	 */
+	public FileHoldIdStore(Path file) {
+		this.file = file;
+	}
+
+	@Override
+	public long load() {
+		if (!Files.exists(file)) {
+			return 0;
+		}
+		try {
+			String content = new String(Files.readAllBytes(file), StandardCharsets.US_ASCII).trim();
+			return content.isEmpty() ? 0 : Long.parseLong(content);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to read hold id high-water mark from " + file, e);
+		}
+	}
+
+	@Override
+	public void store(long highWaterMark) {
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			channel.write(ByteBuffer.wrap(Long.toString(highWaterMark).getBytes(StandardCharsets.US_ASCII)));
+			channel.force(true);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to write hold id high-water mark to " + temp, e);
+		}
+		try {
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to replace hold id high-water mark in " + file, e);
+		}
+	}
+
+	public Path getFile() {
+		return file;
+	}
+
+}
@@ -0,0 +1,178 @@
+package com.walmart.ticketservice.service;
+
+import java.util.List;
+
+import com.walmart.ticketservice.model.SeatMapSnapshot;
+import com.walmart.ticketservice.model.Section;
+
+/**
+ * Finds a region of free seats across consecutive rows of a section for a group too large to sit in one row
+ * A group of numSeats seated in h rows needs a rectangle of h rows of width ceil(numSeats / h) seats, the back row
+ * of the region taking whatever is left. Rows are scanned front to back keeping, per seat, the number of free seats
+ * above and including it in the same position (a histogram of column heights). A stack over every row's
+ * histogram yields the maximal rectangles of free seats ending at that row in one linear pass, so the search
+ * reads every seat of a section once.
+ * The region with the fewest rows wins, the front most one of those. Sections are searched front to back
+ * @author bkulkar
+ *
+ */
+public class GroupSeatSearch {
+
+	/**
+	 * Rectangle of seats a group is seated in
+	 */
+	public static class Region {
+		private final Section section;
+		/**
+		 * Venue row number of the front row of the region
+		 */
+		private final int firstRow;
+		private final int numRows;
+		private final int firstSeat;
+		/**
+		 * Number of seats in every row of the region but the back row
+		 */
+		private final int width;
+		private final int numSeats;
+
+		public Region(Section section, int firstRow, int numRows, int firstSeat, int width, int numSeats) {
+			this.section = section;
+			this.firstRow = firstRow;
+			this.numRows = numRows;
+			this.firstSeat = firstSeat;
+			this.width = width;
+			this.numSeats = numSeats;
+		}
+
+		public Section getSection() {
+			return section;
+		}
+
+		public int getFirstRow() {
+			return firstRow;
+		}
+
+		public int getNumRows() {
+			return numRows;
+		}
+
+		public int getFirstSeat() {
+			return firstSeat;
+		}
+
+		public int getWidth() {
+			return width;
+		}
+
+		public int getNumSeats() {
+			return numSeats;
+		}
+
+		/**
+		 * @param rowIndex index of the row within the region, 0 being the front row
+		 * @return number of seats of the group in the row
+		 */
+		public int getSeatsInRow(int rowIndex) {
+			return Math.min(width, numSeats - rowIndex * width);
+		}
+	}
+
+	private GroupSeatSearch() {
+	}
+
+	/**
+	 * @param seatMap
+	 * @param sections ordered from front to back
+	 * @param numSeats
+	 * @return region, null if no section has a region of free seats large enough
+	 */
+	public static Region find(SeatMapSnapshot seatMap, List<Section> sections, int numSeats) {
+
+		Region best = null;
+		for (Section section : sections) {
+			if (numSeats > section.getAvailableSeats()) {
+				continue;
+			}
+			Region region = find(seatMap, section, numSeats, best == null ? section.getNumOfRows() : best.numRows - 1);
+			if (region != null) {
+				best = region;
+				if (best.numRows == minRows(section, numSeats)) {
+					break;
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * @param section
+	 * @param numSeats
+	 * @return fewest rows of the section a group of numSeats fits in
+	 */
+	private static int minRows(Section section, int numSeats) {
+		return (numSeats + section.getSeatsPerRow() - 1) / section.getSeatsPerRow();
+	}
+
+	/**
+	 * Region with the fewest rows, at most maxRows, within a section
+	 * @param seatMap
+	 * @param section
+	 * @param numSeats
+	 * @param maxRows
+	 * @return region, null if there is none
+	 */
+	private static Region find(SeatMapSnapshot seatMap, Section section, int numSeats, int maxRows) {
+
+		int seatsPerRow = section.getSeatsPerRow();
+		int minRows = minRows(section, numSeats);
+		maxRows = Math.min(Math.min(maxRows, section.getNumOfRows()), numSeats);
+		if (minRows > maxRows) {
+			return null;
+		}
+
+		//front most region found so far for every number of rows
+		Region[] regions = new Region[maxRows + 1];
+		int[] heights = new int[seatsPerRow];
+		int[] stack = new int[seatsPerRow + 1];
+
+		for (int rowNum = section.getFirstRow(); rowNum <= section.getLastRow(); rowNum++) {
+			SeatMapSnapshot.Row row = seatMap.getRow(rowNum);
+			for (int seat = 0; seat < seatsPerRow; seat++) {
+				heights[seat] = row.isAvailable(seat) ? heights[seat] + 1 : 0;
+			}
+
+			//maximal rectangles ending at this row: every seat popped off the stack is the lowest column
+			//between the seats left on the stack below it and the seat that popped it
+			int top = 0;
+			for (int seat = 0; seat <= seatsPerRow; seat++) {
+				int height = seat < seatsPerRow ? heights[seat] : 0;
+				while (top > 0 && heights[stack[top - 1]] >= height) {
+					int rectHeight = heights[stack[--top]];
+					int left = top > 0 ? stack[top - 1] + 1 : 0;
+					int rectWidth = seat - left;
+					for (int numRows = minRows; numRows <= Math.min(rectHeight, maxRows); numRows++) {
+						int width = (numSeats + numRows - 1) / numRows;
+						if (width <= rectWidth && regions[numRows] == null) {
+							int firstRow = rowNum - numRows + 1;
+							int firstSeat = left + BestSeatSearch.bestStart(section, firstRow, left, rectWidth, width);
+							regions[numRows] = new Region(section, firstRow, numRows, firstSeat, width, numSeats);
+						}
+					}
+				}
+				stack[top++] = seat;
+			}
+
+			if (regions[minRows] != null) {
+				return regions[minRows];
+			}
+		}
+
+		for (int numRows = minRows; numRows <= maxRows; numRows++) {
+			if (regions[numRows] != null) {
+				return regions[numRows];
+			}
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,40 @@
+package com.walmart.ticketservice.service;
+
+/**
+ * Durable storage for the high-water mark of a hold id generator
+ * Every id below the stored mark may have been handed out, so after a restart ids start from it
+ * @author bkulkar
+ *
+ */
+public interface HoldIdStore {
+
+	/**
+	 * @return stored high-water mark, 0 if none was stored yet
+	 */
+	long load();
+
+	/**
+	 * Stores a new high-water mark, it must be durable when the method returns
+	 * @param highWaterMark
+	 */
+	void store(long highWaterMark);
+
+	/**
+	 * Store that keeps nothing, for ticket services whose holds do not outlive the process
+	 * @return holdIdStore
+	 */
+	static HoldIdStore inMemory() {
+		return new HoldIdStore() {
+			@Override
+			public long load() {
+				return 0;
+			}
+
+			@Override
+			public void store(long highWaterMark) {
+				//nothing to keep
+			}
+		};
+	}
+
+}
@@ -0,0 +1,19 @@
+package com.walmart.ticketservice.service;
+
+/**
+ * How the ticket service picks the best seats for a seat hold
+ * @author bkulkar
+ *
+ */
+public enum SeatSelection {
+
+	/**
+	 * Best seats within the front most row that has enough adjacent free seats
+	 */
+	FRONT_FIRST,
+	/**
+	 * Seats with the highest score anywhere in the venue, whatever row they are in
+	 */
+	GLOBAL_BEST
+
+}
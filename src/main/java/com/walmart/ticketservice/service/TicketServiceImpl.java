@@ -1,29 +1,48 @@
 package com.walmart.ticketservice.service;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.PriorityQueue;
-import java.util.SortedMap;
-import java.util.TreeMap;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.commons.lang3.RandomStringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.walmart.ticketservice.common.time.ScheduledTask;
+import com.walmart.ticketservice.common.time.SystemTimeSource;
+import com.walmart.ticketservice.common.time.TimeSource;
 import com.walmart.ticketservice.common.utils.CommonUtil;
+import com.walmart.ticketservice.common.utils.LogSampler;
+import com.walmart.ticketservice.events.SeatEvent;
+import com.walmart.ticketservice.events.SeatEventStream;
+import com.walmart.ticketservice.events.SeatEventType;
 import com.walmart.ticketservice.exception.ApplicationException;
 import com.walmart.ticketservice.model.Seat;
+import com.walmart.ticketservice.model.SeatAttribute;
 import com.walmart.ticketservice.model.SeatHold;
+import com.walmart.ticketservice.model.SeatMapSnapshot;
+import com.walmart.ticketservice.model.SeatQuote;
+import com.walmart.ticketservice.model.SeatRange;
 import com.walmart.ticketservice.model.SeatRowBlock;
+import com.walmart.ticketservice.model.Section;
 import com.walmart.ticketservice.model.Venue;
+import com.walmart.ticketservice.replication.ReplicationLeader;
+import com.walmart.ticketservice.storage.ReservationCache;
 import com.walmart.ticketservice.validator.Validator;
 
 /**
@@ -31,6 +50,10 @@ import com.walmart.ticketservice.validator.Validator;
  * finding and holding best seats
  * reserving seats
  * removing seat holds that have expired
+ * 
+ * There is no service wide lock. Free seats are guarded by the lock of the venue section they belong to,
+ * so holds and releases in different sections run in parallel, and seat holds and reservations
+ * are kept in concurrent maps
  * @author bkulkar
  *
  */
@@ -42,10 +65,39 @@ public class TicketServiceImpl implements TicketService {
 	 */
 	private Venue venue;
 	/**
-	 * Thread to check seat holds that have expired 
+	 * Task that checks seat holds that have expired 
 	 * at regular intervals
 	 */
-	private Thread checkExpiredHolds;
+	private final ScheduledTask expirySweep;
+	/**
+	 * Interval (in milliseconds) at which expired seat holds are released
+	 */
+	private static final long EXPIRY_SWEEP_INTERVAL = 1000;
+	/**
+	 * Number of seat map snapshots a hold of seats with attributes or of a group searches before giving up
+	 */
+	private static final int MAX_MATCHING_SEAT_ATTEMPTS = 16;
+	/**
+	 * Number of reservations cached for lookups by confirmation code
+	 */
+	public static final int DEFAULT_RESERVATION_CACHE_SIZE = 4096;
+	
+	/**
+	 * Way of finding and holding seats within sections
+	 */
+	private interface SeatFinder {
+		/**
+		 * @param numSeats
+		 * @param customerEmail
+		 * @param sections ordered from front to back
+		 * @return seatHold, null if no seats were found
+		 */
+		SeatHold hold(int numSeats, String customerEmail, List<Section> sections);
+	}
+	/**
+	 * Clock that seat holds are created and expired by
+	 */
+	private final TimeSource timeSource;
 	/**
 	 * Seats currently held and are not available 
 	 * until hold expires
@@ -53,23 +105,80 @@ public class TicketServiceImpl implements TicketService {
 	 */
 	private Map<Integer, SeatHold> currentSeatHolds;
 	/**
-	 * Seat holds sorted and mapped with creation time as key value
-	 * 
+	 * Seat holds sorted by expiry, mapped with the time their timeout is counted from 
+	 * (creation time, or later if the hold was extended) as key value
+	 * The time is kept in the high bits of the key and a running number in the low EXPIRY_SEQUENCE_BITS,
+	 * so holds created in the same millisecond get keys of their own
+	 */
+	private ConcurrentNavigableMap<Long, Integer> timeoutToHolds;
+	/**
+	 * Number of low bits of an expiry key that tell apart holds with the same timeout
 	 */
-	private SortedMap<Long, Integer> timeoutToHolds;
+	private static final int EXPIRY_SEQUENCE_BITS = 20;
+	/**
+	 * Running number for the low bits of expiry keys
+	 */
+	private final AtomicLong expirySequence = new AtomicLong();
 	/**
 	 * Default time out value (in milliseconds) 
 	 * for a seat hold
 	 */
 	private static final long TIMEOUT_VALUE = 60 * 1000;
+	/**
+	 * Default maximum time (in milliseconds) a seat hold
+	 * can be kept for by extending it
+	 */
+	private static final long MAX_HOLD_LIFETIME_VALUE = 10 * 60 * 1000;
 	/**
 	 * Expiry time for a seat hold
 	 */
 	private long  holdTimeout;
 	/**
-	 * Atomic integer that incremented everytime to create a seat hold id
+	 * Maximum lifetime of a seat hold, counted from its creation
+	 */
+	private long maxHoldLifetime;
+	/**
+	 * Seat holds and reservations indexed by customer
+	 */
+	private final CustomerIndex customerIndex = new CustomerIndex();
+	/**
+	 * Recently looked up reservations in front of the reservations of the venue
 	 */
-	private static final AtomicInteger count = new AtomicInteger(0); 
+	private volatile ReservationCache reservationCache = new ReservationCache(DEFAULT_RESERVATION_CACHE_SIZE);
+	/**
+	 * Changes to seat state for downstream consumers
+	 * Every change is published before the seats can change again, e.g. seats are only returned to the venue
+	 * once their release was published, so subscribers see the changes to a seat in order
+	 */
+	private final SeatEventStream seatEvents = new SeatEventStream();
+	/**
+	 * Latest map of available seats, replaced on every hold and release
+	 */
+	private final AtomicReference<SeatMapSnapshot> seatMap;
+	/**
+	 * Maximum number of seats a customer can hold and reserve in total
+	 */
+	private volatile int maxSeatsPerCustomer = Integer.MAX_VALUE;
+	/**
+	 * Generator of the seat hold ids of this venue
+	 */
+	private final BlockHoldIdGenerator holdIds;
+	/**
+	 * How the best seats for a seat hold are picked
+	 */
+	private volatile SeatSelection seatSelection = SeatSelection.FRONT_FIRST;
+	/**
+	 * Number of free blocks from which the global best seat search runs in parallel
+	 */
+	private volatile int parallelSearchThreshold = BestSeatSearch.DEFAULT_PARALLEL_THRESHOLD;
+	/**
+	 * Picks the seat holds and reservations that are logged, every one unless sampling is configured
+	 */
+	private volatile LogSampler requestLogSampler = LogSampler.ALL;
+	/**
+	 * Sends every change to the seats to followers, null unless the service is a replication leader
+	 */
+	private volatile ReplicationLeader replicationLeader;
 	
 	private static final Logger logger = LoggerFactory.getLogger(TicketServiceImpl.class);
 	
@@ -78,63 +187,94 @@ public class TicketServiceImpl implements TicketService {
 	}
 	
 	public TicketServiceImpl(Venue venue, long timeout) {
+		this(venue, timeout, Math.max(timeout, MAX_HOLD_LIFETIME_VALUE));
+	}
+	
+	public TicketServiceImpl(Venue venue, long timeout, long maxHoldLifetime) {
+		this(venue, timeout, maxHoldLifetime, new BlockHoldIdGenerator());
+	}
+	
+	/**
+	 * @param venue
+	 * @param timeout
+	 * @param maxHoldLifetime
+	 * @param holdIds generator of seat hold ids for the venue, e.g. one that keeps its high-water mark 
+	 * in a file so seat hold ids stay unique across restarts
+	 */
+	public TicketServiceImpl(Venue venue, long timeout, long maxHoldLifetime, BlockHoldIdGenerator holdIds) {
+		this(venue, timeout, maxHoldLifetime, holdIds, SystemTimeSource.INSTANCE);
+	}
+	
+	/**
+	 * @param venue
+	 * @param timeout
+	 * @param maxHoldLifetime
+	 * @param holdIds
+	 * @param timeSource clock and scheduler of the expiry sweep, e.g. a virtual clock to run hours of expiries in a test
+	 */
+	public TicketServiceImpl(Venue venue, long timeout, long maxHoldLifetime, BlockHoldIdGenerator holdIds, TimeSource timeSource) {
+		if(maxHoldLifetime < timeout) {
+			throw new IllegalArgumentException("Maximum hold lifetime cannot be shorter than the hold timeout");
+		}
 		this.venue = venue;
+		this.holdIds = holdIds;
+		this.timeSource = timeSource;
+		this.seatMap = new AtomicReference<>(SeatMapSnapshot.allAvailable(venue));
 	    this.holdTimeout = timeout;
-		this.currentSeatHolds = new HashMap<>();
-		this.timeoutToHolds = Collections.synchronizedSortedMap(new TreeMap<Long, Integer>());
-		
-		this.checkExpiredHolds = new Thread(() -> {
-	            while (true) {
-	                List<SeatHold> expiredHolds = new ArrayList<SeatHold>();
-	                Iterator<Entry<Long, Integer>> mapIterator = this.timeoutToHolds.entrySet().iterator();
-	                while(mapIterator.hasNext()){
-	                	Entry<Long, Integer> entry = mapIterator.next();
-	                    long expireTime = entry.getKey() + this.holdTimeout;
-	                    if (System.currentTimeMillis() >= expireTime) {
-	                        // This entry has expired. Add to list of holds to be released 
-	                    	//and remove from current seat holds
-	                    	if(!CommonUtil.isInvalid(currentSeatHolds) &&
-	                    			currentSeatHolds.containsKey(entry.getValue())) {
-	                           expiredHolds.add(currentSeatHolds.get(entry.getValue()));
-	                           logger.info("Removing seat hold #" + entry.getValue() + "from current seat holds");
-	                           currentSeatHolds.remove(entry.getValue());
-	                           mapIterator.remove();
-	                    	}
-	                    } else {
-	                        // No more holds have expired at the current time.
-	                        break; // exit
-	                    }
-	                }
-
-	                // Remove the expired holds.
-	                if (expiredHolds.size() > 0) {
-	                    this.removeExpiredHolds(expiredHolds);
-	                }
+	    this.maxHoldLifetime = maxHoldLifetime;
+		this.currentSeatHolds = new ConcurrentHashMap<>();
+		this.timeoutToHolds = new ConcurrentSkipListMap<Long, Integer>();
+		
+		this.expirySweep = timeSource.schedulePeriodic("expired-holds-sweeper", this::sweepExpiredHolds, EXPIRY_SWEEP_INTERVAL);
+	}
+	
+	/**
+	 * Releases the seat holds that have expired, run every EXPIRY_SWEEP_INTERVAL
+	 */
+	private void sweepExpiredHolds() {
+		List<SeatHold> expiredHolds = new ArrayList<SeatHold>();
+		long now = timeSource.currentTimeMillis();
+		Iterator<Entry<Long, Integer>> mapIterator = this.timeoutToHolds.entrySet().iterator();
+		while(mapIterator.hasNext()){
+			Entry<Long, Integer> entry = mapIterator.next();
+			long expireTime = (entry.getKey() >>> EXPIRY_SEQUENCE_BITS) + this.holdTimeout;
+			if (now >= expireTime) {
+				mapIterator.remove();
+				SeatHold seatHold = currentSeatHolds.get(entry.getValue());
+				//seat hold was already reserved or released
+				if(CommonUtil.isInvalid(seatHold)) {
+					continue;
+				}
+				synchronized (seatHold) {
+					//seat hold was extended, reschedule it at its new expiry time
+					if(seatHold.getExpiryTime() > now) {
+						scheduleExpiry(seatHold);
+					} else if(currentSeatHolds.remove(entry.getValue(), seatHold)) {
+						// This entry has expired. Add to list of holds to be released 
+						//and remove from current seat holds
+						expiredHolds.add(seatHold);
+						logger.debug("Removing seat hold #{} from current seat holds", entry.getValue());
+					}
+				}
+			} else {
+				// No more holds have expired at the current time.
+				break; // exit
+			}
+		}
 
-	                try {
-	                    Thread.sleep(1000);
-	                } catch (InterruptedException e) {
-	                    break; // exit
-	                }
-	            }
-	        });
-	        
-		this.checkExpiredHolds.start();
+		// Remove the expired holds.
+		if (expiredHolds.size() > 0) {
+			this.removeExpiredHolds(expiredHolds);
+		}
 	}
 	
 	/* 
 	 * Returns number of available seats in the venue
+	 * Read from the counters kept up to date by every section on every hold and release, 
+	 * so it neither scans nor locks the venue
 	 */
-	public synchronized int numSeatsAvailable() {
-		
-		if(CommonUtil.isInvalid(this.venue) || CommonUtil.isInvalid(this.venue.getAvailableSeatRows())) {
-			logger.info("No seats available or venue is not valid");
-			return 0;
-		}
-		
-		logger.info("Calculating total available seats in Venue");
-		return venue.getAvailableSeatRows().stream().
-		        mapToInt(seatRowBlock -> seatRowBlock.getSeats().size()).sum();
+	public int numSeatsAvailable() {
+		return this.venue.getAvailableSeats();
 	}
 
 	/**
@@ -145,126 +285,485 @@ public class TicketServiceImpl implements TicketService {
 	 * If it doesn't find any free block large enough for requested number of seats, customer is requested to try again 
 	 * with fewer number of seats
 	 * 
+	 * Sections of the venue are searched in parallel for a large enough free block and the seats are held 
+	 * in the front most section that has one
+	 * Requests for a sold out venue are rejected without waiting for any lock
+	 * 
 	 * @param numSeats
 	 * @param customerEmail
 	 * @return seatHold
 	 * 
 	 */
-	public synchronized SeatHold findAndHoldSeats(int numSeats, String customerEmail) throws ApplicationException{
+	public SeatHold findAndHoldSeats(int numSeats, String customerEmail) throws ApplicationException{
+		return holdBestSeats(numSeats, customerEmail, this.venue.getSections());
+	}
+	
+	/**
+	 * Finds and holds best available seats within a section of the venue
+	 * @param numSeats
+	 * @param customerEmail
+	 * @param sectionName
+	 * @return seatHold
+	 * @throws ApplicationException if the venue has no such section
+	 */
+	public SeatHold findAndHoldSeatsInSection(int numSeats, String customerEmail, String sectionName) throws ApplicationException{
 		
-		logger.info("Validating request parameters before finding best seats");
-		Validator.validateEmailNumberofSeats(numSeats, customerEmail, this.getVenue());
-		logger.info("Validation successful. Continue finding best seats");
+		Section section = this.venue.getSection(sectionName);
+		if(CommonUtil.isInvalid(section)) {
+			logger.error("Error occured while trying to process request : Section {} does not exist", sectionName);
+			throw new ApplicationException("Section does not exist");
+		}
+		return holdBestSeats(numSeats, customerEmail, Collections.singletonList(section));
+	}
+	
+	/**
+	 * Finds and holds best available seats sold at a price tier
+	 * @param numSeats
+	 * @param customerEmail
+	 * @param priceTier
+	 * @return seatHold
+	 * @throws ApplicationException if no seat is sold at the price tier
+	 */
+	public SeatHold findAndHoldSeatsInPriceTier(int numSeats, String customerEmail, int priceTier) throws ApplicationException{
 		
-		SeatHold seatHold = null;
-		PriorityQueue<SeatRowBlock> availableSeats = this.venue.getAvailableSeatRows();
-		List<SeatRowBlock> addBack = new ArrayList<>();
+		List<Section> sections = this.venue.getSectionsInPriceTier(priceTier);
+		if(sections.isEmpty()) {
+			logger.error("Error occured while trying to process request : Price tier {} does not exist", priceTier);
+			throw new ApplicationException("Price tier does not exist");
+		}
+		return holdBestSeatsInPriceTiers(numSeats, customerEmail, sections, Collections.singleton(priceTier));
+	}
+	
+	/**
+	 * Finds and holds best available seats that cost at most maxPrice
+	 * @param numSeats
+	 * @param customerEmail
+	 * @param maxPrice
+	 * @return seatHold
+	 * @throws ApplicationException if no seat is priced at or below maxPrice
+	 */
+	public SeatHold findAndHoldSeatsUpToPrice(int numSeats, String customerEmail, BigDecimal maxPrice) throws ApplicationException{
 		
-	  while(!availableSeats.isEmpty()){
-			
-	    //get highest priority element from queue
-	    SeatRowBlock seatRow = availableSeats.poll();
-			
-		if(!CommonUtil.isInvalid(seatRow) && !CommonUtil.isInvalid(seatRow.getSeats())) {
-			if(numSeats <= seatRow.getAvailableSeats()) {
-				int seatCount = seatRow.getAvailableSeats();
-				if(seatCount == numSeats) {
-					//best seats found, get the row block and assign
-					List<Seat> seatsToBeHeld = seatRow.getSeats();
-					seatHold = new SeatHold(seatRow.getRowId(), seatsToBeHeld, System.currentTimeMillis(), customerEmail, count.incrementAndGet());
-					break;		
-				} else if( numSeats < seatCount) {
-					//find best possible seats within the row
-					List<Seat> seatsToBeHeld = findBestSeats(seatRow, numSeats, availableSeats);
-					seatHold = new SeatHold(seatRow.getRowId(), seatsToBeHeld, System.currentTimeMillis(), customerEmail, count.incrementAndGet());
-					break;		
-				} 
-			} else {
-				//need to add this row back to original
-				addBack.add(seatRow);
+		if(CommonUtil.isInvalid(maxPrice)) {
+			logger.error("Error occured while trying to process request : Invalid max price");
+			throw new ApplicationException("Invalid max price!");
+		}
+		List<Section> sections = this.venue.getSectionsUpToPrice(maxPrice);
+		if(sections.isEmpty()) {
+			logger.error("Error occured while trying to process request : No section priced at or below {}", maxPrice);
+			throw new ApplicationException("No seats at or below the price");
+		}
+		return holdBestSeatsInPriceTiers(numSeats, customerEmail, sections, this.venue.getPriceTiersUpToPrice(maxPrice));
+	}
+	
+	/**
+	 * Finds and holds best available adjacent seats that all carry the required attributes and none of the excluded ones,
+	 * e.g. wheelchair accessible positions, companion seats or seats without a restricted view
+	 * @param numSeats
+	 * @param customerEmail
+	 * @param required attributes every seat has to carry
+	 * @param excluded attributes no seat may carry
+	 * @return seatHold
+	 * @throws ApplicationException
+	 */
+	public SeatHold findAndHoldSeatsWithAttributes(int numSeats, String customerEmail, Set<SeatAttribute> required,
+			Set<SeatAttribute> excluded) throws ApplicationException{
+		int requiredMask = SeatAttribute.maskOf(required);
+		int excludedMask = SeatAttribute.maskOf(excluded);
+		return holdBestSeats(numSeats, customerEmail, this.venue.getSections(),
+				(n, email, sections) -> holdMatchingSeats(n, email, sections, requiredMask, excludedMask, null));
+	}
+	
+	/**
+	 * Finds and holds seats for a group across consecutive rows, for groups too large to sit together in one row
+	 * The group is seated in the rectangle of free seats with the fewest rows, the front most of those, every row
+	 * of the rectangle but the back row taking the same number of seats
+	 * @param numSeats
+	 * @param customerEmail
+	 * @return seatHold of the seats of all the rows, seats ordered by row and seat
+	 * @throws ApplicationException
+	 */
+	public SeatHold findAndHoldGroupSeats(int numSeats, String customerEmail) throws ApplicationException{
+		return holdBestSeats(numSeats, customerEmail, this.venue.getSections(), this::holdGroupSeats);
+	}
+	
+	/**
+	 * Returns the best seats a hold for numSeats would get right now, without holding them
+	 * The preview reads the latest seat map snapshot, so it takes no lock and does not wait for holds in progress
+	 * @param numSeats
+	 * @return seatQuote, null if no free block is large enough
+	 * @throws ApplicationException if the number of seats is invalid
+	 */
+	public SeatQuote previewBestSeats(int numSeats) throws ApplicationException {
+
+		if(CommonUtil.isInvalid(numSeats)) {
+			logger.error("Error occured while trying to process request : Invalid number of seats requested");
+			throw new ApplicationException("Invalid number of seats requested!");
+		}
+		return BestSeatPreview.preview(seatMap.get(), this.venue.getSections(), numSeats, this.seatSelection);
+	}
+
+	/**
+	 * Finds and holds best available seats within the given sections
+	 * @param numSeats
+	 * @param customerEmail
+	 * @param sections ordered from front to back
+	 * @return seatHold
+	 * @throws ApplicationException
+	 */
+	private SeatHold holdBestSeats(int numSeats, String customerEmail, List<Section> sections) throws ApplicationException{
+		return holdBestSeats(numSeats, customerEmail, sections, this::holdBestSeatsInSections);
+	}
+	
+	/**
+	 * Finds and holds best available seats sold at one of the price tiers within the given sections
+	 * Sections whose seats are all sold at the tiers are searched through their free seat row blocks like any other hold.
+	 * Once a section also sells seats at other tiers, windows are found from the seat map snapshot ANDed with the bitmaps
+	 * of the tiers, sections without a large enough run of free seats of the tiers skipped from their per tier index
+	 * @param numSeats
+	 * @param customerEmail
+	 * @param sections ordered from front to back
+	 * @param priceTiers
+	 * @return seatHold
+	 * @throws ApplicationException
+	 */
+	private SeatHold holdBestSeatsInPriceTiers(int numSeats, String customerEmail, List<Section> sections, Set<Integer> priceTiers) throws ApplicationException{
+		
+		for(Section section : sections) {
+			if(!section.isSoldWithin(priceTiers)) {
+				return holdBestSeats(numSeats, customerEmail, sections,
+						(n, email, tierSections) -> holdMatchingSeats(n, email, tierSections, 0, 0, priceTiers));
 			}
-		  }
-	   }
+		}
+		return holdBestSeats(numSeats, customerEmail, sections);
+	}
+	
+	/**
+	 * Finds and holds seats within the given sections the way the seat finder picks them
+	 * @param numSeats
+	 * @param customerEmail
+	 * @param sections ordered from front to back
+	 * @param seatFinder
+	 * @return seatHold
+	 * @throws ApplicationException
+	 */
+	private SeatHold holdBestSeats(int numSeats, String customerEmail, List<Section> sections, SeatFinder seatFinder) throws ApplicationException{
+		
+		if(sections.stream().mapToInt(Section::getAvailableSeats).sum() == 0) {
+			logger.debug("No seats available, rejecting seat hold request");
+			throw new ApplicationException("No seats available");
+		}
+		
+		logger.debug("Validating request parameters before finding best seats");
+		Validator.validateEmailNumberofSeats(numSeats, customerEmail, this.getVenue());
+		logger.debug("Validation successful. Continue finding best seats");
 		
-		//add back rows that were removed while iteration and were not split
-		if(!CommonUtil.isInvalid(addBack)) {
-		   availableSeats.addAll(addBack);
+		String normalizedEmail = CommonUtil.normalizeEmail(customerEmail);
+		if(!customerIndex.tryAcquireSeats(normalizedEmail, numSeats, this.maxSeatsPerCustomer)) {
+			logger.error("Error occured while trying to process request : Customer ticket limit reached");
+			throw new ApplicationException("Customer cannot hold more than " + this.maxSeatsPerCustomer + " seats");
 		}
 		
+		SeatHold seatHold = seatFinder.hold(numSeats, customerEmail, sections);
+		
 		//if seats found
 		if(!CommonUtil.isInvalid(seatHold)) {
+			seatHold.setExpiryTime(seatHold.getTimeCreated() + this.holdTimeout);
+			seatsChanged(SeatEventType.HOLD, seatHold.getSeatsHeld(), seatHold.getSeatHoldId(), null);
+			//the customer is recorded before the hold is published, so a release or reservation of the hold
+			//racing with this request always finds it in the customer index
+			customerIndex.addSeatHold(normalizedEmail, seatHold.getSeatHoldId());
 			currentSeatHolds.put(seatHold.getSeatHoldId(), seatHold);
-		    timeoutToHolds.put(seatHold.getTimeCreated(), seatHold.getSeatHoldId());
+			scheduleExpiry(seatHold);
+			if(logger.isInfoEnabled() && this.requestLogSampler.sample()) {
+				logger.info("Seat hold #{} of {} seats in row {}", seatHold.getSeatHoldId(), numSeats, seatHold.getRowNum());
+			}
+		 } else {
+			customerIndex.releaseSeats(normalizedEmail, numSeats);
 		 }
 		
 		return seatHold;
 	}
+	
+	/**
+	 * Finds and holds the best adjacent seats of a row within the given sections, as picked by the seat selection
+	 * @param numSeats
+	 * @param customerEmail
+	 * @param sections ordered from front to back
+	 * @return seatHold, null if no section has a free block large enough
+	 */
+	private SeatHold holdBestSeatsInSections(int numSeats, String customerEmail, List<Section> sections) {
+		
+		if(this.seatSelection == SeatSelection.GLOBAL_BEST) {
+			return holdGlobalBestSeats(numSeats, customerEmail, sections);
+		}
+		//another request can take the block found in a section before it is held, in which case
+		//the next section that had one is tried
+		for(Section section : sectionsThatCanSeat(numSeats, sections)) {
+			SeatHold seatHold = holdBestSeatsInSection(numSeats, customerEmail, section);
+			if(!CommonUtil.isInvalid(seatHold)) {
+				return seatHold;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Finds and holds a region of seats across consecutive rows for a group
+	 * The region is found in the latest seat map snapshot and all of its rows are carved out of the free seat row blocks
+	 * of the section under a single acquisition of the section lock, so other requests never see part of a region taken.
+	 * If another request took seats of the region after the snapshot was read, nothing is taken and the region is
+	 * looked for again in a newer snapshot, which already has the seats taken as they are marked in the seat map
+	 * under the section lock
+	 * @param numSeats
+	 * @param customerEmail
+	 * @param sections ordered from front to back
+	 * @return seatHold, null if no region of free seats is large enough
+	 */
+	private SeatHold holdGroupSeats(int numSeats, String customerEmail, List<Section> sections) {
+		
+		for(int attempt = 0; attempt < MAX_MATCHING_SEAT_ATTEMPTS; attempt++) {
+			GroupSeatSearch.Region region = GroupSeatSearch.find(seatMap.get(), sections, numSeats);
+			if(CommonUtil.isInvalid(region)) {
+				return null;
+			}
+			int[] numSeatsByRow = new int[region.getNumRows()];
+			for(int rowIndex = 0; rowIndex < numSeatsByRow.length; rowIndex++) {
+				numSeatsByRow[rowIndex] = region.getSeatsInRow(rowIndex);
+			}
+			Section section = region.getSection();
+			section.getLock().lock();
+			try {
+				List<List<Seat>> taken = section.takeSeats(region.getFirstRow(), region.getFirstSeat(), numSeatsByRow);
+				if(!CommonUtil.isInvalid(taken)) {
+					List<Seat> seatsToBeHeld = new ArrayList<>(numSeats);
+					taken.forEach(seatsToBeHeld::addAll);
+					markSeatMap(seatsToBeHeld, false);
+					return new SeatHold(region.getFirstRow(), seatsToBeHeld, timeSource.currentTimeMillis(), customerEmail, holdIds.nextId());
+				}
+			} finally {
+				section.getLock().unlock();
+			}
+			//another request took seats of the region after the snapshot was read
+			Thread.yield();
+		}
+		return null;
+	}
+	
+	/**
+	 * Sections that have a free block large enough for the requested number of seats
+	 * Sections are checked in order on the calling thread from the largest free block each section keeps,
+	 * without taking any section lock
+	 * @param numSeats
+	 * @param sections ordered from front to back
+	 * @return sections ordered from front to back
+	 */
+	private List<Section> sectionsThatCanSeat(int numSeats, List<Section> sections) {
+		if(sections.size() == 1) {
+			return sections;
+		}
+		List<Section> canSeat = new ArrayList<>(sections.size());
+		for(Section section : sections) {
+			if(section.canSeat(numSeats)) {
+				canSeat.add(section);
+			}
+		}
+		return canSeat;
+	}
+	
+	/**
+	 * Finds and holds the best seats with the given attributes and price tiers
+	 * Matching windows are found with bitwise operations over the latest seat map snapshot and the attribute and tier bitmaps
+	 * of the rows, then carved out of the free seat row blocks of their section. A window taken by another request
+	 * after the snapshot was read is looked for again in a newer snapshot, which already has it taken
+	 * @param numSeats
+	 * @param customerEmail
+	 * @param sections ordered from front to back
+	 * @param requiredMask
+	 * @param excludedMask
+	 * @param priceTiers null for seats of any tier
+	 * @return seatHold, null if no free window has the attributes and tiers
+	 */
+	private SeatHold holdMatchingSeats(int numSeats, String customerEmail, List<Section> sections, int requiredMask, int excludedMask,
+			Set<Integer> priceTiers) {
+		
+		for(int attempt = 0; attempt < MAX_MATCHING_SEAT_ATTEMPTS; attempt++) {
+			SeatQuote quote = BestSeatPreview.preview(seatMap.get(), sections, numSeats, this.seatSelection, requiredMask, excludedMask,
+					priceTiers);
+			if(CommonUtil.isInvalid(quote)) {
+				return null;
+			}
+			Section section = this.venue.getSectionForRow(quote.getRowNum());
+			section.getLock().lock();
+			try {
+				List<Seat> seatsToBeHeld = section.takeSeats(quote.getRowNum(), quote.getSeats().get(0).getId(), numSeats);
+				if(!CommonUtil.isInvalid(seatsToBeHeld)) {
+					markSeatMap(seatsToBeHeld, false);
+					return new SeatHold(quote.getRowNum(), seatsToBeHeld, timeSource.currentTimeMillis(), customerEmail, holdIds.nextId());
+				}
+			} finally {
+				section.getLock().unlock();
+			}
+			//another request took seats of the window after the snapshot was read
+			Thread.yield();
+		}
+		return null;
+	}
+	
+	/**
+	 * Finds and holds best available seats in a section under the section lock
+	 * @param numSeats
+	 * @param customerEmail
+	 * @param section
+	 * @return seatHold, null if the section has no free block large enough
+	 */
+	private SeatHold holdBestSeatsInSection(int numSeats, String customerEmail, Section section) {
+		
+		SeatHold seatHold = null;
+		List<SeatRowBlock> addBack = new ArrayList<>();
+		
+		section.getLock().lock();
+		try {
+			PriorityQueue<SeatRowBlock> availableSeats = section.getAvailableSeatRows();
+			
+		  while(!availableSeats.isEmpty()){
+				
+		    //get highest priority element from queue
+		    SeatRowBlock seatRow = availableSeats.poll();
+				
+			if(!CommonUtil.isInvalid(seatRow) && !CommonUtil.isInvalid(seatRow.getSeats())) {
+				if(numSeats <= seatRow.getAvailableSeats()) {
+					int seatCount = seatRow.getAvailableSeats();
+					if(seatCount == numSeats) {
+						//best seats found, get the row block and assign
+						List<Seat> seatsToBeHeld = seatRow.getSeats();
+						seatHold = new SeatHold(seatRow.getRowId(), seatsToBeHeld, timeSource.currentTimeMillis(), customerEmail, holdIds.nextId());
+						break;		
+					} else if( numSeats < seatCount) {
+						//find best possible seats within the row
+						List<Seat> seatsToBeHeld = findBestSeats(section, seatRow, numSeats);
+						seatHold = new SeatHold(seatRow.getRowId(), seatsToBeHeld, timeSource.currentTimeMillis(), customerEmail, holdIds.nextId());
+						break;		
+					} 
+				} else {
+					//need to add this row back to original
+					addBack.add(seatRow);
+				}
+			  }
+		   }
+			
+			//add back rows that were removed while iteration and were not split
+			if(!CommonUtil.isInvalid(addBack)) {
+			   availableSeats.addAll(addBack);
+			}
+			
+			if(!CommonUtil.isInvalid(seatHold)) {
+				section.addAvailableSeats(-seatHold.getSeatsHeld().size());
+				markSeatMap(seatHold.getSeatsHeld(), false);
+			}
+		} finally {
+			section.getLock().unlock();
+		}
+		
+		return seatHold;
+	}
 
 	/**
 	 * 
 	 * This method will get the seat row block to be searched for best seats as input
-	 * Based on seat scores (seats in the middle have higher scores than those on the sides)
-	 * it will find best seats within the row block 
+	 * Based on seat scores of the section's scoring model it will find best seats within the row block 
 	 * and split the rest of the row block into smaller row blocks of continuous free seats
+	 * Callers have to hold the section lock
+	 * 
+	 * @param section
+	 * @param seatRow
+	 * @param numSeats
+	 * @return seatsToHold
+	 */
+	private List<Seat> findBestSeats(Section section, SeatRowBlock seatRow, int numSeats) {
+		
+	    logger.debug("Finding best seats with max scores");
+	    return splitSeatRowBlock(section, seatRow, BestSeatSearch.bestStart(section, seatRow, numSeats), numSeats);
+	}
+	
+	/**
+	 * Takes numSeats seats starting at startIndex out of a seat row block that is no longer in the queue
+	 * and adds the seats left on either side back to the queue as separate blocks
+	 * Callers have to hold the section lock
 	 * 
+	 * @param section
 	 * @param seatRow
+	 * @param startIndex
 	 * @param numSeats
-	 * @param availableSeats
 	 * @return seatsToHold
 	 */
-	private synchronized List<Seat> findBestSeats(SeatRowBlock seatRow, int numSeats, PriorityQueue<SeatRowBlock> availableSeats) {
-		
-			//continuous seats in the current seat row
-			List<Seat> seats = seatRow.getSeats();
-			//Seats to be held
-			List<Seat> seatsToHold = new ArrayList<Seat>(numSeats);
-		
-		    float maxScore = 0;
-		    int startIndex = 0;
-		    
-		    //calculate scare of seats from 0 to numSeats i.e. seats from left to right in the current row
-		   logger.info("Calculating scores for first " + numSeats+ " no. of seats");
-	        for (int i=0; i<numSeats; i++) {
-	                maxScore += seats.get(i).getScore();
-	                seatsToHold.add(seats.get(i));
-	        }
-	        // Compute sums of remaining windows by
-	        // removing first element of previous
-	        // window and adding last element of 
-	        // current window
-	        float curr_sum = maxScore;
-	        logger.info("Finding best seats with max scores");
-	        for (int i=numSeats; i<seats.size(); i++)
-	        {
-	        		float prevSeatScore =  seats.get(i - numSeats).getScore();
-	        		curr_sum += seats.get(i).getScore() - prevSeatScore;
-	        		
-	        		//update with better seat found based on the score
-	        		if(curr_sum >= maxScore){
-	        			maxScore = curr_sum;
-	        			startIndex = i-numSeats+1;
-	        			seatsToHold.add(seats.get(i));
-	        			if(seatsToHold.size() > numSeats){
-	        				seatsToHold.remove(0);
-	        			}
-	        	    }
-	        }
+	private List<Seat> splitSeatRowBlock(Section section, SeatRowBlock seatRow, int startIndex, int numSeats) {
+		
+		List<Seat> seats = seatRow.getSeats();
+		int rowId = seatRow.getRowId();
+		
+	    //Seats to be held
+	    List<Seat> seatsToHold = new ArrayList<Seat>(seats.subList(startIndex, startIndex + numSeats));
 	    
 	    //split current seat row into separate blocks based on startIndex and number of seats to be held in the row  
 	    //and add to queue
-	   if(!CommonUtil.isInvalid(seatsToHold)) {     
-			if (startIndex == 0) {
-				availableSeats.add(new SeatRowBlock(seatRow.getRowId(), seats.subList(numSeats, seats.size())));
-			} else if (startIndex > 0) {
-				availableSeats.add(new SeatRowBlock(seatRow.getRowId(), seats.subList(0, startIndex)));
-				if (startIndex + numSeats < seats.size())
-					availableSeats.add(new SeatRowBlock(seatRow.getRowId(), seats.subList(startIndex + numSeats, seats.size())));
-			}  
-	   }
+		if (startIndex > 0) {
+			section.getAvailableSeatRows().add(new SeatRowBlock(rowId, new ArrayList<Seat>(seats.subList(0, startIndex))));
+		}
+		if (startIndex + numSeats < seats.size()) {
+			section.getAvailableSeatRows().add(new SeatRowBlock(rowId, new ArrayList<Seat>(seats.subList(startIndex + numSeats, seats.size()))));
+		}
 	   
 		return seatsToHold;
 		
 	}
+	
+	/**
+	 * Finds and holds the seats with the highest score across the given sections
+	 * All the sections are locked, front to back, while the search runs, so the best window found is still free when it is held
+	 * The search runs in parallel over ranges of rows once there are enough free blocks to make up for the overhead
+	 * 
+	 * @param numSeats
+	 * @param customerEmail
+	 * @param sections ordered from front to back
+	 * @return seatHold, null if no section has a free block large enough
+	 */
+	private SeatHold holdGlobalBestSeats(int numSeats, String customerEmail, List<Section> sections) {
+		
+		List<Section> locked = new ArrayList<>(sections.size());
+		try {
+			List<SeatRowBlock> candidates = new ArrayList<>();
+			for(Section section : sections) {
+				section.getLock().lock();
+				locked.add(section);
+				for(SeatRowBlock seatRow : section.getAvailableSeatRows()) {
+					if(seatRow.getAvailableSeats() >= numSeats) {
+						candidates.add(seatRow);
+					}
+				}
+			}
+			
+			SeatRowBlock[] blocks = candidates.toArray(new SeatRowBlock[candidates.size()]);
+			Arrays.sort(blocks, Comparator.comparingInt(SeatRowBlock::getRowId).
+					thenComparingInt(seatRow -> seatRow.getSeats().get(0).getId()));
+			BestSeatSearch.Window best = BestSeatSearch.find(this.venue, blocks, numSeats, this.parallelSearchThreshold);
+			if(CommonUtil.isInvalid(best)) {
+				return null;
+			}
+			
+			SeatRowBlock seatRow = blocks[best.getBlockIndex()];
+			Section section = this.venue.getSectionForRow(seatRow.getRowId());
+			section.getAvailableSeatRows().remove(seatRow);
+			List<Seat> seatsToBeHeld = splitSeatRowBlock(section, seatRow, best.getStartIndex(), numSeats);
+			section.addAvailableSeats(-numSeats);
+			markSeatMap(seatsToBeHeld, false);
+			return new SeatHold(seatRow.getRowId(), seatsToBeHeld, timeSource.currentTimeMillis(), customerEmail, holdIds.nextId());
+		} finally {
+			for(int i = locked.size() - 1; i >= 0; i--) {
+				locked.get(i).getLock().unlock();
+			}
+		}
+	}
 
 	/**
 	 * This method will check whether the seat hold still exists or if it has expired
@@ -276,116 +775,364 @@ public class TicketServiceImpl implements TicketService {
 	 * @return confirmationCode
 	 * 
 	 */
-	public synchronized String reserveSeats(int seatHoldId, String customerEmail) throws ApplicationException{
+	public String reserveSeats(int seatHoldId, String customerEmail) throws ApplicationException{
 		
-		logger.info("Validating request parameters before reserving seats");
-		Validator.validateSeatHoldIdEmail(seatHoldId, customerEmail, currentSeatHolds);
-		logger.info("Validation successful. Continue reserving seats");
+		logger.debug("Validating request parameters before reserving seats");
+		SeatHold seatHold = Validator.validateSeatHoldIdEmail(seatHoldId, customerEmail, currentSeatHolds);
+		logger.debug("Validation successful. Continue reserving seats");
+		//take the seat hold validated, unless it expired or was reserved or released by another request meanwhile
+		if(!currentSeatHolds.remove(seatHoldId, seatHold)) {
+			logger.error("Error occured while trying to process request : SeatHold Id does not exist");
+			throw new ApplicationException("SeatHold does not exist");
+		}
 		//Generate confirmation code
 		String confirmationCode = RandomStringUtils.random(8, true, true).toUpperCase();
-		//add to seats reserved successfully
-		this.venue.getSeatsReserved().put(confirmationCode, currentSeatHolds.remove(seatHoldId).getSeatsHeld());
-		logger.info("Seats successfully reserved. Confirmation code : " + confirmationCode);
+		//the reservation is stored before anything else changes, so a store that cannot take it leaves the hold as it was.
+		//The confirmation code is not handed out yet, so no cancellation can look for the reservation before its owner is recorded
+		try {
+			this.venue.getSeatsReserved().put(confirmationCode, seatHold.getSeatsHeld());
+		} catch (RuntimeException e) {
+			currentSeatHolds.put(seatHoldId, seatHold);
+			//the expiry entry of the hold may have been dropped while it was taken
+			scheduleExpiry(seatHold);
+			logger.error("Error occured while trying to store reservation for seat hold #{}", seatHoldId, e);
+			throw new ApplicationException("Seats could not be reserved");
+		}
+		customerIndex.reserve(seatHold.getNormalizedEmailId(), seatHoldId, confirmationCode);
+		seatsChanged(SeatEventType.RESERVE, seatHold.getSeatsHeld(), seatHoldId, confirmationCode);
+		if(logger.isInfoEnabled() && this.requestLogSampler.sample()) {
+			logger.info("Seats successfully reserved for seat hold #{}. Confirmation code : {}", seatHoldId, confirmationCode);
+		}
 		return confirmationCode;
 		
 	}
 
+	/**
+	 * Extends a seat hold so that the customer gets more time to reserve the seats
+	 * Only the expiry time of the hold is updated, the expiry thread picks up the new expiry 
+	 * time when the old one is reached, so extending a hold is a constant time operation
+	 * A seat hold cannot be extended beyond the maximum hold lifetime counted from its creation
+	 * 
+	 * @param seatHoldId
+	 * @param customerEmail
+	 * @param extraMillis time (in milliseconds) to add to the hold
+	 * @return seatHold with updated expiry time
+	 * @throws ApplicationException
+	 */
+	public SeatHold extendHold(int seatHoldId, String customerEmail, long extraMillis) throws ApplicationException {
+		
+		logger.debug("Validating request parameters before extending seat hold");
+		SeatHold seatHold = Validator.validateExtendHold(seatHoldId, customerEmail, extraMillis, currentSeatHolds);
+		
+		//the expiry thread checks and releases the hold under the same monitor
+		synchronized (seatHold) {
+			long now = timeSource.currentTimeMillis();
+			if(seatHold.getExpiryTime() <= now || currentSeatHolds.get(seatHoldId) != seatHold) {
+				logger.error("Seat hold #{} expired before it could be extended", seatHoldId);
+				throw new ApplicationException("SeatHold does not exist");
+			}
+			
+			long maxExpiryTime = seatHold.getTimeCreated() + this.maxHoldLifetime;
+			if(seatHold.getExpiryTime() >= maxExpiryTime) {
+				logger.error("Seat hold #{} has reached its maximum lifetime", seatHoldId);
+				throw new ApplicationException("SeatHold cannot be extended any further");
+			}
+			
+			seatHold.setExpiryTime(Math.min(seatHold.getExpiryTime() + extraMillis, maxExpiryTime));
+		}
+		logger.info("Seat hold #{} extended until {}", seatHoldId, seatHold.getExpiryTime());
+		return seatHold;
+	}
+	
+	/**
+	 * Adds the seat hold to the holds sorted by expiry 
+	 * Holds expiring at the same time are kept apart by the running number in the low bits of their keys
+	 * @param seatHold
+	 */
+	private void scheduleExpiry(SeatHold seatHold) {
+		long timeoutBase = (seatHold.getExpiryTime() - this.holdTimeout) << EXPIRY_SEQUENCE_BITS;
+		long mask = (1L << EXPIRY_SEQUENCE_BITS) - 1;
+		while(timeoutToHolds.putIfAbsent(timeoutBase | (expirySequence.getAndIncrement() & mask), seatHold.getSeatHoldId()) != null) {
+			//more than a million holds with the same timeout, try the next number
+		}
+	}
+	
 	/**
 	 * List of seat holds that have expired and need to be released
+	 * Seats of all the holds are returned to the venue in a single batched merge per row, 
+	 * so a wave of holds expiring together costs one pass over the free blocks of every section touched
+	 * instead of one pass per hold
 	 * @param holdsToRemove
 	 */
-	public synchronized void removeExpiredHolds(List<SeatHold> holdsToRemove) {
+	public void removeExpiredHolds(List<SeatHold> holdsToRemove) {
+		List<List<Seat>> seatsToRelease = new ArrayList<>(holdsToRemove.size());
 		for(SeatHold seatHold : holdsToRemove) {
 			if(!CommonUtil.isInvalid(seatHold) && !CommonUtil.isInvalid(seatHold.getSeatsHeld())) {
-				logger.info("Removing seat hold id: " + seatHold.getSeatHoldId());
-			    //release seats held and check if it formers a larger continuous block 
-			    //with currently available seats in the seatRow
-			    //merge into the seat row 
-			    mergeSeatRowBlocks(seatHold.getRowNum(), seatHold.getSeatsHeld());
+				logger.debug("Removing seat hold id: {}", seatHold.getSeatHoldId());
+				customerIndex.removeSeatHold(seatHold.getNormalizedEmailId(), seatHold.getSeatHoldId(), seatHold.getSeatsHeld().size());
+			    seatsChanged(SeatEventType.EXPIRE, seatHold.getSeatsHeld(), seatHold.getSeatHoldId(), null);
+			    seatsToRelease.add(seatHold.getSeatsHeld());
 			}
 		}
+		releaseSeats(seatsToRelease);
 	}
 	
 	/**
-	 * This method will look for available row blocks (within the row to which it belongs) that could form a larger block of 
-	 * continuously available seats if merged with the current list of seats to be released
-	 * This is to avoid creating smaller blocks within the row, which could lead to seat unavailability despite 
-	 * having adjacent seats available within the row
-	 * If no such larger block is found, simply adds the current row block to the row to which it belongs
-	 * to make it available for further holds
+	 * Releases seat holds before they expire, e.g. when an event section is pulled
+	 * Seat hold ids that do not exist (anymore) are skipped
+	 * Seats of all the holds are returned to the venue in a single batched merge per row
 	 * 
-	 * @param rowId
-	 * @param seats
+	 * @param seatHoldIds
+	 * @return number of seat holds released
 	 */
-	public synchronized void mergeSeatRowBlocks(int rowId, List<Seat> seats) {
-
-	//first and last index of seat block to be released	
-	int firstIndex = seats.get(0).getId();
-	int lastIndex = seats.get(seats.size()-1).getId();
-	
-	//get seatRowBlocks for the row id
-	List<SeatRowBlock> seatRowBlocks = venue.getAvailableSeatRows().
-			 stream().filter(s->s.getRowId() == rowId).sorted().collect(Collectors.toList());
-	
-	//to check if the seats to be released can form a continous row block with any other row block
-	  for(int i=0; i < seatRowBlocks.size() ; i++) {
-			SeatRowBlock seatRow = seatRowBlocks.get(i);
-			if (!CommonUtil.isInvalid(seatRow.getSeats())) {
-				List<Seat> seatsFrmRow = new CopyOnWriteArrayList<Seat>(seatRow.getSeats());
-				Seat firstSeat = seatsFrmRow.get(0);
-				Seat lastSeat = seatsFrmRow.get(seatsFrmRow.size() - 1);
-				if (lastIndex == (firstSeat.getId() - 1)) {
-					seats.addAll(seatsFrmRow);
-					this.venue.getAvailableSeatRows().remove(seatRow);
-				} else if (firstIndex == (1 + lastSeat.getId())) {
-					seatsFrmRow.addAll(seats);
-					seats = seatsFrmRow;
-					this.venue.getAvailableSeatRows().remove(seatRow);
-				}
+	public int releaseHolds(Collection<Integer> seatHoldIds) {
+		
+		if(CommonUtil.isInvalid(seatHoldIds)) {
+			return 0;
+		}
+		
+		List<List<Seat>> seatsToRelease = new ArrayList<>();
+		for(Integer seatHoldId : seatHoldIds) {
+			SeatHold seatHold = currentSeatHolds.remove(seatHoldId);
+			if(CommonUtil.isInvalid(seatHold)) {
+				logger.info("Seat hold #{} does not exist, skipping release", seatHoldId);
+				continue;
 			}
-	  }
+			//expiry entry of the hold is dropped by the expiry thread once it is due
+			customerIndex.removeSeatHold(seatHold.getNormalizedEmailId(), seatHoldId, seatHold.getSeatsHeld().size());
+			seatsChanged(SeatEventType.RELEASE, seatHold.getSeatsHeld(), seatHoldId, null);
+			seatsToRelease.add(seatHold.getSeatsHeld());
+		}
+		
+		releaseSeats(seatsToRelease);
+		logger.info("Released {} seat holds", seatsToRelease.size());
+		return seatsToRelease.size();
+	}
 	
-	  logger.info("Releasing seats and adding back to the queue ");
-	  //add the released seats back to the queue
-	  this.venue.getAvailableSeatRows().add(new SeatRowBlock(rowId, seats));
+	/**
+	 * Cancels confirmed reservations, e.g. for a fraud sweep, and makes their seats available again
+	 * Confirmation codes that do not exist are skipped
+	 * Seats of all the reservations are returned to the venue in a single batched merge per row
+	 * 
+	 * @param confirmationCodes
+	 * @return number of reservations cancelled
+	 */
+	public int cancelReservations(Collection<String> confirmationCodes) {
 		
+		if(CommonUtil.isInvalid(confirmationCodes)) {
+			return 0;
+		}
+		
+		List<List<Seat>> seatsToRelease = new ArrayList<>();
+		for(String confirmationCode : confirmationCodes) {
+			List<Seat> seatsReserved = this.venue.getSeatsReserved().remove(confirmationCode);
+			if(CommonUtil.isInvalid(seatsReserved)) {
+				logger.info("Reservation {} does not exist, skipping cancellation", confirmationCode);
+				continue;
+			}
+			reservationCache.invalidate(confirmationCode);
+			customerIndex.cancel(confirmationCode, seatsReserved.size());
+			seatsChanged(SeatEventType.CANCEL, seatsReserved, null, confirmationCode);
+			seatsToRelease.add(seatsReserved);
+		}
+		
+		releaseSeats(seatsToRelease);
+		logger.info("Cancelled {} reservations", seatsToRelease.size());
+		return seatsToRelease.size();
+	}
+	
+	/**
+	 * Returns seats to the available seat rows of the venue in one batch
+	 * Every list of seats released is the seats of a seat hold or reservation, split into ranges of adjacent seats of a row.
+	 * Ranges are grouped by section and row, and every section is merged under its lock in one go, the seats marked
+	 * free in the seat map under the same lock
+	 * 
+	 * @param seatsToRelease
+	 */
+	private void releaseSeats(List<List<Seat>> seatsToRelease) {
+		
+		//released seat ranges grouped by section and row
+		Map<Section, Map<Integer, List<List<Seat>>>> rangesBySection = new HashMap<>();
+		for(List<Seat> seatsReleased : seatsToRelease) {
+			if(CommonUtil.isInvalid(seatsReleased)) {
+				continue;
+			}
+			for(List<Seat> seats : SeatRange.split(seatsReleased)) {
+				int rowNum = seats.get(0).getRowNum();
+				rangesBySection.computeIfAbsent(this.venue.getSectionForRow(rowNum), section -> new HashMap<>()).
+					computeIfAbsent(rowNum, rowId -> new ArrayList<>()).add(seats);
+			}
+		}
+		
+		for(Entry<Section, Map<Integer, List<List<Seat>>>> sectionRanges : rangesBySection.entrySet()) {
+			Section section = sectionRanges.getKey();
+			section.getLock().lock();
+			try {
+				for(List<List<Seat>> ranges : sectionRanges.getValue().values()) {
+					for(List<Seat> seats : ranges) {
+						markSeatMap(seats, true);
+					}
+				}
+				section.returnSeats(sectionRanges.getValue());
+			} finally {
+				section.getLock().unlock();
+			}
+		}
+	}
+	
+	/**
+	 * Marks seats taken or free in the seat map
+	 * Callers have to hold the lock of the section of the seats while they change its free seat row blocks,
+	 * so the seat map never lags behind the free blocks, e.g. a window found free in the seat map was at most
+	 * taken by a request that also marked it in a newer seat map
+	 * @param seats adjacent seats of a row, or the seats of a group held across rows
+	 * @param available
+	 */
+	private void markSeatMap(List<Seat> seats, boolean available) {
+		for(List<Seat> range : SeatRange.split(seats)) {
+			int rowNum = range.get(0).getRowNum();
+			int firstSeat = range.get(0).getId();
+			int lastSeat = range.get(range.size() - 1).getId();
+			SeatMapSnapshot current;
+			do {
+				current = seatMap.get();
+			} while(!seatMap.compareAndSet(current, current.withSeats(rowNum, firstSeat, lastSeat, available)));
+		}
 	}
 	
+ 	/**
+ 	 * Publishes a change to a range of adjacent seats, unless nobody listens
+ 	 * The seat map itself is changed under the section lock, see markSeatMap
+ 	 * A replication leader gets every change, in the same order
+ 	 * Called before the seats can change again, so changes to a seat are applied and published in order
+ 	 * @param type
+ 	 * @param seats adjacent seats of a row, or the seats of a group held across rows, one change per row
+ 	 * @param seatHoldId
+ 	 * @param confirmationCode
+ 	 */
+ 	private void seatsChanged(SeatEventType type, List<Seat> seats, Integer seatHoldId, String confirmationCode) {
+ 		if(CommonUtil.isInvalid(seats)) {
+ 			return;
+ 		}
+ 		List<List<Seat>> ranges = SeatRange.split(seats);
+ 		if(ranges.size() > 1) {
+ 			//seats of a group held across rows change one row at a time
+ 			for(List<Seat> range : ranges) {
+ 				seatsChanged(type, range, seatHoldId, confirmationCode);
+ 			}
+ 			return;
+ 		}
+ 		int rowNum = seats.get(0).getRowNum();
+ 		int firstSeat = seats.get(0).getId();
+ 		int lastSeat = seats.get(seats.size() - 1).getId();
+ 		
+ 		ReplicationLeader leader = this.replicationLeader;
+ 		if(seatEvents.hasSubscribers() || !CommonUtil.isInvalid(leader)) {
+ 			SeatEvent event = new SeatEvent(type, rowNum, firstSeat, lastSeat, seatHoldId, confirmationCode, timeSource.currentTimeMillis(),
+ 					seatEvents.nextSequence());
+ 			if(seatEvents.hasSubscribers()) {
+ 				seatEvents.publish(event);
+ 			}
+ 			if(!CommonUtil.isInvalid(leader)) {
+ 				leader.append(event);
+ 			}
+ 		}
+ 	}
+ 	
+ 	/**
+ 	 * Returns the latest seat map of the venue
+ 	 * Reading the seat map takes no lock, every change to the venue swaps in a new immutable snapshot
+ 	 * @return seatMapSnapshot
+ 	 */
+ 	public SeatMapSnapshot getSeatMap() {
+ 		return seatMap.get();
+ 	}
+ 	
+ 	/**
+ 	 * Returns the rows of the seat map that changed after the given version
+ 	 * @param sinceVersion version of the seat map the caller already has
+ 	 * @return diff
+ 	 */
+ 	public SeatMapSnapshot.Diff getSeatMapChanges(long sinceVersion) {
+ 		return seatMap.get().diffSince(sinceVersion);
+ 	}
+ 	
+ 	/**
+ 	 * Returns ids of the seat holds a customer currently has
+ 	 * @param customerEmail
+ 	 * @return seatHoldIds
+ 	 */
+ 	public Set<Integer> getSeatHoldsForCustomer(String customerEmail) {
+ 		return customerIndex.getSeatHolds(CommonUtil.normalizeEmail(customerEmail));
+ 	}
+ 	
+ 	/**
+ 	 * Returns confirmation codes of a customer's reservations
+ 	 * @param customerEmail
+ 	 * @return confirmationCodes
+ 	 */
+ 	public Set<String> getReservationsForCustomer(String customerEmail) {
+ 		return customerIndex.getReservations(CommonUtil.normalizeEmail(customerEmail));
+ 	}
+ 	
  	/**
  	 * Returns a list of reserved seats associated with the confirmation code
+ 	 * Reservations are read through the reservation cache, so repeated lookups of a reservation are answered
+ 	 * without going to the reservations of the venue
  	 * @param confirmationCode
  	 * @throws ApplicationException
  	 */
  	public List<Seat> getReservedSeats(String confirmationCode) throws ApplicationException {
  		
- 		logger.info("Validating request parameters before finding reserved seats");
-		Validator.validateReservedSeatsOrder(this.getVenue(),confirmationCode);
-		logger.info("Validation successful. Continue finding reserved seats");
-	      
-		return this.getVenue().getSeatsReserved().get(confirmationCode);
+ 		List<Seat> seatsReserved = findReservedSeats(confirmationCode);
+ 		if(CommonUtil.isInvalid(seatsReserved)) {
+ 			//not found, fails the validation
+ 			Validator.validateReservedSeatsOrder(this.getVenue(), confirmationCode);
+ 			seatsReserved = this.getVenue().getSeatsReserved().get(confirmationCode);
+ 		}
+		return seatsReserved;
+ 	}
+
+ 	/**
+ 	 * Looks a reservation up without failing the validation, e.g. for ticket scans at the gates
+ 	 * @param confirmationCode
+ 	 * @return reserved seats, null if there is no such reservation
+ 	 */
+ 	public List<Seat> findReservedSeats(String confirmationCode) {
+ 		if(CommonUtil.isInvalid(confirmationCode)) {
+ 			return null;
+ 		}
+ 		return this.reservationCache.get(confirmationCode, this.getVenue().getSeatsReserved()::get);
  	}
 	
 	 /**
-	 * to shut down thread
+	 * to stop the expiry sweep
 	 */
 	public void shutdown() {
-	        try {
-	            this.checkExpiredHolds.interrupt();
-	            this.checkExpiredHolds.join(1000);
-	        } catch (InterruptedException e) {
-	            logger.warn("Exception while shutting down: " + e.toString());
-	        }
-	  }
+		this.expirySweep.cancel();
+	}
 	
 	public Venue getVenue() {
 		return venue;
 	}
 
+	/**
+	 * Stream of hold, reserve, expire, release and cancel events to subscribe to
+	 * @return seatEvents
+	 */
+	public SeatEventStream getSeatEvents() {
+		return seatEvents;
+	}
+
 	public Map<Integer, SeatHold> getCurrentSeatHolds() {
 		return currentSeatHolds;
 	}
 
-	public SortedMap<Long, Integer> getTimeoutToHolds() {
+	/**
+	 * @return seat hold ids sorted by expiry, keyed by the time their timeout is counted from shifted left 
+	 * by EXPIRY_SEQUENCE_BITS (20) bits
+	 */
+	public ConcurrentNavigableMap<Long, Integer> getTimeoutToHolds() {
 		return timeoutToHolds;
 	}
 
@@ -393,4 +1140,85 @@ public class TicketServiceImpl implements TicketService {
 		return holdTimeout;
 	}
 	
+	public TimeSource getTimeSource() {
+		return timeSource;
+	}
+
+	public long getMaxHoldLifetime() {
+		return maxHoldLifetime;
+	}
+	
+	public SeatSelection getSeatSelection() {
+		return seatSelection;
+	}
+
+	public void setSeatSelection(SeatSelection seatSelection) {
+		this.seatSelection = seatSelection;
+	}
+
+	public int getParallelSearchThreshold() {
+		return parallelSearchThreshold;
+	}
+
+	/**
+	 * Number of free blocks from which the global best seat search is split across the common fork/join pool
+	 * @param parallelSearchThreshold
+	 */
+	public void setParallelSearchThreshold(int parallelSearchThreshold) {
+		this.parallelSearchThreshold = parallelSearchThreshold;
+	}
+	
+	public int getRequestLogSampling() {
+		return requestLogSampler.getOneIn();
+	}
+
+	/**
+	 * Logs only a random sample of the seat holds and reservations made, to keep logging off the hot path
+	 * under heavy load. Every other event is still logged
+	 * @param oneIn a seat hold or reservation is logged with a probability of 1 / oneIn
+	 */
+	public void setRequestLogSampling(int oneIn) {
+		this.requestLogSampler = new LogSampler(oneIn);
+	}
+
+	public ReservationCache getReservationCache() {
+		return reservationCache;
+	}
+
+	/**
+	 * Replaces the cache of reservations looked up by confirmation code, e.g. to change its size
+	 * @param reservationCache
+	 */
+	public void setReservationCache(ReservationCache reservationCache) {
+		if(CommonUtil.isInvalid(reservationCache)) {
+			throw new IllegalArgumentException("Reservation cache should not be null");
+		}
+		this.reservationCache = reservationCache;
+	}
+
+	public ReplicationLeader getReplicationLeader() {
+		return replicationLeader;
+	}
+
+	/**
+	 * Makes the service a replication leader whose changes are sent to followers
+	 * Has to be set before the first seat hold, followers start from a venue with every seat available
+	 * @param replicationLeader
+	 */
+	public void setReplicationLeader(ReplicationLeader replicationLeader) {
+		this.replicationLeader = replicationLeader;
+	}
+
+	public int getMaxSeatsPerCustomer() {
+		return maxSeatsPerCustomer;
+	}
+
+	/**
+	 * Limit the number of seats a customer can hold and reserve in total, e.g. against bots during an on-sale
+	 * @param maxSeatsPerCustomer
+	 */
+	public void setMaxSeatsPerCustomer(int maxSeatsPerCustomer) {
+		this.maxSeatsPerCustomer = maxSeatsPerCustomer;
+	}
+	
 }
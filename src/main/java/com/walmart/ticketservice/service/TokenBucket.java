@@ -0,0 +1,79 @@
+package com.walmart.ticketservice.service;
+
+/**
+ * Token bucket rate limiter
+ * Tokens are added at a steady rate up to the bucket capacity and every request takes one,
+ * so short bursts up to the capacity are allowed while the long term rate is capped
+ * @author bkulkar
+ *
+ */
+public class TokenBucket {
+
+	/**
+	 * Maximum number of tokens i.e. largest burst allowed
+	 */
+	private final double capacity;
+	/**
+	 * Tokens added per nanosecond
+	 */
+	private final double tokensPerNano;
+	private double tokens;
+	private long lastRefill;
+	/**
+	 * Set once the bucket is dropped by its owner, a retired bucket hands out no more tokens
+	 */
+	private boolean retired;
+
+	/**
+	 * @param tokensPerSecond
+	 * @param capacity
+	 */
+	public TokenBucket(double tokensPerSecond, double capacity) {
+		this.capacity = capacity;
+		this.tokensPerNano = tokensPerSecond / 1e9;
+		this.tokens = capacity;
+		this.lastRefill = System.nanoTime();
+	}
+
+	/**
+	 * Takes a token if one is available
+	 * @return false if the rate limit is exceeded or the bucket is retired
+	 */
+	public synchronized boolean tryAcquire() {
+		if (retired) {
+			return false;
+		}
+		long now = System.nanoTime();
+		tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+		lastRefill = now;
+		if (tokens < 1) {
+			return false;
+		}
+		--tokens;
+		return true;
+	}
+
+	/**
+	 * @return true if the bucket has refilled completely, i.e. it can be dropped without changing behaviour
+	 */
+	public synchronized boolean isFull() {
+		return Math.min(capacity, tokens + (System.nanoTime() - lastRefill) * tokensPerNano) >= capacity;
+	}
+
+	/**
+	 * Retires the bucket if it has refilled completely, so a bucket that is dropped never hands out another token
+	 * and a new bucket created in its place starts from the same full state
+	 * @return true if the bucket is retired
+	 */
+	public synchronized boolean tryRetire() {
+		if (!retired && isFull()) {
+			retired = true;
+		}
+		return retired;
+	}
+
+	public synchronized boolean isRetired() {
+		return retired;
+	}
+
+}
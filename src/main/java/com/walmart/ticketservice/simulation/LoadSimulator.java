@@ -0,0 +1,282 @@
+package com.walmart.ticketservice.simulation;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.walmart.ticketservice.exception.ApplicationException;
+import com.walmart.ticketservice.model.Seat;
+import com.walmart.ticketservice.model.SeatHold;
+import com.walmart.ticketservice.model.SeatRowBlock;
+import com.walmart.ticketservice.model.Section;
+import com.walmart.ticketservice.model.Venue;
+import com.walmart.ticketservice.scoring.CenterWeightedScoreFunction;
+import com.walmart.ticketservice.service.TicketServiceImpl;
+import com.walmart.ticketservice.storage.OffHeapReservationMap;
+
+/**
+ * Simulates on-sale traffic against the ticket service to size hardware for a sale
+ * Customers arrive at random (Poisson arrivals) at the configured rate, hold seats for parties of random size
+ * and then either reserve, walk away, or come back after their seat hold expired.
+ * While the sale runs the simulation checks that no seat is handed out twice, and once it is over
+ * that every seat is either available or reserved exactly once.
+ *
+ * Run with
+ *   mvn exec:java -Dexec.mainClass=com.walmart.ticketservice.simulation.LoadSimulator -Dexec.args="rows=200 arrivalRate=2000"
+ * @author bkulkar
+ *
+ */
+public class LoadSimulator {
+
+	private static final Logger logger = LoggerFactory.getLogger(LoadSimulator.class);
+	/**
+	 * Extra time given to the expiry thread to release the last seat holds
+	 */
+	private static final long EXPIRY_GRACE_MILLIS = 2500;
+
+	private final SimulationConfig config;
+	private final LatencyRecorder holdLatency = new LatencyRecorder();
+	private final LatencyRecorder reserveLatency = new LatencyRecorder();
+	private final SeatLedger ledger = new SeatLedger();
+	/**
+	 * Customers that have arrived but are not done yet
+	 */
+	private final AtomicLong inFlight = new AtomicLong();
+	private final AtomicLong customers = new AtomicLong();
+	private final AtomicLong seatHolds = new AtomicLong();
+	private final AtomicLong holdsRejected = new AtomicLong();
+	private final AtomicLong soldOut = new AtomicLong();
+	private final AtomicLong reservations = new AtomicLong();
+	private final AtomicLong abandoned = new AtomicLong();
+	private final AtomicLong expiredBeforeReserve = new AtomicLong();
+	private final AtomicLong seatsReserved = new AtomicLong();
+
+	public LoadSimulator(SimulationConfig config) {
+		this.config = config;
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		SimulationReport report = new LoadSimulator(SimulationConfig.fromArgs(args)).run();
+		report.print(System.out);
+		System.exit(report.isInvariantsHeld() ? 0 : 1);
+	}
+
+	/**
+	 * Runs the simulation until the configured duration has passed or the venue is sold out
+	 * @return simulationReport
+	 * @throws InterruptedException
+	 */
+	public SimulationReport run() throws InterruptedException {
+
+		Venue venue = createVenue();
+		if (config.isOffHeapReservations()) {
+			venue.setSeatsReserved(new OffHeapReservationMap(venue));
+		}
+		TicketServiceImpl ticketService = new TicketServiceImpl(venue, config.getHoldTimeoutMillis());
+		int capacity = config.getRows() * config.getSeatsPerRow();
+		SimulationReport report = new SimulationReport(config, holdLatency, reserveLatency);
+
+		ScheduledExecutorService customerPool = Executors.newScheduledThreadPool(config.getConcurrency());
+		ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+		long startMillis = System.currentTimeMillis();
+		sampler.scheduleAtFixedRate(() -> {
+			SimulationReport.Sample sample = new SimulationReport.Sample(System.currentTimeMillis() - startMillis,
+					ticketService.numSeatsAvailable(), seatsReserved.get(), holdLatency.getCount());
+			synchronized (report) {
+				report.getSamples().add(sample);
+			}
+		}, 0, config.getReportIntervalMillis(), TimeUnit.MILLISECONDS);
+
+		//Poisson arrivals until the sale is over
+		Random arrivals = new Random(config.getSeed());
+		long startNanos = System.nanoTime();
+		long endNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(config.getDurationMillis());
+		long nextArrival = startNanos;
+		long customerId = 0;
+		while (nextArrival < endNanos && seatsReserved.get() < capacity) {
+			long waitNanos = nextArrival - System.nanoTime();
+			if (waitNanos > 0) {
+				LockSupport.parkNanos(waitNanos);
+			}
+			long id = ++customerId;
+			inFlight.incrementAndGet();
+			customerPool.execute(() -> customer(ticketService, customerPool, id));
+			nextArrival += (long) (-Math.log(1 - arrivals.nextDouble()) / config.getArrivalRate() * 1e9);
+		}
+
+		while (inFlight.get() > 0) {
+			TimeUnit.MILLISECONDS.sleep(10);
+		}
+		customerPool.shutdown();
+		report.setElapsedMillis(System.currentTimeMillis() - startMillis);
+
+		//let the seat holds still open expire before checking what is left
+		TimeUnit.MILLISECONDS.sleep(config.getHoldTimeoutMillis() + EXPIRY_GRACE_MILLIS);
+		sampler.shutdownNow();
+		checkConservation(ticketService, capacity);
+		ticketService.shutdown();
+
+		report.setCustomers(customers.get());
+		report.setSeatHolds(seatHolds.get());
+		report.setHoldsRejected(holdsRejected.get());
+		report.setSoldOut(soldOut.get());
+		report.setReservations(reservations.get());
+		report.setAbandoned(abandoned.get());
+		report.setExpiredBeforeReserve(expiredBeforeReserve.get());
+		report.setSeatsReserved(seatsReserved.get());
+		report.getViolations().addAll(ledger.getViolations());
+		if (ledger.getViolationCount() > ledger.getViolations().size()) {
+			report.getViolations().add((ledger.getViolationCount() - ledger.getViolations().size()) + " more violations");
+		}
+		return report;
+	}
+
+	/**
+	 * Venue with the configured rows split into sections of about the same size, 
+	 * each section sold at its own price tier
+	 * @return venue
+	 */
+	private Venue createVenue() {
+		if (config.getSections() <= 1) {
+			return new Venue(config.getRows(), config.getSeatsPerRow());
+		}
+		List<Section> sections = new ArrayList<>();
+		int firstRow = 0;
+		for (int i = 0; i < config.getSections(); i++) {
+			int rows = (config.getRows() - firstRow) / (config.getSections() - i);
+			sections.add(new Section("S" + i, i, firstRow, rows, config.getSeatsPerRow(), new CenterWeightedScoreFunction()));
+			firstRow += rows;
+		}
+		return new Venue(sections);
+	}
+
+	/**
+	 * A single customer trying to buy seats for their party
+	 * Checkout is scheduled rather than slept through, so customers that are 
+	 * checking out do not take up a thread of the pool
+	 * @param ticketService
+	 * @param customerPool
+	 * @param customerId
+	 */
+	private void customer(TicketServiceImpl ticketService, ScheduledExecutorService customerPool, long customerId) {
+
+		customers.incrementAndGet();
+		Random random = new Random(config.getSeed() + customerId);
+		int partySize = config.nextPartySize(random);
+		String email = "customer" + customerId + "@load.test";
+
+		SeatHold seatHold;
+		long start = System.nanoTime();
+		try {
+			if (config.getSections() > 1) {
+				seatHold = ticketService.findAndHoldSeatsInSection(partySize, email, "S" + random.nextInt(config.getSections()));
+			} else {
+				seatHold = ticketService.findAndHoldSeats(partySize, email);
+			}
+		} catch (ApplicationException e) {
+			soldOut.incrementAndGet();
+			inFlight.decrementAndGet();
+			return;
+		} finally {
+			holdLatency.record(System.nanoTime() - start);
+		}
+
+		if (seatHold == null) {
+			holdsRejected.incrementAndGet();
+			inFlight.decrementAndGet();
+			return;
+		}
+		seatHolds.incrementAndGet();
+		ledger.onHold(seatHold, System.currentTimeMillis());
+
+		double outcome = random.nextDouble();
+		if (outcome < config.getAbandonRate()) {
+			abandoned.incrementAndGet();
+			inFlight.decrementAndGet();
+			return;
+		}
+
+		long checkoutMillis = outcome < config.getAbandonRate() + config.getHoldTimeoutRate()
+				? config.getHoldTimeoutMillis() + EXPIRY_GRACE_MILLIS
+				: (long) (-Math.log(1 - random.nextDouble()) * config.getCheckoutMillis());
+		customerPool.schedule(() -> checkout(ticketService, seatHold, email), checkoutMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Customer reserving the seats held for them
+	 * @param ticketService
+	 * @param seatHold
+	 * @param email
+	 */
+	private void checkout(TicketServiceImpl ticketService, SeatHold seatHold, String email) {
+
+		long start = System.nanoTime();
+		try {
+			ticketService.reserveSeats(seatHold.getSeatHoldId(), email);
+			reserveLatency.record(System.nanoTime() - start);
+			ledger.onReserve(seatHold);
+			reservations.incrementAndGet();
+			seatsReserved.addAndGet(seatHold.getSeatsHeld().size());
+		} catch (ApplicationException e) {
+			reserveLatency.record(System.nanoTime() - start);
+			expiredBeforeReserve.incrementAndGet();
+		} finally {
+			inFlight.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Once every seat hold has expired, every seat has to be either available or reserved exactly once
+	 * Runs after the sale is over, when nothing changes the venue anymore
+	 * @param ticketService
+	 * @param capacity
+	 */
+	private void checkConservation(TicketServiceImpl ticketService, int capacity) {
+
+		Venue venue = ticketService.getVenue();
+		if (!ticketService.getCurrentSeatHolds().isEmpty()) {
+			ledger.violation(ticketService.getCurrentSeatHolds().size() + " seat holds never expired");
+		}
+
+		Set<Long> seen = new HashSet<>();
+		long reserved = 0;
+		for (List<Seat> seats : venue.getSeatsReserved().values()) {
+			for (Seat seat : seats) {
+				++reserved;
+				if (!seen.add(((long) seat.getRowNum() << 32) | seat.getId())) {
+					ledger.violation("Seat " + seat.getId() + " in row " + seat.getRowNum() + " reserved twice");
+				}
+			}
+		}
+		for (SeatRowBlock seatRow : venue.getAvailableSeatRows()) {
+			for (Seat seat : seatRow.getSeats()) {
+				if (!seen.add(((long) seat.getRowNum() << 32) | seat.getId())) {
+					ledger.violation("Seat " + seat.getId() + " in row " + seat.getRowNum() + " available and reserved");
+				}
+			}
+		}
+
+		int available = ticketService.numSeatsAvailable();
+		if (available + reserved != capacity) {
+			ledger.violation("Seats leaked: " + available + " available + " + reserved + " reserved != " + capacity);
+		}
+		if (ticketService.getSeatMap().getAvailableSeats() != available) {
+			ledger.violation("Seat map shows " + ticketService.getSeatMap().getAvailableSeats() + " seats available instead of " + available);
+		}
+		if (reserved != seatsReserved.get()) {
+			ledger.violation("Venue has " + reserved + " seats reserved but customers reserved " + seatsReserved.get());
+		}
+		logger.info("Conservation checks completed");
+	}
+
+}
@@ -0,0 +1,85 @@
+package com.walmart.ticketservice.simulation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.walmart.ticketservice.model.Seat;
+import com.walmart.ticketservice.model.SeatHold;
+
+/**
+ * Independent record of which seat hold owns which seat, kept by the simulation
+ * to catch seats that are handed out twice
+ * A seat may only move to a new seat hold once the previous hold has expired without being reserved
+ * @author bkulkar
+ *
+ */
+public class SeatLedger {
+
+	private static final int MAX_VIOLATIONS_KEPT = 20;
+
+	/**
+	 * Current owner of every seat that has ever been held, keyed by row and seat number
+	 */
+	private final Map<Long, SeatHold> owners = new ConcurrentHashMap<>();
+	/**
+	 * Seat hold ids that were reserved
+	 */
+	private final Map<Integer, Boolean> reservedHolds = new ConcurrentHashMap<>();
+	private final AtomicInteger violationCount = new AtomicInteger();
+	private final List<String> violations = Collections.synchronizedList(new ArrayList<String>());
+
+	/**
+	 * Record seats handed out by a successful seat hold
+	 * @param seatHold
+	 * @param now time the seat hold was returned to the customer
+	 */
+	public void onHold(SeatHold seatHold, long now) {
+		for (Seat seat : seatHold.getSeatsHeld()) {
+			owners.compute(key(seat), (key, owner) -> {
+				if (owner != null && (reservedHolds.containsKey(owner.getSeatHoldId()) || owner.getExpiryTime() > now)) {
+					violation("Seat " + seat.getId() + " in row " + seat.getRowNum() + " held by #" + seatHold.getSeatHoldId()
+							+ " while still owned by #" + owner.getSeatHoldId());
+				}
+				return seatHold;
+			});
+		}
+	}
+
+	/**
+	 * Record seats of a seat hold that were reserved
+	 * @param seatHold
+	 */
+	public void onReserve(SeatHold seatHold) {
+		if (reservedHolds.put(seatHold.getSeatHoldId(), Boolean.TRUE) != null) {
+			violation("Seat hold #" + seatHold.getSeatHoldId() + " reserved twice");
+		}
+	}
+
+	/**
+	 * Record a broken invariant
+	 * @param message
+	 */
+	public void violation(String message) {
+		violationCount.incrementAndGet();
+		if (violations.size() < MAX_VIOLATIONS_KEPT) {
+			violations.add(message);
+		}
+	}
+
+	public int getViolationCount() {
+		return violationCount.get();
+	}
+
+	public List<String> getViolations() {
+		return violations;
+	}
+
+	private static long key(Seat seat) {
+		return ((long) seat.getRowNum() << 32) | seat.getId();
+	}
+
+}
@@ -0,0 +1,279 @@
+package com.walmart.ticketservice.simulation;
+
+import java.util.Random;
+
+/**
+ * Settings of an on-sale load simulation
+ * Every setting can be overridden from the command line as key=value,
+ * e.g. rows=200 seatsPerRow=100 arrivalRate=5000 partySizes=1:10,2:45,4:30,6:15
+ * @author bkulkar
+ *
+ */
+public class SimulationConfig {
+
+	/**
+	 * Rows in the simulated venue
+	 */
+	private int rows = 50;
+	/**
+	 * Seats in every row of the simulated venue
+	 */
+	private int seatsPerRow = 40;
+	/**
+	 * Sections the rows are split into, customers of a venue with more than one section
+	 * ask for seats in a section of their choice
+	 */
+	private int sections = 1;
+	/**
+	 * Keep reservations off-heap
+	 */
+	private boolean offHeapReservations;
+	/**
+	 * How long customers keep arriving (in milliseconds)
+	 */
+	private long durationMillis = 10 * 1000;
+	/**
+	 * Average number of customers arriving per second
+	 */
+	private double arrivalRate = 500;
+	/**
+	 * Number of customers served concurrently
+	 */
+	private int concurrency = 32;
+	/**
+	 * Party sizes and their relative weights
+	 */
+	private int[] partySizes = { 1, 2, 3, 4, 6, 8 };
+	private int[] partySizeWeights = { 10, 40, 10, 25, 10, 5 };
+	/**
+	 * Fraction of customers that walk away from their seat hold
+	 */
+	private double abandonRate = 0.15;
+	/**
+	 * Fraction of customers that only try to reserve after their seat hold expired
+	 */
+	private double holdTimeoutRate = 0.05;
+	/**
+	 * Seat hold timeout of the ticket service (in milliseconds)
+	 */
+	private long holdTimeoutMillis = 2000;
+	/**
+	 * Average time customers take to check out (in milliseconds)
+	 */
+	private long checkoutMillis = 200;
+	/**
+	 * Interval at which sell-through is sampled (in milliseconds)
+	 */
+	private long reportIntervalMillis = 1000;
+	/**
+	 * Seed of the random generators, so runs can be repeated
+	 */
+	private long seed = 42;
+
+	/**
+	 * Builds the configuration from key=value command line arguments
+	 * @param args
+	 * @return simulationConfig
+	 */
+	public static SimulationConfig fromArgs(String[] args) {
+		SimulationConfig config = new SimulationConfig();
+		for (String arg : args) {
+			int separator = arg.indexOf('=');
+			if (separator <= 0) {
+				throw new IllegalArgumentException("Expected key=value but got " + arg);
+			}
+			config.set(arg.substring(0, separator).trim(), arg.substring(separator + 1).trim());
+		}
+		return config;
+	}
+
+	private void set(String key, String value) {
+		switch (key) {
+		case "rows":
+			rows = Integer.parseInt(value);
+			break;
+		case "seatsPerRow":
+			seatsPerRow = Integer.parseInt(value);
+			break;
+		case "sections":
+			sections = Integer.parseInt(value);
+			break;
+		case "offHeapReservations":
+			offHeapReservations = Boolean.parseBoolean(value);
+			break;
+		case "durationMillis":
+			durationMillis = Long.parseLong(value);
+			break;
+		case "arrivalRate":
+			arrivalRate = Double.parseDouble(value);
+			break;
+		case "concurrency":
+			concurrency = Integer.parseInt(value);
+			break;
+		case "partySizes":
+			String[] entries = value.split(",");
+			partySizes = new int[entries.length];
+			partySizeWeights = new int[entries.length];
+			for (int i = 0; i < entries.length; i++) {
+				String[] sizeWeight = entries[i].split(":");
+				partySizes[i] = Integer.parseInt(sizeWeight[0].trim());
+				partySizeWeights[i] = sizeWeight.length > 1 ? Integer.parseInt(sizeWeight[1].trim()) : 1;
+			}
+			break;
+		case "abandonRate":
+			abandonRate = Double.parseDouble(value);
+			break;
+		case "holdTimeoutRate":
+			holdTimeoutRate = Double.parseDouble(value);
+			break;
+		case "holdTimeoutMillis":
+			holdTimeoutMillis = Long.parseLong(value);
+			break;
+		case "checkoutMillis":
+			checkoutMillis = Long.parseLong(value);
+			break;
+		case "reportIntervalMillis":
+			reportIntervalMillis = Long.parseLong(value);
+			break;
+		case "seed":
+			seed = Long.parseLong(value);
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown simulation setting " + key);
+		}
+	}
+
+	/**
+	 * Picks a party size according to the configured weights
+	 * @param random
+	 * @return partySize
+	 */
+	public int nextPartySize(Random random) {
+		int totalWeight = 0;
+		for (int weight : partySizeWeights) {
+			totalWeight += weight;
+		}
+		int pick = random.nextInt(totalWeight);
+		for (int i = 0; i < partySizes.length; i++) {
+			pick -= partySizeWeights[i];
+			if (pick < 0) {
+				return partySizes[i];
+			}
+		}
+		return partySizes[partySizes.length - 1];
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	public void setRows(int rows) {
+		this.rows = rows;
+	}
+
+	public int getSeatsPerRow() {
+		return seatsPerRow;
+	}
+
+	public void setSeatsPerRow(int seatsPerRow) {
+		this.seatsPerRow = seatsPerRow;
+	}
+
+	public int getSections() {
+		return sections;
+	}
+
+	public void setSections(int sections) {
+		this.sections = sections;
+	}
+
+	public boolean isOffHeapReservations() {
+		return offHeapReservations;
+	}
+
+	public void setOffHeapReservations(boolean offHeapReservations) {
+		this.offHeapReservations = offHeapReservations;
+	}
+
+	public long getDurationMillis() {
+		return durationMillis;
+	}
+
+	public void setDurationMillis(long durationMillis) {
+		this.durationMillis = durationMillis;
+	}
+
+	public double getArrivalRate() {
+		return arrivalRate;
+	}
+
+	public void setArrivalRate(double arrivalRate) {
+		this.arrivalRate = arrivalRate;
+	}
+
+	public int getConcurrency() {
+		return concurrency;
+	}
+
+	public void setConcurrency(int concurrency) {
+		this.concurrency = concurrency;
+	}
+
+	public double getAbandonRate() {
+		return abandonRate;
+	}
+
+	public void setAbandonRate(double abandonRate) {
+		this.abandonRate = abandonRate;
+	}
+
+	public double getHoldTimeoutRate() {
+		return holdTimeoutRate;
+	}
+
+	public void setHoldTimeoutRate(double holdTimeoutRate) {
+		this.holdTimeoutRate = holdTimeoutRate;
+	}
+
+	public long getHoldTimeoutMillis() {
+		return holdTimeoutMillis;
+	}
+
+	public void setHoldTimeoutMillis(long holdTimeoutMillis) {
+		this.holdTimeoutMillis = holdTimeoutMillis;
+	}
+
+	public long getCheckoutMillis() {
+		return checkoutMillis;
+	}
+
+	public void setCheckoutMillis(long checkoutMillis) {
+		this.checkoutMillis = checkoutMillis;
+	}
+
+	public long getReportIntervalMillis() {
+		return reportIntervalMillis;
+	}
+
+	public void setReportIntervalMillis(long reportIntervalMillis) {
+		this.reportIntervalMillis = reportIntervalMillis;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	@Override
+	public String toString() {
+		return "rows=" + rows + ", seatsPerRow=" + seatsPerRow + ", sections=" + sections
+				+ ", offHeapReservations=" + offHeapReservations + ", durationMillis=" + durationMillis
+				+ ", arrivalRate=" + arrivalRate + ", concurrency=" + concurrency + ", abandonRate=" + abandonRate
+				+ ", holdTimeoutRate=" + holdTimeoutRate + ", holdTimeoutMillis=" + holdTimeoutMillis
+				+ ", checkoutMillis=" + checkoutMillis;
+	}
+
+}
@@ -0,0 +1,204 @@
+package com.walmart.ticketservice.simulation;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of an on-sale load simulation
+ * @author bkulkar
+ *
+ */
+public class SimulationReport {
+
+	/**
+	 * Sell-through of the venue at a point in time
+	 */
+	public static class Sample {
+
+		private final long elapsedMillis;
+		private final int seatsAvailable;
+		private final long seatsReserved;
+		private final long holdRequests;
+
+		public Sample(long elapsedMillis, int seatsAvailable, long seatsReserved, long holdRequests) {
+			this.elapsedMillis = elapsedMillis;
+			this.seatsAvailable = seatsAvailable;
+			this.seatsReserved = seatsReserved;
+			this.holdRequests = holdRequests;
+		}
+
+		public long getElapsedMillis() {
+			return elapsedMillis;
+		}
+
+		public int getSeatsAvailable() {
+			return seatsAvailable;
+		}
+
+		public long getSeatsReserved() {
+			return seatsReserved;
+		}
+
+		public long getHoldRequests() {
+			return holdRequests;
+		}
+	}
+
+	private final SimulationConfig config;
+	private final LatencyRecorder holdLatency;
+	private final LatencyRecorder reserveLatency;
+	private final List<Sample> samples = new ArrayList<>();
+	private final List<String> violations = new ArrayList<>();
+	private long elapsedMillis;
+	private long customers;
+	private long seatHolds;
+	private long holdsRejected;
+	private long soldOut;
+	private long reservations;
+	private long abandoned;
+	private long expiredBeforeReserve;
+	private long seatsReserved;
+
+	public SimulationReport(SimulationConfig config, LatencyRecorder holdLatency, LatencyRecorder reserveLatency) {
+		this.config = config;
+		this.holdLatency = holdLatency;
+		this.reserveLatency = reserveLatency;
+	}
+
+	/**
+	 * Print the report
+	 * @param out
+	 */
+	public void print(PrintStream out) {
+		double seconds = Math.max(1, elapsedMillis) / 1000.0;
+		int capacity = config.getRows() * config.getSeatsPerRow();
+
+		out.println("************** ON-SALE SIMULATION ********************");
+		out.println(config);
+		out.format("Customers: %d in %.1f s (%.0f requests/s)%n", customers, seconds,
+				(holdLatency.getCount() + reserveLatency.getCount()) / seconds);
+		out.format("Seat holds: %d, no adjacent seats: %d, sold out: %d%n", seatHolds, holdsRejected, soldOut);
+		out.format("Reservations: %d, abandoned holds: %d, expired before reserving: %d%n", reservations, abandoned,
+				expiredBeforeReserve);
+		out.format("Sell-through: %d of %d seats (%.1f%%)%n", seatsReserved, capacity, 100.0 * seatsReserved / capacity);
+		printLatency(out, "findAndHoldSeats", holdLatency);
+		printLatency(out, "reserveSeats", reserveLatency);
+
+		out.println("Sell-through over time:");
+		for (Sample sample : samples) {
+			out.format("  %6d ms  available %7d  reserved %7d  hold requests %8d%n", sample.getElapsedMillis(),
+					sample.getSeatsAvailable(), sample.getSeatsReserved(), sample.getHoldRequests());
+		}
+
+		if (violations.isEmpty()) {
+			out.println("Invariants: OK");
+		} else {
+			out.println("Invariants: " + violations.size() + " VIOLATED");
+			violations.forEach(violation -> out.println("  " + violation));
+		}
+	}
+
+	private static void printLatency(PrintStream out, String operation, LatencyRecorder latency) {
+		out.format("%s latency (us): p50 %.1f  p99 %.1f  p999 %.1f  (%d calls)%n", operation,
+				latency.getPercentile(50) / 1000.0, latency.getPercentile(99) / 1000.0,
+				latency.getPercentile(99.9) / 1000.0, latency.getCount());
+	}
+
+	public boolean isInvariantsHeld() {
+		return violations.isEmpty();
+	}
+
+	public SimulationConfig getConfig() {
+		return config;
+	}
+
+	public LatencyRecorder getHoldLatency() {
+		return holdLatency;
+	}
+
+	public LatencyRecorder getReserveLatency() {
+		return reserveLatency;
+	}
+
+	public List<Sample> getSamples() {
+		return samples;
+	}
+
+	public List<String> getViolations() {
+		return violations;
+	}
+
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	public void setElapsedMillis(long elapsedMillis) {
+		this.elapsedMillis = elapsedMillis;
+	}
+
+	public long getCustomers() {
+		return customers;
+	}
+
+	public void setCustomers(long customers) {
+		this.customers = customers;
+	}
+
+	public long getSeatHolds() {
+		return seatHolds;
+	}
+
+	public void setSeatHolds(long seatHolds) {
+		this.seatHolds = seatHolds;
+	}
+
+	public long getHoldsRejected() {
+		return holdsRejected;
+	}
+
+	public void setHoldsRejected(long holdsRejected) {
+		this.holdsRejected = holdsRejected;
+	}
+
+	public long getSoldOut() {
+		return soldOut;
+	}
+
+	public void setSoldOut(long soldOut) {
+		this.soldOut = soldOut;
+	}
+
+	public long getReservations() {
+		return reservations;
+	}
+
+	public void setReservations(long reservations) {
+		this.reservations = reservations;
+	}
+
+	public long getAbandoned() {
+		return abandoned;
+	}
+
+	public void setAbandoned(long abandoned) {
+		this.abandoned = abandoned;
+	}
+
+	public long getExpiredBeforeReserve() {
+		return expiredBeforeReserve;
+	}
+
+	public void setExpiredBeforeReserve(long expiredBeforeReserve) {
+		this.expiredBeforeReserve = expiredBeforeReserve;
+	}
+
+	public long getSeatsReserved() {
+		return seatsReserved;
+	}
+
+	public void setSeatsReserved(long seatsReserved) {
+		this.seatsReserved = seatsReserved;
+	}
+
+}
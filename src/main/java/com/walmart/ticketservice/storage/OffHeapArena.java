@@ -0,0 +1,115 @@
+package com.walmart.ticketservice.storage;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Arena of fixed-size records kept outside of the Java heap
+ * Records live in direct byte buffers (slabs) that are allocated as the arena grows and are never moved,
+ * so the garbage collector only ever sees the handful of slab objects, however many records there are.
+ * Records are addressed by index, and freed records are chained into a free list
+ * (through their first int) and handed out again before the arena grows
+ *
+ * Not thread safe, owners guard the arena with their own lock
+ * @author bkulkar
+ *
+ */
+public class OffHeapArena {
+
+	private static final int NO_RECORD = -1;
+
+	private final int recordSize;
+	private final int recordsPerSlab;
+	private final List<ByteBuffer> slabs = new ArrayList<>();
+	/**
+	 * Most recently freed record, NO_RECORD if none is free
+	 */
+	private int freeHead = NO_RECORD;
+	/**
+	 * Records handed out so far, free or not
+	 */
+	private int used;
+	private int allocated;
+
+	/**
+	 * @param recordSize bytes per record, at least 4
+	 * @param recordsPerSlab records allocated at once when the arena grows
+	 */
+	public OffHeapArena(int recordSize, int recordsPerSlab) {
+		if (recordSize < 4 || recordsPerSlab < 1 || (long) recordSize * recordsPerSlab > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Invalid record size or slab size");
+		}
+		this.recordSize = recordSize;
+		this.recordsPerSlab = recordsPerSlab;
+	}
+
+	/**
+	 * Takes a record, from the free list if possible
+	 * The content of the record is undefined until written
+	 * @return record index
+	 */
+	public int allocate() {
+		int record;
+		if (freeHead != NO_RECORD) {
+			record = freeHead;
+			freeHead = getInt(record, 0);
+		} else {
+			if (used == slabs.size() * recordsPerSlab) {
+				slabs.add(ByteBuffer.allocateDirect(recordSize * recordsPerSlab));
+			}
+			record = used++;
+		}
+		++allocated;
+		return record;
+	}
+
+	/**
+	 * Returns a record to the free list
+	 * @param record
+	 */
+	public void free(int record) {
+		putInt(record, 0, freeHead);
+		freeHead = record;
+		--allocated;
+	}
+
+	public long getLong(int record, int fieldOffset) {
+		return slab(record).getLong(offset(record) + fieldOffset);
+	}
+
+	public void putLong(int record, int fieldOffset, long value) {
+		slab(record).putLong(offset(record) + fieldOffset, value);
+	}
+
+	public int getInt(int record, int fieldOffset) {
+		return slab(record).getInt(offset(record) + fieldOffset);
+	}
+
+	public void putInt(int record, int fieldOffset, int value) {
+		slab(record).putInt(offset(record) + fieldOffset, value);
+	}
+
+	private ByteBuffer slab(int record) {
+		return slabs.get(record / recordsPerSlab);
+	}
+
+	private int offset(int record) {
+		return (record % recordsPerSlab) * recordSize;
+	}
+
+	/**
+	 * @return number of records in use
+	 */
+	public int getAllocated() {
+		return allocated;
+	}
+
+	/**
+	 * @return off-heap bytes reserved by the arena
+	 */
+	public long getReservedBytes() {
+		return (long) slabs.size() * recordsPerSlab * recordSize;
+	}
+
+}
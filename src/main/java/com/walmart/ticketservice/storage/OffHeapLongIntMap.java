@@ -0,0 +1,160 @@
+package com.walmart.ticketservice.storage;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Hash map from long keys to int values kept in a direct byte buffer
+ * Open addressing with linear probing, entries are removed by shifting the following entries back
+ * so no tombstones are left behind. Key 0 marks an empty slot and cannot be stored
+ *
+ * Not thread safe, owners guard the map with their own lock
+ * @author bkulkar
+ *
+ */
+public class OffHeapLongIntMap {
+
+	private static final int SLOT_SIZE = 12;
+	private static final int VALUE_OFFSET = 8;
+
+	private ByteBuffer slots;
+	private int mask;
+	private int size;
+
+	/**
+	 * @param expectedSize rounded up so the map starts at most half full
+	 */
+	public OffHeapLongIntMap(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+		this.slots = ByteBuffer.allocateDirect(capacity * SLOT_SIZE);
+		this.mask = capacity - 1;
+	}
+
+	/**
+	 * @param key
+	 * @param missingValue returned if the key is not in the map
+	 * @return value
+	 */
+	public int get(long key, int missingValue) {
+		int slot = find(key);
+		return slot < 0 ? missingValue : slots.getInt(slot * SLOT_SIZE + VALUE_OFFSET);
+	}
+
+	/**
+	 * @param key not 0
+	 * @param value
+	 * @return false if the key was already in the map, in which case its value is replaced
+	 */
+	public boolean put(long key, int value) {
+		if (key == 0) {
+			throw new IllegalArgumentException("Key 0 cannot be stored");
+		}
+		int slot = find(key);
+		if (slot >= 0) {
+			slots.putInt(slot * SLOT_SIZE + VALUE_OFFSET, value);
+			return false;
+		}
+		if (size + 1 > (mask + 1) / 2) {
+			resize();
+		}
+		slot = home(key);
+		while (slots.getLong(slot * SLOT_SIZE) != 0) {
+			slot = (slot + 1) & mask;
+		}
+		slots.putLong(slot * SLOT_SIZE, key);
+		slots.putInt(slot * SLOT_SIZE + VALUE_OFFSET, value);
+		++size;
+		return true;
+	}
+
+	/**
+	 * @param key
+	 * @param missingValue returned if the key is not in the map
+	 * @return value the key had
+	 */
+	public int remove(long key, int missingValue) {
+		int slot = find(key);
+		if (slot < 0) {
+			return missingValue;
+		}
+		int value = slots.getInt(slot * SLOT_SIZE + VALUE_OFFSET);
+		//shift back entries of the probe run that would no longer be found past the emptied slot
+		int empty = slot;
+		int next = (empty + 1) & mask;
+		long nextKey;
+		while ((nextKey = slots.getLong(next * SLOT_SIZE)) != 0) {
+			int nextHome = home(nextKey);
+			if (((next - nextHome) & mask) >= ((next - empty) & mask)) {
+				slots.putLong(empty * SLOT_SIZE, nextKey);
+				slots.putInt(empty * SLOT_SIZE + VALUE_OFFSET, slots.getInt(next * SLOT_SIZE + VALUE_OFFSET));
+				empty = next;
+			}
+			next = (next + 1) & mask;
+		}
+		slots.putLong(empty * SLOT_SIZE, 0);
+		--size;
+		return value;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Calls the visitor with every key and value in the map
+	 * @param visitor
+	 */
+	public void forEach(EntryVisitor visitor) {
+		for (int slot = 0; slot <= mask; slot++) {
+			long key = slots.getLong(slot * SLOT_SIZE);
+			if (key != 0) {
+				visitor.visit(key, slots.getInt(slot * SLOT_SIZE + VALUE_OFFSET));
+			}
+		}
+	}
+
+	/**
+	 * Receives the entries of the map
+	 */
+	public interface EntryVisitor {
+		void visit(long key, int value);
+	}
+
+	private int find(long key) {
+		if (key == 0) {
+			return -1;
+		}
+		int slot = home(key);
+		long slotKey;
+		while ((slotKey = slots.getLong(slot * SLOT_SIZE)) != 0) {
+			if (slotKey == key) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	private int home(long key) {
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+
+	private void resize() {
+		ByteBuffer old = slots;
+		int oldCapacity = mask + 1;
+		slots = ByteBuffer.allocateDirect(oldCapacity * 2 * SLOT_SIZE);
+		mask = oldCapacity * 2 - 1;
+		for (int slot = 0; slot < oldCapacity; slot++) {
+			long key = old.getLong(slot * SLOT_SIZE);
+			if (key != 0) {
+				int newSlot = home(key);
+				while (slots.getLong(newSlot * SLOT_SIZE) != 0) {
+					newSlot = (newSlot + 1) & mask;
+				}
+				slots.putLong(newSlot * SLOT_SIZE, key);
+				slots.putInt(newSlot * SLOT_SIZE + VALUE_OFFSET, old.getInt(slot * SLOT_SIZE + VALUE_OFFSET));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,332 @@
+package com.walmart.ticketservice.storage;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.walmart.ticketservice.model.Seat;
+import com.walmart.ticketservice.model.SeatRange;
+import com.walmart.ticketservice.model.Venue;
+
+/**
+ * Reserved seats mapped with confirmation code as the key, kept off-heap
+ * A reservation is stored as a chain of fixed-size records in an off-heap arena, one per range of adjacent
+ * seats of a row (a single record unless the seats of a group span rows), and found through an off-heap index keyed by the confirmation code packed into a long,
+ * so reservations do not add to the objects the garbage collector has to trace, however many there are.
+ * Seats are handed out as {@link SeatRange} flyweights.
+ * Reservations are spread over stripes by confirmation code, each with its own lock
+ *
+ * Use with {@link Venue#setSeatsReserved(Map)} before the venue is sold
+ * @author bkulkar
+ *
+ */
+public class OffHeapReservationMap extends AbstractMap<String, List<Seat>> {
+
+	/**
+	 * Record layout: confirmation code, row, first seat, number of seats, next record of the reservation
+	 */
+	private static final int CODE = 0;
+	private static final int ROW = 8;
+	private static final int FIRST_SEAT = 12;
+	private static final int NUM_SEATS = 16;
+	private static final int NEXT = 20;
+	private static final int RECORD_SIZE = 24;
+	private static final int RECORDS_PER_SLAB = 4096;
+	private static final int STRIPES = 16;
+	private static final int NO_RECORD = -1;
+
+	/**
+	 * Records and index of a share of the reservations
+	 */
+	private static class Stripe {
+		private final ReentrantLock lock = new ReentrantLock();
+		private final OffHeapArena records = new OffHeapArena(RECORD_SIZE, RECORDS_PER_SLAB);
+		private final OffHeapLongIntMap index = new OffHeapLongIntMap(RECORDS_PER_SLAB);
+	}
+
+	private final Venue venue;
+	private final Stripe[] stripes = new Stripe[STRIPES];
+
+	/**
+	 * @param venue venue the seats belong to, for the seat scores
+	 */
+	public OffHeapReservationMap(Venue venue) {
+		this.venue = venue;
+		for (int i = 0; i < STRIPES; i++) {
+			stripes[i] = new Stripe();
+		}
+	}
+
+	/**
+	 * Packs a confirmation code of up to 8 ASCII characters into a long
+	 * @param confirmationCode
+	 * @return packed code, 0 if the code cannot be packed
+	 */
+	static long pack(Object confirmationCode) {
+		if (!(confirmationCode instanceof String)) {
+			return 0;
+		}
+		String code = (String) confirmationCode;
+		if (code.isEmpty() || code.length() > 8) {
+			return 0;
+		}
+		long packed = 0;
+		for (int i = 0; i < code.length(); i++) {
+			char c = code.charAt(i);
+			if (c == 0 || c > 0x7F) {
+				return 0;
+			}
+			packed = (packed << 8) | c;
+		}
+		return packed;
+	}
+
+	static String unpack(long packed) {
+		StringBuilder code = new StringBuilder(8);
+		for (int shift = 56; shift >= 0; shift -= 8) {
+			char c = (char) ((packed >>> shift) & 0xFF);
+			if (c != 0) {
+				code.append(c);
+			}
+		}
+		return code.toString();
+	}
+
+	private Stripe stripe(long packed) {
+		return stripes[(int) ((packed ^ (packed >>> 29)) & (STRIPES - 1))];
+	}
+
+	/**
+	 * @param confirmationCode up to 8 ASCII characters
+	 * @param seats reserved seats ordered by row and seat
+	 * @return seats previously reserved under the confirmation code, null if none
+	 */
+	@Override
+	public List<Seat> put(String confirmationCode, List<Seat> seats) {
+		long packed = pack(confirmationCode);
+		if (packed == 0) {
+			throw new IllegalArgumentException("Confirmation code should be 1 to 8 ASCII characters");
+		}
+		if (seats == null || seats.isEmpty()) {
+			throw new IllegalArgumentException("A reservation needs at least one seat");
+		}
+		List<List<Seat>> ranges = SeatRange.split(seats);
+		for (int i = 1; i < ranges.size(); i++) {
+			Seat last = ranges.get(i - 1).get(ranges.get(i - 1).size() - 1);
+			Seat first = ranges.get(i).get(0);
+			if (first.getRowNum() < last.getRowNum() || (first.getRowNum() == last.getRowNum() && first.getId() <= last.getId())) {
+				throw new IllegalArgumentException("Reserved seats should be ordered by row and seat");
+			}
+		}
+
+		Stripe stripe = stripe(packed);
+		stripe.lock.lock();
+		try {
+			//the new records are written before the index points to them
+			int head = NO_RECORD;
+			for (int i = ranges.size() - 1; i >= 0; i--) {
+				List<Seat> range = ranges.get(i);
+				int record = stripe.records.allocate();
+				stripe.records.putLong(record, CODE, packed);
+				stripe.records.putInt(record, ROW, range.get(0).getRowNum());
+				stripe.records.putInt(record, FIRST_SEAT, range.get(0).getId());
+				stripe.records.putInt(record, NUM_SEATS, range.size());
+				stripe.records.putInt(record, NEXT, head);
+				head = record;
+			}
+			int previousRecord = stripe.index.get(packed, NO_RECORD);
+			stripe.index.put(packed, head);
+			if (previousRecord == NO_RECORD) {
+				return null;
+			}
+			List<Seat> previous = seats(stripe.records, previousRecord);
+			free(stripe.records, previousRecord);
+			return previous;
+		} finally {
+			stripe.lock.unlock();
+		}
+	}
+
+	/**
+	 * Frees every record of a reservation
+	 * @param records
+	 * @param record first record of the reservation
+	 */
+	private static void free(OffHeapArena records, int record) {
+		while (record != NO_RECORD) {
+			int next = records.getInt(record, NEXT);
+			records.free(record);
+			record = next;
+		}
+	}
+
+	@Override
+	public List<Seat> get(Object confirmationCode) {
+		long packed = pack(confirmationCode);
+		if (packed == 0) {
+			return null;
+		}
+		Stripe stripe = stripe(packed);
+		stripe.lock.lock();
+		try {
+			int record = stripe.index.get(packed, NO_RECORD);
+			return record == NO_RECORD ? null : seats(stripe.records, record);
+		} finally {
+			stripe.lock.unlock();
+		}
+	}
+
+	@Override
+	public boolean containsKey(Object confirmationCode) {
+		return get(confirmationCode) != null;
+	}
+
+	@Override
+	public List<Seat> remove(Object confirmationCode) {
+		long packed = pack(confirmationCode);
+		if (packed == 0) {
+			return null;
+		}
+		Stripe stripe = stripe(packed);
+		stripe.lock.lock();
+		try {
+			int record = stripe.index.remove(packed, NO_RECORD);
+			if (record == NO_RECORD) {
+				return null;
+			}
+			List<Seat> seats = seats(stripe.records, record);
+			free(stripe.records, record);
+			return seats;
+		} finally {
+			stripe.lock.unlock();
+		}
+	}
+
+	@Override
+	public int size() {
+		int size = 0;
+		for (Stripe stripe : stripes) {
+			stripe.lock.lock();
+			try {
+				size += stripe.index.size();
+			} finally {
+				stripe.lock.unlock();
+			}
+		}
+		return size;
+	}
+
+	@Override
+	public void clear() {
+		for (Stripe stripe : stripes) {
+			stripe.lock.lock();
+			try {
+				List<Long> codes = new ArrayList<>();
+				stripe.index.forEach((packed, record) -> codes.add(packed));
+				for (long packed : codes) {
+					free(stripe.records, stripe.index.remove(packed, NO_RECORD));
+				}
+			} finally {
+				stripe.lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Entries are copied stripe by stripe when the iteration starts, 
+	 * removing through the iterator removes the reservation from the map
+	 */
+	@Override
+	public Set<Entry<String, List<Seat>>> entrySet() {
+		return new AbstractSet<Entry<String, List<Seat>>>() {
+
+			@Override
+			public Iterator<Entry<String, List<Seat>>> iterator() {
+				List<Entry<String, List<Seat>>> entries = new ArrayList<>();
+				for (Stripe stripe : stripes) {
+					stripe.lock.lock();
+					try {
+						stripe.index.forEach((packed, record) -> entries.add(
+								new SimpleImmutableEntry<String, List<Seat>>(unpack(packed), seats(stripe.records, record))));
+					} finally {
+						stripe.lock.unlock();
+					}
+				}
+				Iterator<Entry<String, List<Seat>>> copy = entries.iterator();
+				return new Iterator<Entry<String, List<Seat>>>() {
+					private Entry<String, List<Seat>> current;
+
+					@Override
+					public boolean hasNext() {
+						return copy.hasNext();
+					}
+
+					@Override
+					public Entry<String, List<Seat>> next() {
+						current = copy.next();
+						return current;
+					}
+
+					@Override
+					public void remove() {
+						if (current == null) {
+							throw new IllegalStateException();
+						}
+						OffHeapReservationMap.this.remove(current.getKey());
+						current = null;
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return OffHeapReservationMap.this.size();
+			}
+		};
+	}
+
+	/**
+	 * @param records
+	 * @param record first record of the reservation
+	 * @return reserved seats as seat range flyweights
+	 */
+	private List<Seat> seats(OffHeapArena records, int record) {
+		int next = records.getInt(record, NEXT);
+		if (next == NO_RECORD) {
+			return seatRange(records, record);
+		}
+		List<Seat> seats = new ArrayList<>(seatRange(records, record));
+		for (; next != NO_RECORD; next = records.getInt(next, NEXT)) {
+			seats.addAll(seatRange(records, next));
+		}
+		return seats;
+	}
+
+	private SeatRange seatRange(OffHeapArena records, int record) {
+		int rowNum = records.getInt(record, ROW);
+		return new SeatRange(venue.getSectionForRow(rowNum), rowNum, records.getInt(record, FIRST_SEAT),
+				records.getInt(record, NUM_SEATS));
+	}
+
+	/**
+	 * @return off-heap bytes reserved for reservation records
+	 */
+	public long getReservedBytes() {
+		long bytes = 0;
+		for (Stripe stripe : stripes) {
+			stripe.lock.lock();
+			try {
+				bytes += stripe.records.getReservedBytes();
+			} finally {
+				stripe.lock.unlock();
+			}
+		}
+		return bytes;
+	}
+
+}
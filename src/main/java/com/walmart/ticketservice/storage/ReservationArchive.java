@@ -0,0 +1,314 @@
+package com.walmart.ticketservice.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.walmart.ticketservice.model.Seat;
+import com.walmart.ticketservice.model.SeatRange;
+import com.walmart.ticketservice.model.Venue;
+
+/**
+ * On-disk tier of the reservations, a directory of memory-mapped segments sorted by confirmation code
+ * Reservations are appended a batch at a time as a new segment. A lookup binary searches the segments from the
+ * newest to the oldest without taking any lock, so only the pages of the index it touches are read in.
+ * Once there are more than a few segments they are merged into one in a single streaming pass that drops the
+ * cancelled reservations, which keeps lookups at a handful of binary searches
+ * Segments left in the directory by an earlier run are opened again, unfinished ones are deleted
+ * @author bkulkar
+ *
+ */
+public class ReservationArchive {
+
+	private static final Logger logger = LoggerFactory.getLogger(ReservationArchive.class);
+
+	private static final String SEGMENT_PREFIX = "reservations-";
+	private static final String SEGMENT_SUFFIX = ".seg";
+	/**
+	 * Number of segments above which they are merged into one
+	 */
+	static final int MAX_SEGMENTS = 8;
+
+	private final Path directory;
+	private final Venue venue;
+	/**
+	 * Segments from the newest to the oldest, replaced as a whole while holding the lock
+	 */
+	private volatile List<ReservationSegment> segments;
+	/**
+	 * Lock guarding appends, merges and cancellations
+	 */
+	private final ReentrantLock lock = new ReentrantLock();
+	private long nextSegment;
+
+	/**
+	 * @param directory directory of the segment files, created if it does not exist
+	 * @param venue venue the seats belong to, for the seat scores
+	 */
+	public ReservationArchive(Path directory, Venue venue) {
+		this.directory = directory;
+		this.venue = venue;
+		TreeMap<Long, ReservationSegment> existing = new TreeMap<>(Collections.reverseOrder());
+		try {
+			Files.createDirectories(directory);
+			try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+				for (Path file : files) {
+					existing.put(segmentNumber(file), ReservationSegment.open(file));
+				}
+			}
+			try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+					SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX + ReservationSegment.TEMP_SUFFIX)) {
+				for (Path file : files) {
+					logger.warn("Deleting unfinished reservation segment {}", file);
+					Files.delete(file);
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to open reservation archive " + directory, e);
+		}
+		this.segments = Collections.unmodifiableList(new ArrayList<>(existing.values()));
+		this.nextSegment = existing.isEmpty() ? 0 : existing.firstKey() + 1;
+	}
+
+	private static long segmentNumber(Path file) {
+		String name = file.getFileName().toString();
+		try {
+			return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(file + " is not a reservation segment", e);
+		}
+	}
+
+	/**
+	 * @param code confirmation code packed into a long
+	 * @return reserved seats, null if the archive has no such reservation
+	 */
+	public List<Seat> get(long code) {
+		for (ReservationSegment segment : segments) {
+			int index = segment.find(code);
+			if (index >= 0 && !segment.isDeleted(index)) {
+				return segment.getSeats(index, venue);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Cancels an archived reservation, in every segment that has it
+	 * @param code confirmation code packed into a long
+	 * @return reserved seats, null if the archive has no such reservation
+	 */
+	public List<Seat> remove(long code) {
+		lock.lock();
+		try {
+			List<Seat> seats = null;
+			for (ReservationSegment segment : segments) {
+				int index = segment.find(code);
+				if (index >= 0 && !segment.isDeleted(index)) {
+					segment.markDeleted(index);
+					if (seats == null) {
+						seats = segment.getSeats(index, venue);
+					}
+				}
+			}
+			return seats;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Writes reservations to a new segment, merging the segments if there are too many
+	 * @param reservations by confirmation code packed into a long
+	 */
+	public void append(Map<Long, List<Seat>> reservations) {
+		if (reservations.isEmpty()) {
+			return;
+		}
+		TreeMap<Long, List<Seat>> sorted = new TreeMap<>(reservations);
+		int numRanges = 0;
+		for (List<Seat> seats : sorted.values()) {
+			numRanges += SeatRange.split(seats).size();
+		}
+
+		lock.lock();
+		try {
+			ReservationSegment.Writer writer = ReservationSegment.create(nextFile(), sorted.size(), numRanges);
+			ReservationSegment written;
+			try {
+				for (Map.Entry<Long, List<Seat>> reservation : sorted.entrySet()) {
+					writer.add(reservation.getKey(), reservation.getValue());
+				}
+				written = writer.finish();
+			} catch (RuntimeException e) {
+				writer.abort();
+				throw e;
+			}
+			List<ReservationSegment> next = new ArrayList<>(segments.size() + 1);
+			next.add(written);
+			next.addAll(segments);
+			segments = Collections.unmodifiableList(next);
+
+			if (segments.size() > MAX_SEGMENTS) {
+				merge();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private Path nextFile() {
+		return directory.resolve(SEGMENT_PREFIX + (nextSegment++) + SEGMENT_SUFFIX);
+	}
+
+	/**
+	 * Position of a merge within a segment
+	 */
+	private static class Cursor {
+		private final ReservationSegment segment;
+		/**
+		 * Age of the segment, 0 for the newest
+		 */
+		private final int age;
+		private int index = -1;
+
+		Cursor(ReservationSegment segment, int age) {
+			this.segment = segment;
+			this.age = age;
+		}
+
+		/**
+		 * Moves to the next reservation that is not cancelled
+		 * @return false if the segment has no more
+		 */
+		boolean advance() {
+			do {
+				index++;
+			} while (index < segment.getCount() && segment.isDeleted(index));
+			return index < segment.getCount();
+		}
+
+		long code() {
+			return segment.getCode(index);
+		}
+	}
+
+	/**
+	 * Merges all segments into one, dropping the cancelled reservations
+	 * Reservations are streamed from the segments in code order, so the merge holds no reservation on the heap.
+	 * A code found in more than one segment, e.g. after a flush was repeated by a restart, is taken from the
+	 * newest segment. If the merge fails the segments are left as they were
+	 * Callers have to hold the lock
+	 */
+	private void merge() {
+		List<ReservationSegment> merged = segments;
+		int count = 0;
+		int numRanges = 0;
+		for (ReservationSegment segment : merged) {
+			for (int index = 0; index < segment.getCount(); index++) {
+				if (!segment.isDeleted(index)) {
+					count++;
+					numRanges += segment.getNumRanges(index);
+				}
+			}
+		}
+
+		PriorityQueue<Cursor> cursors = new PriorityQueue<>(Comparator.comparingLong(Cursor::code).thenComparingInt(cursor -> cursor.age));
+		for (int age = 0; age < merged.size(); age++) {
+			Cursor cursor = new Cursor(merged.get(age), age);
+			if (cursor.advance()) {
+				cursors.add(cursor);
+			}
+		}
+		ReservationSegment.Writer writer = ReservationSegment.create(nextFile(), count, numRanges);
+		try {
+			boolean first = true;
+			long lastCode = 0;
+			while (!cursors.isEmpty()) {
+				Cursor cursor = cursors.poll();
+				long code = cursor.code();
+				//of the same code the newest segment comes first, older copies are skipped
+				if (first || code != lastCode) {
+					writer.add(code, cursor.segment.getSeats(cursor.index, venue));
+					lastCode = code;
+					first = false;
+				}
+				if (cursor.advance()) {
+					cursors.add(cursor);
+				}
+			}
+			segments = Collections.singletonList(writer.finish());
+		} catch (RuntimeException e) {
+			writer.abort();
+			throw e;
+		}
+
+		//lookups still reading a dropped segment keep its mapping
+		for (ReservationSegment segment : merged) {
+			try {
+				Files.delete(segment.getFile());
+			} catch (IOException e) {
+				logger.warn("Unable to delete merged reservation segment {}: {}", segment.getFile(), e.toString());
+			}
+		}
+	}
+
+	/**
+	 * Hands every archived reservation that is not cancelled to the consumer
+	 * @param consumer of the confirmation code packed into a long and the reserved seats
+	 */
+	public void forEach(BiConsumer<Long, List<Seat>> consumer) {
+		for (ReservationSegment segment : segments) {
+			for (int index = 0; index < segment.getCount(); index++) {
+				if (!segment.isDeleted(index)) {
+					consumer.accept(segment.getCode(index), segment.getSeats(index, venue));
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return number of archived reservations that are not cancelled
+	 */
+	public int size() {
+		int size = 0;
+		for (ReservationSegment segment : segments) {
+			size += segment.getLiveCount();
+		}
+		return size;
+	}
+
+	public int getSegmentCount() {
+		return segments.size();
+	}
+
+	/**
+	 * @return bytes of the segment files mapped into memory
+	 */
+	public long getMappedBytes() {
+		long bytes = 0;
+		for (ReservationSegment segment : segments) {
+			bytes += segment.getSize();
+		}
+		return bytes;
+	}
+
+	public Path getDirectory() {
+		return directory;
+	}
+
+}
@@ -0,0 +1,171 @@
+package com.walmart.ticketservice.storage;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import com.walmart.ticketservice.model.Seat;
+
+/**
+ * Bounded cache of reserved seats by confirmation code in front of the reservation store, evicting the least
+ * recently used reservation
+ * Reservations are spread over stripes by confirmation code, each an access ordered map with its own lock, so lookups
+ * of different reservations rarely wait for each other. A miss loads the reservation from the store under the lock
+ * of its stripe, so a cancellation that invalidates the reservation after removing it from the store can never be
+ * overtaken by a lookup putting the cancelled seats back
+ * Lookups of confirmation codes that do not exist are not cached
+ * @author bkulkar
+ *
+ */
+public class ReservationCache {
+
+	private static final int STRIPES = 16;
+
+	/**
+	 * Share of the cached reservations
+	 */
+	private static class Stripe {
+		private final ReentrantLock lock = new ReentrantLock();
+		/**
+		 * Reservations from the least to the most recently used
+		 */
+		private final Map<String, List<Seat>> entries;
+
+		Stripe(int capacity, LongAdder evictions) {
+			this.entries = new LinkedHashMap<String, List<Seat>>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, List<Seat>> eldest) {
+					if (size() > capacity) {
+						evictions.increment();
+						return true;
+					}
+					return false;
+				}
+			};
+		}
+	}
+
+	private final Stripe[] stripes = new Stripe[STRIPES];
+	private final int capacity;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * @param capacity maximum number of reservations cached
+	 */
+	public ReservationCache(int capacity) {
+		if (capacity < STRIPES) {
+			throw new IllegalArgumentException("Cache should hold at least " + STRIPES + " reservations");
+		}
+		this.capacity = capacity;
+		for (int i = 0; i < STRIPES; i++) {
+			stripes[i] = new Stripe(capacity / STRIPES, evictions);
+		}
+	}
+
+	private Stripe stripe(String confirmationCode) {
+		int hash = confirmationCode.hashCode();
+		return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+	}
+
+	/**
+	 * @param confirmationCode
+	 * @param loader looks the reservation up in the store on a miss, returns null if there is none
+	 * @return reserved seats, null if there is no such reservation
+	 */
+	public List<Seat> get(String confirmationCode, Function<String, List<Seat>> loader) {
+		Stripe stripe = stripe(confirmationCode);
+		stripe.lock.lock();
+		try {
+			List<Seat> seats = stripe.entries.get(confirmationCode);
+			if (seats != null) {
+				hits.increment();
+				return seats;
+			}
+			misses.increment();
+			seats = loader.apply(confirmationCode);
+			if (seats != null) {
+				stripe.entries.put(confirmationCode, seats);
+			}
+			return seats;
+		} finally {
+			stripe.lock.unlock();
+		}
+	}
+
+	/**
+	 * Drops a reservation, to be called once it is removed from the store
+	 * @param confirmationCode
+	 */
+	public void invalidate(String confirmationCode) {
+		Stripe stripe = stripe(confirmationCode);
+		stripe.lock.lock();
+		try {
+			stripe.entries.remove(confirmationCode);
+		} finally {
+			stripe.lock.unlock();
+		}
+	}
+
+	/**
+	 * Drops every reservation
+	 */
+	public void clear() {
+		for (Stripe stripe : stripes) {
+			stripe.lock.lock();
+			try {
+				stripe.entries.clear();
+			} finally {
+				stripe.lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * @return number of reservations cached
+	 */
+	public int size() {
+		int size = 0;
+		for (Stripe stripe : stripes) {
+			stripe.lock.lock();
+			try {
+				size += stripe.entries.size();
+			} finally {
+				stripe.lock.unlock();
+			}
+		}
+		return size;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	/**
+	 * @return share of lookups answered from the cache, 0 before the first lookup
+	 */
+	public double getHitRate() {
+		long hitCount = hits.sum();
+		long lookups = hitCount + misses.sum();
+		return lookups == 0 ? 0 : (double) hitCount / lookups;
+	}
+
+}
@@ -0,0 +1,292 @@
+package com.walmart.ticketservice.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.walmart.ticketservice.model.Seat;
+import com.walmart.ticketservice.model.SeatRange;
+import com.walmart.ticketservice.model.Venue;
+
+/**
+ * Immutable file of reservations sorted by confirmation code, read through a memory mapping
+ * The file starts with a header, followed by a fixed-size index entry per reservation in code order and the seat
+ * ranges of all reservations. A reservation is found by binary search over the index, reading straight from the
+ * mapped pages, so a segment costs the heap a few objects however many reservations it holds.
+ * Cancelled reservations are only flagged in their index entry and dropped when segments are merged.
+ * A segment is written to a temporary file whose header is filled in last, then synced and moved into place,
+ * so a flush or merge cut short never leaves a file that opens as a segment
+ *
+ * Layout: magic, count, reserved (ints); per reservation code (long), offset of its ranges (int), number of ranges (short),
+ * deleted flag (byte), padding; per range row, first seat, number of seats (ints)
+ * @author bkulkar
+ *
+ */
+public class ReservationSegment {
+
+	private static final Logger logger = LoggerFactory.getLogger(ReservationSegment.class);
+
+	static final String TEMP_SUFFIX = ".tmp";
+	private static final int MAGIC = 0x52534547;
+	private static final int HEADER_SIZE = 12;
+	private static final int ENTRY_SIZE = 16;
+	private static final int RANGE_SIZE = 12;
+	private static final int CODE = 0;
+	private static final int RANGES_OFFSET = 8;
+	private static final int NUM_RANGES = 12;
+	private static final int DELETED = 14;
+
+	/**
+	 * Writes a new segment, reservations have to be added in increasing code order
+	 */
+	public static class Writer {
+		private final Path file;
+		private final Path temp;
+		private final MappedByteBuffer buffer;
+		/**
+		 * Number of reservations the file has room for
+		 */
+		private final int capacity;
+		private int added;
+		private int nextRange;
+		private long lastCode = Long.MIN_VALUE;
+
+		private Writer(Path file, Path temp, MappedByteBuffer buffer, int capacity) {
+			this.file = file;
+			this.temp = temp;
+			this.buffer = buffer;
+			this.capacity = capacity;
+			this.nextRange = HEADER_SIZE + capacity * ENTRY_SIZE;
+		}
+
+		/**
+		 * @param code confirmation code packed into a long
+		 * @param seats reserved seats ordered by row and seat
+		 */
+		public void add(long code, List<Seat> seats) {
+			if (added == capacity || code <= lastCode) {
+				throw new IllegalStateException("Reservations should be added once each, in code order");
+			}
+			List<List<Seat>> ranges = SeatRange.split(seats);
+			int entry = HEADER_SIZE + added * ENTRY_SIZE;
+			buffer.putLong(entry + CODE, code);
+			buffer.putInt(entry + RANGES_OFFSET, nextRange);
+			buffer.putShort(entry + NUM_RANGES, (short) ranges.size());
+			buffer.put(entry + DELETED, (byte) 0);
+			for (List<Seat> range : ranges) {
+				buffer.putInt(nextRange, range.get(0).getRowNum());
+				buffer.putInt(nextRange + 4, range.get(0).getId());
+				buffer.putInt(nextRange + 8, range.size());
+				nextRange += RANGE_SIZE;
+			}
+			lastCode = code;
+			added++;
+		}
+
+		/**
+		 * Fills in the header, flushes the segment to disk and moves it into place
+		 * Fewer reservations than the file has room for may have been added, the index ends at the last one
+		 * @return segment
+		 */
+		public ReservationSegment finish() {
+			buffer.putInt(4, added);
+			buffer.putInt(0, MAGIC);
+			buffer.force();
+			try {
+				Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Unable to move reservation segment into place " + file, e);
+			}
+			return new ReservationSegment(file, buffer, added);
+		}
+
+		/**
+		 * Throws away a segment that could not be written in full
+		 */
+		public void abort() {
+			try {
+				Files.deleteIfExists(temp);
+			} catch (IOException e) {
+				logger.warn("Unable to delete unfinished reservation segment {}: {}", temp, e.toString());
+			}
+		}
+	}
+
+	private final Path file;
+	private final MappedByteBuffer buffer;
+	private final int count;
+	/**
+	 * Number of reservations flagged as cancelled, written after the flag so that readers see the flag
+	 */
+	private volatile int deleted;
+
+	private ReservationSegment(Path file, MappedByteBuffer buffer, int count) {
+		this.file = file;
+		this.buffer = buffer;
+		this.count = count;
+		int flagged = 0;
+		for (int i = 0; i < count; i++) {
+			if (deletedFlag(i)) {
+				flagged++;
+			}
+		}
+		this.deleted = flagged;
+	}
+
+	/**
+	 * Creates a segment for at most a known number of reservations and seat ranges
+	 * The segment is written to a temporary file next to the file, a leftover of an earlier attempt is overwritten
+	 * @param file must not exist yet
+	 * @param count maximum number of reservations
+	 * @param numRanges maximum total number of seat ranges of the reservations
+	 * @return writer
+	 */
+	public static Writer create(Path file, int count, int numRanges) {
+		long size = HEADER_SIZE + (long) count * ENTRY_SIZE + (long) numRanges * RANGE_SIZE;
+		if (size > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Segment of " + count + " reservations is too large");
+		}
+		Path temp = file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			return new Writer(file, temp, buffer, count);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to create reservation segment " + temp, e);
+		}
+	}
+
+	/**
+	 * Maps an existing segment file
+	 * @param file
+	 * @return segment
+	 */
+	public static ReservationSegment open(Path file) {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+			if (channel.size() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+				throw new IllegalArgumentException(file + " is not a reservation segment");
+			}
+			return new ReservationSegment(file, buffer, buffer.getInt(4));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to open reservation segment " + file, e);
+		}
+	}
+
+	/**
+	 * Binary search of the index
+	 * @param code confirmation code packed into a long
+	 * @return index of the reservation in code order, -1 if the segment does not have the code
+	 */
+	public int find(long code) {
+		int low = 0;
+		int high = count - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			long midCode = getCode(mid);
+			if (midCode < code) {
+				low = mid + 1;
+			} else if (midCode > code) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @param index
+	 * @return confirmation code packed into a long
+	 */
+	public long getCode(int index) {
+		return buffer.getLong(HEADER_SIZE + index * ENTRY_SIZE + CODE);
+	}
+
+	public boolean isDeleted(int index) {
+		//reading the count first makes the flags written before it visible
+		return deleted != 0 && deletedFlag(index);
+	}
+
+	private boolean deletedFlag(int index) {
+		return buffer.get(HEADER_SIZE + index * ENTRY_SIZE + DELETED) != 0;
+	}
+
+	/**
+	 * Flags a reservation as cancelled
+	 * Callers have to make sure no two threads flag reservations of the segment at once
+	 * @param index
+	 */
+	public void markDeleted(int index) {
+		buffer.put(HEADER_SIZE + index * ENTRY_SIZE + DELETED, (byte) 1);
+		deleted = deleted + 1;
+	}
+
+	/**
+	 * @param index
+	 * @return number of seat ranges of the reservation
+	 */
+	public int getNumRanges(int index) {
+		return buffer.getShort(HEADER_SIZE + index * ENTRY_SIZE + NUM_RANGES);
+	}
+
+	/**
+	 * @param index
+	 * @param venue venue the seats belong to, for the seat scores
+	 * @return reserved seats as seat range flyweights
+	 */
+	public List<Seat> getSeats(int index, Venue venue) {
+		int entry = HEADER_SIZE + index * ENTRY_SIZE;
+		int range = buffer.getInt(entry + RANGES_OFFSET);
+		int numRanges = buffer.getShort(entry + NUM_RANGES);
+		if (numRanges == 1) {
+			return seatRange(range, venue);
+		}
+		List<Seat> seats = new ArrayList<>();
+		for (int i = 0; i < numRanges; i++, range += RANGE_SIZE) {
+			seats.addAll(seatRange(range, venue));
+		}
+		return seats;
+	}
+
+	private SeatRange seatRange(int range, Venue venue) {
+		int rowNum = buffer.getInt(range);
+		return new SeatRange(venue.getSectionForRow(rowNum), rowNum, buffer.getInt(range + 4), buffer.getInt(range + 8));
+	}
+
+	public Path getFile() {
+		return file;
+	}
+
+	/**
+	 * @return number of reservations in the segment, cancelled or not
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * @return number of reservations in the segment that are not cancelled
+	 */
+	public int getLiveCount() {
+		return count - deleted;
+	}
+
+	/**
+	 * @return size of the segment file in bytes
+	 */
+	public int getSize() {
+		return buffer.capacity();
+	}
+
+}
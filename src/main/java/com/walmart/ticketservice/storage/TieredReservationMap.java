@@ -0,0 +1,351 @@
+package com.walmart.ticketservice.storage;
+
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.walmart.ticketservice.model.Seat;
+import com.walmart.ticketservice.model.Venue;
+
+/**
+ * Reserved seats mapped with confirmation code as the key, recent reservations on the heap and older ones on disk
+ * Reservations are made into the current generation. Once it is full a rotation is handed to a background
+ * thread, which makes it the previous generation and flushes the previous one to a new segment of the
+ * {@link ReservationArchive}. A reservation is only ever a heap write for the request making it, the archive
+ * append, merge and sync are paid by the rotation. About two generations of reservations are kept on the heap
+ * however many are sold, more for as long as the rotation falls behind. Lookups and cancellations fall through from the
+ * current generation to the previous one, the one being flushed and the archive, in that order.
+ * A flushed reservation is in the archive before it leaves the heap, so it can always be found
+ *
+ * Use with {@link Venue#setSeatsReserved(Map)} before the venue is sold
+ * @author bkulkar
+ *
+ */
+public class TieredReservationMap extends AbstractMap<String, List<Seat>> {
+
+	private static final Logger logger = LoggerFactory.getLogger(TieredReservationMap.class);
+
+	private final ReservationArchive archive;
+	/**
+	 * Number of reservations a generation takes before it is rotated
+	 */
+	private final int generationSize;
+	private volatile Map<String, List<Seat>> current = new ConcurrentHashMap<>();
+	private volatile Map<String, List<Seat>> previous = new ConcurrentHashMap<>();
+	/**
+	 * Generation being written to the archive, null if there is none
+	 */
+	private volatile Map<String, List<Seat>> flushing;
+	/**
+	 * Lock held while generations are rotated and flushed
+	 */
+	private final ReentrantLock rotationLock = new ReentrantLock();
+	/**
+	 * Runs the rotations
+	 */
+	private final Executor rotator;
+	/**
+	 * Executor owned by the map, null if the rotations run on an executor given
+	 */
+	private final ExecutorService ownRotator;
+	/**
+	 * Set while a rotation is handed to the rotator and has not finished yet
+	 */
+	private final AtomicBoolean rotationPending = new AtomicBoolean();
+
+	/**
+	 * Rotates on a background thread of its own
+	 * @param venue venue the seats belong to, for the seat scores
+	 * @param directory directory of the archive segments
+	 * @param maxHotReservations number of reservations kept on the heap
+	 */
+	public TieredReservationMap(Venue venue, Path directory, int maxHotReservations) {
+		this(venue, directory, maxHotReservations, null);
+	}
+
+	/**
+	 * @param venue venue the seats belong to, for the seat scores
+	 * @param directory directory of the archive segments
+	 * @param maxHotReservations number of reservations kept on the heap
+	 * @param rotator executor the rotations run on, null for a background thread of its own
+	 */
+	public TieredReservationMap(Venue venue, Path directory, int maxHotReservations, Executor rotator) {
+		if (maxHotReservations < 2) {
+			throw new IllegalArgumentException("At least 2 reservations should be kept on the heap");
+		}
+		this.archive = new ReservationArchive(directory, venue);
+		this.generationSize = maxHotReservations / 2;
+		if (rotator == null) {
+			this.ownRotator = Executors.newSingleThreadExecutor(task -> {
+				Thread thread = new Thread(task, "reservation-archive-" + directory.getFileName());
+				thread.setDaemon(true);
+				return thread;
+			});
+			this.rotator = this.ownRotator;
+		} else {
+			this.ownRotator = null;
+			this.rotator = rotator;
+		}
+	}
+
+	@Override
+	public List<Seat> get(Object confirmationCode) {
+		List<Seat> seats = current.get(confirmationCode);
+		if (seats == null) {
+			seats = previous.get(confirmationCode);
+		}
+		if (seats == null) {
+			Map<String, List<Seat>> flushingNow = flushing;
+			if (flushingNow != null) {
+				seats = flushingNow.get(confirmationCode);
+			}
+		}
+		if (seats == null) {
+			long packed = OffHeapReservationMap.pack(confirmationCode);
+			if (packed != 0) {
+				seats = archive.get(packed);
+			}
+		}
+		return seats;
+	}
+
+	@Override
+	public boolean containsKey(Object confirmationCode) {
+		return get(confirmationCode) != null;
+	}
+
+	/**
+	 * @param confirmationCode
+	 * @param seats reserved seats ordered by row and seat
+	 * @return seats previously reserved under the confirmation code, null if none
+	 */
+	@Override
+	public List<Seat> put(String confirmationCode, List<Seat> seats) {
+		if (confirmationCode == null || seats == null || seats.isEmpty()) {
+			throw new IllegalArgumentException("A reservation needs a confirmation code and at least one seat");
+		}
+		List<Seat> previousSeats = current.put(confirmationCode, seats);
+		if (previousSeats == null) {
+			previousSeats = removeOlder(confirmationCode);
+		}
+		if (current.size() >= generationSize) {
+			scheduleRotation();
+		}
+		return previousSeats;
+	}
+
+	/**
+	 * Hands a rotation to the rotator, unless one is pending already
+	 */
+	private void scheduleRotation() {
+		if (!rotationPending.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			rotator.execute(this::rotateIfFull);
+		} catch (RejectedExecutionException e) {
+			rotationPending.set(false);
+			logger.warn("Keeping reservations on the heap, the archive rotation is shut down");
+		}
+	}
+
+	/**
+	 * Rotation task, runs on the rotator
+	 */
+	private void rotateIfFull() {
+		boolean rotated = false;
+		try {
+			rotationLock.lock();
+			try {
+				if (current.size() >= generationSize) {
+					rotate();
+				}
+				rotated = true;
+			} finally {
+				rotationLock.unlock();
+			}
+		} catch (RuntimeException e) {
+			//the next reservation tries again
+			logger.error("Unable to archive reservations", e);
+		} finally {
+			rotationPending.set(false);
+		}
+		//reservations made while the rotation ran may have filled the new generation already
+		if (rotated && current.size() >= generationSize) {
+			scheduleRotation();
+		}
+	}
+
+	@Override
+	public List<Seat> remove(Object confirmationCode) {
+		List<Seat> seats = current.remove(confirmationCode);
+		return seats != null ? seats : removeOlder(confirmationCode);
+	}
+
+	/**
+	 * Removes a reservation from every tier but the current generation
+	 * The archive is only locked if it has the reservation
+	 * @param confirmationCode
+	 * @return reserved seats, null if there is no such reservation
+	 */
+	private List<Seat> removeOlder(Object confirmationCode) {
+		List<Seat> seats = previous.remove(confirmationCode);
+		if (seats == null) {
+			Map<String, List<Seat>> flushingNow = flushing;
+			if (flushingNow != null) {
+				seats = flushingNow.remove(confirmationCode);
+			}
+		}
+		if (seats == null) {
+			long packed = OffHeapReservationMap.pack(confirmationCode);
+			if (packed != 0 && archive.get(packed) != null) {
+				seats = archive.remove(packed);
+			}
+		}
+		return seats;
+	}
+
+	/**
+	 * Starts a new generation and writes the previous one to the archive
+	 * Callers have to hold the rotation lock
+	 */
+	private void rotate() {
+		Map<String, List<Seat>> toFlush = previous;
+		flushing = toFlush;
+		previous = current;
+		current = new ConcurrentHashMap<>();
+
+		Map<Long, List<Seat>> packed = new HashMap<>(toFlush.size() * 2);
+		Map<String, List<Seat>> written = new HashMap<>(toFlush.size() * 2);
+		for (Entry<String, List<Seat>> reservation : toFlush.entrySet()) {
+			long code = OffHeapReservationMap.pack(reservation.getKey());
+			if (code != 0) {
+				packed.put(code, reservation.getValue());
+				written.put(reservation.getKey(), reservation.getValue());
+			}
+		}
+		archive.append(packed);
+
+		//reservations cancelled or made again while they were written are cancelled in the archive too
+		for (Entry<String, List<Seat>> reservation : written.entrySet()) {
+			if (!toFlush.remove(reservation.getKey(), reservation.getValue())) {
+				archive.remove(OffHeapReservationMap.pack(reservation.getKey()));
+			}
+		}
+		if (!toFlush.isEmpty()) {
+			//codes that cannot be archived stay on the heap
+			logger.warn("Keeping {} reservations on the heap that cannot be archived", toFlush.size());
+			toFlush.forEach(previous::putIfAbsent);
+		}
+		flushing = null;
+	}
+
+	/**
+	 * Writes every reservation on the heap to the archive, e.g. once the event is over
+	 */
+	public void archiveAll() {
+		rotationLock.lock();
+		try {
+			rotate();
+			rotate();
+		} finally {
+			rotationLock.unlock();
+		}
+	}
+
+	/**
+	 * Stops the background rotations, reservations made afterwards stay on the heap
+	 * An executor given to the map is left running
+	 */
+	public void shutdown() {
+		if (ownRotator != null) {
+			ownRotator.shutdown();
+		}
+	}
+
+	@Override
+	public int size() {
+		return current.size() + previous.size() + archive.size();
+	}
+
+	/**
+	 * @return number of reservations kept on the heap
+	 */
+	public int getHotSize() {
+		Map<String, List<Seat>> flushingNow = flushing;
+		return current.size() + previous.size() + (flushingNow == null ? 0 : flushingNow.size());
+	}
+
+	public ReservationArchive getArchive() {
+		return archive;
+	}
+
+	/**
+	 * Entries are copied when the iteration starts, reading the whole archive,
+	 * removing through the iterator removes the reservation from the map
+	 */
+	@Override
+	public Set<Entry<String, List<Seat>>> entrySet() {
+		return new AbstractSet<Entry<String, List<Seat>>>() {
+
+			@Override
+			public Iterator<Entry<String, List<Seat>>> iterator() {
+				List<Entry<String, List<Seat>>> entries = new ArrayList<>();
+				for (Entry<String, List<Seat>> reservation : current.entrySet()) {
+					entries.add(new SimpleImmutableEntry<>(reservation));
+				}
+				for (Entry<String, List<Seat>> reservation : previous.entrySet()) {
+					entries.add(new SimpleImmutableEntry<>(reservation));
+				}
+				archive.forEach((packed, seats) -> entries.add(
+						new SimpleImmutableEntry<String, List<Seat>>(OffHeapReservationMap.unpack(packed), seats)));
+				Iterator<Entry<String, List<Seat>>> copy = entries.iterator();
+				return new Iterator<Entry<String, List<Seat>>>() {
+					private Entry<String, List<Seat>> last;
+
+					@Override
+					public boolean hasNext() {
+						return copy.hasNext();
+					}
+
+					@Override
+					public Entry<String, List<Seat>> next() {
+						last = copy.next();
+						return last;
+					}
+
+					@Override
+					public void remove() {
+						if (last == null) {
+							throw new IllegalStateException();
+						}
+						TieredReservationMap.this.remove(last.getKey());
+						last = null;
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return TieredReservationMap.this.size();
+			}
+		};
+	}
+
+}
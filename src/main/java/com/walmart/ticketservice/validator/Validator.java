@@ -12,6 +12,7 @@ import com.walmart.ticketservice.model.Venue;
 
 /**
  * Validator for ticket service requests
+ * Validations are stateless and do not lock, callers guard the state they pass in
  * @author bkulkar
  *
  */
@@ -26,10 +27,10 @@ public class Validator {
 	 * @param venue
 	 * @throws ApplicationException
 	 */
-	public static synchronized void validateEmailNumberofSeats(int numSeats, String customerEmail, Venue venue) throws ApplicationException{
+	public static void validateEmailNumberofSeats(int numSeats, String customerEmail, Venue venue) throws ApplicationException{
 		
-		if(CommonUtil.isInvalid(venue) || CommonUtil.isInvalid(venue.getAvailableSeatRows())) {
-			logger.error("Error occured while trying to get available seat rows from venue");
+		if(CommonUtil.isInvalid(venue) || CommonUtil.isInvalid(venue.getSections())) {
+			logger.error("Error occured while trying to get sections from venue");
 			throw new ApplicationException("Unexpected error occured");
 		}
 		
@@ -47,12 +48,15 @@ public class Validator {
 	
     /**
      * Check if seat hold id, customer email and current seat holds are valid values
+     * The seat hold is read once, so a hold released by another thread meanwhile fails the validation
+     * rather than the checks after it
      * @param seatHoldId
      * @param customerEmail
      * @param currentSeatHolds
+     * @return seat hold as validated
      * @throws ApplicationException
      */
-    public static synchronized void validateSeatHoldIdEmail(int seatHoldId, String customerEmail, Map<Integer, SeatHold> currentSeatHolds) 
+    public static SeatHold validateSeatHoldIdEmail(int seatHoldId, String customerEmail, Map<Integer, SeatHold> currentSeatHolds) 
     		throws ApplicationException{
     	
     	//customer Email
@@ -62,19 +66,39 @@ public class Validator {
 		}
 		
 		//check if seat Hold expired or invalid
-		if(CommonUtil.isInvalid(currentSeatHolds) || !currentSeatHolds.containsKey(seatHoldId) 
-				|| CommonUtil.isInvalid(currentSeatHolds.get(seatHoldId).getSeatsHeld())) {
+		SeatHold seatHold = CommonUtil.isInvalid(currentSeatHolds) ? null : currentSeatHolds.get(seatHoldId);
+		if(CommonUtil.isInvalid(seatHold) || CommonUtil.isInvalid(seatHold.getSeatsHeld())) {
 			logger.error("Error occured while trying to process request : SeatHold Id does not exist");
 			throw new ApplicationException("SeatHold does not exist");
 		}
 		
-		if(!currentSeatHolds.get(seatHoldId).getCustEmailId().equalsIgnoreCase(customerEmail)) {
+		if(!seatHold.getNormalizedEmailId().equals(CommonUtil.normalizeEmail(customerEmail))) {
 			logger.error("Error occured while trying to process request : Email Id associated with seat hold is different");
 			throw new ApplicationException("Given customer email id is different from email associated with the seat hold");
 		}
-		
+		return seatHold;
 	}
     
+    /**
+     * Check if seat hold id and customer email are valid and
+     * the seat hold can be extended by the requested time
+     * @param seatHoldId
+     * @param customerEmail
+     * @param extraMillis
+     * @param currentSeatHolds
+     * @return seat hold as validated
+     * @throws ApplicationException
+     */
+    public static SeatHold validateExtendHold(int seatHoldId, String customerEmail, long extraMillis,
+    		Map<Integer, SeatHold> currentSeatHolds) throws ApplicationException {
+    	
+    	if(extraMillis <= 0) {
+    		logger.error("Error occured while trying to process request : Invalid hold extension requested");
+    		throw new ApplicationException("Invalid hold extension requested!");
+    	}
+    	
+    	return validateSeatHoldIdEmail(seatHoldId, customerEmail, currentSeatHolds);
+    }
     
     /**
      * Check if confirmation code is valid and 
@@ -83,7 +107,7 @@ public class Validator {
      * @param confirmationCode
      * @throws ApplicationException
      */
-    public static synchronized void validateReservedSeatsOrder(Venue venue, String confirmationCode) throws ApplicationException {
+    public static void validateReservedSeatsOrder(Venue venue, String confirmationCode) throws ApplicationException {
     	if( CommonUtil.isInvalid(venue) || CommonUtil.isInvalid(venue.getSeatsReserved()) || 
     	          !venue.getSeatsReserved().containsKey(confirmationCode)) {
     		 logger.error("Error occured while processing request: No seats found");
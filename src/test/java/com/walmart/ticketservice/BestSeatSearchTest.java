@@ -0,0 +1,93 @@
+package com.walmart.ticketservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.walmart.ticketservice.exception.ApplicationException;
+import com.walmart.ticketservice.model.SeatHold;
+import com.walmart.ticketservice.model.SeatRowBlock;
+import com.walmart.ticketservice.model.Venue;
+import com.walmart.ticketservice.scoring.CenterWeightedScoreFunction;
+import com.walmart.ticketservice.scoring.RowDepthDecayScoreFunction;
+import com.walmart.ticketservice.service.BestSeatSearch;
+import com.walmart.ticketservice.service.SeatSelection;
+import com.walmart.ticketservice.service.TicketServiceImpl;
+
+/**
+ * Tests for the global best seat search
+ * @author bkulkar
+ *
+ */
+public class BestSeatSearchTest {
+
+	@Test
+	public void parallelSearchMatchesSequential() {
+
+		Venue venue = new Venue(500, 30, new RowDepthDecayScoreFunction(new CenterWeightedScoreFunction(), 0.01f));
+		Random random = new Random(7);
+		List<SeatRowBlock> blocks = new ArrayList<>();
+		venue.getAvailableSeatRows().stream().sorted().forEach(seatRow -> {
+			//cut every row into blocks of random size with random gaps
+			int start = 0;
+			while (start < seatRow.getAvailableSeats()) {
+				int end = Math.min(seatRow.getAvailableSeats(), start + 1 + random.nextInt(10));
+				blocks.add(new SeatRowBlock(seatRow.getRowId(), seatRow.getSeats().subList(start, end)));
+				start = end + random.nextInt(3);
+			}
+		});
+		SeatRowBlock[] sorted = blocks.toArray(new SeatRowBlock[blocks.size()]);
+
+		for (int numSeats = 1; numSeats <= 10; numSeats++) {
+			BestSeatSearch.Window sequential = BestSeatSearch.find(venue, sorted, numSeats, Integer.MAX_VALUE);
+			BestSeatSearch.Window parallel = BestSeatSearch.find(venue, sorted, numSeats, 0);
+			assertEquals(sequential.getBlockIndex(), parallel.getBlockIndex());
+			assertEquals(sequential.getStartIndex(), parallel.getStartIndex());
+			assertEquals(sequential.getScore(), parallel.getScore(), 0.0);
+		}
+		assertNull(BestSeatSearch.find(venue, sorted, 11, 0));
+	}
+
+	@Test
+	public void toleranceOnlyBreaksTies() {
+
+		//every seat scores a little less than the one to its left, each step within the tie tolerance
+		Venue venue = new Venue(1, 20, (rowNum, seatIndex, numOfRows, seatsPerRow) -> 1f - seatIndex * 0.00004f);
+		SeatRowBlock[] blocks = venue.getAvailableSeatRows().toArray(new SeatRowBlock[1]);
+		BestSeatSearch.Window best = BestSeatSearch.find(venue, blocks, 1, Integer.MAX_VALUE);
+		assertTrue(best.getStartIndex() > 0);
+		assertTrue(best.getScore() >= venue.getSections().get(0).windowScore(0, 0, 1) - 1e-4);
+	}
+
+	@Test
+	public void globalBestPicksBetterRowBehind() {
+
+		TicketServiceImpl service = new TicketServiceImpl(new Venue(2, 5), 5000);
+		service.setSeatSelection(SeatSelection.GLOBAL_BEST);
+		service.setParallelSearchThreshold(0);
+		try {
+			//takes the middle of the front row, leaving only the aisle seats in it
+			SeatHold middle = service.findAndHoldSeats(3, "user@yahoo.com");
+			assertEquals(0, middle.getRowNum());
+
+			//the middle seat of the row behind scores higher than an aisle seat at the front
+			SeatHold single = service.findAndHoldSeats(1, "user@yahoo.com");
+			assertEquals(1, single.getRowNum());
+			assertEquals(2, single.getSeatsHeld().get(0).getId());
+			assertEquals(6, service.numSeatsAvailable());
+			assertEquals(4, service.getVenue().getAvailableSeatRows().size());
+		} catch (ApplicationException e) {
+			Assert.fail("Unexpected error occured");
+		} finally {
+			service.shutdown();
+		}
+	}
+
+}
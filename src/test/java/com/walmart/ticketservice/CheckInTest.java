@@ -0,0 +1,175 @@
+package com.walmart.ticketservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.walmart.ticketservice.checkin.CheckInMetrics;
+import com.walmart.ticketservice.checkin.CheckInService;
+import com.walmart.ticketservice.checkin.GateScan;
+import com.walmart.ticketservice.checkin.ScanResult;
+import com.walmart.ticketservice.checkin.ScanStatus;
+import com.walmart.ticketservice.common.time.VirtualTimeSource;
+import com.walmart.ticketservice.exception.ApplicationException;
+import com.walmart.ticketservice.model.Venue;
+import com.walmart.ticketservice.service.BlockHoldIdGenerator;
+import com.walmart.ticketservice.service.TicketServiceImpl;
+
+/**
+ * Tests for checking reservations in at the gates
+ * @author bkulkar
+ *
+ */
+public class CheckInTest {
+
+	private VirtualTimeSource clock;
+	private TicketServiceImpl service;
+	private CheckInService checkIn;
+
+	@Before
+	public void setUp() {
+		clock = new VirtualTimeSource(1_000_000);
+		service = new TicketServiceImpl(new Venue(20, 20), 60_000, 600_000, new BlockHoldIdGenerator(), clock);
+		checkIn = new CheckInService(service);
+	}
+
+	@After
+	public void tearDown() {
+		service.shutdown();
+	}
+
+	private List<String> reserve(int count) throws ApplicationException {
+		List<String> codes = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			String email = "fan" + i + "@yahoo.com";
+			codes.add(service.reserveSeats(service.findAndHoldSeats(2, email).getSeatHoldId(), email));
+		}
+		return codes;
+	}
+
+	@Test
+	public void ticketIsAdmittedOnce() throws ApplicationException {
+		String code = reserve(1).get(0);
+
+		ScanResult first = checkIn.scan(code, 3);
+		assertEquals(ScanStatus.ADMITTED, first.getStatus());
+		assertEquals(2, first.getSeats().size());
+		assertTrue(checkIn.isCheckedIn(code));
+
+		clock.advance(5_000);
+		ScanResult again = checkIn.scan(code, 7);
+		assertEquals(ScanStatus.DUPLICATE, again.getStatus());
+		assertEquals(3, again.getCheckedInGate());
+		assertEquals(1_000_000, again.getCheckedInMillis());
+
+		assertEquals(ScanStatus.UNKNOWN, checkIn.scan("NOSUCHCODE", 3).getStatus());
+		assertEquals(ScanStatus.UNKNOWN, checkIn.scan(null, 3).getStatus());
+		assertFalse(checkIn.isCheckedIn("NOSUCHCODE"));
+	}
+
+	@Test
+	public void concurrentScansAdmitEveryTicketOnce() throws Exception {
+		List<String> codes = reserve(100);
+		int gates = 8;
+		AtomicInteger admitted = new AtomicInteger();
+		AtomicInteger duplicates = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(gates);
+		for (int gate = 0; gate < gates; gate++) {
+			int gateId = gate;
+			executor.submit(() -> {
+				List<String> shuffled = new ArrayList<>(codes);
+				Collections.shuffle(shuffled);
+				for (String code : shuffled) {
+					if (checkIn.scan(code, gateId).getStatus() == ScanStatus.ADMITTED) {
+						admitted.incrementAndGet();
+					} else {
+						duplicates.incrementAndGet();
+					}
+				}
+			});
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+		assertEquals(100, admitted.get());
+		assertEquals(700, duplicates.get());
+		assertEquals(100, checkIn.getMetrics().getAdmitted());
+		assertEquals(700, checkIn.getMetrics().getDuplicates());
+	}
+
+	@Test
+	public void offlineScansAreAppliedInScanOrder() throws ApplicationException {
+		List<String> codes = reserve(2);
+		clock.advance(60_000);
+		ScanResult live = checkIn.scan(codes.get(1), 1);
+		assertEquals(ScanStatus.ADMITTED, live.getStatus());
+
+		//a device that was offline uploads its scans, the second one made before the live scan
+		List<ScanResult> results = checkIn.scanBatch(Arrays.asList(
+				new GateScan(codes.get(0), 2, 1_030_000),
+				new GateScan(codes.get(1), 2, 1_020_000),
+				new GateScan(codes.get(0), 2, 1_010_000),
+				new GateScan("NOSUCHCODE", 2, 1_010_000)));
+
+		assertEquals(ScanStatus.DUPLICATE, results.get(0).getStatus());
+		assertEquals(1_010_000, results.get(0).getCheckedInMillis());
+		assertEquals(ScanStatus.SUPERSEDED, results.get(1).getStatus());
+		assertEquals(1_020_000, results.get(1).getCheckedInMillis());
+		assertEquals(ScanStatus.ADMITTED, results.get(2).getStatus());
+		assertEquals(ScanStatus.UNKNOWN, results.get(3).getStatus());
+
+		//the earlier offline scan is now the check-in
+		ScanResult again = checkIn.scan(codes.get(1), 1);
+		assertEquals(2, again.getCheckedInGate());
+		assertEquals(1_020_000, again.getCheckedInMillis());
+
+		CheckInMetrics metrics = checkIn.getMetrics();
+		assertEquals(2, metrics.getAdmitted());
+		assertEquals(2, metrics.getDuplicates());
+		assertEquals(1, metrics.getSuperseded());
+		assertEquals(1, metrics.getUnknown());
+		assertEquals(6, metrics.getScans());
+	}
+
+	@Test
+	public void scanRateAndDuplicates() throws ApplicationException {
+		String code = reserve(1).get(0);
+		CheckInMetrics metrics = checkIn.getMetrics();
+		for (int second = 0; second < 10; second++) {
+			for (int i = 0; i < 50; i++) {
+				checkIn.scan(i == 0 ? code : "NOSUCHCODE", 1);
+			}
+			clock.advance(1_000);
+		}
+		assertEquals(50.0, metrics.getScansPerSecond(10), 0.001);
+		assertEquals(25.0, metrics.getScansPerSecond(20), 0.001);
+		assertEquals(9.0 / 500, metrics.getDuplicateRate(), 0.0001);
+
+		//buckets of a minute ago are not counted again
+		clock.advance(59_000);
+		checkIn.scan(code, 1);
+		clock.advance(1_000);
+		assertEquals(1.0, metrics.getScansPerSecond(1), 0.001);
+		assertEquals(1.0 / 59, metrics.getScansPerSecond(59), 0.001);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void gateIdMustFitTheStateWord() {
+		checkIn.scan("NOSUCHCODE", CheckInService.MAX_GATE + 1);
+	}
+
+}
@@ -0,0 +1,73 @@
+package com.walmart.ticketservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import com.walmart.ticketservice.common.utils.CommonUtil;
+import com.walmart.ticketservice.common.utils.LogSampler;
+
+/**
+ * Tests for common utilities
+ * @author bkulkar
+ *
+ */
+public class CommonUtilTest {
+
+	private static final Pattern EMAIL_PATTERN = Pattern
+			.compile("^[\\w-\\+]+(\\.[\\w]+)*@[\\w-]+(\\.[\\w]+)*(\\.[a-z]{2,})$");
+	private static final String EMAIL_CHARS = "aZ9_-+.@.@xyCOM";
+
+	@Test
+	public void validEmails() {
+		assertTrue(CommonUtil.isValidEmailFormat("user@yahoo.com"));
+		assertTrue(CommonUtil.isValidEmailFormat("first+tag.last@mail-server.co.uk"));
+		assertFalse(CommonUtil.isValidEmailFormat("user@.com"));
+		assertFalse(CommonUtil.isValidEmailFormat("user@yahoo.COM"));
+		assertFalse(CommonUtil.isValidEmailFormat("user@yahoo"));
+		assertFalse(CommonUtil.isValidEmailFormat(""));
+		assertFalse(CommonUtil.isValidEmailFormat(null));
+	}
+
+	@Test
+	public void emailScannerMatchesRegex() {
+		Random random = new Random(7);
+		for (int i = 0; i < 200000; i++) {
+			char[] email = new char[1 + random.nextInt(12)];
+			for (int c = 0; c < email.length; c++) {
+				email[c] = EMAIL_CHARS.charAt(random.nextInt(EMAIL_CHARS.length()));
+			}
+			String candidate = new String(email);
+			assertEquals(candidate, EMAIL_PATTERN.matcher(candidate).matches(), CommonUtil.isValidEmailFormat(candidate));
+		}
+	}
+
+	@Test
+	public void normalizeEmail() {
+		String lowerCase = "user@yahoo.com";
+		assertSame(lowerCase, CommonUtil.normalizeEmail(lowerCase));
+		assertEquals(lowerCase, CommonUtil.normalizeEmail("User@Yahoo.com"));
+	}
+
+	@Test
+	public void logSampling() {
+		for (int i = 0; i < 100; i++) {
+			assertTrue(LogSampler.ALL.sample());
+		}
+		LogSampler sampler = new LogSampler(10);
+		int sampled = 0;
+		for (int i = 0; i < 100000; i++) {
+			if (sampler.sample()) {
+				sampled++;
+			}
+		}
+		assertTrue(sampled > 9000 && sampled < 11000);
+	}
+
+}
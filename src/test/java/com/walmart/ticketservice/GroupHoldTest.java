@@ -0,0 +1,140 @@
+package com.walmart.ticketservice;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.walmart.ticketservice.exception.ApplicationException;
+import com.walmart.ticketservice.model.Seat;
+import com.walmart.ticketservice.model.SeatHold;
+import com.walmart.ticketservice.model.SeatMapSnapshot;
+import com.walmart.ticketservice.model.Section;
+import com.walmart.ticketservice.model.Venue;
+import com.walmart.ticketservice.replication.LoopbackTransport;
+import com.walmart.ticketservice.replication.ReplicationFollower;
+import com.walmart.ticketservice.replication.ReplicationLeader;
+import com.walmart.ticketservice.scoring.CenterWeightedScoreFunction;
+import com.walmart.ticketservice.service.GroupSeatSearch;
+import com.walmart.ticketservice.service.TicketServiceImpl;
+
+/**
+ * Tests for holds of groups across consecutive rows
+ * @author bkulkar
+ *
+ */
+public class GroupHoldTest {
+
+	/**
+	 * @param seats
+	 * @param rowNum
+	 * @return number of the seats in the row
+	 */
+	private static long seatsInRow(List<Seat> seats, int rowNum) {
+		return seats.stream().filter(seat -> seat.getRowNum() == rowNum).count();
+	}
+
+	@Test
+	public void regionWithFewestRows() {
+		Section section = new Section(Venue.DEFAULT_SECTION, 0, 0, 6, 8, new CenterWeightedScoreFunction());
+		Venue venue = new Venue(Collections.singletonList(section));
+		//front two rows taken in the middle, so a 3 row region of 7 seats fits only from row 2
+		SeatMapSnapshot seatMap = SeatMapSnapshot.allAvailable(venue).withSeats(0, 3, 4, false).withSeats(1, 4, 4, false);
+
+		GroupSeatSearch.Region region = GroupSeatSearch.find(seatMap, venue.getSections(), 20);
+		assertEquals(2, region.getFirstRow());
+		assertEquals(3, region.getNumRows());
+		assertEquals(7, region.getWidth());
+		assertEquals(6, region.getSeatsInRow(2));
+
+		//a group of 3 fits in the front row, left of the taken seats
+		region = GroupSeatSearch.find(seatMap, venue.getSections(), 3);
+		assertEquals(0, region.getFirstRow());
+		assertEquals(1, region.getNumRows());
+		assertEquals(0, region.getFirstSeat());
+
+		assertNull(GroupSeatSearch.find(seatMap, venue.getSections(), 6 * 8));
+	}
+
+	@Test
+	public void regionIsTakenWholeOrNotAtAll() {
+		Section section = new Section(Venue.DEFAULT_SECTION, 0, 0, 4, 8, new CenterWeightedScoreFunction());
+		assertEquals(3, section.takeSeats(2, 5, 3).size());
+
+		//the back row of the region is taken, so none of its rows is
+		assertNull(section.takeSeats(0, 2, new int[] { 4, 4, 4 }));
+		assertEquals(29, section.getAvailableSeats());
+		assertEquals(4, section.copyAvailableSeatRows().size());
+
+		List<List<Seat>> taken = section.takeSeats(0, 1, new int[] { 4, 4, 4 });
+		assertEquals(3, taken.size());
+		assertEquals(1, taken.get(2).get(0).getId());
+		assertEquals(2, taken.get(2).get(0).getRowNum());
+		assertEquals(17, section.getAvailableSeats());
+	}
+
+	@Test
+	public void holdGroupLargerThanARow() {
+		TicketServiceImpl service = new TicketServiceImpl(new Venue(10, 8), 5000);
+		try {
+			SeatHold single = service.findAndHoldSeats(2, "user@yahoo.com");
+			assertEquals(0, single.getRowNum());
+
+			SeatHold group = service.findAndHoldGroupSeats(20, "group@yahoo.com");
+			assertEquals(1, group.getRowNum());
+			assertEquals(20, group.getSeatsHeld().size());
+			assertEquals(7, seatsInRow(group.getSeatsHeld(), 1));
+			assertEquals(7, seatsInRow(group.getSeatsHeld(), 2));
+			assertEquals(6, seatsInRow(group.getSeatsHeld(), 3));
+			assertEquals(80 - 22, service.numSeatsAvailable());
+			assertEquals(80 - 22, service.getSeatMap().getAvailableSeats());
+
+			String confirmationCode = service.reserveSeats(group.getSeatHoldId(), "group@yahoo.com");
+			assertEquals(20, service.getReservedSeats(confirmationCode).size());
+			service.cancelReservations(Collections.singletonList(confirmationCode));
+			service.releaseHolds(Collections.singletonList(single.getSeatHoldId()));
+			assertEquals(80, service.numSeatsAvailable());
+			assertEquals(10, service.getVenue().getAvailableSeatRows().size());
+
+			assertNull(service.findAndHoldGroupSeats(81, "group@yahoo.com"));
+		} catch (ApplicationException e) {
+			Assert.fail("Unexpected error occured");
+		} finally {
+			service.shutdown();
+		}
+	}
+
+	@Test
+	public void followersReplicateGroupHolds() {
+		LoopbackTransport transport = new LoopbackTransport();
+		TicketServiceImpl leader = new TicketServiceImpl(new Venue(10, 8), 5000);
+		leader.setReplicationLeader(new ReplicationLeader(transport));
+		ReplicationFollower follower = new ReplicationFollower(new Venue(10, 8), transport);
+		try {
+			SeatHold released = leader.findAndHoldGroupSeats(12, "group@yahoo.com");
+			SeatHold reserved = leader.findAndHoldGroupSeats(30, "group@yahoo.com");
+			String confirmationCode = leader.reserveSeats(reserved.getSeatHoldId(), "group@yahoo.com");
+			assertEquals(30, follower.getReservedSeats(confirmationCode).size());
+
+			leader.releaseHolds(Arrays.asList(released.getSeatHoldId()));
+			assertEquals(80 - 30, follower.numSeatsAvailable());
+			leader.cancelReservations(Collections.singletonList(confirmationCode));
+			assertEquals(80, follower.numSeatsAvailable());
+			for (int row = 0; row < 10; row++) {
+				assertArrayEquals(leader.getSeatMap().getRow(row).getBitmap(), follower.getSeatMap().getRow(row).getBitmap());
+			}
+			assertEquals(10, follower.getVenue().getAvailableSeatRows().size());
+		} catch (ApplicationException e) {
+			Assert.fail("Unexpected error occured");
+		} finally {
+			leader.shutdown();
+		}
+	}
+
+}
@@ -0,0 +1,87 @@
+package com.walmart.ticketservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.walmart.ticketservice.service.BlockHoldIdGenerator;
+import com.walmart.ticketservice.service.FileHoldIdStore;
+import com.walmart.ticketservice.service.HoldIdStore;
+
+/**
+ * Tests for seat hold id generation
+ * @author bkulkar
+ *
+ */
+public class HoldIdGeneratorTest {
+
+	@Test
+	public void idsAreUniqueAcrossThreads() throws InterruptedException {
+
+		AtomicInteger stores = new AtomicInteger();
+		HoldIdStore store = new HoldIdStore() {
+			@Override
+			public long load() {
+				return 0;
+			}
+
+			@Override
+			public void store(long highWaterMark) {
+				stores.incrementAndGet();
+			}
+		};
+		BlockHoldIdGenerator generator = new BlockHoldIdGenerator(store, 16, 64);
+		Set<Integer> ids = ConcurrentHashMap.newKeySet();
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			threads.add(new Thread(() -> {
+				for (int i = 0; i < 10000; i++) {
+					int id = generator.nextId();
+					assertTrue(id > 0 && id < generator.getStoredLimit());
+					ids.add(id);
+				}
+			}));
+		}
+		threads.forEach(Thread::start);
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(80000, ids.size());
+		//one store per 64 blocks of 16 ids
+		assertTrue(stores.get() <= 80000 / (16 * 64) + 8 + 1);
+	}
+
+	@Test
+	public void idsStayUniqueAcrossRestarts() throws IOException {
+
+		Path file = Files.createTempFile("holdIds", ".hwm");
+		try {
+			BlockHoldIdGenerator beforeRestart = new BlockHoldIdGenerator(new FileHoldIdStore(file), 8, 4);
+			int highest = 0;
+			for (int i = 0; i < 100; i++) {
+				highest = Math.max(highest, beforeRestart.nextId());
+			}
+
+			long highWaterMark = new FileHoldIdStore(file).load();
+			assertTrue(highWaterMark > highest);
+
+			BlockHoldIdGenerator afterRestart = new BlockHoldIdGenerator(new FileHoldIdStore(file), 8, 4);
+			int first = afterRestart.nextId();
+			assertEquals(highWaterMark, first);
+			assertTrue(new FileHoldIdStore(file).load() > first);
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+}
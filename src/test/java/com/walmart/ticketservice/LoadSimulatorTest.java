@@ -0,0 +1,31 @@
+package com.walmart.ticketservice;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.walmart.ticketservice.simulation.LoadSimulator;
+import com.walmart.ticketservice.simulation.SimulationConfig;
+import com.walmart.ticketservice.simulation.SimulationReport;
+
+/**
+ * Short concurrent on-sale simulation against the ticket service
+ * @author bkulkar
+ *
+ */
+public class LoadSimulatorTest {
+
+	@Test
+	public void concurrentOnSaleKeepsInvariants() throws InterruptedException {
+		SimulationConfig config = SimulationConfig.fromArgs(new String[] { "rows=20", "seatsPerRow=20",
+				"durationMillis=1500", "arrivalRate=400", "concurrency=16", "holdTimeoutMillis=500",
+				"checkoutMillis=50", "reportIntervalMillis=500" });
+
+		SimulationReport report = new LoadSimulator(config).run();
+
+		assertTrue(report.getViolations().toString(), report.isInvariantsHeld());
+		assertTrue(report.getSeatHolds() > 0);
+		assertTrue(report.getSeatsReserved() > 0);
+	}
+
+}
@@ -0,0 +1,210 @@
+package com.walmart.ticketservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.walmart.ticketservice.exception.ApplicationException;
+import com.walmart.ticketservice.model.Seat;
+import com.walmart.ticketservice.model.SeatHold;
+import com.walmart.ticketservice.model.Venue;
+import com.walmart.ticketservice.service.TicketServiceImpl;
+import com.walmart.ticketservice.storage.OffHeapLongIntMap;
+import com.walmart.ticketservice.storage.OffHeapReservationMap;
+
+/**
+ * Tests for off-heap reservation storage
+ * @author bkulkar
+ *
+ */
+public class OffHeapReservationMapTest {
+
+	private static List<Seat> seats(int rowNum, int firstSeat, int numSeats) {
+		List<Seat> seats = new ArrayList<>();
+		for (int i = 0; i < numSeats; i++) {
+			seats.add(new Seat(firstSeat + i, 0, rowNum));
+		}
+		return seats;
+	}
+
+	@Test
+	public void storesReservationsAsSeatRanges() {
+
+		Venue venue = new Venue(100, 20);
+		OffHeapReservationMap reservations = new OffHeapReservationMap(venue);
+		for (int i = 0; i < 10000; i++) {
+			reservations.put(String.format("C%07d", i), seats(i % 100, i % 17, 3));
+		}
+		assertEquals(10000, reservations.size());
+
+		List<Seat> seats = reservations.get("C0000042");
+		assertEquals(3, seats.size());
+		assertEquals(42, seats.get(0).getRowNum());
+		assertEquals(42 % 17 + 2, seats.get(2).getId());
+		assertEquals(venue.getSectionForRow(42).getScore(42, 42 % 17), seats.get(0).getScore(), 0.0f);
+		assertNull(reservations.get("UNKNOWN"));
+		assertNull(reservations.get("MUCH TOO LONG"));
+
+		long reservedBytes = reservations.getReservedBytes();
+		for (int round = 0; round < 3; round++) {
+			for (int i = 0; i < 10000; i += 2) {
+				assertEquals(round == 0 ? 3 : 1, reservations.remove(String.format("C%07d", i)).size());
+			}
+			for (int i = 0; i < 10000; i += 2) {
+				reservations.put(String.format("C%07d", i), seats(i % 100, 0, 1));
+			}
+		}
+		//freed records are reused
+		assertEquals(reservedBytes, reservations.getReservedBytes());
+		assertEquals(10000, reservations.size());
+		assertEquals(10000, reservations.entrySet().size());
+		assertTrue(reservations.containsKey("C0009999"));
+
+		try {
+			reservations.put("C1", Arrays.asList(new Seat(3, 0, 1), new Seat(1, 0, 1)));
+			Assert.fail("Exception expected");
+		} catch (IllegalArgumentException e) {
+			//seats are not in order
+		}
+	}
+
+	@Test
+	public void storesReservationsAcrossRows() {
+
+		Venue venue = new Venue(10, 10);
+		OffHeapReservationMap reservations = new OffHeapReservationMap(venue);
+		List<Seat> group = new ArrayList<>(seats(2, 3, 3));
+		group.addAll(seats(3, 3, 3));
+		group.addAll(seats(4, 3, 2));
+		reservations.put("GROUP", group);
+		reservations.put("GAP", Arrays.asList(new Seat(1, 0, 1), new Seat(3, 0, 1)));
+
+		List<Seat> seats = reservations.get("GROUP");
+		assertEquals(8, seats.size());
+		for (int i = 0; i < group.size(); i++) {
+			assertEquals(group.get(i).getRowNum(), seats.get(i).getRowNum());
+			assertEquals(group.get(i).getId(), seats.get(i).getId());
+		}
+		assertEquals(2, reservations.get("GAP").size());
+		assertEquals(3, reservations.get("GAP").get(1).getId());
+
+		//replacing and removing a reservation frees all of its records
+		long reservedBytes = reservations.getReservedBytes();
+		for (int i = 0; i < 10000; i++) {
+			reservations.put("GROUP", group);
+		}
+		assertEquals(8, reservations.remove("GROUP").size());
+		assertEquals(reservedBytes, reservations.getReservedBytes());
+		assertNull(reservations.get("GROUP"));
+		assertEquals(1, reservations.size());
+	}
+
+	@Test
+	public void groupHoldReservedOffHeap() throws ApplicationException {
+
+		Venue venue = new Venue(5, 4);
+		venue.setSeatsReserved(new OffHeapReservationMap(venue));
+		TicketServiceImpl service = new TicketServiceImpl(venue, 5000);
+		try {
+			SeatHold seatHold = service.findAndHoldGroupSeats(8, "user@yahoo.com");
+			String confirmationCode = service.reserveSeats(seatHold.getSeatHoldId(), "user@yahoo.com");
+			assertEquals(8, service.getReservedSeats(confirmationCode).size());
+			assertEquals(12, service.numSeatsAvailable());
+
+			assertEquals(1, service.cancelReservations(Arrays.asList(confirmationCode)));
+			assertEquals(20, service.numSeatsAvailable());
+		} finally {
+			service.shutdown();
+		}
+	}
+
+	@Test
+	public void failedStoreKeepsTheHold() throws ApplicationException {
+
+		Venue venue = new Venue(3, 5);
+		venue.setSeatsReserved(new HashMap<String, List<Seat>>() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public List<Seat> put(String confirmationCode, List<Seat> seats) {
+				throw new IllegalStateException("Store is full");
+			}
+		});
+		TicketServiceImpl service = new TicketServiceImpl(venue, 5000);
+		try {
+			SeatHold seatHold = service.findAndHoldSeats(3, "user@yahoo.com");
+			try {
+				service.reserveSeats(seatHold.getSeatHoldId(), "user@yahoo.com");
+				Assert.fail("Exception expected");
+			} catch (ApplicationException e) {
+				//store failed
+			}
+			assertTrue(service.getCurrentSeatHolds().containsKey(seatHold.getSeatHoldId()));
+			assertTrue(service.getReservationsForCustomer("user@yahoo.com").isEmpty());
+			assertEquals(12, service.numSeatsAvailable());
+
+			assertEquals(1, service.releaseHolds(Arrays.asList(seatHold.getSeatHoldId())));
+			assertEquals(15, service.numSeatsAvailable());
+		} finally {
+			service.shutdown();
+		}
+	}
+
+	@Test
+	public void longIntMapMatchesHashMap() {
+
+		OffHeapLongIntMap map = new OffHeapLongIntMap(4);
+		Map<Long, Integer> expected = new HashMap<>();
+		Random random = new Random(3);
+		for (int i = 0; i < 200000; i++) {
+			long key = 1 + random.nextInt(5000);
+			if (random.nextBoolean()) {
+				assertEquals(expected.put(key, i) == null, map.put(key, i));
+			} else {
+				Integer removed = expected.remove(key);
+				assertEquals(removed == null ? -1 : removed, map.remove(key, -1));
+			}
+		}
+		assertEquals(expected.size(), map.size());
+		for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+			assertEquals((int) entry.getValue(), map.get(entry.getKey(), -1));
+		}
+		map.forEach((key, value) -> assertEquals((int) expected.get(key), value));
+	}
+
+	@Test
+	public void ticketServiceWithOffHeapReservations() {
+
+		Venue venue = new Venue(3, 5);
+		venue.setSeatsReserved(new OffHeapReservationMap(venue));
+		TicketServiceImpl service = new TicketServiceImpl(venue, 5000);
+		try {
+			SeatHold seatHold = service.findAndHoldSeats(3, "user@yahoo.com");
+			String confirmationCode = service.reserveSeats(seatHold.getSeatHoldId(), "user@yahoo.com");
+			List<Seat> reserved = service.getReservedSeats(confirmationCode);
+			assertEquals(seatHold.getSeatsHeld().get(0).getId(), reserved.get(0).getId());
+			assertEquals(3, reserved.size());
+
+			assertEquals(1, service.cancelReservations(Arrays.asList(confirmationCode)));
+			assertFalse(venue.getSeatsReserved().containsKey(confirmationCode));
+			assertEquals(15, service.numSeatsAvailable());
+			assertEquals(3, venue.getAvailableSeatRows().size());
+		} catch (ApplicationException e) {
+			Assert.fail("Unexpected error occured");
+		} finally {
+			service.shutdown();
+		}
+	}
+
+}
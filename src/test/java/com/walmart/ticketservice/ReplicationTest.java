@@ -0,0 +1,163 @@
+package com.walmart.ticketservice;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.walmart.ticketservice.exception.ApplicationException;
+import com.walmart.ticketservice.model.SeatHold;
+import com.walmart.ticketservice.model.SeatMapSnapshot;
+import com.walmart.ticketservice.model.Venue;
+import com.walmart.ticketservice.replication.LoopbackTransport;
+import com.walmart.ticketservice.replication.ReplicationCommand;
+import com.walmart.ticketservice.replication.ReplicationFollower;
+import com.walmart.ticketservice.replication.ReplicationLeader;
+import com.walmart.ticketservice.service.TicketServiceImpl;
+
+/**
+ * Tests for followers replicating a leader
+ * @author bkulkar
+ *
+ */
+public class ReplicationTest {
+
+	private static void assertSameSeats(TicketServiceImpl leader, ReplicationFollower follower) {
+		assertEquals(leader.numSeatsAvailable(), follower.numSeatsAvailable());
+		SeatMapSnapshot leaderMap = leader.getSeatMap();
+		SeatMapSnapshot followerMap = follower.getSeatMap();
+		for (int row = 0; row < leaderMap.getNumOfRows(); row++) {
+			assertArrayEquals(leaderMap.getRow(row).getBitmap(), followerMap.getRow(row).getBitmap());
+		}
+		assertEquals(leader.getVenue().getAvailableSeatRows().size(), follower.getVenue().getAvailableSeatRows().size());
+	}
+
+	@Test
+	public void followersApplyLeaderCommands() {
+
+		LoopbackTransport transport = new LoopbackTransport();
+		TicketServiceImpl leader = new TicketServiceImpl(new Venue(10, 12), 1000);
+		leader.setReplicationLeader(new ReplicationLeader(transport));
+		ReplicationFollower first = new ReplicationFollower(new Venue(10, 12), transport);
+		ReplicationFollower second = new ReplicationFollower(new Venue(10, 12), transport);
+
+		Random random = new Random(3);
+		List<String> confirmationCodes = new ArrayList<>();
+		try {
+			for (int i = 0; i < 200 && leader.numSeatsAvailable() > 0; i++) {
+				String email = "customer" + i + "@yahoo.com";
+				SeatHold seatHold = leader.findAndHoldSeats(1 + random.nextInt(4), email);
+				if (seatHold == null) {
+					continue;
+				}
+				switch (random.nextInt(4)) {
+				case 0:
+					confirmationCodes.add(leader.reserveSeats(seatHold.getSeatHoldId(), email));
+					break;
+				case 1:
+					leader.releaseHolds(Collections.singletonList(seatHold.getSeatHoldId()));
+					break;
+				case 2:
+					if (!confirmationCodes.isEmpty()) {
+						leader.cancelReservations(Collections.singletonList(confirmationCodes.remove(0)));
+					}
+					break;
+				default:
+					//left to expire
+				}
+			}
+			assertSameSeats(leader, first);
+			assertEquals(leader.getReplicationLeader().getLastSequence(), second.getAppliedSequence());
+
+			String confirmationCode = confirmationCodes.get(confirmationCodes.size() - 1);
+			assertEquals(leader.getReservedSeats(confirmationCode).get(0).getId(), second.getReservedSeats(confirmationCode).get(0).getId());
+
+			//holds left expire on the leader and on the followers
+			TimeUnit.MILLISECONDS.sleep(leader.getHoldTimeout() + 1500);
+			assertEquals(0, leader.getCurrentSeatHolds().size());
+			assertSameSeats(leader, first);
+			assertSameSeats(leader, second);
+		} catch (ApplicationException | InterruptedException e) {
+			Assert.fail("Unexpected error occured");
+		} finally {
+			leader.shutdown();
+		}
+	}
+
+	@Test
+	public void commandsAppliedInSequenceOrder() {
+
+		List<ReplicationCommand> commands = new ArrayList<>();
+		TicketServiceImpl leader = new TicketServiceImpl(new Venue(2, 6), 5000);
+		leader.setReplicationLeader(new ReplicationLeader(new LoopbackTransport() {
+			@Override
+			public void send(ReplicationCommand command) {
+				commands.add(command);
+			}
+		}));
+		try {
+			SeatHold reserved = leader.findAndHoldSeats(3, "user@yahoo.com");
+			SeatHold released = leader.findAndHoldSeats(2, "user@yahoo.com");
+			String confirmationCode = leader.reserveSeats(reserved.getSeatHoldId(), "user@yahoo.com");
+			leader.releaseHolds(Arrays.asList(released.getSeatHoldId()));
+			leader.findAndHoldSeats(6, "user@yahoo.com");
+			assertEquals(5, commands.size());
+
+			//delivered backwards and twice
+			ReplicationFollower follower = new ReplicationFollower(new Venue(2, 6));
+			Collections.reverse(commands);
+			for (ReplicationCommand command : commands) {
+				follower.receive(command);
+				follower.receive(command);
+			}
+			assertEquals(5, follower.getAppliedSequence());
+			assertEquals(0, follower.getPendingCommands());
+			assertSameSeats(leader, follower);
+			assertNotNull(follower.getReservedSeats(confirmationCode));
+			assertNull(follower.getSeatsHeld(released.getSeatHoldId()));
+		} catch (ApplicationException e) {
+			Assert.fail("Unexpected error occured");
+		} finally {
+			leader.shutdown();
+		}
+	}
+
+	@Test
+	public void divergedFollowerDoesNotFailTheLeader() throws ApplicationException {
+
+		LoopbackTransport transport = new LoopbackTransport();
+		TicketServiceImpl leader = new TicketServiceImpl(new Venue(2, 6), 5000);
+		leader.setReplicationLeader(new ReplicationLeader(transport));
+		ReplicationFollower follower = new ReplicationFollower(new Venue(2, 6), transport);
+		//the front row is taken on the follower only
+		follower.getVenue().getSections().get(0).takeSeats(0, 0, 6);
+		try {
+			SeatHold first = leader.findAndHoldSeats(3, "user@yahoo.com");
+			assertEquals(0, first.getRowNum());
+			assertTrue(follower.isDiverged());
+			assertEquals(0, follower.getAppliedSequence());
+			assertEquals(1, follower.getPendingCommands());
+
+			//later commands are neither applied nor buffered
+			assertNotNull(leader.reserveSeats(first.getSeatHoldId(), "user@yahoo.com"));
+			leader.findAndHoldSeats(2, "user@yahoo.com");
+			assertEquals(0, follower.getAppliedSequence());
+			assertEquals(1, follower.getPendingCommands());
+			assertEquals(7, leader.numSeatsAvailable());
+		} finally {
+			leader.shutdown();
+		}
+	}
+
+}
@@ -0,0 +1,132 @@
+package com.walmart.ticketservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.walmart.ticketservice.exception.ApplicationException;
+import com.walmart.ticketservice.model.Seat;
+import com.walmart.ticketservice.model.SeatHold;
+import com.walmart.ticketservice.model.Venue;
+import com.walmart.ticketservice.service.TicketServiceImpl;
+import com.walmart.ticketservice.storage.ReservationCache;
+
+/**
+ * Tests for the cache of reservations looked up by confirmation code
+ * @author bkulkar
+ *
+ */
+public class ReservationCacheTest {
+
+	@Test
+	public void leastRecentlyUsedReservationsAreEvicted() {
+		ReservationCache cache = new ReservationCache(16 * 4);
+		AtomicInteger loads = new AtomicInteger();
+		List<Seat> seats = Collections.singletonList(new Seat(0, 0, 0));
+		for (int i = 0; i < 1000; i++) {
+			cache.get("C" + i, code -> {
+				loads.incrementAndGet();
+				return seats;
+			});
+		}
+		assertTrue(cache.size() <= 64);
+		assertEquals(1000 - cache.size(), cache.getEvictions());
+
+		//the most recent reservation is still cached, the first one is not
+		cache.get("C999", code -> null);
+		cache.get("C0", code -> {
+			loads.incrementAndGet();
+			return seats;
+		});
+		assertEquals(1001, loads.get());
+		assertEquals(1, cache.getHits());
+		assertEquals(1001, cache.getMisses());
+
+		assertNull(cache.get("UNKNOWN", code -> null));
+		assertNull(cache.get("UNKNOWN", code -> null));
+		assertEquals(1003, cache.getMisses());
+	}
+
+	@Test
+	public void lookupsReadThroughAndCancellationsInvalidate() {
+		TicketServiceImpl service = new TicketServiceImpl(new Venue(10, 10), 5000);
+		try {
+			SeatHold seatHold = service.findAndHoldSeats(3, "user@yahoo.com");
+			String confirmationCode = service.reserveSeats(seatHold.getSeatHoldId(), "user@yahoo.com");
+			List<Seat> seats = service.getReservedSeats(confirmationCode);
+			for (int i = 0; i < 9; i++) {
+				assertSame(seats, service.getReservedSeats(confirmationCode));
+			}
+			assertEquals(0.9, service.getReservationCache().getHitRate(), 1e-9);
+
+			service.cancelReservations(Collections.singletonList(confirmationCode));
+			try {
+				service.getReservedSeats(confirmationCode);
+				Assert.fail("Exception expected");
+			} catch (ApplicationException e) {
+				//cancelled
+			}
+			assertEquals(0, service.getReservationCache().size());
+		} catch (ApplicationException e) {
+			Assert.fail("Unexpected error occured");
+		} finally {
+			service.shutdown();
+		}
+	}
+
+	@Test
+	public void concurrentLookupsNeverSeeCancelledReservations() throws InterruptedException, ApplicationException {
+		TicketServiceImpl service = new TicketServiceImpl(new Venue(50, 20), 5000);
+		List<String> confirmationCodes = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			SeatHold seatHold = service.findAndHoldSeats(2, "user@yahoo.com");
+			confirmationCodes.add(service.reserveSeats(seatHold.getSeatHoldId(), "user@yahoo.com"));
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		for (int thread = 0; thread < 3; thread++) {
+			executor.submit(() -> {
+				for (int round = 0; round < 50; round++) {
+					for (String confirmationCode : confirmationCodes) {
+						try {
+							service.getReservedSeats(confirmationCode);
+						} catch (ApplicationException e) {
+							//cancelled in the meantime
+						}
+					}
+				}
+			});
+		}
+		executor.submit(() -> {
+			for (int i = 0; i < confirmationCodes.size(); i += 2) {
+				service.cancelReservations(Collections.singletonList(confirmationCodes.get(i)));
+			}
+		});
+		executor.shutdown();
+		executor.awaitTermination(60, TimeUnit.SECONDS);
+		service.shutdown();
+
+		for (int i = 0; i < confirmationCodes.size(); i++) {
+			try {
+				service.getReservedSeats(confirmationCodes.get(i));
+				assertEquals(1, i % 2);
+			} catch (ApplicationException e) {
+				assertEquals(0, i % 2);
+			}
+		}
+		assertTrue(service.getReservationCache().getHitRate() > 0.5);
+	}
+
+}
@@ -0,0 +1,129 @@
+package com.walmart.ticketservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.walmart.ticketservice.exception.ApplicationException;
+import com.walmart.ticketservice.model.Seat;
+import com.walmart.ticketservice.model.SeatAttribute;
+import com.walmart.ticketservice.model.SeatHold;
+import com.walmart.ticketservice.model.Section;
+import com.walmart.ticketservice.model.Venue;
+import com.walmart.ticketservice.service.TicketServiceImpl;
+
+/**
+ * Tests for holds of seats with attributes
+ * @author bkulkar
+ *
+ */
+public class SeatAttributeTest {
+
+	private static final Set<SeatAttribute> NONE = EnumSet.noneOf(SeatAttribute.class);
+
+	/**
+	 * 6 rows of 10 seats, wheelchair positions with companion seats at seats 0 to 3 of rows 2 and 4,
+	 * and the restricted view of the whole first row
+	 * @return venue
+	 */
+	private static Venue venue() {
+		Venue venue = new Venue(6, 10);
+		for (int rowNum : new int[] { 2, 4 }) {
+			venue.markSeats(SeatAttribute.ACCESSIBLE, rowNum, 0, 1);
+			venue.markSeats(SeatAttribute.COMPANION, rowNum, 0, 3);
+		}
+		venue.markSeats(SeatAttribute.RESTRICTED_VIEW, 0, 0, 9);
+		return venue;
+	}
+
+	@Test
+	public void attributeBitmaps() {
+		Section section = venue().getSections().get(0);
+		assertEquals(SeatAttribute.ACCESSIBLE.getMask() | SeatAttribute.COMPANION.getMask(), section.getSeatAttributes(2, 1));
+		assertEquals(SeatAttribute.COMPANION.getMask(), section.getSeatAttributes(2, 3));
+		assertEquals(0, section.getSeatAttributes(3, 0));
+		assertEquals(0b1100L, section.matchingSeats(2, SeatAttribute.COMPANION.getMask(), SeatAttribute.ACCESSIBLE.getMask())[0]);
+
+		try {
+			section.markSeats(SeatAttribute.AISLE, 6, 0, 0);
+			Assert.fail("Exception expected");
+		} catch (IllegalArgumentException e) {
+			//no such row
+		}
+	}
+
+	@Test
+	public void holdSeatsWithAttributes() {
+		TicketServiceImpl service = new TicketServiceImpl(venue(), 5000);
+		try {
+			SeatHold wheelchair = service.findAndHoldSeatsWithAttributes(2, "user@yahoo.com", EnumSet.of(SeatAttribute.ACCESSIBLE), NONE);
+			assertEquals(2, wheelchair.getRowNum());
+			assertEquals(0, wheelchair.getSeatsHeld().get(0).getId());
+
+			SeatHold companions = service.findAndHoldSeatsWithAttributes(2, "user@yahoo.com",
+					EnumSet.of(SeatAttribute.COMPANION), EnumSet.of(SeatAttribute.ACCESSIBLE));
+			assertEquals(2, companions.getRowNum());
+			assertEquals(2, companions.getSeatsHeld().get(0).getId());
+
+			assertEquals(4, service.findAndHoldSeatsWithAttributes(2, "user@yahoo.com", EnumSet.of(SeatAttribute.ACCESSIBLE), NONE).getRowNum());
+			assertNull(service.findAndHoldSeatsWithAttributes(1, "user@yahoo.com", EnumSet.of(SeatAttribute.ACCESSIBLE), NONE));
+			assertNull(service.findAndHoldSeatsWithAttributes(3, "user@yahoo.com", EnumSet.of(SeatAttribute.COMPANION), NONE));
+
+			SeatHold clearView = service.findAndHoldSeatsWithAttributes(10, "user@yahoo.com", NONE, EnumSet.of(SeatAttribute.RESTRICTED_VIEW));
+			assertEquals(1, clearView.getRowNum());
+
+			//the blocks left in the rows still line up with the seat map
+			service.releaseHolds(Arrays.asList(wheelchair.getSeatHoldId(), companions.getSeatHoldId()));
+			assertEquals(60 - 2 - 10, service.numSeatsAvailable());
+			assertEquals(2, service.findAndHoldSeatsWithAttributes(4, "user@yahoo.com", EnumSet.of(SeatAttribute.COMPANION), NONE).getRowNum());
+		} catch (ApplicationException e) {
+			Assert.fail("Unexpected error occured");
+		} finally {
+			service.shutdown();
+		}
+	}
+
+	@Test
+	public void concurrentHoldsOfAccessibleSeats() throws InterruptedException {
+		Venue venue = new Venue(40, 10);
+		for (int rowNum = 0; rowNum < 40; rowNum++) {
+			venue.markSeats(SeatAttribute.ACCESSIBLE, rowNum, 0, 3);
+		}
+		TicketServiceImpl service = new TicketServiceImpl(venue, 5000);
+		ConcurrentLinkedQueue<Seat> held = new ConcurrentLinkedQueue<>();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		for (int i = 0; i < 100; i++) {
+			executor.submit(() -> {
+				try {
+					SeatHold seatHold = service.findAndHoldSeatsWithAttributes(2, "user@yahoo.com", EnumSet.of(SeatAttribute.ACCESSIBLE), NONE);
+					if (seatHold != null) {
+						held.addAll(seatHold.getSeatsHeld());
+					}
+				} catch (ApplicationException e) {
+					//sold out
+				}
+			});
+		}
+		executor.shutdown();
+		executor.awaitTermination(30, TimeUnit.SECONDS);
+		service.shutdown();
+
+		assertEquals(160, held.size());
+		for (Seat seat : held) {
+			assertTrue(seat.getId() < 4);
+		}
+		assertEquals(400 - 160, service.numSeatsAvailable());
+	}
+
+}
@@ -0,0 +1,161 @@
+package com.walmart.ticketservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.walmart.ticketservice.common.utils.BoundedLockFreeQueue;
+import com.walmart.ticketservice.events.SeatEvent;
+import com.walmart.ticketservice.events.SeatEventSubscription;
+import com.walmart.ticketservice.events.SeatEventType;
+import com.walmart.ticketservice.exception.ApplicationException;
+import com.walmart.ticketservice.model.SeatHold;
+import com.walmart.ticketservice.model.Venue;
+import com.walmart.ticketservice.service.TicketServiceImpl;
+
+/**
+ * Tests for the seat event stream
+ * @author bkulkar
+ *
+ */
+public class SeatEventStreamTest {
+
+	@Test
+	public void seatChangesArePublished() throws InterruptedException {
+
+		TicketServiceImpl service = new TicketServiceImpl(new Venue(2, 5), 1000);
+		SeatEventSubscription subscription = service.getSeatEvents().subscribe();
+		try {
+			SeatHold reserved = service.findAndHoldSeats(2, "user@yahoo.com");
+			SeatHold released = service.findAndHoldSeats(1, "user@yahoo.com");
+			String confirmationCode = service.reserveSeats(reserved.getSeatHoldId(), "user@yahoo.com");
+			service.releaseHolds(Arrays.asList(released.getSeatHoldId()));
+			service.cancelReservations(Arrays.asList(confirmationCode));
+			SeatHold expired = service.findAndHoldSeats(3, "user@yahoo.com");
+			TimeUnit.MILLISECONDS.sleep(2500);
+
+			List<SeatEvent> events = subscription.poll(100);
+			assertEquals(7, events.size());
+			assertEquals(SeatEventType.HOLD, events.get(0).getType());
+			assertEquals(reserved.getSeatHoldId(), events.get(0).getSeatHoldId());
+			assertEquals(reserved.getSeatsHeld().get(0).getId(), events.get(0).getFirstSeat());
+			assertEquals(2, events.get(0).getNumSeats());
+			assertEquals(SeatEventType.RESERVE, events.get(2).getType());
+			assertEquals(confirmationCode, events.get(2).getConfirmationCode());
+			assertEquals(SeatEventType.RELEASE, events.get(3).getType());
+			assertEquals(SeatEventType.CANCEL, events.get(4).getType());
+			assertNull(events.get(4).getSeatHoldId());
+			assertEquals(SeatEventType.EXPIRE, events.get(6).getType());
+			assertEquals(expired.getSeatHoldId(), events.get(6).getSeatHoldId());
+			assertFalse(subscription.isLagging());
+		} catch (ApplicationException e) {
+			Assert.fail("Unexpected error occured");
+		} finally {
+			service.shutdown();
+		}
+	}
+
+	@Test
+	public void slowSubscriberIsCutOff() {
+
+		TicketServiceImpl service = new TicketServiceImpl(new Venue(5, 5), 5000);
+		SeatEventSubscription slow = service.getSeatEvents().subscribe(2, 3);
+		SeatEventSubscription fast = service.getSeatEvents().subscribe();
+		try {
+			for (int i = 0; i < 4; i++) {
+				service.findAndHoldSeats(1, "user@yahoo.com");
+			}
+			assertTrue(slow.isLagging());
+			assertEquals(2, slow.getDropped());
+			assertFalse(slow.isClosed());
+			assertEquals(2, slow.poll(10).size());
+			slow.resync();
+			assertFalse(slow.isLagging());
+
+			for (int i = 0; i < 6; i++) {
+				service.findAndHoldSeats(1, "user@yahoo.com");
+			}
+			assertTrue(slow.isClosed());
+			assertEquals(1, service.getSeatEvents().getSubscriberCount());
+			assertEquals(10, fast.poll(100).size());
+		} catch (ApplicationException e) {
+			Assert.fail("Unexpected error occured");
+		} finally {
+			service.shutdown();
+		}
+	}
+
+	@Test
+	public void resyncSkipsOnlyEventsUpToTheFence() throws ApplicationException {
+
+		TicketServiceImpl service = new TicketServiceImpl(new Venue(5, 5), 5000);
+		SeatEventSubscription slow = service.getSeatEvents().subscribe(2, 100);
+		try {
+			for (int i = 0; i < 4; i++) {
+				service.findAndHoldSeats(1, "user@yahoo.com");
+			}
+			assertTrue(slow.isLagging());
+
+			//the fence is taken before the state is reloaded, a hold made meanwhile is still handed out
+			long fence = slow.resync();
+			assertEquals(4, fence);
+			assertFalse(slow.isLagging());
+			SeatHold meanwhile = service.findAndHoldSeats(1, "user@yahoo.com");
+
+			List<SeatEvent> events = slow.poll(10);
+			assertEquals(1, events.size());
+			assertEquals(meanwhile.getSeatHoldId(), events.get(0).getSeatHoldId());
+			assertEquals(fence + 1, events.get(0).getSequence());
+		} finally {
+			service.shutdown();
+		}
+	}
+
+	@Test
+	public void queueDeliversEveryElementOnce() throws InterruptedException {
+
+		BoundedLockFreeQueue<Integer> queue = new BoundedLockFreeQueue<>(64);
+		int producers = 4;
+		int perProducer = 20000;
+		List<Thread> threads = new ArrayList<>();
+		for (int p = 0; p < producers; p++) {
+			int base = p * perProducer;
+			threads.add(new Thread(() -> {
+				for (int i = 0; i < perProducer; i++) {
+					while (!queue.offer(base + i)) {
+						Thread.yield();
+					}
+				}
+			}));
+		}
+		threads.forEach(Thread::start);
+
+		Set<Integer> seen = new HashSet<>();
+		List<Integer> batch = new ArrayList<>();
+		while (seen.size() < producers * perProducer) {
+			batch.clear();
+			if (queue.drainTo(batch, 16) == 0) {
+				Thread.yield();
+			}
+			for (Integer element : batch) {
+				assertTrue(seen.add(element));
+			}
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertNull(queue.poll());
+	}
+
+}
@@ -0,0 +1,169 @@
+package com.walmart.ticketservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.walmart.ticketservice.exception.ApplicationException;
+import com.walmart.ticketservice.model.Seat;
+import com.walmart.ticketservice.model.SeatHold;
+import com.walmart.ticketservice.model.SeatMapSnapshot;
+import com.walmart.ticketservice.model.SeatRowBlock;
+import com.walmart.ticketservice.model.Section;
+import com.walmart.ticketservice.model.Venue;
+import com.walmart.ticketservice.service.TicketServiceImpl;
+
+/**
+ * Tests for the versioned seat map
+ * @author bkulkar
+ *
+ */
+public class SeatMapSnapshotTest {
+
+	@Test
+	public void snapshotsAreImmutable() {
+
+		SeatMapSnapshot empty = SeatMapSnapshot.allAvailable(new Venue(130, 70));
+		SeatMapSnapshot held = empty.withSeats(100, 60, 69, false);
+
+		assertEquals(0, empty.getVersion());
+		assertEquals(1, held.getVersion());
+		assertEquals(130 * 70, empty.getAvailableSeats());
+		assertEquals(130 * 70 - 10, held.getAvailableSeats());
+		assertTrue(empty.isAvailable(100, 65));
+		assertFalse(held.isAvailable(100, 65));
+		assertTrue(held.isAvailable(100, 59));
+		//unchanged rows are shared
+		assertTrue(empty.getRow(5) == held.getRow(5));
+	}
+
+	@Test
+	public void runsOfFreeSeats() {
+
+		SeatMapSnapshot seatMap = SeatMapSnapshot.allAvailable(new Venue(1, 70)).withSeats(0, 10, 66, false);
+		SeatMapSnapshot.Row row = seatMap.getRow(0);
+		assertEquals(0, row.nextAvailableSeat(0));
+		assertEquals(10, row.nextTakenSeat(0));
+		assertEquals(67, row.nextAvailableSeat(10));
+		assertEquals(70, row.nextTakenSeat(67));
+		assertEquals(-1, row.nextAvailableSeat(70));
+	}
+
+	@Test
+	public void diffSinceVersion() {
+
+		TicketServiceImpl service = new TicketServiceImpl(new Venue(3, 5), 5000);
+		try {
+			SeatHold first = service.findAndHoldSeats(5, "user@yahoo.com");
+			long version = service.getSeatMap().getVersion();
+			SeatHold second = service.findAndHoldSeats(2, "user@yahoo.com");
+			service.reserveSeats(first.getSeatHoldId(), "user@yahoo.com");
+
+			SeatMapSnapshot.Diff diff = service.getSeatMapChanges(version);
+			assertEquals(version, diff.getFromVersion());
+			assertEquals(service.getSeatMap().getVersion(), diff.getToVersion());
+			assertEquals(1, diff.getChangedRows().size());
+			SeatMapSnapshot.Row row = diff.getChangedRows().get(0);
+			assertEquals(second.getRowNum(), row.getRowNum());
+			assertEquals(3, row.getAvailableSeats());
+			for (Seat seat : second.getSeatsHeld()) {
+				assertFalse(row.isAvailable(seat.getId()));
+			}
+
+			assertTrue(service.getSeatMapChanges(diff.getToVersion()).getChangedRows().isEmpty());
+			assertEquals(2, service.getSeatMapChanges(0).getChangedRows().size());
+
+			service.releaseHolds(Arrays.asList(second.getSeatHoldId()));
+			assertEquals(service.numSeatsAvailable(), service.getSeatMap().getAvailableSeats());
+			assertEquals(1, service.getSeatMapChanges(diff.getToVersion()).getChangedRows().size());
+		} catch (ApplicationException e) {
+			Assert.fail("Unexpected error occured");
+		} finally {
+			service.shutdown();
+		}
+	}
+
+	@Test
+	public void seatMapMatchesFreeBlocksUnderSectionLock() throws InterruptedException {
+
+		TicketServiceImpl service = new TicketServiceImpl(new Venue(10, 20), 60000);
+		Section section = service.getVenue().getSections().get(0);
+		AtomicBoolean done = new AtomicBoolean();
+		List<Thread> workers = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			int worker = t;
+			Thread thread = new Thread(() -> {
+				Random random = new Random(worker);
+				Deque<Integer> holds = new ArrayDeque<>();
+				for (int i = 0; !done.get(); i++) {
+					String email = "customer" + worker + "-" + i + "@yahoo.com";
+					try {
+						int numSeats = 1 + random.nextInt(4);
+						SeatHold seatHold;
+						switch (i % 3) {
+						case 0:
+							seatHold = service.findAndHoldSeats(numSeats, email);
+							break;
+						case 1:
+							seatHold = service.findAndHoldSeatsWithAttributes(numSeats, email, null, null);
+							break;
+						default:
+							seatHold = service.findAndHoldGroupSeats(numSeats, email);
+							break;
+						}
+						if (seatHold != null) {
+							holds.add(seatHold.getSeatHoldId());
+						}
+					} catch (ApplicationException e) {
+						//sold out for now
+					}
+					if (holds.size() > 5) {
+						service.releaseHolds(Arrays.asList(holds.poll()));
+					}
+				}
+			});
+			workers.add(thread);
+			thread.start();
+		}
+
+		try {
+			for (int check = 0; check < 2000; check++) {
+				section.getLock().lock();
+				try {
+					boolean[][] free = new boolean[10][20];
+					for (SeatRowBlock seatRow : section.getAvailableSeatRows()) {
+						for (Seat seat : seatRow.getSeats()) {
+							free[seatRow.getRowId()][seat.getId()] = true;
+						}
+					}
+					SeatMapSnapshot seatMap = service.getSeatMap();
+					for (int row = 0; row < 10; row++) {
+						for (int seat = 0; seat < 20; seat++) {
+							assertEquals(free[row][seat], seatMap.isAvailable(row, seat));
+						}
+					}
+				} finally {
+					section.getLock().unlock();
+				}
+			}
+		} finally {
+			done.set(true);
+			for (Thread thread : workers) {
+				thread.join();
+			}
+			service.shutdown();
+		}
+	}
+
+}
@@ -0,0 +1,91 @@
+package com.walmart.ticketservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.Collections;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.walmart.ticketservice.exception.ApplicationException;
+import com.walmart.ticketservice.model.SeatHold;
+import com.walmart.ticketservice.model.SeatQuote;
+import com.walmart.ticketservice.model.Venue;
+import com.walmart.ticketservice.service.SeatSelection;
+import com.walmart.ticketservice.service.TicketServiceImpl;
+
+/**
+ * Tests for previews of the best seats
+ * @author bkulkar
+ *
+ */
+public class SeatPreviewTest {
+
+	@Test
+	public void previewDoesNotHold() {
+
+		TicketServiceImpl service = new TicketServiceImpl(new Venue(3, 10), 5000);
+		try {
+			service.findAndHoldSeats(4, "user@yahoo.com");
+			long version = service.getSeatMap().getVersion();
+
+			SeatQuote quote = service.previewBestSeats(4);
+			assertNotNull(quote);
+			assertEquals(4, quote.getSeats().size());
+			assertEquals(version, quote.getSeatMapVersion());
+			assertEquals(26, service.numSeatsAvailable());
+			assertEquals(version, service.getSeatMap().getVersion());
+
+			//the hold gets the quoted seats
+			SeatHold seatHold = service.findAndHoldSeats(4, "user@yahoo.com");
+			assertEquals(quote.getRowNum(), seatHold.getRowNum());
+			assertEquals(quote.getSeats().get(0).getId(), seatHold.getSeatsHeld().get(0).getId());
+
+			assertNull(service.previewBestSeats(11));
+			try {
+				service.previewBestSeats(0);
+				Assert.fail("Exception expected");
+			} catch (ApplicationException e) {
+				//invalid number of seats
+			}
+		} catch (ApplicationException e) {
+			Assert.fail("Unexpected error occured");
+		} finally {
+			service.shutdown();
+		}
+	}
+
+	@Test
+	public void previewMatchesGlobalBestHold() {
+
+		TicketServiceImpl service = new TicketServiceImpl(new Venue(20, 30), 60000);
+		service.setSeatSelection(SeatSelection.GLOBAL_BEST);
+		Random random = new Random(7);
+		try {
+			for (int i = 0; i < 500 && service.numSeatsAvailable() > 0; i++) {
+				int numSeats = 1 + random.nextInt(6);
+				SeatQuote quote = service.previewBestSeats(numSeats);
+				SeatHold seatHold = service.findAndHoldSeats(numSeats, "customer" + i + "@yahoo.com");
+				if (seatHold == null) {
+					assertNull(quote);
+					continue;
+				}
+				assertEquals(quote.getRowNum(), seatHold.getRowNum());
+				assertEquals(quote.getSeats().get(0).getId(), seatHold.getSeatsHeld().get(0).getId());
+
+				//release some holds so the rows fragment
+				if (random.nextInt(3) == 0) {
+					service.releaseHolds(Collections.singletonList(seatHold.getSeatHoldId()));
+				}
+			}
+		} catch (ApplicationException e) {
+			Assert.fail("Unexpected error occured");
+		} finally {
+			service.shutdown();
+		}
+	}
+
+}
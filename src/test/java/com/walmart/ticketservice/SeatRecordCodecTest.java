@@ -0,0 +1,104 @@
+package com.walmart.ticketservice;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.walmart.ticketservice.codec.SeatRecordCodec;
+import com.walmart.ticketservice.codec.VarInts;
+import com.walmart.ticketservice.model.Seat;
+import com.walmart.ticketservice.model.SeatHold;
+import com.walmart.ticketservice.model.SeatRange;
+import com.walmart.ticketservice.model.Venue;
+
+/**
+ * Tests for the binary seat record codec
+ * @author bkulkar
+ *
+ */
+public class SeatRecordCodecTest {
+
+	@Test
+	public void varInts() {
+		ByteBuffer buffer = ByteBuffer.allocate(64);
+		int[] values = { 0, 127, 128, 16383, 16384, Integer.MAX_VALUE };
+		for (int value : values) {
+			VarInts.putVarInt(buffer, value);
+		}
+		VarInts.putVarLong(buffer, Long.MAX_VALUE);
+		assertEquals(1 + 1 + 2 + 2 + 3 + 5 + 9, buffer.position());
+
+		buffer.flip();
+		for (int value : values) {
+			assertEquals(value, VarInts.getVarInt(buffer));
+		}
+		assertEquals(Long.MAX_VALUE, VarInts.getVarLong(buffer));
+		assertEquals(3, VarInts.sizeOf(16384));
+	}
+
+	@Test
+	public void seatHoldRoundTrip() {
+		Venue venue = new Venue(300, 40);
+		SeatRecordCodec codec = new SeatRecordCodec(venue);
+		SeatHold seatHold = new SeatHold(200, new SeatRange(venue.getSectionForRow(200), 200, 10, 4),
+				System.currentTimeMillis(), "Jöns@yahoo.com", 99999);
+		seatHold.setExpiryTime(seatHold.getTimeCreated() + 60000);
+
+		for (ByteBuffer buffer : Arrays.asList(ByteBuffer.allocate(128), ByteBuffer.allocateDirect(128))) {
+			codec.encodeSeatHold(seatHold, buffer);
+			buffer.flip();
+			SeatHold decoded = codec.decodeSeatHold(buffer);
+			assertEquals(0, buffer.remaining());
+			assertEquals(seatHold.getSeatHoldId(), decoded.getSeatHoldId());
+			assertEquals(200, decoded.getRowNum());
+			assertEquals(seatHold.getTimeCreated(), decoded.getTimeCreated());
+			assertEquals(seatHold.getExpiryTime(), decoded.getExpiryTime());
+			assertEquals("Jöns@yahoo.com", decoded.getCustEmailId());
+			assertEquals(4, decoded.getSeatsHeld().size());
+			assertEquals(13, decoded.getSeatsHeld().get(3).getId());
+			assertEquals(seatHold.getSeatsHeld().get(3).getScore(), decoded.getSeatsHeld().get(3).getScore(), 0);
+		}
+	}
+
+	@Test
+	public void reservationRoundTrip() {
+		Venue venue = new Venue(3, 10);
+		SeatRecordCodec codec = new SeatRecordCodec(venue);
+		List<Seat> seats = Arrays.asList(new Seat(4, 1f, 2), new Seat(5, 1f, 2));
+		ByteBuffer buffer = ByteBuffer.allocate(32);
+		codec.encodeReservation("AB12CD34", seats, buffer);
+		assertEquals(1 + 8 + 3, buffer.position());
+
+		buffer.flip();
+		Map.Entry<String, List<Seat>> reservation = codec.decodeReservation(buffer);
+		assertEquals("AB12CD34", reservation.getKey());
+		assertEquals(2, reservation.getValue().get(1).getRowNum());
+		assertEquals(5, reservation.getValue().get(1).getId());
+
+		try {
+			codec.encodeReservation("AB12CD34", Arrays.asList(new Seat(4, 1f, 2), new Seat(6, 1f, 2)), buffer);
+			Assert.fail("Exception expected");
+		} catch (IllegalArgumentException e) {
+			//seats are not adjacent
+		}
+
+		buffer.clear();
+		codec.encodeReservation("AB12CD34", seats, buffer);
+		buffer.flip();
+		buffer.limit(5);
+		try {
+			codec.decodeReservation(buffer);
+			Assert.fail("Exception expected");
+		} catch (BufferUnderflowException e) {
+			//truncated record
+		}
+	}
+
+}
@@ -0,0 +1,72 @@
+package com.walmart.ticketservice;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.walmart.ticketservice.common.utils.CommonUtil;
+import com.walmart.ticketservice.model.Venue;
+import com.walmart.ticketservice.scoring.AisleBonusScoreFunction;
+import com.walmart.ticketservice.scoring.CenterWeightedScoreFunction;
+import com.walmart.ticketservice.scoring.CurvedRowScoreFunction;
+import com.walmart.ticketservice.scoring.RowDepthDecayScoreFunction;
+import com.walmart.ticketservice.scoring.SeatScoreFunction;
+import com.walmart.ticketservice.scoring.SeatScoreMatrix;
+
+/**
+ * Tests for seat scoring models
+ * @author bkulkar
+ *
+ */
+public class SeatScoreMatrixTest {
+
+	@Test
+	public void venuesKeepTheirOwnScores() {
+		Venue narrow = new Venue(2, 5);
+		Venue wide = new Venue(2, 9);
+
+		assertArrayEquals(CommonUtil.getScores(5), narrow.getSections().get(0).getSeatScores().getRowScores(1), 0.0f);
+		assertArrayEquals(CommonUtil.getScores(9), wide.getSections().get(0).getSeatScores().getRowScores(1), 0.0f);
+	}
+
+	@Test
+	public void matricesAreCachedPerModelAndShape() {
+		SeatScoreMatrix first = SeatScoreMatrix.of(new CurvedRowScoreFunction(0.5f), 4, 6);
+		SeatScoreMatrix second = SeatScoreMatrix.of(new CurvedRowScoreFunction(0.5f), 4, 6);
+		assertSame(first, second);
+	}
+
+	@Test
+	public void windowScoreMatchesSumOfSeatScores() {
+		SeatScoreMatrix matrix = SeatScoreMatrix.of(new CenterWeightedScoreFunction(), 3, 8);
+		float expected = 0;
+		for (int seat = 2; seat < 6; seat++) {
+			expected += matrix.getScore(1, seat);
+		}
+		assertEquals(expected, matrix.windowScore(1, 2, 4), 1e-4);
+	}
+
+	@Test
+	public void decoratorsAdjustScores() {
+		SeatScoreFunction base = new CenterWeightedScoreFunction();
+		SeatScoreFunction aisle = new AisleBonusScoreFunction(base, 1.5f, 0, 9);
+		SeatScoreFunction decayed = new RowDepthDecayScoreFunction(base, 0.1f);
+
+		assertEquals(base.score(0, 0, 5, 10) + 1.5f, aisle.score(0, 0, 5, 10), 0.01f);
+		assertEquals(base.score(0, 4, 5, 10), aisle.score(0, 4, 5, 10), 0.0f);
+		assertTrue(decayed.score(3, 4, 5, 10) < decayed.score(0, 4, 5, 10));
+	}
+
+	@Test
+	public void curvedRowsPenaliseSideSeatsLess() {
+		SeatScoreFunction straight = new CurvedRowScoreFunction(0);
+		SeatScoreFunction curved = new CurvedRowScoreFunction(0.8f);
+
+		assertEquals(straight.score(0, 5, 1, 11), curved.score(0, 5, 1, 11), 0.0f);
+		assertTrue(curved.score(0, 0, 1, 11) > straight.score(0, 0, 1, 11));
+	}
+
+}
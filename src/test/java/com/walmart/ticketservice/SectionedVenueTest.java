@@ -0,0 +1,277 @@
+package com.walmart.ticketservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.walmart.ticketservice.exception.ApplicationException;
+import com.walmart.ticketservice.model.Seat;
+import com.walmart.ticketservice.model.SeatHold;
+import com.walmart.ticketservice.model.Section;
+import com.walmart.ticketservice.model.Venue;
+import com.walmart.ticketservice.scoring.CenterWeightedScoreFunction;
+import com.walmart.ticketservice.service.TicketServiceImpl;
+
+/**
+ * Tests for venues made of several sections
+ * @author bkulkar
+ *
+ */
+public class SectionedVenueTest {
+
+	/**
+	 * Floor of 2 rows of 4 seats, lower bowl of 3 rows of 6 seats and balcony of 2 rows of 8 seats
+	 * @return venue
+	 */
+	private static Venue venue() {
+		return new Venue(Arrays.asList(
+				new Section("FLOOR", 1, 0, 2, 4, new CenterWeightedScoreFunction()),
+				new Section("LOWER", 2, 2, 3, 6, new CenterWeightedScoreFunction()),
+				new Section("BALCONY", 3, 5, 2, 8, new CenterWeightedScoreFunction())));
+	}
+
+	@Test
+	public void sectionsLayout() {
+		Venue venue = venue();
+		assertEquals(7, venue.getNumOfRows());
+		assertEquals(8, venue.getSeatsPerRow());
+		assertEquals(8 + 18 + 16, venue.getCapacity());
+		assertEquals("LOWER", venue.getSectionForRow(4).getName());
+		assertEquals("BALCONY", venue.getSectionForRow(5).getName());
+
+		try {
+			new Venue(Arrays.asList(new Section("FLOOR", 1, 0, 2, 4, new CenterWeightedScoreFunction()),
+					new Section("LOWER", 2, 3, 3, 6, new CenterWeightedScoreFunction())));
+			Assert.fail("Exception expected");
+		} catch (IllegalArgumentException e) {
+			//gap between the sections
+		}
+	}
+
+	@Test
+	public void canSeatFollowsLargestFreeBlock() throws ApplicationException {
+		Section section = new Section("LOWER", 1, 0, 2, 6, new CenterWeightedScoreFunction());
+		assertTrue(section.canSeat(6));
+		assertFalse(section.canSeat(7));
+
+		List<Seat> front = section.takeSeats(0, 1, 4);
+		assertTrue(section.canSeat(6));
+		List<Seat> back = section.takeSeats(1, 2, 2);
+		assertFalse(section.canSeat(5));
+		assertTrue(section.canSeat(2));
+
+		Map<Integer, List<List<Seat>>> rangesByRow = new HashMap<>();
+		rangesByRow.put(0, new ArrayList<>(Arrays.asList(front)));
+		rangesByRow.put(1, new ArrayList<>(Arrays.asList(back)));
+		section.returnSeats(rangesByRow);
+		assertTrue(section.canSeat(6));
+
+		//holds found by the service under the section lock keep it up to date too
+		TicketServiceImpl service = new TicketServiceImpl(new Venue(Arrays.asList(section)), 5000);
+		try {
+			service.findAndHoldSeats(6, "user@yahoo.com");
+			service.findAndHoldSeats(4, "user@yahoo.com");
+			assertFalse(section.canSeat(3));
+			assertTrue(section.canSeat(1));
+		} finally {
+			service.shutdown();
+		}
+	}
+
+	@Test
+	public void holdInSectionAndPriceTier() {
+
+		TicketServiceImpl service = new TicketServiceImpl(venue(), 5000);
+		try {
+			SeatHold balcony = service.findAndHoldSeatsInSection(3, "user@yahoo.com", "BALCONY");
+			assertEquals(5, balcony.getRowNum());
+
+			SeatHold lower = service.findAndHoldSeatsInPriceTier(6, "user@yahoo.com", 2);
+			assertEquals(2, lower.getRowNum());
+
+			//too wide for the floor, best anywhere skips to the lower bowl
+			SeatHold anywhere = service.findAndHoldSeats(5, "user@yahoo.com");
+			assertEquals(3, anywhere.getRowNum());
+			assertNull(service.findAndHoldSeatsInSection(5, "user@yahoo.com", "FLOOR"));
+
+			assertEquals(42 - 14, service.numSeatsAvailable());
+			assertEquals(18 - 11, service.getVenue().getSection("LOWER").getAvailableSeats());
+
+			try {
+				service.findAndHoldSeatsInSection(1, "user@yahoo.com", "BOX");
+				Assert.fail("Exception expected");
+			} catch (ApplicationException e) {
+				//no such section
+			}
+
+			service.releaseHolds(Arrays.asList(balcony.getSeatHoldId(), lower.getSeatHoldId(), anywhere.getSeatHoldId()));
+			assertEquals(42, service.numSeatsAvailable());
+			assertEquals(7, service.getVenue().getAvailableSeatRows().size());
+		} catch (ApplicationException e) {
+			Assert.fail("Unexpected error occured");
+		} finally {
+			service.shutdown();
+		}
+	}
+
+	@Test
+	public void holdUpToPrice() {
+
+		Venue venue = new Venue(Arrays.asList(
+				new Section("FLOOR", 1, new BigDecimal("150.00"), 0, 2, 4, new CenterWeightedScoreFunction()),
+				new Section("LOWER", 2, new BigDecimal("80.00"), 2, 3, 6, new CenterWeightedScoreFunction()),
+				new Section("BALCONY", 3, new BigDecimal("40.00"), 5, 2, 8, new CenterWeightedScoreFunction())));
+		assertEquals(2, venue.getSectionsInPriceTier(2).get(0).getFirstRow());
+		assertTrue(venue.getSectionsInPriceTier(4).isEmpty());
+		assertEquals(2, venue.getSectionsUpToPrice(new BigDecimal("99.99")).size());
+		assertEquals(3, venue.getSectionsUpToPrice(new BigDecimal("150")).size());
+
+		TicketServiceImpl service = new TicketServiceImpl(venue, 5000);
+		try {
+			SeatHold lower = service.findAndHoldSeatsUpToPrice(4, "user@yahoo.com", new BigDecimal("99.99"));
+			assertEquals(2, lower.getRowNum());
+			for (Seat seat : lower.getSeatsHeld()) {
+				assertEquals(2, seat.getPriceTier());
+			}
+
+			SeatHold balcony = service.findAndHoldSeatsUpToPrice(8, "user@yahoo.com", new BigDecimal("40"));
+			assertEquals(5, balcony.getRowNum());
+			assertEquals(3, balcony.getSeatsHeld().get(0).getPriceTier());
+
+			try {
+				service.findAndHoldSeatsUpToPrice(1, "user@yahoo.com", new BigDecimal("39.99"));
+				Assert.fail("Exception expected");
+			} catch (ApplicationException e) {
+				//nothing that cheap
+			}
+		} catch (ApplicationException e) {
+			Assert.fail("Unexpected error occured");
+		} finally {
+			service.shutdown();
+		}
+	}
+
+	@Test
+	public void holdPriceTiersWithinRow() {
+
+		//the wings of the front row are sold cheaper than its middle
+		Venue venue = new Venue(Arrays.asList(
+				new Section("MAIN", 2, new BigDecimal("80.00"), 0, 2, 10, new CenterWeightedScoreFunction())));
+		venue.priceSeats(3, new BigDecimal("40.00"), 0, 0, 2);
+		venue.priceSeats(3, new BigDecimal("40.00"), 0, 7, 9);
+		assertEquals(1, venue.getSectionsInPriceTier(3).size());
+		assertEquals(1, venue.getPriceTiersUpToPrice(new BigDecimal("50")).size());
+		try {
+			venue.priceSeats(3, new BigDecimal("45.00"), 1, 0, 2);
+			Assert.fail("Exception expected");
+		} catch (IllegalArgumentException e) {
+			//a tier has one price
+		}
+
+		TicketServiceImpl service = new TicketServiceImpl(venue, 5000);
+		try {
+			SeatHold wing = service.findAndHoldSeatsInPriceTier(3, "wing@yahoo.com", 3);
+			assertEquals(0, wing.getRowNum());
+			for (Seat seat : wing.getSeatsHeld()) {
+				assertEquals(3, seat.getPriceTier());
+				assertTrue(seat.getId() <= 2 || seat.getId() >= 7);
+			}
+			assertNull(service.findAndHoldSeatsInPriceTier(4, "wide@yahoo.com", 3));
+			assertNull(service.findAndHoldSeatsUpToPrice(4, "cheap@yahoo.com", new BigDecimal("40")));
+
+			SeatHold middle = service.findAndHoldSeatsInPriceTier(4, "middle@yahoo.com", 2);
+			assertEquals(0, middle.getRowNum());
+			for (Seat seat : middle.getSeatsHeld()) {
+				assertEquals(2, seat.getPriceTier());
+				assertTrue(seat.getId() >= 3 && seat.getId() <= 6);
+			}
+
+			//the other wing is the only run of the cheap tier left in the front row
+			SeatHold otherWing = service.findAndHoldSeatsUpToPrice(3, "other@yahoo.com", new BigDecimal("40"));
+			assertEquals(0, otherWing.getRowNum());
+			assertEquals(3, otherWing.getSeatsHeld().get(0).getPriceTier());
+			assertNull(service.findAndHoldSeatsInPriceTier(1, "late@yahoo.com", 3));
+		} catch (ApplicationException e) {
+			Assert.fail("Unexpected error occured");
+		} finally {
+			service.shutdown();
+		}
+
+		try {
+			venue.priceSeats(3, new BigDecimal("40.00"), 1, 0, 2);
+			Assert.fail("Exception expected");
+		} catch (IllegalArgumentException e) {
+			//seats are priced before the venue goes on sale
+		}
+	}
+
+	@Test
+	public void concurrentHoldsAcrossSections() throws InterruptedException {
+
+		TicketServiceImpl service = new TicketServiceImpl(venue(), 5000);
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		ConcurrentLinkedQueue<SeatHold> seatHolds = new ConcurrentLinkedQueue<>();
+		String[] sections = { "FLOOR", "LOWER", "BALCONY", null };
+		try {
+			for (int i = 0; i < 200; i++) {
+				String section = sections[i % sections.length];
+				String email = "customer" + i + "@yahoo.com";
+				pool.execute(() -> {
+					try {
+						SeatHold seatHold = section == null ? service.findAndHoldSeats(1, email)
+								: service.findAndHoldSeatsInSection(1, email, section);
+						if (seatHold != null) {
+							seatHolds.add(seatHold);
+						}
+					} catch (ApplicationException e) {
+						//section sold out
+					}
+				});
+			}
+			pool.shutdown();
+			assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+			//every seat is held exactly once
+			assertEquals(42, seatHolds.size());
+			assertEquals(0, service.numSeatsAvailable());
+			Set<Long> seen = new HashSet<>();
+			for (SeatHold seatHold : seatHolds) {
+				for (Seat seat : seatHold.getSeatsHeld()) {
+					assertTrue(seen.add(((long) seat.getRowNum() << 32) | seat.getId()));
+				}
+			}
+
+			List<String> confirmationCodes = new ArrayList<>();
+			for (SeatHold seatHold : seatHolds) {
+				confirmationCodes.add(service.reserveSeats(seatHold.getSeatHoldId(), seatHold.getCustEmailId()));
+			}
+			assertNotNull(service.getReservedSeats(confirmationCodes.get(0)));
+			assertEquals(42, service.cancelReservations(confirmationCodes));
+			assertEquals(42, service.numSeatsAvailable());
+			assertEquals(7, service.getVenue().getAvailableSeatRows().size());
+		} catch (ApplicationException e) {
+			Assert.fail("Unexpected error occured");
+		} finally {
+			service.shutdown();
+		}
+	}
+
+}
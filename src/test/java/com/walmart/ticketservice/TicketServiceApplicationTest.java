@@ -1,20 +1,31 @@
 package com.walmart.ticketservice;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.AfterClass;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import com.walmart.ticketservice.common.time.VirtualTimeSource;
 import com.walmart.ticketservice.exception.ApplicationException;
 import com.walmart.ticketservice.model.SeatHold;
 import com.walmart.ticketservice.model.Venue;
+import com.walmart.ticketservice.service.AdmissionControlledTicketService;
 import com.walmart.ticketservice.service.TicketServiceImpl;
+import com.walmart.ticketservice.service.TokenBucket;
 
 /**
  * Tests for ticket service
@@ -175,6 +186,271 @@ public class TicketServiceApplicationTest {
 		
    	}
     
+	@Test
+	public void extendHold() {
+		
+		String confirmationCode = null;
+		SeatHold seatHold = null;
+		
+		try {
+			seatHold = ticketService.findAndHoldSeats(2, "user@yahoo.com");
+			assertNotNull(seatHold);
+			ticketService.extendHold(seatHold.getSeatHoldId(), "user@yahoo.com", 4000);
+			//sleep past the original timeout
+			TimeUnit.MILLISECONDS.sleep(ticketService.getHoldTimeout()+1500);
+			confirmationCode = ticketService.reserveSeats(seatHold.getSeatHoldId(), "user@yahoo.com");
+		} catch (Exception e) {
+			Assert.fail("Unexpected error occured");
+		}
+		assertNotNull(confirmationCode);
+	}
+	
+	@Test
+	public void extendHoldBeyondMaxLifetime() {
+		
+		TicketServiceImpl shortLivedHolds = new TicketServiceImpl(new Venue(2, 5), 1000, 2000);
+		SeatHold seatHold = null;
+		
+		try {
+			seatHold = shortLivedHolds.findAndHoldSeats(2, "user@yahoo.com");
+			shortLivedHolds.extendHold(seatHold.getSeatHoldId(), "user@yahoo.com", 5000);
+			assertEquals(seatHold.getTimeCreated() + 2000, seatHold.getExpiryTime());
+		} catch (ApplicationException e) {
+			Assert.fail("Unexpected error occured");
+		}
+		
+		try {
+			shortLivedHolds.extendHold(seatHold.getSeatHoldId(), "user@yahoo.com", 1000);
+			Assert.fail("Exception expected");
+		} catch (ApplicationException e) {
+			//hold already at its maximum lifetime
+		} finally {
+			shortLivedHolds.shutdown();
+		}
+	}
+	
+	@Test
+	public void releaseHoldsAndCancelReservations() {
+		
+		TicketServiceImpl service = new TicketServiceImpl(new Venue(2, 5), 5000);
+		
+		try {
+			SeatHold first = service.findAndHoldSeats(2, "user@yahoo.com");
+			SeatHold second = service.findAndHoldSeats(2, "user@yahoo.com");
+			SeatHold third = service.findAndHoldSeats(3, "user@yahoo.com");
+			String confirmationCode = service.reserveSeats(third.getSeatHoldId(), "user@yahoo.com");
+			assertEquals(3, service.numSeatsAvailable());
+			
+			assertEquals(2, service.releaseHolds(Arrays.asList(first.getSeatHoldId(), second.getSeatHoldId(), -1)));
+			assertEquals(7, service.numSeatsAvailable());
+			
+			assertEquals(1, service.cancelReservations(Arrays.asList(confirmationCode, "UNKNOWN")));
+			assertEquals(10, service.numSeatsAvailable());
+			//released seats are merged back into full rows
+			assertEquals(2, service.getVenue().getAvailableSeatRows().size());
+			
+			try {
+				service.getReservedSeats(confirmationCode);
+				Assert.fail("Exception expected");
+			} catch (ApplicationException e) {
+				//reservation was cancelled
+			}
+		} catch (ApplicationException e) {
+			Assert.fail("Unexpected error occured");
+		} finally {
+			service.shutdown();
+		}
+	}
+	
+	@Test
+	public void expiredHoldsMergedIntoRows() {
+
+		TicketServiceImpl service = new TicketServiceImpl(new Venue(3, 8), 1000);
+
+		try {
+			//a reservation in the middle of the last row splits it into two free blocks
+			SeatHold kept = null;
+			SeatHold seatHold = service.findAndHoldSeats(2, "customer@yahoo.com");
+			for(int i = 0; seatHold != null; i++) {
+				if(seatHold.getRowNum() == 2 && kept == null) {
+					kept = seatHold;
+				}
+				seatHold = service.findAndHoldSeats(2, "customer" + i + "@yahoo.com");
+			}
+			service.reserveSeats(kept.getSeatHoldId(), kept.getCustEmailId());
+			assertTrue(service.getCurrentSeatHolds().size() > 3);
+
+			//all other holds expire in the same sweep
+			TimeUnit.MILLISECONDS.sleep(service.getHoldTimeout() + 1500);
+			assertEquals(22, service.numSeatsAvailable());
+			assertEquals(0, service.getCurrentSeatHolds().size());
+			assertEquals(4, service.getVenue().getAvailableSeatRows().size());
+			assertEquals(22, service.getSeatMap().getAvailableSeats());
+		} catch (Exception e) {
+			Assert.fail("Unexpected error occured");
+		} finally {
+			service.shutdown();
+		}
+	}
+
+	@Test
+	public void reserveRacingWithRelease() throws Exception {
+		
+		TicketServiceImpl service = new TicketServiceImpl(new Venue(50, 40), 5000);
+		try {
+			List<SeatHold> seatHolds = new ArrayList<>();
+			for(int i = 0; i < 300; i++) {
+				seatHolds.add(service.findAndHoldSeats(4, "user" + i + "@yahoo.com"));
+			}
+			AtomicInteger reserved = new AtomicInteger();
+			AtomicInteger released = new AtomicInteger();
+			List<Throwable> failures = new CopyOnWriteArrayList<>();
+			for(SeatHold seatHold : seatHolds) {
+				CyclicBarrier start = new CyclicBarrier(2);
+				Thread reserver = new Thread(() -> {
+					try {
+						start.await();
+						service.reserveSeats(seatHold.getSeatHoldId(), seatHold.getCustEmailId());
+						reserved.incrementAndGet();
+					} catch (ApplicationException e) {
+						//released first
+					} catch (Throwable e) {
+						failures.add(e);
+					}
+				});
+				reserver.start();
+				start.await();
+				released.addAndGet(service.releaseHolds(Arrays.asList(seatHold.getSeatHoldId())));
+				reserver.join();
+			}
+			assertTrue(failures.toString(), failures.isEmpty());
+			assertEquals(300, reserved.get() + released.get());
+			assertEquals(2000 - 4 * reserved.get(), service.numSeatsAvailable());
+		} finally {
+			service.shutdown();
+		}
+	}
+	
+	@Test
+	public void customerSeatLimit() {
+		
+		TicketServiceImpl service = new TicketServiceImpl(new Venue(3, 5), 5000);
+		service.setMaxSeatsPerCustomer(4);
+		
+		try {
+			SeatHold seatHold = service.findAndHoldSeats(3, "bot@yahoo.com");
+			try {
+				service.findAndHoldSeats(2, "BOT@yahoo.com");
+				Assert.fail("Exception expected");
+			} catch (ApplicationException e) {
+				//over the limit
+			}
+			assertNotNull(service.findAndHoldSeats(2, "user@yahoo.com"));
+			
+			String confirmationCode = service.reserveSeats(seatHold.getSeatHoldId(), "bot@yahoo.com");
+			assertTrue(service.getReservationsForCustomer("bot@yahoo.com").contains(confirmationCode));
+			assertTrue(service.getSeatHoldsForCustomer("bot@yahoo.com").isEmpty());
+			
+			//cancelling gives the seats back to the customer's limit
+			service.cancelReservations(Arrays.asList(confirmationCode));
+			SeatHold secondHold = service.findAndHoldSeats(4, "bot@yahoo.com");
+			assertEquals(1, service.getSeatHoldsForCustomer("bot@yahoo.com").size());
+			assertTrue(service.getSeatHoldsForCustomer("bot@yahoo.com").contains(secondHold.getSeatHoldId()));
+		} catch (ApplicationException e) {
+			Assert.fail("Unexpected error occured");
+		} finally {
+			service.shutdown();
+		}
+	}
+	
+	@Test
+	public void admissionControl() {
+		
+		TicketServiceImpl service = new TicketServiceImpl(new Venue(1, 4), 5000);
+		AdmissionControlledTicketService admission = new AdmissionControlledTicketService(service, 4, 10, 100, 0.001, 2);
+		
+		try {
+			assertNotNull(admission.findAndHoldSeats(1, "user@yahoo.com"));
+			assertNotNull(admission.findAndHoldSeats(1, "user@yahoo.com"));
+			try {
+				admission.findAndHoldSeats(1, "user@yahoo.com");
+				Assert.fail("Exception expected");
+			} catch (ApplicationException e) {
+				assertEquals(1, admission.getRejectedRateLimited());
+			}
+			
+			assertNotNull(admission.findAndHoldSeats(1, "other@yahoo.com"));
+			assertNotNull(admission.findAndHoldSeats(1, "other@yahoo.com"));
+			try {
+				admission.findAndHoldSeats(1, "third@yahoo.com");
+				Assert.fail("Exception expected");
+			} catch (ApplicationException e) {
+				assertEquals(1, admission.getRejectedSoldOut());
+			}
+		} catch (ApplicationException e) {
+			Assert.fail("Unexpected error occured");
+		} finally {
+			admission.shutdown();
+			service.shutdown();
+		}
+		
+		//no request can run and none can wait
+		AdmissionControlledTicketService overloaded = new AdmissionControlledTicketService(ticketService, 0, 0, 100, 100, 100);
+		try {
+			overloaded.findAndHoldSeats(1, "user@yahoo.com");
+			Assert.fail("Exception expected");
+		} catch (ApplicationException e) {
+			assertEquals(1, overloaded.getRejectedOverloaded());
+		} finally {
+			overloaded.shutdown();
+		}
+	}
+	
+	@Test
+	public void rateLimiterSweep() throws InterruptedException {
+		
+		//a retired rate limiter hands out no more tokens, a drained one is never retired
+		TokenBucket full = new TokenBucket(1, 2);
+		assertTrue(full.tryRetire());
+		assertFalse(full.tryAcquire());
+		TokenBucket drained = new TokenBucket(0.001, 1);
+		assertTrue(drained.tryAcquire());
+		assertFalse(drained.tryRetire());
+		
+		VirtualTimeSource clock = new VirtualTimeSource(0);
+		TicketServiceImpl service = new TicketServiceImpl(new Venue(10, 10), 5000);
+		AdmissionControlledTicketService refilling = new AdmissionControlledTicketService(service, 4, 10, 100, 1000000, 2, clock);
+		AdmissionControlledTicketService slow = new AdmissionControlledTicketService(service, 4, 10, 100, 0.001, 2, clock);
+		try {
+			assertNotNull(refilling.findAndHoldSeats(1, "idle@yahoo.com"));
+			assertNotNull(slow.findAndHoldSeats(1, "busy@yahoo.com"));
+			assertNotNull(slow.findAndHoldSeats(1, "busy@yahoo.com"));
+			Thread.sleep(5);
+			
+			//the sweeps run on the clock, not on the requests
+			assertEquals(1, refilling.getRateLimitedCustomers());
+			clock.advance(10000);
+			assertEquals(0, refilling.getRateLimitedCustomers());
+			assertNotNull(refilling.findAndHoldSeats(1, "idle@yahoo.com"));
+			
+			//the drained rate limiter is kept, so the burst is not handed out again
+			assertEquals(1, slow.getRateLimitedCustomers());
+			try {
+				slow.findAndHoldSeats(1, "busy@yahoo.com");
+				Assert.fail("Exception expected");
+			} catch (ApplicationException e) {
+				assertEquals(1, slow.getRejectedRateLimited());
+			}
+		} catch (ApplicationException e) {
+			Assert.fail("Unexpected error occured");
+		} finally {
+			refilling.shutdown();
+			slow.shutdown();
+			service.shutdown();
+		}
+		assertEquals(0, clock.getScheduledTasks());
+	}
+	
 	/**
 	 * Clean up after tests are completed
 	 */
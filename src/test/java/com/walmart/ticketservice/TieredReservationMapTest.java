@@ -0,0 +1,190 @@
+package com.walmart.ticketservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.walmart.ticketservice.exception.ApplicationException;
+import com.walmart.ticketservice.model.Seat;
+import com.walmart.ticketservice.model.SeatHold;
+import com.walmart.ticketservice.model.Venue;
+import com.walmart.ticketservice.service.TicketServiceImpl;
+import com.walmart.ticketservice.storage.ReservationArchive;
+import com.walmart.ticketservice.storage.TieredReservationMap;
+
+/**
+ * Tests for reservations kept partly on the heap and partly in an on-disk archive
+ * @author bkulkar
+ *
+ */
+public class TieredReservationMapTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static List<Seat> seats(int rowNum, int firstSeat, int numSeats) {
+		List<Seat> seats = new ArrayList<>();
+		for (int i = 0; i < numSeats; i++) {
+			seats.add(new Seat(firstSeat + i, 0, rowNum));
+		}
+		return seats;
+	}
+
+	private static String code(int i) {
+		return String.format("C%07d", i);
+	}
+
+	@Test
+	public void coldReservationsMoveToTheArchive() throws IOException {
+
+		Venue venue = new Venue(100, 20);
+		Path directory = folder.newFolder("archive").toPath();
+		TieredReservationMap reservations = new TieredReservationMap(venue, directory, 1000, Runnable::run);
+		for (int i = 0; i < 20000; i++) {
+			reservations.put(code(i), seats(i % 100, i % 17, 3));
+			assertTrue(reservations.getHotSize() <= 1000);
+		}
+		assertEquals(20000, reservations.size());
+		assertTrue(reservations.getArchive().size() >= 18000);
+		assertTrue(reservations.getArchive().getSegmentCount() <= 9);
+
+		List<Seat> seats = reservations.get(code(42));
+		assertEquals(3, seats.size());
+		assertEquals(42, seats.get(0).getRowNum());
+		assertEquals(42 % 17 + 2, seats.get(2).getId());
+		assertEquals(19999 % 17, reservations.get(code(19999)).get(0).getId());
+		assertNull(reservations.get("UNKNOWN"));
+
+		//cancel archived and hot reservations
+		assertEquals(3, reservations.remove(code(42)).size());
+		assertEquals(3, reservations.remove(code(19999)).size());
+		assertNull(reservations.remove(code(42)));
+		assertFalse(reservations.containsKey(code(42)));
+		assertEquals(19998, reservations.size());
+
+		reservations.archiveAll();
+		assertEquals(0, reservations.getHotSize());
+		assertEquals(19998, reservations.size());
+
+		//a later run finds the archived reservations
+		TieredReservationMap reopened = new TieredReservationMap(venue, directory, 1000);
+		assertEquals(19998, reopened.size());
+		assertEquals(43 % 17, reopened.get(code(43)).get(0).getId());
+		assertNull(reopened.get(code(42)));
+		int found = 0;
+		for (String code : reopened.keySet()) {
+			if (code.startsWith("C")) {
+				found++;
+			}
+		}
+		assertEquals(19998, found);
+	}
+
+	@Test
+	public void reservationsAreArchivedInTheBackground() throws IOException {
+
+		Venue venue = new Venue(10, 10);
+		List<Runnable> rotations = new ArrayList<>();
+		TieredReservationMap reservations = new TieredReservationMap(venue, folder.newFolder("archive").toPath(), 10, rotations::add);
+		for (int i = 0; i < 30; i++) {
+			reservations.put(code(i), seats(i % 10, 0, 1));
+		}
+		//nothing is archived by the puts, a single rotation is pending
+		assertEquals(30, reservations.getHotSize());
+		assertEquals(0, reservations.getArchive().size());
+		assertEquals(1, rotations.size());
+
+		rotations.remove(0).run();
+		assertEquals(30, reservations.getHotSize());
+		for (int i = 30; i < 35; i++) {
+			reservations.put(code(i), seats(0, 1, 1));
+		}
+		assertEquals(1, rotations.size());
+		rotations.remove(0).run();
+		assertEquals(30, reservations.getArchive().size());
+		assertEquals(5, reservations.getHotSize());
+		assertEquals(35, reservations.size());
+		assertEquals(1, reservations.get(code(30)).get(0).getId());
+		assertEquals(0, reservations.get(code(3)).get(0).getId());
+	}
+
+	@Test
+	public void ticketServiceWithTieredReservations() throws IOException {
+
+		Venue venue = new Venue(10, 8);
+		TieredReservationMap reservations = new TieredReservationMap(venue, folder.newFolder("tickets").toPath(), 4, Runnable::run);
+		venue.setSeatsReserved(reservations);
+		TicketServiceImpl service = new TicketServiceImpl(venue, 5000);
+		try {
+			List<String> confirmationCodes = new ArrayList<>();
+			SeatHold group = service.findAndHoldGroupSeats(20, "group@yahoo.com");
+			confirmationCodes.add(service.reserveSeats(group.getSeatHoldId(), "group@yahoo.com"));
+			for (int i = 0; i < 10; i++) {
+				SeatHold seatHold = service.findAndHoldSeats(2, "user@yahoo.com");
+				confirmationCodes.add(service.reserveSeats(seatHold.getSeatHoldId(), "user@yahoo.com"));
+			}
+			assertTrue(reservations.getArchive().size() > 0);
+			assertEquals(20, service.getReservedSeats(confirmationCodes.get(0)).size());
+			assertEquals(group.getSeatsHeld().get(19).getId(), service.getReservedSeats(confirmationCodes.get(0)).get(19).getId());
+
+			assertEquals(1, service.cancelReservations(Collections.singletonList(confirmationCodes.get(0))));
+			assertEquals(1, service.cancelReservations(Collections.singletonList(confirmationCodes.get(10))));
+			assertEquals(80 - 18, service.numSeatsAvailable());
+			try {
+				service.getReservedSeats(confirmationCodes.get(0));
+				Assert.fail("Exception expected");
+			} catch (ApplicationException e) {
+				//cancelled
+			}
+		} catch (ApplicationException e) {
+			Assert.fail("Unexpected error occured");
+		} finally {
+			service.shutdown();
+		}
+	}
+
+	@Test
+	public void repeatedCodesAndUnfinishedSegmentsSurviveARestart() throws IOException {
+
+		Venue venue = new Venue(10, 10);
+		Path directory = folder.newFolder("archive").toPath();
+		ReservationArchive archive = new ReservationArchive(directory, venue);
+		//the same reservations flushed again, e.g. by a restart in the middle of a flush
+		for (int round = 0; round < 9; round++) {
+			archive.append(Collections.singletonMap(7L, seats(1, round, 2)));
+			archive.append(Collections.<Long, List<Seat>>singletonMap(8L + round, seats(2, 0, 1)));
+		}
+		//segments holding the same code were merged
+		assertTrue(archive.getSegmentCount() < 9);
+		assertEquals(8, archive.get(7L).get(0).getId());
+		assertEquals(10, archive.size());
+
+		//a cancelled reservation does not come back from an older copy
+		archive.append(Collections.singletonMap(9L, seats(3, 0, 1)));
+		assertEquals(1, archive.remove(9L).size());
+		assertNull(archive.get(9L));
+
+		//a segment cut short by a crash is thrown away when the archive is opened again
+		Path unfinished = directory.resolve("reservations-99.seg.tmp");
+		Files.write(unfinished, new byte[64]);
+		archive = new ReservationArchive(directory, venue);
+		assertFalse(Files.exists(unfinished));
+		assertEquals(8, archive.get(7L).get(0).getId());
+		assertNull(archive.get(9L));
+		assertEquals(9, archive.size());
+	}
+
+}
@@ -0,0 +1,100 @@
+package com.walmart.ticketservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.walmart.ticketservice.common.time.ScheduledTask;
+import com.walmart.ticketservice.common.time.VirtualTimeSource;
+import com.walmart.ticketservice.exception.ApplicationException;
+import com.walmart.ticketservice.model.SeatHold;
+import com.walmart.ticketservice.model.Venue;
+import com.walmart.ticketservice.service.BlockHoldIdGenerator;
+import com.walmart.ticketservice.service.TicketServiceImpl;
+
+/**
+ * Tests for seat hold expiry on a virtual clock
+ * @author bkulkar
+ *
+ */
+public class VirtualTimeTest {
+
+	@Test
+	public void periodicTasksRunAtTheirDueTimes() {
+		VirtualTimeSource clock = new VirtualTimeSource(0);
+		List<String> runs = new ArrayList<>();
+		clock.schedulePeriodic("fast", () -> runs.add("fast@" + clock.currentTimeMillis()), 300);
+		ScheduledTask slow = clock.schedulePeriodic("slow", () -> runs.add("slow@" + clock.currentTimeMillis()), 500);
+
+		clock.advance(1000);
+		assertEquals("[fast@0, slow@0, fast@300, slow@500, fast@600, fast@900, slow@1000]", runs.toString());
+		assertEquals(1000, clock.currentTimeMillis());
+
+		slow.cancel();
+		runs.clear();
+		clock.advance(200);
+		assertEquals("[fast@1200]", runs.toString());
+		assertEquals(1, clock.getScheduledTasks());
+	}
+
+	@Test
+	public void holdsExpireOnTheVirtualClock() {
+		VirtualTimeSource clock = new VirtualTimeSource(1_000_000);
+		TicketServiceImpl service = new TicketServiceImpl(new Venue(5, 10), 60_000, 600_000, new BlockHoldIdGenerator(), clock);
+		try {
+			SeatHold expiring = service.findAndHoldSeats(4, "user@yahoo.com");
+			SeatHold extended = service.findAndHoldSeats(4, "user@yahoo.com");
+			assertEquals(1_000_000, expiring.getTimeCreated());
+
+			clock.advance(30_000);
+			service.extendHold(extended.getSeatHoldId(), "user@yahoo.com", 60_000);
+			clock.advance(30_000);
+			assertEquals(46, service.numSeatsAvailable());
+			assertTrue(service.getCurrentSeatHolds().containsKey(extended.getSeatHoldId()));
+
+			assertNotNull(service.reserveSeats(extended.getSeatHoldId(), "user@yahoo.com"));
+			try {
+				service.reserveSeats(expiring.getSeatHoldId(), "user@yahoo.com");
+				Assert.fail("Exception expected");
+			} catch (ApplicationException e) {
+				//seat hold expired
+			}
+		} catch (ApplicationException e) {
+			Assert.fail("Unexpected error occured");
+		} finally {
+			service.shutdown();
+		}
+	}
+
+	@Test
+	public void dayOfOnSaleTraffic() {
+		VirtualTimeSource clock = new VirtualTimeSource(0);
+		TicketServiceImpl service = new TicketServiceImpl(new Venue(50, 40), 60_000, 600_000, new BlockHoldIdGenerator(), clock);
+		int held = 0;
+		try {
+			//a hold every virtual second for a day, none of them reserved
+			for (int second = 0; second < 24 * 60 * 60; second++) {
+				if (service.findAndHoldSeats(1 + second % 4, "customer" + second % 100 + "@yahoo.com") != null) {
+					held++;
+				}
+				clock.advance(1000);
+			}
+			clock.advance(61_000);
+		} catch (ApplicationException e) {
+			Assert.fail("Unexpected error occured");
+		} finally {
+			service.shutdown();
+		}
+		assertEquals(24 * 60 * 60, held);
+		assertEquals(2000, service.numSeatsAvailable());
+		assertEquals(0, service.getCurrentSeatHolds().size());
+		assertEquals(50, service.getVenue().getAvailableSeatRows().size());
+	}
+
+}